@@ -0,0 +1,38 @@
+package com.orama.e_commerce.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "catalog.cache")
+public class CatalogCacheProperties {
+
+  private long productMaxSize = 10_000;
+  private long pageMaxSize = 500;
+  private Duration ttl = Duration.ofMinutes(5);
+
+  public long getProductMaxSize() {
+    return productMaxSize;
+  }
+
+  public void setProductMaxSize(long productMaxSize) {
+    this.productMaxSize = productMaxSize;
+  }
+
+  public long getPageMaxSize() {
+    return pageMaxSize;
+  }
+
+  public void setPageMaxSize(long pageMaxSize) {
+    this.pageMaxSize = pageMaxSize;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+}
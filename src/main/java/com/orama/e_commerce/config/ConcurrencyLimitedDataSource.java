@@ -0,0 +1,127 @@
+package com.orama.e_commerce.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Fila justa na frente do pool. Com threads virtuais o Tomcat deixa de limitar a concorrencia, e
+// milhares de threads disputando o Hikari ao mesmo tempo viram rajada de timeouts. Com uma
+// permissao por conexao do pool, quem passa do semaforo sempre encontra conexao livre; os demais
+// esperam em FIFO (thread virtual estacionada, sem carrier preso) ate acquire-timeout.
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+  private final Semaphore permits;
+  private final int maxConcurrency;
+  private final Duration acquireTimeout;
+  private final AtomicLong rejected = new AtomicLong();
+
+  public ConcurrencyLimitedDataSource(
+      DataSource target, int maxConcurrency, Duration acquireTimeout) {
+    super(target);
+    this.permits = new Semaphore(maxConcurrency, true);
+    this.maxConcurrency = maxConcurrency;
+    this.acquireTimeout = acquireTimeout;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return releasingOnClose(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return releasingOnClose(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  // O Spring infere o destroy pelo bean exposto; sem isso o pool do Hikari nao fecharia.
+  @Override
+  public void close() throws Exception {
+    if (getTargetDataSource() instanceof AutoCloseable target) {
+      target.close();
+    }
+  }
+
+  public int maxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int available() {
+    return permits.availablePermits();
+  }
+
+  public int waiting() {
+    return permits.getQueueLength();
+  }
+
+  public long rejectedCount() {
+    return rejected.get();
+  }
+
+  private void acquire() throws SQLException {
+    try {
+      if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        rejected.incrementAndGet();
+        throw new SQLTransientConnectionException(
+            "Limite de "
+                + maxConcurrency
+                + " conexoes simultaneas atingido; espera maior que "
+                + acquireTimeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrompido aguardando conexao", e);
+    }
+  }
+
+  // close() devolve a permissao uma unica vez, mesmo que o Hibernate feche a conexao duas vezes.
+  private Connection releasingOnClose(Connection connection) {
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "close" -> {
+                    try {
+                      connection.close();
+                    } finally {
+                      if (released.compareAndSet(false, true)) {
+                        permits.release();
+                      }
+                    }
+                    yield null;
+                  }
+                  default -> {
+                    try {
+                      yield method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                      throw e.getCause();
+                    }
+                  }
+                });
+  }
+}
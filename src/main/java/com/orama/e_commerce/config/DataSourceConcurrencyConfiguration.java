@@ -0,0 +1,39 @@
+package com.orama.e_commerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Envolve o Hikari depois do bind de spring.datasource.hikari.*, entao o limite acompanha
+// maximum-pool-size sem duplicar configuracao.
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConcurrencyConfiguration {
+
+  private static final Logger log =
+      LoggerFactory.getLogger(DataSourceConcurrencyConfiguration.class);
+
+  @Bean
+  public static BeanPostProcessor dataSourceConcurrencyLimiter(
+      @Value("${database.concurrency-limit.enabled:true}") boolean enabled,
+      @Value("${database.concurrency-limit.acquire-timeout:10s}") Duration acquireTimeout) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof HikariDataSource hikari)) {
+          return bean;
+        }
+        log.info(
+            "Limitando o DataSource '{}' a {} conexoes simultaneas",
+            beanName,
+            hikari.getMaximumPoolSize());
+        return new ConcurrencyLimitedDataSource(
+            hikari, hikari.getMaximumPoolSize(), acquireTimeout);
+      }
+    };
+  }
+}
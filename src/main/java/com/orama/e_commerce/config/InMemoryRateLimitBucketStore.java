@@ -0,0 +1,52 @@
+package com.orama.e_commerce.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import java.time.Duration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Buckets por instancia num cache limitado. Um bucket parado por mais de um minuto ja esta cheio
+// de novo, entao descarta-lo apos idle-ttl (>= 1 min) nao muda nenhuma decisao.
+@Component
+@ConditionalOnProperty(
+    prefix = "rate-limit",
+    name = "store",
+    havingValue = "memory",
+    matchIfMissing = true)
+public class InMemoryRateLimitBucketStore implements RateLimitBucketStore {
+
+  private final Cache<String, Bucket> buckets;
+
+  public InMemoryRateLimitBucketStore(RateLimitProperties properties) {
+    this.buckets =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getMaxBuckets())
+            .expireAfterAccess(properties.getIdleTtl())
+            .build();
+  }
+
+  @Override
+  public Decision tryConsume(String key, int requestsPerMinute) {
+    Bucket bucket = buckets.get(key, k -> createBucket(requestsPerMinute));
+    if (bucket.tryConsume(1)) {
+      return new Decision(true, bucket.getAvailableTokens());
+    }
+    return new Decision(false, 0);
+  }
+
+  public long size() {
+    buckets.cleanUp();
+    return buckets.estimatedSize();
+  }
+
+  private Bucket createBucket(int requestsPerMinute) {
+    Bandwidth limit =
+        Bandwidth.classic(
+            requestsPerMinute, Refill.greedy(requestsPerMinute, Duration.ofMinutes(1)));
+    return Bucket.builder().addLimit(limit).build();
+  }
+}
@@ -0,0 +1,63 @@
+package com.orama.e_commerce.config;
+
+import com.orama.e_commerce.repository.RateLimitBucketRepository;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Buckets em tb_rate_limit_bucket, para o limite valer somado entre todas as instancias. Cada
+// requisicao e um unico upsert atomico, com o relogio do banco. Se o banco falhar, cai para
+// buckets locais em vez de derrubar a API: o limite passa a ser por instancia ate o banco voltar.
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "store", havingValue = "jdbc")
+public class JdbcRateLimitBucketStore implements RateLimitBucketStore {
+
+  private static final Logger log = LoggerFactory.getLogger(JdbcRateLimitBucketStore.class);
+  private static final long FALLBACK_LOG_INTERVAL_MILLIS = 60_000;
+
+  private final RateLimitBucketRepository repository;
+  private final RateLimitProperties properties;
+  private final InMemoryRateLimitBucketStore fallback;
+  private final AtomicLong lastFallbackLog = new AtomicLong();
+
+  public JdbcRateLimitBucketStore(
+      RateLimitBucketRepository repository, RateLimitProperties properties) {
+    this.repository = repository;
+    this.properties = properties;
+    this.fallback = new InMemoryRateLimitBucketStore(properties);
+  }
+
+  @Override
+  public Decision tryConsume(String key, int requestsPerMinute) {
+    try {
+      RateLimitBucketRepository.Consumption consumption =
+          repository.consume(key, requestsPerMinute, properties.getIdleTtl().toSeconds());
+      return new Decision(
+          Boolean.TRUE.equals(consumption.getAllowed()),
+          (long) Math.floor(consumption.getTokens()));
+    } catch (DataAccessException e) {
+      logFallback(e);
+      return fallback.tryConsume(key, requestsPerMinute);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rate-limit.purge-interval:5m}")
+  public void purgeExpired() {
+    int removed = repository.deleteExpired();
+    if (removed > 0) {
+      log.debug("Buckets de rate limit expirados removidos: {}", removed);
+    }
+  }
+
+  private void logFallback(DataAccessException e) {
+    long now = System.currentTimeMillis();
+    long last = lastFallbackLog.get();
+    if (now - last >= FALLBACK_LOG_INTERVAL_MILLIS && lastFallbackLog.compareAndSet(last, now)) {
+      log.warn("Rate limit no banco indisponivel, usando buckets locais: {}", e.getMessage());
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.orama.e_commerce.config;
 import com.mercadopago.MercadoPagoConfig;
 import com.mercadopago.client.order.OrderClient;
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,6 +24,24 @@ public class MercadoPagoConfiguration {
   @Value("${mercadopago.webhook-secret-required:false}")
   private boolean webhookSecretRequired;
 
+  @Value("${mercadopago.connect-timeout:3s}")
+  private Duration connectTimeout;
+
+  @Value("${mercadopago.socket-timeout:20s}")
+  private Duration socketTimeout;
+
+  @Value("${mercadopago.resilience.max-concurrent-calls:20}")
+  private int maxConnections;
+
+  @Value("${mercadopago.resilience.create-timeout:25s}")
+  private Duration createTimeout;
+
+  @Value("${mercadopago.resilience.cancel-timeout:25s}")
+  private Duration cancelTimeout;
+
+  @Value("${mercadopago.resilience.refund-timeout:25s}")
+  private Duration refundTimeout;
+
   @PostConstruct
   public void init() {
     if (accessToken == null || accessToken.isBlank()) {
@@ -43,6 +62,35 @@ public class MercadoPagoConfiguration {
               + "Todas as requisições ao endpoint de webhook serão rejeitadas. "
               + "Configure MERCADOPAGO_WEBHOOK_SECRET para habilitar o recebimento de notificações.");
     }
+
+    // Operacoes que mudam estado no gateway: com timeout menor que o do SDK, a chamada segue
+    // viva depois de desistirmos e o pagamento pode ser criado, cancelado ou estornado sem que
+    // a aplicacao saiba. A consulta fica de fora: abandona-la nao tem efeito.
+    requireAtLeastSdkTimeout("create-timeout", createTimeout);
+    requireAtLeastSdkTimeout("cancel-timeout", cancelTimeout);
+    requireAtLeastSdkTimeout("refund-timeout", refundTimeout);
+
+    // Precisa vir antes do primeiro getHttpClient(). O pool acompanha o bulkhead do
+    // ResilientPaymentGateway; connect + socket ficam abaixo dos timeouts de criacao,
+    // cancelamento e reembolso dele.
+    MercadoPagoConfig.setConnectionTimeout((int) connectTimeout.toMillis());
+    MercadoPagoConfig.setConnectionRequestTimeout((int) connectTimeout.toMillis());
+    MercadoPagoConfig.setSocketTimeout((int) socketTimeout.toMillis());
+    MercadoPagoConfig.setMaxConnections(maxConnections);
+  }
+
+  private void requireAtLeastSdkTimeout(String property, Duration timeout) {
+    Duration sdkTimeout = connectTimeout.plus(socketTimeout);
+    if (timeout.compareTo(sdkTimeout) < 0) {
+      throw new IllegalStateException(
+          "mercadopago.resilience."
+              + property
+              + " ("
+              + timeout
+              + ") deve ser maior ou igual a connect-timeout + socket-timeout ("
+              + sdkTimeout
+              + ").");
+    }
   }
 
   @Bean
@@ -0,0 +1,167 @@
+package com.orama.e_commerce.config;
+
+import com.orama.e_commerce.service.EmailOutboxDispatcher;
+import com.orama.e_commerce.service.ImageVariantWorker;
+import com.orama.e_commerce.service.OptimisticLockRetryExecutor;
+import com.orama.e_commerce.service.PaymentOutboxDispatcher;
+import com.orama.e_commerce.service.PaymentReconciliationJob;
+import com.orama.e_commerce.service.gateway.ResilientPaymentGateway;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToDoubleFunction;
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Publica no registry os contadores que os componentes ja mantem em memoria. Nada aqui roda no
+// caminho da requisicao: as funcoes so sao lidas no scrape. Os backlogs dos outboxes fazem um
+// COUNT por status (indices parciais), entao o custo acompanha o tamanho da fila, nao da tabela.
+@Configuration
+public class MetricsConfiguration {
+
+  @Bean
+  public MeterBinder paymentGatewayMetrics(ResilientPaymentGateway gateway) {
+    return registry -> {
+      gatewayCalls(registry, gateway, "success", ResilientPaymentGateway.Metrics::successful);
+      gatewayCalls(registry, gateway, "failure", ResilientPaymentGateway.Metrics::failed);
+      gatewayCalls(registry, gateway, "timeout", ResilientPaymentGateway.Metrics::timedOut);
+      gatewayCalls(registry, gateway, "rejected", ResilientPaymentGateway.Metrics::rejected);
+      gatewayCalls(
+          registry, gateway, "short_circuited", ResilientPaymentGateway.Metrics::shortCircuited);
+      Gauge.builder("payment.gateway.active", gateway, g -> g.metrics().inFlight())
+          .register(registry);
+      // 0 = CLOSED, 1 = HALF_OPEN, 2 = OPEN
+      Gauge.builder("payment.gateway.circuit.state", gateway, MetricsConfiguration::circuitState)
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder paymentOutboxMetrics(PaymentOutboxDispatcher dispatcher) {
+    return registry -> {
+      FunctionCounter.builder(
+              "payment.outbox.events", dispatcher, PaymentOutboxDispatcher::deliveredCount)
+          .tag("result", "delivered")
+          .register(registry);
+      FunctionCounter.builder(
+              "payment.outbox.events", dispatcher, PaymentOutboxDispatcher::failedCount)
+          .tag("result", "failed")
+          .register(registry);
+      Gauge.builder("payment.outbox.backlog", dispatcher, PaymentOutboxDispatcher::backlog)
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder paymentReconciliationMetrics(PaymentReconciliationJob job) {
+    return registry -> {
+      Gauge.builder(
+              "payment.reconciliation.last.run.scanned",
+              job,
+              j -> j.lastRun() == null ? 0 : j.lastRun().scanned())
+          .register(registry);
+      Gauge.builder(
+              "payment.reconciliation.last.run.errors",
+              job,
+              j -> j.lastRun() == null ? 0 : j.lastRun().errors())
+          .register(registry);
+      Gauge.builder(
+              "payment.reconciliation.last.run.duration",
+              job,
+              j -> j.lastRun() == null ? 0 : j.lastRun().duration().toMillis() / 1000.0)
+          .baseUnit("seconds")
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder optimisticLockMetrics(OptimisticLockRetryExecutor executor) {
+    return registry -> {
+      FunctionCounter.builder(
+              "optimistic.lock.conflicts", executor, OptimisticLockRetryExecutor::conflictCount)
+          .register(registry);
+      FunctionCounter.builder(
+              "optimistic.lock.exhausted", executor, OptimisticLockRetryExecutor::exhaustedCount)
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder emailOutboxMetrics(EmailOutboxDispatcher dispatcher) {
+    return registry -> {
+      FunctionCounter.builder("email.outbox.messages", dispatcher, EmailOutboxDispatcher::sentCount)
+          .tag("result", "sent")
+          .register(registry);
+      FunctionCounter.builder(
+              "email.outbox.messages", dispatcher, EmailOutboxDispatcher::failedCount)
+          .tag("result", "failed")
+          .register(registry);
+      FunctionCounter.builder("email.outbox.messages", dispatcher, EmailOutboxDispatcher::deadCount)
+          .tag("result", "dead")
+          .register(registry);
+      Gauge.builder("email.outbox.backlog", dispatcher, EmailOutboxDispatcher::backlog)
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder imageVariantMetrics(ImageVariantWorker worker) {
+    return registry -> {
+      FunctionCounter.builder("image.variants", worker, ImageVariantWorker::generatedCount)
+          .tag("result", "generated")
+          .register(registry);
+      FunctionCounter.builder("image.variants", worker, ImageVariantWorker::failedCount)
+          .tag("result", "failed")
+          .register(registry);
+      Gauge.builder("image.variants.queue", worker, ImageVariantWorker::queueSize)
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder rateLimitStoreMetrics(RateLimitBucketStore store) {
+    return registry -> {
+      if (store instanceof InMemoryRateLimitBucketStore memory) {
+        Gauge.builder("rate.limit.buckets", memory, InMemoryRateLimitBucketStore::size)
+            .register(registry);
+      }
+    };
+  }
+
+  @Bean
+  public MeterBinder databaseConcurrencyMetrics(DataSource dataSource) {
+    return registry -> {
+      if (dataSource instanceof ConcurrencyLimitedDataSource limited) {
+        Gauge.builder("db.concurrency.limit", limited, ConcurrencyLimitedDataSource::maxConcurrency)
+            .register(registry);
+        Gauge.builder("db.concurrency.available", limited, ConcurrencyLimitedDataSource::available)
+            .register(registry);
+        Gauge.builder("db.concurrency.waiting", limited, ConcurrencyLimitedDataSource::waiting)
+            .register(registry);
+        FunctionCounter.builder(
+                "db.concurrency.rejected", limited, ConcurrencyLimitedDataSource::rejectedCount)
+            .register(registry);
+      }
+    };
+  }
+
+  private static void gatewayCalls(
+      MeterRegistry registry,
+      ResilientPaymentGateway gateway,
+      String result,
+      ToDoubleFunction<ResilientPaymentGateway.Metrics> value) {
+    FunctionCounter.builder("payment.gateway.calls", gateway, g -> value.applyAsDouble(g.metrics()))
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static double circuitState(ResilientPaymentGateway gateway) {
+    return switch (gateway.metrics().circuitState()) {
+      case "OPEN" -> 2;
+      case "HALF_OPEN" -> 1;
+      default -> 0;
+    };
+  }
+}
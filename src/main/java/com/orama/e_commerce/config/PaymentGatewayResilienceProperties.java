@@ -0,0 +1,135 @@
+package com.orama.e_commerce.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "mercadopago.resilience")
+public class PaymentGatewayResilienceProperties {
+
+  // Criar, cancelar e reembolsar mudam estado no gateway: o timeout fica acima de connect +
+  // socket do SDK, porque cancelar a future nao aborta o HTTP e desistir antes do SDK so troca
+  // uma resposta conhecida por um resultado desconhecido. Consulta nao muda nada e pode
+  // desistir antes.
+  private Duration createTimeout = Duration.ofSeconds(25);
+  private Duration queryTimeout = Duration.ofSeconds(4);
+  private Duration cancelTimeout = Duration.ofSeconds(25);
+  private Duration refundTimeout = Duration.ofSeconds(25);
+
+  private int maxConcurrentCalls = 20;
+  private Duration maxWaitForPermit = Duration.ofMillis(200);
+
+  private int slidingWindowSize = 20;
+  private int minimumCalls = 10;
+  private int failureRateThreshold = 50;
+  // Consulta, cancelamento e reembolso usam slowCallThreshold; criacao tem o seu.
+  private Duration slowCallThreshold = Duration.ofSeconds(3);
+  private Duration createSlowCallThreshold = Duration.ofSeconds(15);
+  private Duration openDuration = Duration.ofSeconds(30);
+  private int halfOpenProbes = 3;
+
+  public Duration getCreateTimeout() {
+    return createTimeout;
+  }
+
+  public void setCreateTimeout(Duration createTimeout) {
+    this.createTimeout = createTimeout;
+  }
+
+  public Duration getQueryTimeout() {
+    return queryTimeout;
+  }
+
+  public void setQueryTimeout(Duration queryTimeout) {
+    this.queryTimeout = queryTimeout;
+  }
+
+  public Duration getCancelTimeout() {
+    return cancelTimeout;
+  }
+
+  public void setCancelTimeout(Duration cancelTimeout) {
+    this.cancelTimeout = cancelTimeout;
+  }
+
+  public Duration getRefundTimeout() {
+    return refundTimeout;
+  }
+
+  public void setRefundTimeout(Duration refundTimeout) {
+    this.refundTimeout = refundTimeout;
+  }
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  public Duration getMaxWaitForPermit() {
+    return maxWaitForPermit;
+  }
+
+  public void setMaxWaitForPermit(Duration maxWaitForPermit) {
+    this.maxWaitForPermit = maxWaitForPermit;
+  }
+
+  public int getSlidingWindowSize() {
+    return slidingWindowSize;
+  }
+
+  public void setSlidingWindowSize(int slidingWindowSize) {
+    this.slidingWindowSize = slidingWindowSize;
+  }
+
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  public void setMinimumCalls(int minimumCalls) {
+    this.minimumCalls = minimumCalls;
+  }
+
+  public int getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public void setFailureRateThreshold(int failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  public Duration getSlowCallThreshold() {
+    return slowCallThreshold;
+  }
+
+  public void setSlowCallThreshold(Duration slowCallThreshold) {
+    this.slowCallThreshold = slowCallThreshold;
+  }
+
+  public Duration getCreateSlowCallThreshold() {
+    return createSlowCallThreshold;
+  }
+
+  public void setCreateSlowCallThreshold(Duration createSlowCallThreshold) {
+    this.createSlowCallThreshold = createSlowCallThreshold;
+  }
+
+  public Duration getOpenDuration() {
+    return openDuration;
+  }
+
+  public void setOpenDuration(Duration openDuration) {
+    this.openDuration = openDuration;
+  }
+
+  public int getHalfOpenProbes() {
+    return halfOpenProbes;
+  }
+
+  public void setHalfOpenProbes(int halfOpenProbes) {
+    this.halfOpenProbes = halfOpenProbes;
+  }
+}
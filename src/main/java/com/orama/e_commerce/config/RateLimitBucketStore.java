@@ -0,0 +1,10 @@
+package com.orama.e_commerce.config;
+
+// Onde ficam os buckets do rate limit: em memoria (por instancia) ou no Postgres (compartilhado
+// entre instancias). Cada chamada consome um token; requestsPerMinute e a capacidade e a recarga.
+public interface RateLimitBucketStore {
+
+  Decision tryConsume(String key, int requestsPerMinute);
+
+  record Decision(boolean allowed, long remaining) {}
+}
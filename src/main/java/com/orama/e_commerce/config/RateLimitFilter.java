@@ -1,16 +1,12 @@
 package com.orama.e_commerce.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,11 +14,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
 
-  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
   private final RateLimitProperties rateLimitProperties;
-
-  public RateLimitFilter(RateLimitProperties rateLimitProperties) {
+  private final RateLimitBucketStore bucketStore;
+  private final RateLimitRuleMatcher ruleMatcher;
+  private final MeterRegistry meterRegistry;
+
+  public RateLimitFilter(
+      RateLimitProperties rateLimitProperties,
+      RateLimitBucketStore bucketStore,
+      MeterRegistry meterRegistry) {
     this.rateLimitProperties = rateLimitProperties;
+    this.bucketStore = bucketStore;
+    this.meterRegistry = meterRegistry;
+    this.ruleMatcher =
+        new RateLimitRuleMatcher(
+            rateLimitProperties.getEndpoints(), rateLimitProperties.getDefaultRequestsPerMinute());
   }
 
   @Override
@@ -31,17 +37,24 @@ public class RateLimitFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
 
     String clientIp = getClientIp(request);
-    String endpoint = getEndpointKey(request);
-    EndpointRule endpointRule = resolveEndpointRule(endpoint);
-    String bucketKey = clientIp + ":" + endpointRule.bucketKey();
+    RateLimitRuleMatcher.Rule rule =
+        ruleMatcher.match(request.getMethod(), request.getRequestURI());
+    String bucketKey = clientIp + ":" + rule.key();
 
-    Bucket bucket =
-        buckets.computeIfAbsent(bucketKey, k -> createBucket(endpointRule.requestsPerMinute()));
+    RateLimitBucketStore.Decision decision =
+        bucketStore.tryConsume(bucketKey, rule.requestsPerMinute());
 
-    if (bucket.tryConsume(1)) {
-      response.setHeader("X-Rate-Limit-Remaining", String.valueOf(bucket.getAvailableTokens()));
+    if (decision.allowed()) {
+      response.setHeader("X-Rate-Limit-Remaining", String.valueOf(decision.remaining()));
       filterChain.doFilter(request, response);
     } else {
+      // Rotas sem regra propria viram "default": template de path inventado nao vira serie nova.
+      String ruleTag =
+          rateLimitProperties.getEndpoints().containsKey(rule.key()) ? rule.key() : "default";
+      Counter.builder("rate.limit.rejections")
+          .tag("rule", ruleTag)
+          .register(meterRegistry)
+          .increment();
       response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
       response.setContentType("application/json");
       response.setHeader("X-Rate-Limit-Remaining", "0");
@@ -51,39 +64,6 @@ public class RateLimitFilter extends OncePerRequestFilter {
     }
   }
 
-  private EndpointRule resolveEndpointRule(String endpoint) {
-    Map<String, RateLimitProperties.EndpointLimit> endpoints = rateLimitProperties.getEndpoints();
-
-    for (Map.Entry<String, RateLimitProperties.EndpointLimit> entry : endpoints.entrySet()) {
-      if (matchesEndpoint(endpoint, entry.getKey())) {
-        return new EndpointRule(entry.getKey(), entry.getValue().getRequestsPerMinute());
-      }
-    }
-
-    return new EndpointRule(endpoint, rateLimitProperties.getDefaultRequestsPerMinute());
-  }
-
-  private boolean matchesEndpoint(String endpoint, String pattern) {
-    if (pattern.endsWith("/**")) {
-      String prefix = pattern.substring(0, pattern.length() - 3);
-      return endpoint.startsWith(prefix + "/");
-    }
-    return endpoint.equals(pattern);
-  }
-
-  private String getEndpointKey(HttpServletRequest request) {
-    String method = request.getMethod();
-    String uri = request.getRequestURI();
-    return method + ":" + uri;
-  }
-
-  private Bucket createBucket(int requestsPerMinute) {
-    Bandwidth limit =
-        Bandwidth.classic(
-            requestsPerMinute, Refill.greedy(requestsPerMinute, Duration.ofMinutes(1)));
-    return Bucket.builder().addLimit(limit).build();
-  }
-
   private String getClientIp(HttpServletRequest request) {
     String xForwardedFor = request.getHeader("X-Forwarded-For");
     if (rateLimitProperties.isTrustXForwardedFor()
@@ -93,6 +73,4 @@ public class RateLimitFilter extends OncePerRequestFilter {
     }
     return request.getRemoteAddr();
   }
-
-  private record EndpointRule(String bucketKey, int requestsPerMinute) {}
 }
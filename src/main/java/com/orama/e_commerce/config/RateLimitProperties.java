@@ -1,5 +1,6 @@
 package com.orama.e_commerce.config;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -12,6 +13,8 @@ public class RateLimitProperties {
   private int defaultRequestsPerMinute = 60;
   private Map<String, EndpointLimit> endpoints = new HashMap<>();
   private boolean trustXForwardedFor = false;
+  private long maxBuckets = 100_000;
+  private Duration idleTtl = Duration.ofMinutes(2);
 
   public int getDefaultRequestsPerMinute() {
     return defaultRequestsPerMinute;
@@ -37,6 +40,22 @@ public class RateLimitProperties {
     this.trustXForwardedFor = trustXForwardedFor;
   }
 
+  public long getMaxBuckets() {
+    return maxBuckets;
+  }
+
+  public void setMaxBuckets(long maxBuckets) {
+    this.maxBuckets = maxBuckets;
+  }
+
+  public Duration getIdleTtl() {
+    return idleTtl;
+  }
+
+  public void setIdleTtl(Duration idleTtl) {
+    this.idleTtl = idleTtl;
+  }
+
   public static class EndpointLimit {
     private int requestsPerMinute;
 
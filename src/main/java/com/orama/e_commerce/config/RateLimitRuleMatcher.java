@@ -0,0 +1,137 @@
+package com.orama.e_commerce.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Regras de rate limit compiladas uma vez numa arvore de segmentos por metodo HTTP: a busca custa
+// O(segmentos do path) em vez de varrer todos os padroes a cada requisicao. Segmento literal
+// vence "*"/"{var}", que vence "/**"; entre dois "/**" vence o mais profundo.
+final class RateLimitRuleMatcher {
+
+  static final String ID_SEGMENT = "{id}";
+
+  // Path sem regra vira template: ids e lixo longo colapsam, e o numero de segmentos e limitado,
+  // para que /api/products/1..999999 (ou um crawler inventando caminhos) caiam num bucket so.
+  private static final int MAX_TEMPLATE_SEGMENTS = 8;
+  private static final int MAX_LITERAL_SEGMENT_LENGTH = 40;
+
+  record Rule(String key, int requestsPerMinute) {}
+
+  private static final class Node {
+    private final Map<String, Node> literals = new HashMap<>();
+    private Node wildcard;
+    private Rule exact;
+    private Rule descendants;
+  }
+
+  private final Map<String, Node> roots = new HashMap<>();
+  private final int defaultRequestsPerMinute;
+
+  RateLimitRuleMatcher(
+      Map<String, RateLimitProperties.EndpointLimit> endpoints, int defaultRequestsPerMinute) {
+    this.defaultRequestsPerMinute = defaultRequestsPerMinute;
+    endpoints.forEach((pattern, limit) -> add(pattern, limit.getRequestsPerMinute()));
+  }
+
+  Rule match(String method, String path) {
+    List<String> segments = segments(path);
+    Node root = roots.get(method.toUpperCase(Locale.ROOT));
+    Rule rule = root == null ? null : match(root, segments, 0);
+    if (rule != null) {
+      return rule;
+    }
+    return new Rule(method + ":" + template(segments), defaultRequestsPerMinute);
+  }
+
+  private void add(String pattern, int requestsPerMinute) {
+    int colon = pattern.indexOf(':');
+    if (colon <= 0) {
+      throw new IllegalArgumentException(
+          "Padrao de rate limit invalido (esperado METODO:/caminho): " + pattern);
+    }
+    Node node =
+        roots.computeIfAbsent(
+            pattern.substring(0, colon).toUpperCase(Locale.ROOT), method -> new Node());
+    Rule rule = new Rule(pattern, requestsPerMinute);
+
+    List<String> segments = segments(pattern.substring(colon + 1));
+    for (int i = 0; i < segments.size(); i++) {
+      String segment = segments.get(i);
+      if (segment.equals("**") && i == segments.size() - 1) {
+        node.descendants = rule;
+        return;
+      }
+      if (isWildcard(segment)) {
+        if (node.wildcard == null) {
+          node.wildcard = new Node();
+        }
+        node = node.wildcard;
+      } else {
+        node = node.literals.computeIfAbsent(segment, s -> new Node());
+      }
+    }
+    node.exact = rule;
+  }
+
+  // "/**" so cobre o que vem abaixo do prefixo, nunca o proprio prefixo.
+  private static Rule match(Node node, List<String> segments, int index) {
+    if (index == segments.size()) {
+      return node.exact;
+    }
+    Rule rule = null;
+    Node literal = node.literals.get(segments.get(index));
+    if (literal != null) {
+      rule = match(literal, segments, index + 1);
+    }
+    if (rule == null && node.wildcard != null) {
+      rule = match(node.wildcard, segments, index + 1);
+    }
+    return rule != null ? rule : node.descendants;
+  }
+
+  private static String template(List<String> segments) {
+    if (segments.isEmpty()) {
+      return "/";
+    }
+    StringBuilder template = new StringBuilder();
+    int limit = Math.min(segments.size(), MAX_TEMPLATE_SEGMENTS);
+    for (int i = 0; i < limit; i++) {
+      String segment = segments.get(i);
+      template.append('/').append(looksLikeId(segment) ? ID_SEGMENT : segment);
+    }
+    if (segments.size() > MAX_TEMPLATE_SEGMENTS) {
+      template.append("/**");
+    }
+    return template.toString();
+  }
+
+  // Nenhum segmento literal das rotas da API tem digito; ids, CEPs, UUIDs e numeros de pedido tem.
+  private static boolean looksLikeId(String segment) {
+    if (segment.length() > MAX_LITERAL_SEGMENT_LENGTH) {
+      return true;
+    }
+    for (int i = 0; i < segment.length(); i++) {
+      if (Character.isDigit(segment.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isWildcard(String segment) {
+    return segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"));
+  }
+
+  private static List<String> segments(String path) {
+    List<String> segments = new ArrayList<>();
+    for (String segment : path.split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(segment);
+      }
+    }
+    return segments;
+  }
+}
@@ -2,18 +2,25 @@ package com.orama.e_commerce.controller;
 
 import com.orama.e_commerce.dtos.custom_order.CreateCustomOrderRequestDto;
 import com.orama.e_commerce.dtos.custom_order.CustomOrderResponseDto;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
+import com.orama.e_commerce.dtos.pagination.CursorPageResponseDto;
 import com.orama.e_commerce.enums.CustomOrderStatus;
+import com.orama.e_commerce.enums.ExportFormat;
 import com.orama.e_commerce.service.CustomOrderService;
+import com.orama.e_commerce.service.ListingExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/custom-orders")
@@ -21,9 +28,12 @@ import org.springframework.web.multipart.MultipartFile;
 public class CustomOrderController {
 
   private final CustomOrderService customOrderService;
+  private final ListingExportService listingExportService;
 
-  public CustomOrderController(CustomOrderService customOrderService) {
+  public CustomOrderController(
+      CustomOrderService customOrderService, ListingExportService listingExportService) {
     this.customOrderService = customOrderService;
+    this.listingExportService = listingExportService;
   }
 
   @PreAuthorize("#clientId == authentication.details['id'] or hasRole('ADMIN')")
@@ -53,12 +63,40 @@ public class CustomOrderController {
 
   @PreAuthorize("hasRole('ADMIN')")
   @GetMapping
-  @Operation(summary = "Lista todos os pedidos personalizados")
-  public ResponseEntity<List<CustomOrderResponseDto>> getAll() {
-    List<CustomOrderResponseDto> orders = customOrderService.getAllOrders();
+  @Operation(summary = "Lista todos os pedidos personalizados, com filtros opcionais")
+  public ResponseEntity<CursorPageResponseDto<CustomOrderResponseDto>> getAll(
+      @RequestParam(required = false) CustomOrderStatus status,
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(required = false) Long clientId,
+      @RequestParam(required = false) Long cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    CursorPageResponseDto<CustomOrderResponseDto> orders =
+        customOrderService.getAllOrders(
+            new CustomOrderSearchFilter(status, from, to, clientId), cursor, size);
     return ResponseEntity.ok(orders);
   }
 
+  @PreAuthorize("hasRole('ADMIN')")
+  @GetMapping("/export")
+  @Operation(summary = "Exporta os pedidos personalizados filtrados em CSV ou NDJSON")
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam(required = false) CustomOrderStatus status,
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(required = false) Long clientId,
+      @RequestParam(defaultValue = "CSV") ExportFormat format) {
+    CustomOrderSearchFilter filter = new CustomOrderSearchFilter(status, from, to, clientId);
+    StreamingResponseBody body =
+        output -> listingExportService.exportCustomOrders(filter, format, output);
+    return ResponseEntity.ok()
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"pedidos-personalizados." + format.getExtension() + "\"")
+        .contentType(MediaType.parseMediaType(format.getContentType()))
+        .body(body);
+  }
+
   @PreAuthorize("hasRole('ADMIN')")
   @PatchMapping("/{id}/status")
   @Operation(summary = "Atualiza o status do pedido personalizado")
@@ -1,17 +1,27 @@
 package com.orama.e_commerce.controller;
 
+import com.orama.e_commerce.dtos.order.CheckoutQuoteRequestDto;
+import com.orama.e_commerce.dtos.order.CheckoutQuoteResponseDto;
 import com.orama.e_commerce.dtos.order.CreateOrderRequestDto;
 import com.orama.e_commerce.dtos.order.OrderResponseDto;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import com.orama.e_commerce.dtos.pagination.CursorPageResponseDto;
+import com.orama.e_commerce.enums.ExportFormat;
 import com.orama.e_commerce.enums.OrderStatus;
+import com.orama.e_commerce.service.CheckoutQuoteService;
+import com.orama.e_commerce.service.ListingExportService;
 import com.orama.e_commerce.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.time.Instant;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -19,9 +29,26 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
   private final OrderService orderService;
+  private final CheckoutQuoteService checkoutQuoteService;
+  private final ListingExportService listingExportService;
 
-  public OrderController(OrderService orderService) {
+  public OrderController(
+      OrderService orderService,
+      CheckoutQuoteService checkoutQuoteService,
+      ListingExportService listingExportService) {
     this.orderService = orderService;
+    this.checkoutQuoteService = checkoutQuoteService;
+    this.listingExportService = listingExportService;
+  }
+
+  @PreAuthorize("authentication.details['id'] != null")
+  @PostMapping("/quote")
+  @Operation(summary = "Cota o checkout do carrinho ativo (subtotal, frete, desconto e total)")
+  public ResponseEntity<CheckoutQuoteResponseDto> quote(
+      @Valid @RequestBody CheckoutQuoteRequestDto requestDto) {
+    CheckoutQuoteResponseDto dto =
+        checkoutQuoteService.quote(getAuthenticatedClientId(), requestDto);
+    return ResponseEntity.ok(dto);
   }
 
   @PreAuthorize("authentication.details['id'] != null")
@@ -43,17 +70,48 @@ public class OrderController {
 
   @PreAuthorize("hasRole('ADMIN')")
   @GetMapping
-  @Operation(summary = "Lista todos os pedidos")
-  public ResponseEntity<List<OrderResponseDto>> getAllOrders() {
-    List<OrderResponseDto> orders = orderService.getAllOrders();
+  @Operation(summary = "Lista todos os pedidos, com filtros opcionais")
+  public ResponseEntity<CursorPageResponseDto<OrderResponseDto>> getAllOrders(
+      @RequestParam(required = false) OrderStatus status,
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(required = false) Long clientId,
+      @RequestParam(required = false) Long cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    CursorPageResponseDto<OrderResponseDto> orders =
+        orderService.getAllOrders(new OrderSearchFilter(status, from, to, clientId), cursor, size);
     return ResponseEntity.ok(orders);
   }
 
+  @PreAuthorize("hasRole('ADMIN')")
+  @GetMapping("/export")
+  @Operation(summary = "Exporta os pedidos filtrados em CSV ou NDJSON")
+  public ResponseEntity<StreamingResponseBody> exportOrders(
+      @RequestParam(required = false) OrderStatus status,
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(required = false) Long clientId,
+      @RequestParam(defaultValue = "CSV") ExportFormat format) {
+    OrderSearchFilter filter = new OrderSearchFilter(status, from, to, clientId);
+    StreamingResponseBody body =
+        output -> listingExportService.exportOrders(filter, format, output);
+    return ResponseEntity.ok()
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"pedidos." + format.getExtension() + "\"")
+        .contentType(MediaType.parseMediaType(format.getContentType()))
+        .body(body);
+  }
+
   @PreAuthorize("#clientId == authentication.details['id'] or hasRole('ADMIN')")
   @GetMapping("/client/{clientId}")
   @Operation(summary = "Lista pedidos de um cliente")
-  public ResponseEntity<List<OrderResponseDto>> getOrdersByClient(@PathVariable Long clientId) {
-    List<OrderResponseDto> orders = orderService.getOrdersByClient(clientId);
+  public ResponseEntity<CursorPageResponseDto<OrderResponseDto>> getOrdersByClient(
+      @PathVariable Long clientId,
+      @RequestParam(required = false) Long cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    CursorPageResponseDto<OrderResponseDto> orders =
+        orderService.getOrdersByClient(clientId, cursor, size);
     return ResponseEntity.ok(orders);
   }
 
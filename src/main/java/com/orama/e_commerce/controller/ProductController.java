@@ -5,6 +5,7 @@ import com.orama.e_commerce.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -45,6 +46,13 @@ public class ProductController {
     return new ResponseEntity<>(page, HttpStatus.OK);
   }
 
+  @PreAuthorize("hasRole('ADMIN')")
+  @GetMapping("/cache/stats")
+  @Operation(summary = "Estatisticas do cache de catalogo")
+  public ResponseEntity<List<ProductCacheStatsDto>> getCacheStats() {
+    return ResponseEntity.ok(productService.getCacheStats());
+  }
+
   @GetMapping("/name")
   @Operation(summary = "Busca produtos pelo nome")
   public ResponseEntity<Page<ProductResponseDto>> findAllByName(
@@ -23,7 +23,8 @@ public class ShippingController {
   @PostMapping("/calculate")
   public ResponseEntity<ShippingCalculateResponseDto> calculate(
       @Valid @RequestBody ShippingCalculateRequestDto request) {
-    ShippingCalculateResponseDto response = shippingService.calculateShipping(request.zipCode());
+    ShippingCalculateResponseDto response =
+        shippingService.calculateShipping(request.zipCode(), request.orderValue());
     return ResponseEntity.ok(response);
   }
 }
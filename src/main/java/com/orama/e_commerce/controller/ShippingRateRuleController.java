@@ -0,0 +1,56 @@
+package com.orama.e_commerce.controller;
+
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleRequestDto;
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleResponseDto;
+import com.orama.e_commerce.service.ShippingRateRuleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/shipping-rates")
+@Tag(name = "Regras de Frete")
+public class ShippingRateRuleController {
+
+  private final ShippingRateRuleService shippingRateRuleService;
+
+  public ShippingRateRuleController(ShippingRateRuleService shippingRateRuleService) {
+    this.shippingRateRuleService = shippingRateRuleService;
+  }
+
+  @PreAuthorize("hasRole('ADMIN')")
+  @GetMapping
+  @Operation(summary = "Lista as regras de frete em ordem de prioridade")
+  public ResponseEntity<List<ShippingRateRuleResponseDto>> findAll() {
+    return ResponseEntity.ok(shippingRateRuleService.getAll());
+  }
+
+  @PreAuthorize("hasRole('ADMIN')")
+  @PostMapping
+  @Operation(summary = "Cria uma regra de frete")
+  public ResponseEntity<ShippingRateRuleResponseDto> create(
+      @Valid @RequestBody ShippingRateRuleRequestDto dto) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(shippingRateRuleService.create(dto));
+  }
+
+  @PreAuthorize("hasRole('ADMIN')")
+  @PutMapping("/{id}")
+  @Operation(summary = "Atualiza uma regra de frete")
+  public ResponseEntity<ShippingRateRuleResponseDto> update(
+      @PathVariable Long id, @Valid @RequestBody ShippingRateRuleRequestDto dto) {
+    return ResponseEntity.ok(shippingRateRuleService.update(id, dto));
+  }
+
+  @PreAuthorize("hasRole('ADMIN')")
+  @DeleteMapping("/{id}")
+  @Operation(summary = "Remove uma regra de frete")
+  public ResponseEntity<Void> delete(@PathVariable Long id) {
+    shippingRateRuleService.delete(id);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -0,0 +1,28 @@
+package com.orama.e_commerce.dtos.custom_order;
+
+import com.orama.e_commerce.enums.*;
+import java.time.Instant;
+
+// Projecao da listagem de pedidos personalizados, sem os detalhes de logo.
+public record CustomOrderListingRow(
+    Long id,
+    String orderNumber,
+    Long clientId,
+    String clientName,
+    CapLine capLine,
+    CapModel capModel,
+    CapMaterial capMaterial,
+    Boolean laserCut,
+    Boolean fullLaserCut,
+    StrapType strapType,
+    String colorFront,
+    String colorMesh,
+    String colorBrim,
+    String colorBrimLining,
+    Integer quantity,
+    String logoUrl,
+    String previewImageUrl,
+    String layoutImageUrl,
+    String observations,
+    CustomOrderStatus status,
+    Instant createdAt) {}
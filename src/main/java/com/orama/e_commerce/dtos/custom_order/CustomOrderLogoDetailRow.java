@@ -0,0 +1,7 @@
+package com.orama.e_commerce.dtos.custom_order;
+
+import com.orama.e_commerce.enums.LogoPosition;
+import com.orama.e_commerce.enums.LogoTechnique;
+
+public record CustomOrderLogoDetailRow(
+    Long customOrderId, LogoPosition position, LogoTechnique technique) {}
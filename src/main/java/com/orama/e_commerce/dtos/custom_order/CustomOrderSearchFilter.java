@@ -0,0 +1,8 @@
+package com.orama.e_commerce.dtos.custom_order;
+
+import com.orama.e_commerce.enums.CustomOrderStatus;
+import java.time.Instant;
+
+// Filtros opcionais da listagem administrativa; from e inclusivo, to e exclusivo.
+public record CustomOrderSearchFilter(
+    CustomOrderStatus status, Instant from, Instant to, Long clientId) {}
@@ -1,3 +1,4 @@
 package com.orama.e_commerce.dtos.media;
 
-public record MediaLibraryResponseDto(Long id, String url, String filename) {}
+public record MediaLibraryResponseDto(
+    Long id, String url, String filename, String srcset, String webpSrcset) {}
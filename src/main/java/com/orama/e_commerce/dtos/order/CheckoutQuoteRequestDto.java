@@ -0,0 +1,9 @@
+package com.orama.e_commerce.dtos.order;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.math.BigDecimal;
+
+public record CheckoutQuoteRequestDto(
+    @NotBlank(message = "CEP é obrigatório") String zipCode,
+    @PositiveOrZero(message = "Desconto deve ser zero ou positivo") BigDecimal discount) {}
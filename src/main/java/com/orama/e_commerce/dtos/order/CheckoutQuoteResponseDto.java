@@ -0,0 +1,16 @@
+package com.orama.e_commerce.dtos.order;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+public record CheckoutQuoteResponseDto(
+    Long cartId,
+    List<OrderItemDto> items,
+    BigDecimal subtotal,
+    BigDecimal discount,
+    BigDecimal shippingCost,
+    boolean freeShipping,
+    BigDecimal total,
+    String quoteToken,
+    Instant expiresAt) {}
@@ -12,4 +12,5 @@ public record CreateOrderRequestDto(
         Long cartId,
     @PositiveOrZero(message = "Desconto deve ser zero ou positivo") BigDecimal discount,
     @NotBlank(message = "CEP é obrigatório") String zipCode,
-    @Positive(message = "ID do endereço deve ser positivo") Long deliveryAddressId) {}
+    @Positive(message = "ID do endereço deve ser positivo") Long deliveryAddressId,
+    String quoteToken) {}
@@ -0,0 +1,6 @@
+package com.orama.e_commerce.dtos.order;
+
+import java.math.BigDecimal;
+
+public record OrderItemRow(
+    Long orderId, Long productId, String productName, Integer quantity, BigDecimal unitPrice) {}
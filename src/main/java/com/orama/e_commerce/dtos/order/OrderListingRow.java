@@ -0,0 +1,27 @@
+package com.orama.e_commerce.dtos.order;
+
+import com.orama.e_commerce.enums.OrderStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Projecao da listagem de pedidos: pedido, cliente e snapshot de entrega numa linha so.
+public record OrderListingRow(
+    Long id,
+    String orderNumber,
+    Instant orderDate,
+    OrderStatus status,
+    BigDecimal subtotal,
+    BigDecimal discount,
+    BigDecimal shippingCost,
+    BigDecimal total,
+    String zipCode,
+    Long clientId,
+    String clientName,
+    String paymentId,
+    String paymentMethod,
+    Long deliveryAddressId,
+    String deliveryStreet,
+    String deliveryNumber,
+    String deliveryDistrict,
+    String deliveryCity,
+    String deliveryState) {}
@@ -0,0 +1,7 @@
+package com.orama.e_commerce.dtos.order;
+
+import com.orama.e_commerce.enums.OrderStatus;
+import java.time.Instant;
+
+// Filtros opcionais da listagem administrativa; from e inclusivo, to e exclusivo.
+public record OrderSearchFilter(OrderStatus status, Instant from, Instant to, Long clientId) {}
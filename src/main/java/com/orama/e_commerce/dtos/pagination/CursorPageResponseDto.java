@@ -0,0 +1,6 @@
+package com.orama.e_commerce.dtos.pagination;
+
+import java.util.List;
+
+// Pagina por keyset: nextCursor e o id a ser enviado como cursor na proxima chamada.
+public record CursorPageResponseDto<T>(List<T> content, Long nextCursor, boolean hasNext) {}
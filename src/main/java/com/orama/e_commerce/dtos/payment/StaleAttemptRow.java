@@ -0,0 +1,6 @@
+package com.orama.e_commerce.dtos.payment;
+
+import java.time.Instant;
+
+// Linha minima da varredura de reconciliacao: sem carregar a entidade nem o pedido.
+public record StaleAttemptRow(Long id, String providerOrderId, Instant updatedAt) {}
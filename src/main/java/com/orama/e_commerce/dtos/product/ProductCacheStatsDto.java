@@ -0,0 +1,9 @@
+package com.orama.e_commerce.dtos.product;
+
+public record ProductCacheStatsDto(
+    String region,
+    long size,
+    long hitCount,
+    long missCount,
+    long evictionCount,
+    double hitRate) {}
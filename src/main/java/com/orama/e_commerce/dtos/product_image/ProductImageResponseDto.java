@@ -1,3 +1,5 @@
 package com.orama.e_commerce.dtos.product_image;
 
-public record ProductImageResponseDto(Long id, String url) {}
+// srcset: variantes redimensionadas ("url 320w, url 640w"), ou null enquanto so ha o original.
+// webpSrcset: as mesmas larguras em WebP, para o <source type="image/webp"> de um <picture>.
+public record ProductImageResponseDto(Long id, String url, String srcset, String webpSrcset) {}
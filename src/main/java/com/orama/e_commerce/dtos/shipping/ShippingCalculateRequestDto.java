@@ -1,6 +1,9 @@
 package com.orama.e_commerce.dtos.shipping;
 
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import java.math.BigDecimal;
 
 public record ShippingCalculateRequestDto(
-    @NotBlank(message = "CEP é obrigatório") String zipCode) {}
+    @NotBlank(message = "CEP é obrigatório") String zipCode,
+    @DecimalMin("0.00") BigDecimal orderValue) {}
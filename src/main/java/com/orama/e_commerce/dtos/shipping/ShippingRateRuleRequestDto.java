@@ -0,0 +1,22 @@
+package com.orama.e_commerce.dtos.shipping;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record ShippingRateRuleRequestDto(
+    @NotBlank @Size(max = 120) String name,
+    @NotBlank @Size(max = 60) String region,
+    @Pattern(regexp = "\\d{5}-?\\d{3}", message = "CEP inicial inválido") String cepStart,
+    @Pattern(regexp = "\\d{5}-?\\d{3}", message = "CEP final inválido") String cepEnd,
+    @Pattern(regexp = "[A-Za-z]{2}", message = "UF inválida") String stateUf,
+    @DecimalMin("0.00") BigDecimal minOrderValue,
+    @NotNull @DecimalMin("0.00") BigDecimal cost,
+    @NotNull Integer priority,
+    Boolean active,
+    Instant startsAt,
+    Instant endsAt) {}
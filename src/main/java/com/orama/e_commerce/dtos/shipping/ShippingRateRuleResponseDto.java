@@ -0,0 +1,20 @@
+package com.orama.e_commerce.dtos.shipping;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record ShippingRateRuleResponseDto(
+    Long id,
+    String name,
+    String region,
+    String cepStart,
+    String cepEnd,
+    String stateUf,
+    BigDecimal minOrderValue,
+    BigDecimal cost,
+    Integer priority,
+    Boolean active,
+    Instant startsAt,
+    Instant endsAt,
+    Instant createdAt,
+    Instant updatedAt) {}
@@ -0,0 +1,8 @@
+package com.orama.e_commerce.enums;
+
+public enum OutboxStatus {
+  PENDING,
+  PROCESSING,
+  DELIVERED,
+  FAILED
+}
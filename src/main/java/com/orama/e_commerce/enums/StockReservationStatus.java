@@ -0,0 +1,10 @@
+package com.orama.e_commerce.enums;
+
+public enum StockReservationStatus {
+  HELD,
+  COMMITTED,
+  RELEASED,
+  // Pagamento aprovado depois que a reserva expirou e o estoque ja tinha acabado: pedido pago sem
+  // mercadoria, precisa de reposicao ou estorno manual.
+  SHORTFALL
+}
@@ -0,0 +1,8 @@
+package com.orama.e_commerce.enums;
+
+public enum WebhookInboxStatus {
+  PENDING,
+  PROCESSING,
+  PROCESSED,
+  FAILED
+}
@@ -0,0 +1,4 @@
+package com.orama.e_commerce.events.email;
+
+// Sinaliza ao EmailOutboxDispatcher, depois do commit, que ha email novo na fila.
+public record EmailQueuedEvent(Long emailId) {}
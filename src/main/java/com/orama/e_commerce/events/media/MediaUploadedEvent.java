@@ -0,0 +1,4 @@
+package com.orama.e_commerce.events.media;
+
+// Sinaliza ao ImageVariantWorker, depois do commit, que ha midia nova para gerar variantes.
+public record MediaUploadedEvent(Long mediaId) {}
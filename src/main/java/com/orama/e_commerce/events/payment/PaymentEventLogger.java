@@ -2,16 +2,16 @@ package com.orama.e_commerce.events.payment;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.event.TransactionalEventListener;
 
+// Recebe os eventos do PaymentOutboxDispatcher, ja fora da transacao que os gravou.
 @Component
 public class PaymentEventLogger {
 
   private static final Logger log = LoggerFactory.getLogger(PaymentEventLogger.class);
 
-  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  @EventListener
   public void onApproved(PaymentApprovedEvent event) {
     try {
       log.info(
@@ -25,7 +25,7 @@ public class PaymentEventLogger {
     }
   }
 
-  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  @EventListener
   public void onFailed(PaymentFailedEvent event) {
     try {
       log.info(
@@ -0,0 +1,4 @@
+package com.orama.e_commerce.events.payment;
+
+// Sinaliza ao dispatcher do outbox, depois do commit, que ha evento novo para entregar.
+public record PaymentOutboxAppendedEvent(Long orderId) {}
@@ -0,0 +1,4 @@
+package com.orama.e_commerce.events.payment;
+
+// Sinaliza ao worker do inbox que ha notificacao nova, sem esperar o proximo poll.
+public record PaymentWebhookQueuedEvent(String dataId) {}
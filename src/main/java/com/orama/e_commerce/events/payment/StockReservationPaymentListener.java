@@ -0,0 +1,30 @@
+package com.orama.e_commerce.events.payment;
+
+import com.orama.e_commerce.service.StockReservationService;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class StockReservationPaymentListener {
+
+  private final StockReservationService stockReservationService;
+
+  public StockReservationPaymentListener(StockReservationService stockReservationService) {
+    this.stockReservationService = stockReservationService;
+  }
+
+  // Entregue pelo PaymentOutboxDispatcher, pelo menos uma vez: as transicoes sao idempotentes e
+  // uma excecao aqui faz o evento voltar para a fila do outbox.
+  @EventListener
+  @Transactional
+  public void onApproved(PaymentApprovedEvent event) {
+    stockReservationService.commit(event.orderId());
+  }
+
+  @EventListener
+  @Transactional
+  public void onFailed(PaymentFailedEvent event) {
+    stockReservationService.release(event.orderId());
+  }
+}
@@ -8,16 +8,20 @@ import com.orama.e_commerce.exceptions.client.*;
 import com.orama.e_commerce.exceptions.media.MediaLibraryNotFoundException;
 import com.orama.e_commerce.exceptions.payment.OrderOwnershipException;
 import com.orama.e_commerce.exceptions.payment.PaymentAlreadyInProgressException;
+import com.orama.e_commerce.exceptions.payment.PaymentGatewayUnavailableException;
 import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
 import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
+import com.orama.e_commerce.exceptions.product.InsufficientStockException;
 import com.orama.e_commerce.exceptions.product.ProductAlreadyActiveException;
 import com.orama.e_commerce.exceptions.product.ProductAlreadyInactiveException;
 import com.orama.e_commerce.exceptions.product.ProductNotFoundException;
 import com.orama.e_commerce.exceptions.product.StockNegativeException;
 import com.orama.e_commerce.exceptions.product_image.ProductImageNotFoundException;
+import com.orama.e_commerce.exceptions.shipping.ShippingRateRuleNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -191,6 +195,16 @@ public class GlobalExceptionHandler {
         .body(new ErrorMessage(request, HttpStatus.BAD_REQUEST, ex.getMessage()));
   }
 
+  @ExceptionHandler(InsufficientStockException.class)
+  public ResponseEntity<ErrorMessage> handleInsufficientStockException(
+      InsufficientStockException ex, HttpServletRequest request) {
+    logger.error("********** API ERROR **********", ex);
+
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.CONFLICT, ex.getMessage()));
+  }
+
   @ExceptionHandler(ProductImageNotFoundException.class)
   public ResponseEntity<ErrorMessage> handleProductImageNotFoundException(
       ProductImageNotFoundException ex, HttpServletRequest request) {
@@ -210,6 +224,15 @@ public class GlobalExceptionHandler {
         .body(new ErrorMessage(request, HttpStatus.NOT_FOUND, ex.getMessage()));
   }
 
+  @ExceptionHandler(ShippingRateRuleNotFoundException.class)
+  public ResponseEntity<ErrorMessage> handleShippingRateRuleNotFoundException(
+      ShippingRateRuleNotFoundException ex, HttpServletRequest request) {
+    logger.error("********** API ERROR **********", ex);
+    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.NOT_FOUND, ex.getMessage()));
+  }
+
   @ExceptionHandler(StorageException.class)
   public ResponseEntity<ErrorMessage> handleStorageException(
       StorageException ex, HttpServletRequest request) {
@@ -323,6 +346,33 @@ public class GlobalExceptionHandler {
         .body(new ErrorMessage(request, HttpStatus.CONFLICT, ex.getMessage()));
   }
 
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<ErrorMessage> handleOptimisticLockingFailureException(
+      OptimisticLockingFailureException ex, HttpServletRequest request) {
+    logger.warn("Optimistic lock conflict after retries: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(
+            new ErrorMessage(
+                request,
+                HttpStatus.CONFLICT,
+                "O pedido foi alterado por outra operação. Atualize e tente novamente."));
+  }
+
+  @ExceptionHandler(PaymentGatewayUnavailableException.class)
+  public ResponseEntity<ErrorMessage> handlePaymentGatewayUnavailableException(
+      PaymentGatewayUnavailableException ex, HttpServletRequest request) {
+    logger.warn("Payment gateway fast-fail: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header("Retry-After", "30")
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(
+            new ErrorMessage(
+                request,
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Gateway de pagamento temporariamente indisponível. Tente novamente em instantes."));
+  }
+
   @ExceptionHandler(TransientPaymentGatewayException.class)
   public ResponseEntity<ErrorMessage> handleTransientPaymentGatewayException(
       TransientPaymentGatewayException ex, HttpServletRequest request) {
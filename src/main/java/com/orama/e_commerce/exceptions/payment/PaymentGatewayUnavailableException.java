@@ -0,0 +1,10 @@
+package com.orama.e_commerce.exceptions.payment;
+
+// Falha rapida do ResilientPaymentGateway (circuito aberto ou bulkhead cheio): o gateway nem foi
+// chamado. Continua transiente para quem ja trata retentativa.
+public class PaymentGatewayUnavailableException extends TransientPaymentGatewayException {
+
+  public PaymentGatewayUnavailableException(String message) {
+    super(message);
+  }
+}
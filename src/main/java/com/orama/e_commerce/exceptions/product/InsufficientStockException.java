@@ -0,0 +1,11 @@
+package com.orama.e_commerce.exceptions.product;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+  public InsufficientStockException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.orama.e_commerce.exceptions.shipping;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ShippingRateRuleNotFoundException extends RuntimeException {
+
+  public ShippingRateRuleNotFoundException(String message) {
+    super(message);
+  }
+}
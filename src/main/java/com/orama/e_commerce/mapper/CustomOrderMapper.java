@@ -1,10 +1,13 @@
 package com.orama.e_commerce.mapper;
 
 import com.orama.e_commerce.dtos.custom_order.CreateCustomOrderRequestDto;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderLogoDetailRow;
 import com.orama.e_commerce.dtos.custom_order.CustomOrderResponseDto;
 import com.orama.e_commerce.dtos.custom_order.LogoDetailDto;
 import com.orama.e_commerce.models.CustomOrder;
 import com.orama.e_commerce.models.CustomOrderLogoDetail;
+import java.util.List;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -27,4 +30,33 @@ public interface CustomOrderMapper {
   CustomOrderResponseDto toResponseDto(CustomOrder customOrder);
 
   LogoDetailDto toLogoDetailDto(CustomOrderLogoDetail detail);
+
+  default CustomOrderResponseDto toResponseDto(
+      CustomOrderListingRow row, List<CustomOrderLogoDetailRow> logoDetails) {
+    return new CustomOrderResponseDto(
+        row.id(),
+        row.orderNumber(),
+        row.clientId(),
+        row.clientName(),
+        row.capLine(),
+        row.capModel(),
+        row.capMaterial(),
+        row.laserCut(),
+        row.fullLaserCut(),
+        row.strapType(),
+        row.colorFront(),
+        row.colorMesh(),
+        row.colorBrim(),
+        row.colorBrimLining(),
+        row.quantity(),
+        row.logoUrl(),
+        row.previewImageUrl(),
+        row.layoutImageUrl(),
+        row.observations(),
+        row.status(),
+        row.createdAt(),
+        logoDetails.stream()
+            .map(detail -> new LogoDetailDto(detail.position(), detail.technique()))
+            .toList());
+  }
 }
@@ -2,10 +2,13 @@ package com.orama.e_commerce.mapper;
 
 import com.orama.e_commerce.dtos.order.CreateOrderRequestDto;
 import com.orama.e_commerce.dtos.order.OrderItemDto;
+import com.orama.e_commerce.dtos.order.OrderItemRow;
+import com.orama.e_commerce.dtos.order.OrderListingRow;
 import com.orama.e_commerce.dtos.order.OrderResponseDto;
 import com.orama.e_commerce.models.Order;
 import com.orama.e_commerce.models.OrderItem;
 import com.orama.e_commerce.models.OrderShippingAddress;
+import java.math.BigDecimal;
 import java.util.List;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -63,6 +66,39 @@ public interface OrderMapper {
         snapshot != null ? snapshot.getStateUf() : null);
   }
 
+  default OrderResponseDto toResponseDto(OrderListingRow row, List<OrderItemRow> items) {
+    return new OrderResponseDto(
+        row.id(),
+        row.orderNumber(),
+        row.orderDate(),
+        row.status(),
+        row.subtotal(),
+        row.discount(),
+        row.shippingCost(),
+        row.total(),
+        row.zipCode(),
+        row.clientId(),
+        row.clientName(),
+        row.paymentId(),
+        row.paymentMethod(),
+        items.stream().map(this::toItemDto).toList(),
+        row.deliveryAddressId(),
+        row.deliveryStreet(),
+        row.deliveryNumber(),
+        row.deliveryDistrict(),
+        row.deliveryCity(),
+        row.deliveryState());
+  }
+
+  default OrderItemDto toItemDto(OrderItemRow item) {
+    return new OrderItemDto(
+        item.productId(),
+        item.productName(),
+        item.quantity(),
+        item.unitPrice(),
+        item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())));
+  }
+
   @Mapping(target = "productId", source = "product.id")
   @Mapping(target = "productName", source = "product.name")
   @Mapping(
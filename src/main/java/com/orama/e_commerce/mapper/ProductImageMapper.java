@@ -12,9 +12,20 @@ public interface ProductImageMapper {
   @Mapping(target = "id", ignore = true)
   @Mapping(target = "product", ignore = true)
   @Mapping(target = "url", source = "url")
+  @Mapping(target = "variantFormat", ignore = true)
+  @Mapping(target = "variantWidths", ignore = true)
+  @Mapping(target = "variantWebp", ignore = true)
   @Mapping(target = "createdAt", ignore = true)
   @Mapping(target = "updatedAt", ignore = true)
   ProductImage toEntity(ProductImageRequestDto productImageRequestDto);
 
+  @Mapping(
+      target = "srcset",
+      expression =
+          "java(com.orama.e_commerce.service.ImageVariants.srcset(image.getUrl(), image.getVariantFormat(), image.getVariantWidths()))")
+  @Mapping(
+      target = "webpSrcset",
+      expression =
+          "java(com.orama.e_commerce.service.ImageVariants.webpSrcset(image.getUrl(), image.isVariantWebp(), image.getVariantWidths()))")
   ProductImageResponseDto toResponseDto(ProductImage image);
 }
@@ -0,0 +1,17 @@
+package com.orama.e_commerce.mapper;
+
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleRequestDto;
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleResponseDto;
+import com.orama.e_commerce.models.ShippingRateRule;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+@Mapper(componentModel = "spring")
+public interface ShippingRateRuleMapper {
+
+  @Mapping(target = "id", ignore = true)
+  void updateEntity(ShippingRateRuleRequestDto requestDto, @MappingTarget ShippingRateRule rule);
+
+  ShippingRateRuleResponseDto toResponseDto(ShippingRateRule rule);
+}
@@ -12,7 +12,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 public class CartItem {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+  @SequenceGenerator(
+      name = "cart_item_seq",
+      sequenceName = "tb_cart_item_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
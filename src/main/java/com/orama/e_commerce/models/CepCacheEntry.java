@@ -0,0 +1,119 @@
+package com.orama.e_commerce.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+@Entity
+@Table(name = "tb_cep_cache")
+public class CepCacheEntry {
+
+  @Id
+  @Column(name = "zip_code", length = 8)
+  private String zipCode;
+
+  @Column(name = "street")
+  private String street;
+
+  @Column(name = "district")
+  private String district;
+
+  @Column(name = "city_name", length = 120)
+  private String cityName;
+
+  @Column(name = "state_uf", length = 2)
+  private String stateUf;
+
+  @Column(name = "ibge_code", length = 7)
+  private String ibgeCode;
+
+  @Column(name = "fetched_at", nullable = false)
+  private Instant fetchedAt;
+
+  @Column(name = "last_used_at", nullable = false)
+  private Instant lastUsedAt;
+
+  public CepCacheEntry() {}
+
+  public String getZipCode() {
+    return zipCode;
+  }
+
+  public void setZipCode(String zipCode) {
+    this.zipCode = zipCode;
+  }
+
+  public String getStreet() {
+    return street;
+  }
+
+  public void setStreet(String street) {
+    this.street = street;
+  }
+
+  public String getDistrict() {
+    return district;
+  }
+
+  public void setDistrict(String district) {
+    this.district = district;
+  }
+
+  public String getCityName() {
+    return cityName;
+  }
+
+  public void setCityName(String cityName) {
+    this.cityName = cityName;
+  }
+
+  public String getStateUf() {
+    return stateUf;
+  }
+
+  public void setStateUf(String stateUf) {
+    this.stateUf = stateUf;
+  }
+
+  public String getIbgeCode() {
+    return ibgeCode;
+  }
+
+  public void setIbgeCode(String ibgeCode) {
+    this.ibgeCode = ibgeCode;
+  }
+
+  public Instant getFetchedAt() {
+    return fetchedAt;
+  }
+
+  public void setFetchedAt(Instant fetchedAt) {
+    this.fetchedAt = fetchedAt;
+  }
+
+  public Instant getLastUsedAt() {
+    return lastUsedAt;
+  }
+
+  public void setLastUsedAt(Instant lastUsedAt) {
+    this.lastUsedAt = lastUsedAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof CepCacheEntry e && Objects.equals(zipCode, e.zipCode));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(zipCode);
+  }
+
+  @Override
+  public String toString() {
+    return "CepCacheEntry{zipCode='" + zipCode + "', cityName='" + cityName + "'}";
+  }
+}
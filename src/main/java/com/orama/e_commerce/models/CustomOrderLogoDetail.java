@@ -10,7 +10,11 @@ import java.util.Objects;
 public class CustomOrderLogoDetail {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "custom_order_logo_detail_seq")
+  @SequenceGenerator(
+      name = "custom_order_logo_detail_seq",
+      sequenceName = "tb_custom_order_logo_detail_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,161 @@
+package com.orama.e_commerce.models;
+
+import com.orama.e_commerce.enums.EmailOutboxStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+// Email ja renderizado, gravado na transacao de quem pediu o envio; o EmailOutboxDispatcher
+// manda por SMTP depois do commit. expiresAt: passado esse instante o email nao serve mais (ex.:
+// link de redefinicao vencido) e vai para DEAD sem ser enviado.
+@Entity
+@Table(name = "tb_email_outbox")
+public class EmailOutboxEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "template", length = 50, nullable = false)
+  private String template;
+
+  @Column(name = "recipient", nullable = false)
+  private String recipient;
+
+  @Column(name = "subject", nullable = false)
+  private String subject;
+
+  @Column(name = "body", columnDefinition = "TEXT", nullable = false)
+  private String body;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", length = 20, nullable = false)
+  private EmailOutboxStatus status;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private Instant nextAttemptAt;
+
+  @Column(name = "expires_at")
+  private Instant expiresAt;
+
+  @Column(name = "locked_until")
+  private Instant lockedUntil;
+
+  @Column(name = "last_error", length = 500)
+  private String lastError;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "sent_at")
+  private Instant sentAt;
+
+  public EmailOutboxEntry() {}
+
+  public EmailOutboxEntry(
+      String template,
+      String recipient,
+      String subject,
+      String body,
+      Instant expiresAt,
+      Instant createdAt) {
+    this.template = template;
+    this.recipient = recipient;
+    this.subject = subject;
+    this.body = body;
+    this.status = EmailOutboxStatus.PENDING;
+    this.nextAttemptAt = createdAt;
+    this.expiresAt = expiresAt;
+    this.createdAt = createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getTemplate() {
+    return template;
+  }
+
+  public String getRecipient() {
+    return recipient;
+  }
+
+  public String getSubject() {
+    return subject;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  public EmailOutboxStatus getStatus() {
+    return status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  public Instant getLockedUntil() {
+    return lockedUntil;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getSentAt() {
+    return sentAt;
+  }
+
+  public boolean isExpired(Instant now) {
+    return expiresAt != null && !expiresAt.isAfter(now);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof EmailOutboxEntry e && Objects.equals(id, e.id));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+
+  // Sem destinatario nem corpo: o corpo carrega o link de redefinicao.
+  @Override
+  public String toString() {
+    return "EmailOutboxEntry{id="
+        + id
+        + ", template='"
+        + template
+        + "', status="
+        + status
+        + ", attempts="
+        + attempts
+        + "}";
+  }
+}
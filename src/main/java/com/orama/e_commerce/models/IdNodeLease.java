@@ -0,0 +1,52 @@
+package com.orama.e_commerce.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+@Entity
+@Table(name = "tb_id_node_lease")
+public class IdNodeLease {
+
+  @Id
+  @Column(name = "node_id")
+  private Short nodeId;
+
+  @Column(name = "instance_id", length = 100)
+  private String instanceId;
+
+  @Column(name = "heartbeat_at", nullable = false)
+  private Instant heartbeatAt;
+
+  public IdNodeLease() {}
+
+  public Short getNodeId() {
+    return nodeId;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  public Instant getHeartbeatAt() {
+    return heartbeatAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof IdNodeLease l && Objects.equals(nodeId, l.nodeId));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(nodeId);
+  }
+
+  @Override
+  public String toString() {
+    return "IdNodeLease{nodeId=" + nodeId + ", instanceId='" + instanceId + "'}";
+  }
+}
@@ -1,5 +1,6 @@
 package com.orama.e_commerce.models;
 
+import com.orama.e_commerce.enums.ImageVariantStatus;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.Objects;
@@ -23,6 +24,21 @@ public class MediaLibrary {
   @Column(name = "created_at", nullable = false, updatable = false)
   private Instant createdAt;
 
+  @Enumerated(EnumType.STRING)
+  @Column(name = "variant_status", length = 20, nullable = false)
+  private ImageVariantStatus variantStatus = ImageVariantStatus.PENDING;
+
+  @Column(name = "variant_format", length = 10)
+  private String variantFormat;
+
+  // Larguras geradas, separadas por virgula (ex.: "320,640,1024").
+  @Column(name = "variant_widths", length = 100)
+  private String variantWidths;
+
+  // Mesmas larguras tambem em WebP (abc-w640.webp).
+  @Column(name = "variant_webp", nullable = false)
+  private boolean variantWebp;
+
   public MediaLibrary() {}
 
   public Long getId() {
@@ -57,6 +73,38 @@ public class MediaLibrary {
     this.createdAt = createdAt;
   }
 
+  public ImageVariantStatus getVariantStatus() {
+    return variantStatus;
+  }
+
+  public void setVariantStatus(ImageVariantStatus variantStatus) {
+    this.variantStatus = variantStatus;
+  }
+
+  public String getVariantFormat() {
+    return variantFormat;
+  }
+
+  public void setVariantFormat(String variantFormat) {
+    this.variantFormat = variantFormat;
+  }
+
+  public String getVariantWidths() {
+    return variantWidths;
+  }
+
+  public void setVariantWidths(String variantWidths) {
+    this.variantWidths = variantWidths;
+  }
+
+  public boolean isVariantWebp() {
+    return variantWebp;
+  }
+
+  public void setVariantWebp(boolean variantWebp) {
+    this.variantWebp = variantWebp;
+  }
+
   @Override
   public boolean equals(Object o) {
     return this == o || (o instanceof MediaLibrary m && Objects.equals(id, m.id));
@@ -48,6 +48,10 @@ public class Order {
   @Column(name = "payment_method", length = 50)
   private String paymentMethod;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
   @OneToMany(mappedBy = "order", fetch = FetchType.LAZY)
   private java.util.List<com.orama.e_commerce.models.PaymentAttempt> paymentAttempts;
 
@@ -202,6 +206,10 @@ public class Order {
     this.paymentMethod = paymentMethod;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
   public java.util.List<com.orama.e_commerce.models.PaymentAttempt> getPaymentAttempts() {
     return paymentAttempts;
   }
@@ -12,7 +12,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 public class OrderItem {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+  @SequenceGenerator(
+      name = "order_item_seq",
+      sequenceName = "tb_order_item_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
@@ -11,7 +11,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Objects;
@@ -23,7 +25,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 public class PaymentAttempt {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_attempt_seq")
+  @SequenceGenerator(
+      name = "payment_attempt_seq",
+      sequenceName = "tb_payment_attempt_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -69,6 +75,17 @@ public class PaymentAttempt {
   @Column(name = "updated_at")
   private Instant updatedAt;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
+  // Backoff da reconciliacao; escrito so pelo UPDATE em lote do job, nunca pelo save().
+  @Column(name = "reconcile_attempts", nullable = false, insertable = false, updatable = false)
+  private int reconcileAttempts;
+
+  @Column(name = "next_reconcile_at", insertable = false, updatable = false)
+  private Instant nextReconcileAt;
+
   public PaymentAttempt() {}
 
   public Long getId() {
@@ -171,6 +188,18 @@ public class PaymentAttempt {
     return updatedAt;
   }
 
+  public int getReconcileAttempts() {
+    return reconcileAttempts;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public Instant getNextReconcileAt() {
+    return nextReconcileAt;
+  }
+
   @Override
   public boolean equals(Object o) {
     return this == o || (o instanceof PaymentAttempt pa && Objects.equals(id, pa.id));
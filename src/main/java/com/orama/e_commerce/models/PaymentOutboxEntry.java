@@ -0,0 +1,135 @@
+package com.orama.e_commerce.models;
+
+import com.orama.e_commerce.enums.OutboxStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+// Evento de pagamento gravado na mesma transacao da mudanca na PaymentAttempt; o
+// PaymentOutboxDispatcher entrega aos listeners depois do commit.
+@Entity
+@Table(name = "tb_payment_outbox")
+public class PaymentOutboxEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "event_type", length = 100, nullable = false)
+  private String eventType;
+
+  @Column(name = "order_id", nullable = false)
+  private Long orderId;
+
+  @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+  private String payload;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", length = 20, nullable = false)
+  private OutboxStatus status;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private Instant nextAttemptAt;
+
+  @Column(name = "locked_until")
+  private Instant lockedUntil;
+
+  @Column(name = "last_error", length = 500)
+  private String lastError;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "delivered_at")
+  private Instant deliveredAt;
+
+  public PaymentOutboxEntry() {}
+
+  public PaymentOutboxEntry(String eventType, Long orderId, String payload, Instant createdAt) {
+    this.eventType = eventType;
+    this.orderId = orderId;
+    this.payload = payload;
+    this.status = OutboxStatus.PENDING;
+    this.nextAttemptAt = createdAt;
+    this.createdAt = createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public Long getOrderId() {
+    return orderId;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public OutboxStatus getStatus() {
+    return status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public Instant getLockedUntil() {
+    return lockedUntil;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getDeliveredAt() {
+    return deliveredAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof PaymentOutboxEntry e && Objects.equals(id, e.id));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentOutboxEntry{id="
+        + id
+        + ", eventType='"
+        + eventType
+        + "', orderId="
+        + orderId
+        + ", status="
+        + status
+        + ", attempts="
+        + attempts
+        + "}";
+  }
+}
@@ -0,0 +1,123 @@
+package com.orama.e_commerce.models;
+
+import com.orama.e_commerce.enums.WebhookInboxStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+// Notificacao do Mercado Pago ja verificada, aguardando o worker consultar o gateway.
+@Entity
+@Table(name = "tb_payment_webhook_inbox")
+public class PaymentWebhookInboxEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "request_id", length = 100, nullable = false)
+  private String requestId;
+
+  @Column(name = "data_id", length = 100, nullable = false)
+  private String dataId;
+
+  @Column(name = "action", length = 50)
+  private String action;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", length = 20, nullable = false)
+  private WebhookInboxStatus status;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private Instant nextAttemptAt;
+
+  @Column(name = "locked_until")
+  private Instant lockedUntil;
+
+  @Column(name = "last_error", length = 500)
+  private String lastError;
+
+  @Column(name = "received_at", nullable = false)
+  private Instant receivedAt;
+
+  @Column(name = "processed_at")
+  private Instant processedAt;
+
+  public PaymentWebhookInboxEntry() {}
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getRequestId() {
+    return requestId;
+  }
+
+  public String getDataId() {
+    return dataId;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  public WebhookInboxStatus getStatus() {
+    return status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public Instant getLockedUntil() {
+    return lockedUntil;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public Instant getReceivedAt() {
+    return receivedAt;
+  }
+
+  public Instant getProcessedAt() {
+    return processedAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof PaymentWebhookInboxEntry e && Objects.equals(id, e.id));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentWebhookInboxEntry{id="
+        + id
+        + ", dataId='"
+        + dataId
+        + "', status="
+        + status
+        + ", attempts="
+        + attempts
+        + "}";
+  }
+}
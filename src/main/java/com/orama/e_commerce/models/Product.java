@@ -6,9 +6,12 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
+// DynamicUpdate: salvar o produto nao reescreve stock, que e alterado por UPDATE condicional.
 @Entity
+@DynamicUpdate
 @Table(name = "tb_product")
 public class Product {
 
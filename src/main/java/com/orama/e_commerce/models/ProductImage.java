@@ -11,7 +11,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 public class ProductImage {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_image_seq")
+  @SequenceGenerator(
+      name = "product_image_seq",
+      sequenceName = "tb_product_image_id_seq",
+      allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -21,6 +25,16 @@ public class ProductImage {
   @Column(name = "image_url", nullable = false, length = 1000)
   private String url;
 
+  // Copiados da midia de mesma URL quando as variantes ficam prontas; nulos = so o original.
+  @Column(name = "variant_format", length = 10)
+  private String variantFormat;
+
+  @Column(name = "variant_widths", length = 100)
+  private String variantWidths;
+
+  @Column(name = "variant_webp", nullable = false)
+  private boolean variantWebp;
+
   @CreationTimestamp
   @Column(name = "created_at", nullable = false, updatable = false)
   private Instant createdAt;
@@ -59,6 +73,30 @@ public class ProductImage {
     this.url = url;
   }
 
+  public String getVariantFormat() {
+    return variantFormat;
+  }
+
+  public void setVariantFormat(String variantFormat) {
+    this.variantFormat = variantFormat;
+  }
+
+  public String getVariantWidths() {
+    return variantWidths;
+  }
+
+  public void setVariantWidths(String variantWidths) {
+    this.variantWidths = variantWidths;
+  }
+
+  public boolean isVariantWebp() {
+    return variantWebp;
+  }
+
+  public void setVariantWebp(boolean variantWebp) {
+    this.variantWebp = variantWebp;
+  }
+
   public Instant getCreatedAt() {
     return createdAt;
   }
@@ -0,0 +1,66 @@
+package com.orama.e_commerce.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+@Entity
+@Table(name = "tb_rate_limit_bucket")
+public class RateLimitBucket {
+
+  @Id
+  @Column(name = "bucket_key", length = 512)
+  private String bucketKey;
+
+  @Column(name = "tokens", nullable = false)
+  private double tokens;
+
+  @Column(name = "allowed", nullable = false)
+  private boolean allowed;
+
+  @Column(name = "refilled_at", nullable = false)
+  private Instant refilledAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private Instant expiresAt;
+
+  public RateLimitBucket() {}
+
+  public String getBucketKey() {
+    return bucketKey;
+  }
+
+  public double getTokens() {
+    return tokens;
+  }
+
+  public boolean isAllowed() {
+    return allowed;
+  }
+
+  public Instant getRefilledAt() {
+    return refilledAt;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof RateLimitBucket b && Objects.equals(bucketKey, b.bucketKey));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(bucketKey);
+  }
+
+  @Override
+  public String toString() {
+    return "RateLimitBucket{bucketKey='" + bucketKey + "', tokens=" + tokens + "}";
+  }
+}
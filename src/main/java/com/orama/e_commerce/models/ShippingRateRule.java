@@ -0,0 +1,185 @@
+package com.orama.e_commerce.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+// Criterios nulos nao restringem: sem faixa de CEP vale para qualquer CEP, sem UF para qualquer UF.
+@Entity
+@Table(name = "tb_shipping_rate_rule")
+public class ShippingRateRule {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "name", length = 120, nullable = false)
+  private String name;
+
+  @Column(name = "region", length = 60, nullable = false)
+  private String region;
+
+  @Column(name = "cep_start", length = 8)
+  private String cepStart;
+
+  @Column(name = "cep_end", length = 8)
+  private String cepEnd;
+
+  @Column(name = "state_uf", length = 2)
+  private String stateUf;
+
+  @Column(name = "min_order_value", precision = 15, scale = 2)
+  private BigDecimal minOrderValue;
+
+  @Column(name = "cost", precision = 15, scale = 2, nullable = false)
+  private BigDecimal cost;
+
+  @Column(name = "priority", nullable = false)
+  private Integer priority = 0;
+
+  @Column(name = "active", nullable = false)
+  private Boolean active = true;
+
+  @Column(name = "starts_at")
+  private Instant startsAt;
+
+  @Column(name = "ends_at")
+  private Instant endsAt;
+
+  @CreationTimestamp
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at")
+  private Instant updatedAt;
+
+  public ShippingRateRule() {}
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getRegion() {
+    return region;
+  }
+
+  public void setRegion(String region) {
+    this.region = region;
+  }
+
+  public String getCepStart() {
+    return cepStart;
+  }
+
+  public void setCepStart(String cepStart) {
+    this.cepStart = cepStart;
+  }
+
+  public String getCepEnd() {
+    return cepEnd;
+  }
+
+  public void setCepEnd(String cepEnd) {
+    this.cepEnd = cepEnd;
+  }
+
+  public String getStateUf() {
+    return stateUf;
+  }
+
+  public void setStateUf(String stateUf) {
+    this.stateUf = stateUf;
+  }
+
+  public BigDecimal getMinOrderValue() {
+    return minOrderValue;
+  }
+
+  public void setMinOrderValue(BigDecimal minOrderValue) {
+    this.minOrderValue = minOrderValue;
+  }
+
+  public BigDecimal getCost() {
+    return cost;
+  }
+
+  public void setCost(BigDecimal cost) {
+    this.cost = cost;
+  }
+
+  public Integer getPriority() {
+    return priority;
+  }
+
+  public void setPriority(Integer priority) {
+    this.priority = priority;
+  }
+
+  public Boolean getActive() {
+    return active;
+  }
+
+  public void setActive(Boolean active) {
+    this.active = active;
+  }
+
+  public Instant getStartsAt() {
+    return startsAt;
+  }
+
+  public void setStartsAt(Instant startsAt) {
+    this.startsAt = startsAt;
+  }
+
+  public Instant getEndsAt() {
+    return endsAt;
+  }
+
+  public void setEndsAt(Instant endsAt) {
+    this.endsAt = endsAt;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof ShippingRateRule r && Objects.equals(id, r.id));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+
+  @Override
+  public String toString() {
+    return "ShippingRateRule{id=" + id + ", name=" + name + ", priority=" + priority + "}";
+  }
+}
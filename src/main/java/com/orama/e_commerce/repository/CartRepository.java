@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
   List<Cart> findByClientId(Long clientId);
@@ -15,4 +16,14 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
   Optional<Cart> findActiveCartByClientId(Long clientId);
 
   Optional<Cart> findBySessionId(String sessionId);
+
+  @Query(
+      "SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product"
+          + " WHERE c.id = :id")
+  Optional<Cart> findByIdWithItemsAndProducts(@Param("id") Long id);
+
+  @Query(
+      "SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product"
+          + " WHERE c.client.id = :clientId AND c.order IS NULL ORDER BY c.updatedAt DESC")
+  List<Cart> findActiveCartsWithProductsByClientId(@Param("clientId") Long clientId);
 }
@@ -0,0 +1,52 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.models.CepCacheEntry;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CepCacheEntryRepository extends JpaRepository<CepCacheEntry, String> {
+
+  // Upsert: duas requisicoes com o mesmo CEP novo podem chegar juntas.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO tb_cep_cache"
+              + " (zip_code, street, district, city_name, state_uf, ibge_code, fetched_at,"
+              + " last_used_at)"
+              + " VALUES (:zipCode, :street, :district, :cityName, :stateUf, :ibgeCode, :now,"
+              + " :now)"
+              + " ON CONFLICT (zip_code) DO UPDATE SET street = EXCLUDED.street,"
+              + " district = EXCLUDED.district, city_name = EXCLUDED.city_name,"
+              + " state_uf = EXCLUDED.state_uf, ibge_code = EXCLUDED.ibge_code,"
+              + " fetched_at = EXCLUDED.fetched_at, last_used_at = EXCLUDED.last_used_at",
+      nativeQuery = true)
+  void upsert(
+      @Param("zipCode") String zipCode,
+      @Param("street") String street,
+      @Param("district") String district,
+      @Param("cityName") String cityName,
+      @Param("stateUf") String stateUf,
+      @Param("ibgeCode") String ibgeCode,
+      @Param("now") Instant now);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE CepCacheEntry e SET e.lastUsedAt = :now WHERE e.zipCode = :zipCode")
+  void touch(@Param("zipCode") String zipCode, @Param("now") Instant now);
+
+  // Mantem so as maxEntries linhas usadas mais recentemente.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM tb_cep_cache WHERE zip_code IN ("
+              + "SELECT zip_code FROM tb_cep_cache ORDER BY last_used_at DESC"
+              + " OFFSET :maxEntries)",
+      nativeQuery = true)
+  int deleteLeastRecentlyUsedBeyond(@Param("maxEntries") long maxEntries);
+}
@@ -1,15 +1,25 @@
 package com.orama.e_commerce.repository;
 
+import com.orama.e_commerce.dtos.custom_order.CustomOrderLogoDetailRow;
 import com.orama.e_commerce.models.CustomOrder;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CustomOrderRepository extends JpaRepository<CustomOrder, Long> {
+public interface CustomOrderRepository
+    extends JpaRepository<CustomOrder, Long>, CustomOrderRepositoryCustom {
 
   List<CustomOrder> findByClientId(Long clientId);
 
   Optional<CustomOrder> findByOrderNumber(String orderNumber);
 
-  boolean existsByOrderNumber(String orderNumber);
+  @Query(
+      "SELECT new com.orama.e_commerce.dtos.custom_order.CustomOrderLogoDetailRow("
+          + "d.customOrder.id, d.position, d.technique)"
+          + " FROM CustomOrderLogoDetail d WHERE d.customOrder.id IN :customOrderIds ORDER BY d.id")
+  List<CustomOrderLogoDetailRow> findLogoDetailRows(
+      @Param("customOrderIds") Collection<Long> customOrderIds);
 }
@@ -0,0 +1,12 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
+import java.util.List;
+
+public interface CustomOrderRepositoryCustom {
+
+  // Pagina por keyset (id < afterId, id decrescente), aplicando so os filtros informados.
+  List<CustomOrderListingRow> searchListingPage(
+      CustomOrderSearchFilter filter, Long afterId, int limit);
+}
@@ -0,0 +1,74 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
+import com.orama.e_commerce.models.Client;
+import com.orama.e_commerce.models.CustomOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+class CustomOrderRepositoryImpl implements CustomOrderRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public List<CustomOrderListingRow> searchListingPage(
+      CustomOrderSearchFilter filter, Long afterId, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<CustomOrderListingRow> query = cb.createQuery(CustomOrderListingRow.class);
+    Root<CustomOrder> customOrder = query.from(CustomOrder.class);
+    Join<CustomOrder, Client> client = customOrder.join("client");
+
+    query.select(
+        cb.construct(
+            CustomOrderListingRow.class,
+            customOrder.get("id"),
+            customOrder.get("orderNumber"),
+            client.get("id"),
+            client.get("name"),
+            customOrder.get("capLine"),
+            customOrder.get("capModel"),
+            customOrder.get("capMaterial"),
+            customOrder.get("laserCut"),
+            customOrder.get("fullLaserCut"),
+            customOrder.get("strapType"),
+            customOrder.get("colorFront"),
+            customOrder.get("colorMesh"),
+            customOrder.get("colorBrim"),
+            customOrder.get("colorBrimLining"),
+            customOrder.get("quantity"),
+            customOrder.get("logoUrl"),
+            customOrder.get("previewImageUrl"),
+            customOrder.get("layoutImageUrl"),
+            customOrder.get("observations"),
+            customOrder.get("status"),
+            customOrder.get("createdAt")));
+
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(cb.lessThan(customOrder.<Long>get("id"), afterId));
+    if (filter.status() != null) {
+      predicates.add(cb.equal(customOrder.get("status"), filter.status()));
+    }
+    if (filter.clientId() != null) {
+      predicates.add(cb.equal(client.get("id"), filter.clientId()));
+    }
+    if (filter.from() != null) {
+      predicates.add(
+          cb.greaterThanOrEqualTo(customOrder.<Instant>get("createdAt"), filter.from()));
+    }
+    if (filter.to() != null) {
+      predicates.add(cb.lessThan(customOrder.<Instant>get("createdAt"), filter.to()));
+    }
+
+    query.where(predicates.toArray(Predicate[]::new)).orderBy(cb.desc(customOrder.get("id")));
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+}
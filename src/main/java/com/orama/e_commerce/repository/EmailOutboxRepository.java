@@ -0,0 +1,103 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.enums.EmailOutboxStatus;
+import com.orama.e_commerce.models.EmailOutboxEntry;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxEntry, Long> {
+
+  // Precisa rodar dentro da transacao que vai marcar as linhas: outro sender pula as travadas
+  // em vez de esperar por elas.
+  @Query(
+      value =
+          "SELECT id FROM tb_email_outbox"
+              + " WHERE status = 'PENDING' AND next_attempt_at <= :now"
+              + " ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<Long> lockDueIds(@Param("now") Instant now, @Param("limit") int limit);
+
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_email_outbox SET status = 'PROCESSING', locked_until = :lockedUntil"
+              + " WHERE id IN (:ids)",
+      nativeQuery = true)
+  int claim(@Param("ids") Collection<Long> ids, @Param("lockedUntil") Instant lockedUntil);
+
+  List<EmailOutboxEntry> findAllByIdInOrderByIdAsc(Collection<Long> ids);
+
+  // Email ainda nao enviado que ficou obsoleto (ex.: novo pedido de redefinicao do mesmo cliente).
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM tb_email_outbox"
+              + " WHERE status = 'PENDING' AND template = :template AND recipient = :recipient",
+      nativeQuery = true)
+  int discardPending(@Param("template") String template, @Param("recipient") String recipient);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_email_outbox SET status = 'SENT', sent_at = :now,"
+              + " locked_until = NULL, last_error = NULL"
+              + " WHERE id IN (:ids) AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int markSent(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+  // Backoff exponencial sobre retryBaseSeconds; ao atingir maxAttempts a linha fica DEAD.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_email_outbox SET attempts = attempts + 1,"
+              + " status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'DEAD' ELSE 'PENDING' END,"
+              + " next_attempt_at = CAST(:now AS TIMESTAMP)"
+              + " + make_interval(secs => :retryBaseSeconds * power(2, LEAST(attempts, 10))),"
+              + " locked_until = NULL, last_error = :error"
+              + " WHERE id = :id AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int reschedule(
+      @Param("id") Long id,
+      @Param("now") Instant now,
+      @Param("retryBaseSeconds") long retryBaseSeconds,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("error") String error);
+
+  // Erro que nao melhora com nova tentativa (endereco invalido, link ja vencido).
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_email_outbox SET status = 'DEAD', attempts = attempts + 1,"
+              + " locked_until = NULL, last_error = :error"
+              + " WHERE id = :id AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int markDead(@Param("id") Long id, @Param("error") String error);
+
+  // Sender que caiu no meio do lote: o email volta para a fila quando o lease vence.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_email_outbox SET status = 'PENDING', locked_until = NULL"
+              + " WHERE status = 'PROCESSING' AND locked_until < :now",
+      nativeQuery = true)
+  int releaseExpiredLocks(@Param("now") Instant now);
+
+  long countByStatus(EmailOutboxStatus status);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value = "DELETE FROM tb_email_outbox WHERE status = 'SENT' AND sent_at < :cutoff",
+      nativeQuery = true)
+  int deleteSentBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,61 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.models.IdNodeLease;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface IdNodeLeaseRepository extends JpaRepository<IdNodeLease, Short> {
+
+  // Pega o node id livre (ou com heartbeat vencido) mais antigo; duas instancias subindo juntas
+  // nunca travam a mesma linha. Transacao propria: se quem pediu o numero der rollback, o lease
+  // continua gravado e o node id em memoria continua valendo.
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_id_node_lease SET instance_id = :instanceId, heartbeat_at = :now"
+              + " WHERE node_id = (SELECT node_id FROM tb_id_node_lease"
+              + " WHERE heartbeat_at < :expiredBefore"
+              + " ORDER BY heartbeat_at, node_id LIMIT 1 FOR UPDATE SKIP LOCKED)",
+      nativeQuery = true)
+  int claimFreeNode(
+      @Param("instanceId") String instanceId,
+      @Param("now") Instant now,
+      @Param("expiredBefore") Instant expiredBefore);
+
+  @Query(
+      value =
+          "SELECT CAST(node_id AS INTEGER) FROM tb_id_node_lease"
+              + " WHERE instance_id = :instanceId",
+      nativeQuery = true)
+  Optional<Integer> findNodeIdByInstanceId(@Param("instanceId") String instanceId);
+
+  // 0 = outra instancia assumiu o node id (lease vencido durante uma pausa longa).
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_id_node_lease SET heartbeat_at = :now"
+              + " WHERE node_id = :nodeId AND instance_id = :instanceId",
+      nativeQuery = true)
+  int heartbeat(
+      @Param("nodeId") int nodeId,
+      @Param("instanceId") String instanceId,
+      @Param("now") Instant now);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_id_node_lease SET instance_id = NULL,"
+              + " heartbeat_at = TIMESTAMP '1970-01-01 00:00:00'"
+              + " WHERE node_id = :nodeId AND instance_id = :instanceId",
+      nativeQuery = true)
+  int release(@Param("nodeId") int nodeId, @Param("instanceId") String instanceId);
+}
@@ -1,6 +1,36 @@
 package com.orama.e_commerce.repository;
 
+import com.orama.e_commerce.enums.ImageVariantStatus;
 import com.orama.e_commerce.models.MediaLibrary;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface MediaLibraryRepository extends JpaRepository<MediaLibrary, Long> {}
+public interface MediaLibraryRepository extends JpaRepository<MediaLibrary, Long> {
+
+  List<MediaLibrary> findAllByUrlIn(Collection<String> urls);
+
+  @Query(
+      value =
+          "SELECT id FROM tb_media_library"
+              + " WHERE variant_status = 'PENDING' AND created_at < :createdBefore"
+              + " ORDER BY id LIMIT :limit",
+      nativeQuery = true)
+  List<Long> findPendingVariantIds(
+      @Param("createdBefore") Instant createdBefore, @Param("limit") int limit);
+
+  @Modifying
+  @Query(
+      "UPDATE MediaLibrary m SET m.variantStatus = :status, m.variantFormat = :format,"
+          + " m.variantWidths = :widths, m.variantWebp = :webp WHERE m.id = :id")
+  int updateVariants(
+      @Param("id") Long id,
+      @Param("status") ImageVariantStatus status,
+      @Param("format") String format,
+      @Param("widths") String widths,
+      @Param("webp") boolean webp);
+}
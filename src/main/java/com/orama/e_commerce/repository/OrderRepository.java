@@ -1,16 +1,38 @@
 package com.orama.e_commerce.repository;
 
+import com.orama.e_commerce.dtos.order.OrderItemRow;
+import com.orama.e_commerce.dtos.order.OrderListingRow;
 import com.orama.e_commerce.models.Order;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+
+  String LISTING_ROW =
+      "SELECT new com.orama.e_commerce.dtos.order.OrderListingRow("
+          + "o.id, o.orderNumber, o.orderDate, o.status, o.subtotal, o.discount,"
+          + " o.shippingCost, o.total, o.zipCode, c.id, c.name, o.paymentId, o.paymentMethod,"
+          + " sa.originalAddressId, sa.street, sa.number, sa.district, sa.cityName, sa.stateUf)"
+          + " FROM Order o JOIN o.client c LEFT JOIN o.shippingAddress sa";
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
   Optional<Order> findByOrderNumber(String orderNumber);
 
   List<Order> findByClientId(Long clientId);
 
-  boolean existsByOrderNumber(String orderNumber);
-
   Optional<Order> findByPaymentId(String paymentId);
+
+  @Query(LISTING_ROW + " WHERE c.id = :clientId AND o.id < :afterId ORDER BY o.id DESC")
+  List<OrderListingRow> findListingPageByClientId(
+      @Param("clientId") Long clientId, @Param("afterId") Long afterId, Pageable pageable);
+
+  @Query(
+      "SELECT new com.orama.e_commerce.dtos.order.OrderItemRow("
+          + "i.order.id, p.id, p.name, i.quantity, i.unitPrice)"
+          + " FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds ORDER BY i.id")
+  List<OrderItemRow> findListingItems(@Param("orderIds") Collection<Long> orderIds);
 }
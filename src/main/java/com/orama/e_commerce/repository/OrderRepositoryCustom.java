@@ -0,0 +1,11 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.dtos.order.OrderListingRow;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+  // Pagina por keyset (id < afterId, id decrescente), aplicando so os filtros informados.
+  List<OrderListingRow> searchListingPage(OrderSearchFilter filter, Long afterId, int limit);
+}
@@ -0,0 +1,76 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.dtos.order.OrderListingRow;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import com.orama.e_commerce.models.Client;
+import com.orama.e_commerce.models.Order;
+import com.orama.e_commerce.models.OrderShippingAddress;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Monta o WHERE so com os filtros presentes, para que o planner use os indices compostos
+// (status_order, id), (client_id, id) e (order_date, id) em vez de "param IS NULL OR ...".
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public List<OrderListingRow> searchListingPage(
+      OrderSearchFilter filter, Long afterId, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<OrderListingRow> query = cb.createQuery(OrderListingRow.class);
+    Root<Order> order = query.from(Order.class);
+    Join<Order, Client> client = order.join("client");
+    Join<Order, OrderShippingAddress> address = order.join("shippingAddress", JoinType.LEFT);
+
+    query.select(
+        cb.construct(
+            OrderListingRow.class,
+            order.get("id"),
+            order.get("orderNumber"),
+            order.get("orderDate"),
+            order.get("status"),
+            order.get("subtotal"),
+            order.get("discount"),
+            order.get("shippingCost"),
+            order.get("total"),
+            order.get("zipCode"),
+            client.get("id"),
+            client.get("name"),
+            order.get("paymentId"),
+            order.get("paymentMethod"),
+            address.get("originalAddressId"),
+            address.get("street"),
+            address.get("number"),
+            address.get("district"),
+            address.get("cityName"),
+            address.get("stateUf")));
+
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(cb.lessThan(order.<Long>get("id"), afterId));
+    if (filter.status() != null) {
+      predicates.add(cb.equal(order.get("status"), filter.status()));
+    }
+    if (filter.clientId() != null) {
+      predicates.add(cb.equal(client.get("id"), filter.clientId()));
+    }
+    if (filter.from() != null) {
+      predicates.add(cb.greaterThanOrEqualTo(order.<Instant>get("orderDate"), filter.from()));
+    }
+    if (filter.to() != null) {
+      predicates.add(cb.lessThan(order.<Instant>get("orderDate"), filter.to()));
+    }
+
+    query.where(predicates.toArray(Predicate[]::new)).orderBy(cb.desc(order.get("id")));
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+}
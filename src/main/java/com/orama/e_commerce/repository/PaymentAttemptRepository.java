@@ -1,13 +1,18 @@
 package com.orama.e_commerce.repository;
 
+import com.orama.e_commerce.dtos.payment.StaleAttemptRow;
 import com.orama.e_commerce.enums.PaymentAttemptStatus;
 import com.orama.e_commerce.models.PaymentAttempt;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PaymentAttemptRepository extends JpaRepository<PaymentAttempt, Long> {
 
@@ -17,9 +22,48 @@ public interface PaymentAttemptRepository extends JpaRepository<PaymentAttempt,
 
   Optional<PaymentAttempt> findTopByOrderIdOrderByAttemptNumberDesc(Long orderId);
 
+  // Pagina por keyset (id > afterId); tentativas em backoff ficam de fora ate next_reconcile_at.
   @Query(
-      "SELECT pa FROM PaymentAttempt pa WHERE pa.status IN :statuses"
-          + " AND pa.providerOrderId IS NOT NULL AND pa.updatedAt < :cutoff")
-  List<PaymentAttempt> findStaleAttempts(
-      @Param("statuses") List<PaymentAttemptStatus> statuses, @Param("cutoff") Instant cutoff);
+      "SELECT new com.orama.e_commerce.dtos.payment.StaleAttemptRow("
+          + "pa.id, pa.providerOrderId, pa.updatedAt)"
+          + " FROM PaymentAttempt pa WHERE pa.status IN :statuses"
+          + " AND pa.providerOrderId IS NOT NULL AND pa.updatedAt < :cutoff"
+          + " AND (pa.nextReconcileAt IS NULL OR pa.nextReconcileAt <= :now)"
+          + " AND pa.id > :afterId ORDER BY pa.id")
+  List<StaleAttemptRow> findStaleAttemptPage(
+      @Param("statuses") List<PaymentAttemptStatus> statuses,
+      @Param("cutoff") Instant cutoff,
+      @Param("now") Instant now,
+      @Param("afterId") Long afterId,
+      Pageable pageable);
+
+  // Criacao sem resposta do gateway: a tentativa nunca recebeu providerOrderId.
+  @Query(
+      "SELECT pa.id FROM PaymentAttempt pa WHERE pa.status = :status"
+          + " AND pa.providerOrderId IS NULL AND pa.updatedAt < :cutoff"
+          + " AND (pa.nextReconcileAt IS NULL OR pa.nextReconcileAt <= :now) ORDER BY pa.id")
+  List<Long> findOrphanAttemptIds(
+      @Param("status") PaymentAttemptStatus status,
+      @Param("cutoff") Instant cutoff,
+      @Param("now") Instant now,
+      Pageable pageable);
+
+  @Query("SELECT pa FROM PaymentAttempt pa JOIN FETCH pa.order WHERE pa.id IN :ids")
+  List<PaymentAttempt> findAllWithOrderByIdIn(@Param("ids") Collection<Long> ids);
+
+  // Backoff exponencial por tentativa, limitado a maxSeconds. Nao mexe em updated_at.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_attempt SET reconcile_attempts = reconcile_attempts + 1,"
+              + " next_reconcile_at = CAST(:now AS TIMESTAMP) + make_interval(secs => LEAST("
+              + ":maxSeconds, :baseSeconds * power(2, LEAST(reconcile_attempts, 20))))"
+              + " WHERE id IN (:ids)",
+      nativeQuery = true)
+  int scheduleNextReconcile(
+      @Param("ids") Collection<Long> ids,
+      @Param("now") Instant now,
+      @Param("baseSeconds") long baseSeconds,
+      @Param("maxSeconds") long maxSeconds);
 }
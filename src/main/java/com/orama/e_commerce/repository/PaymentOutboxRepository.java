@@ -0,0 +1,84 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.enums.OutboxStatus;
+import com.orama.e_commerce.models.PaymentOutboxEntry;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutboxEntry, Long> {
+
+  // Precisa rodar dentro da transacao que vai marcar as linhas: outro dispatcher pula as
+  // travadas em vez de esperar por elas.
+  @Query(
+      value =
+          "SELECT id FROM tb_payment_outbox"
+              + " WHERE status = 'PENDING' AND next_attempt_at <= :now"
+              + " ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<Long> lockDueIds(@Param("now") Instant now, @Param("limit") int limit);
+
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_outbox SET status = 'PROCESSING', locked_until = :lockedUntil"
+              + " WHERE id IN (:ids)",
+      nativeQuery = true)
+  int claim(@Param("ids") Collection<Long> ids, @Param("lockedUntil") Instant lockedUntil);
+
+  List<PaymentOutboxEntry> findAllByIdInOrderByIdAsc(Collection<Long> ids);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_outbox SET status = 'DELIVERED', delivered_at = :now,"
+              + " locked_until = NULL, last_error = NULL"
+              + " WHERE id = :id AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int markDelivered(@Param("id") Long id, @Param("now") Instant now);
+
+  // Backoff exponencial sobre retryBaseSeconds; ao atingir maxAttempts a linha fica FAILED.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_outbox SET attempts = attempts + 1,"
+              + " status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END,"
+              + " next_attempt_at = CAST(:now AS TIMESTAMP)"
+              + " + make_interval(secs => :retryBaseSeconds * power(2, LEAST(attempts, 10))),"
+              + " locked_until = NULL, last_error = :error"
+              + " WHERE id = :id AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int reschedule(
+      @Param("id") Long id,
+      @Param("now") Instant now,
+      @Param("retryBaseSeconds") long retryBaseSeconds,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("error") String error);
+
+  // Dispatcher que caiu no meio da entrega: o evento volta para a fila quando o lease vence.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_outbox SET status = 'PENDING', locked_until = NULL"
+              + " WHERE status = 'PROCESSING' AND locked_until < :now",
+      nativeQuery = true)
+  int releaseExpiredLocks(@Param("now") Instant now);
+
+  long countByStatus(OutboxStatus status);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM tb_payment_outbox WHERE status = 'DELIVERED' AND delivered_at < :cutoff",
+      nativeQuery = true)
+  int deleteDeliveredBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,102 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.models.PaymentWebhookInboxEntry;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PaymentWebhookInboxRepository
+    extends JpaRepository<PaymentWebhookInboxEntry, Long> {
+
+  // Retentativas do Mercado Pago repetem o x-request-id: a segunda entrega vira no-op.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO tb_payment_webhook_inbox"
+              + " (request_id, data_id, action, status, attempts, next_attempt_at, received_at)"
+              + " VALUES (:requestId, :dataId, :action, 'PENDING', 0, :now, :now)"
+              + " ON CONFLICT (request_id, data_id) DO NOTHING",
+      nativeQuery = true)
+  int enqueue(
+      @Param("requestId") String requestId,
+      @Param("dataId") String dataId,
+      @Param("action") String action,
+      @Param("now") Instant now);
+
+  // Um data.id por order do provedor, mesmo que haja varias notificacoes pendentes para ele.
+  @Query(
+      value =
+          "SELECT data_id FROM tb_payment_webhook_inbox"
+              + " WHERE status = 'PENDING' AND next_attempt_at <= :now"
+              + " GROUP BY data_id ORDER BY MIN(id) LIMIT :limit",
+      nativeQuery = true)
+  List<String> findDueDataIds(@Param("now") Instant now, @Param("limit") int limit);
+
+  // Reivindica todas as notificacoes pendentes do data.id de uma vez; 0 = outro worker levou.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_webhook_inbox SET status = 'PROCESSING', locked_until = :lockedUntil"
+              + " WHERE data_id = :dataId AND status = 'PENDING' AND next_attempt_at <= :now",
+      nativeQuery = true)
+  int claim(
+      @Param("dataId") String dataId,
+      @Param("now") Instant now,
+      @Param("lockedUntil") Instant lockedUntil);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_webhook_inbox SET status = 'PROCESSED', processed_at = :now,"
+              + " locked_until = NULL, last_error = :note"
+              + " WHERE data_id = :dataId AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int markProcessed(
+      @Param("dataId") String dataId, @Param("now") Instant now, @Param("note") String note);
+
+  // Backoff exponencial sobre retryBaseSeconds; ao atingir maxAttempts a linha fica FAILED.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_webhook_inbox SET attempts = attempts + 1,"
+              + " status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END,"
+              + " next_attempt_at = CAST(:now AS TIMESTAMP)"
+              + " + make_interval(secs => :retryBaseSeconds * power(2, LEAST(attempts, 10))),"
+              + " locked_until = NULL, last_error = :error"
+              + " WHERE data_id = :dataId AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int reschedule(
+      @Param("dataId") String dataId,
+      @Param("now") Instant now,
+      @Param("retryBaseSeconds") long retryBaseSeconds,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("error") String error);
+
+  // Worker que caiu no meio do processamento: a linha volta para a fila quando o lease vence.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_payment_webhook_inbox SET status = 'PENDING', locked_until = NULL"
+              + " WHERE status = 'PROCESSING' AND locked_until < :now",
+      nativeQuery = true)
+  int releaseExpiredLocks(@Param("now") Instant now);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM tb_payment_webhook_inbox WHERE id IN (SELECT id"
+              + " FROM tb_payment_webhook_inbox WHERE status IN ('PROCESSED', 'FAILED')"
+              + " AND received_at < :cutoff ORDER BY received_at LIMIT :limit)",
+      nativeQuery = true)
+  int deleteResolvedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
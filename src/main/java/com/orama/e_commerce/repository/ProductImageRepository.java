@@ -1,10 +1,31 @@
 package com.orama.e_commerce.repository;
 
 import com.orama.e_commerce.models.ProductImage;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
   Page<ProductImage> findAllByProductId(Long productId, Pageable pageable);
+
+  @Query(
+      value = "SELECT DISTINCT product_id FROM tb_product_image WHERE image_url = :url",
+      nativeQuery = true)
+  List<Long> findProductIdsByUrl(@Param("url") String url);
+
+  @Modifying
+  @Query(
+      value =
+          "UPDATE tb_product_image SET variant_format = :format, variant_widths = :widths,"
+              + " variant_webp = :webp WHERE image_url = :url",
+      nativeQuery = true)
+  int updateVariantsByUrl(
+      @Param("url") String url,
+      @Param("format") String format,
+      @Param("widths") String widths,
+      @Param("webp") boolean webp);
 }
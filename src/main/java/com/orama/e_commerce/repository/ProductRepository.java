@@ -1,12 +1,52 @@
 package com.orama.e_commerce.repository;
 
 import com.orama.e_commerce.models.Product;
+import java.time.Instant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
   Page<Product> findByActiveTrue(Pageable pageable);
 
-  Page<Product> findByNameContainingIgnoreCaseAndActiveTrue(String name, Pageable pageable);
+  // Full-text (tsvector, sem acentos) + trigram no nome para tolerar erros de digitacao.
+  // Ambos os predicados usam os indices GIN criados em V17. No LIKE, \, % e _ do termo sao
+  // escapados para valerem como texto e nao como curinga.
+  String SEARCH_ACTIVE_PREDICATE =
+      " WHERE p.active = true"
+          + " AND (p.search_vector @@ websearch_to_tsquery('portuguese', f_unaccent(:term))"
+          + " OR f_unaccent(lower(:term)) <% f_unaccent(lower(p.name))"
+          + " OR f_unaccent(lower(p.name)) LIKE '%'"
+          + " || replace(replace(replace(f_unaccent(lower(:term)),"
+          + " '\\', '\\\\'), '%', '\\%'), '_', '\\_')"
+          + " || '%' ESCAPE '\\')";
+
+  @Query(
+      value =
+          "SELECT p.* FROM tb_product p"
+              + SEARCH_ACTIVE_PREDICATE
+              + " ORDER BY ts_rank_cd(p.search_vector,"
+              + " websearch_to_tsquery('portuguese', f_unaccent(:term)))"
+              + " + word_similarity(f_unaccent(lower(:term)), f_unaccent(lower(p.name))) DESC,"
+              + " p.id",
+      countQuery = "SELECT count(*) FROM tb_product p" + SEARCH_ACTIVE_PREDICATE,
+      nativeQuery = true)
+  Page<Product> searchActive(@Param("term") String term, Pageable pageable);
+
+  // Reserva atomica: um unico UPDATE condicional, sem ler o estoque antes.
+  @Modifying
+  @Query(
+      "UPDATE Product p SET p.stock = p.stock - :quantity, p.updatedAt = :now"
+          + " WHERE p.id = :id AND p.active = true AND p.stock >= :quantity")
+  int decrementStockIfAvailable(
+      @Param("id") Long id, @Param("quantity") int quantity, @Param("now") Instant now);
+
+  @Modifying
+  @Query(
+      "UPDATE Product p SET p.stock = p.stock + :delta, p.updatedAt = :now"
+          + " WHERE p.id = :id AND p.stock + :delta >= 0")
+  int adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("now") Instant now);
 }
@@ -0,0 +1,58 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.models.RateLimitBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+  // Tokens do bucket recarregados desde o ultimo acesso, limitados a capacidade. O relogio e o do
+  // banco (EXCLUDED.refilled_at); GREATEST(0, ...) garante que nunca se tira token por tempo
+  // negativo.
+  String REFILLED =
+      "LEAST(:capacity, b.tokens + GREATEST(0,"
+          + " EXTRACT(EPOCH FROM (EXCLUDED.refilled_at - b.refilled_at))) * :capacity / 60.0)";
+
+  interface Consumption {
+    Double getTokens();
+
+    Boolean getAllowed();
+  }
+
+  // Token bucket num unico upsert: recarrega e consome um token se houver. A trava de linha do
+  // ON CONFLICT serializa requisicoes simultaneas da mesma chave vindas de instancias diferentes.
+  // O tempo vem de clock_timestamp() e nao da aplicacao: com relogios de instancias defasados, um
+  // no atrasado tiraria tokens e faria refilled_at andar para tras.
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO tb_rate_limit_bucket AS b"
+              + " (bucket_key, tokens, allowed, refilled_at, expires_at)"
+              + " SELECT :key, :capacity - 1, TRUE, c.now,"
+              + " c.now + make_interval(secs => CAST(:idleTtlSeconds AS DOUBLE PRECISION))"
+              + " FROM (SELECT clock_timestamp() AT TIME ZONE 'UTC' AS now) c"
+              + " ON CONFLICT (bucket_key) DO UPDATE SET"
+              + " tokens = CASE WHEN " + REFILLED + " >= 1 THEN " + REFILLED + " - 1"
+              + " ELSE " + REFILLED + " END,"
+              + " allowed = " + REFILLED + " >= 1,"
+              + " refilled_at = EXCLUDED.refilled_at,"
+              + " expires_at = EXCLUDED.expires_at"
+              + " RETURNING tokens AS tokens, allowed AS allowed",
+      nativeQuery = true)
+  Consumption consume(
+      @Param("key") String key,
+      @Param("capacity") int capacity,
+      @Param("idleTtlSeconds") long idleTtlSeconds);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM tb_rate_limit_bucket"
+              + " WHERE expires_at < clock_timestamp() AT TIME ZONE 'UTC'",
+      nativeQuery = true)
+  int deleteExpired();
+}
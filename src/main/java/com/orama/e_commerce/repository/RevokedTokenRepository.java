@@ -2,10 +2,15 @@ package com.orama.e_commerce.repository;
 
 import com.orama.e_commerce.models.RevokedToken;
 import java.time.Instant;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
   boolean existsByTokenHash(String tokenHash);
 
+  List<RevokedToken> findAllByExpiresAtAfter(Instant now);
+
+  List<RevokedToken> findAllByRevokedAtAfterAndExpiresAtAfter(Instant since, Instant now);
+
   void deleteAllByExpiresAtBefore(Instant now);
 }
@@ -0,0 +1,12 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.models.ShippingRateRule;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ShippingRateRuleRepository extends JpaRepository<ShippingRateRule, Long> {
+
+  List<ShippingRateRule> findAllByActiveTrue();
+
+  List<ShippingRateRule> findAllByOrderByPriorityAscIdAsc();
+}
@@ -0,0 +1,41 @@
+package com.orama.e_commerce.repository;
+
+import com.orama.e_commerce.enums.OrderStatus;
+import com.orama.e_commerce.enums.StockReservationStatus;
+import com.orama.e_commerce.models.StockReservation;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+  @Query(
+      "SELECT r FROM StockReservation r JOIN FETCH r.product"
+          + " WHERE r.order.id = :orderId ORDER BY r.product.id")
+  List<StockReservation> findByOrderIdWithProduct(@Param("orderId") Long orderId);
+
+  @Query(
+      "SELECT r FROM StockReservation r JOIN FETCH r.product"
+          + " WHERE r.status = com.orama.e_commerce.enums.StockReservationStatus.HELD"
+          + " AND r.expiresAt < :now AND r.order.status IN :orderStatuses"
+          + " ORDER BY r.expiresAt")
+  List<StockReservation> findExpiredHolds(
+      @Param("now") Instant now,
+      @Param("orderStatuses") List<OrderStatus> orderStatuses,
+      Pageable pageable);
+
+  // Transicao condicional: so quem mudar a linha aplica o efeito no estoque.
+  @Modifying
+  @Query(
+      "UPDATE StockReservation r SET r.status = :to, r.updatedAt = :now"
+          + " WHERE r.id = :id AND r.status = :from")
+  int transition(
+      @Param("id") Long id,
+      @Param("from") StockReservationStatus from,
+      @Param("to") StockReservationStatus to,
+      @Param("now") Instant now);
+}
@@ -0,0 +1,6 @@
+package com.orama.e_commerce.security;
+
+import java.time.Instant;
+import org.springframework.security.core.userdetails.UserDetails;
+
+public record AuthenticatedPrincipal(UserDetails userDetails, Long userId, Instant expiresAt) {}
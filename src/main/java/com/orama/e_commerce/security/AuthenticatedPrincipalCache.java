@@ -0,0 +1,82 @@
+package com.orama.e_commerce.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Cache de token (hash SHA-256) -> principal autenticado. Cada entrada vive ate o exp do token,
+// limitado por max-ttl para que desativacao de conta ou revogacao em outra instancia tenha
+// efeito em tempo previsivel.
+@Component
+public class AuthenticatedPrincipalCache {
+
+  private final Cache<String, AuthenticatedPrincipal> principals;
+  private final Duration maxTtl;
+
+  public AuthenticatedPrincipalCache(
+      @Value("${security.principal-cache.max-size:10000}") long maxSize,
+      @Value("${security.principal-cache.max-ttl:5m}") Duration maxTtl) {
+    this.maxTtl = maxTtl;
+    this.principals =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(
+                new Expiry<String, AuthenticatedPrincipal>() {
+                  @Override
+                  public long expireAfterCreate(
+                      String key, AuthenticatedPrincipal value, long currentTime) {
+                    return timeToLive(value);
+                  }
+
+                  @Override
+                  public long expireAfterUpdate(
+                      String key,
+                      AuthenticatedPrincipal value,
+                      long currentTime,
+                      long currentDuration) {
+                    return timeToLive(value);
+                  }
+
+                  @Override
+                  public long expireAfterRead(
+                      String key,
+                      AuthenticatedPrincipal value,
+                      long currentTime,
+                      long currentDuration) {
+                    return currentDuration;
+                  }
+                })
+            .build();
+  }
+
+  public AuthenticatedPrincipal get(String tokenHash) {
+    return principals.getIfPresent(tokenHash);
+  }
+
+  public void put(String tokenHash, AuthenticatedPrincipal principal) {
+    if (principal.expiresAt() != null && principal.expiresAt().isAfter(Instant.now())) {
+      principals.put(tokenHash, principal);
+    }
+  }
+
+  public void invalidate(String tokenHash) {
+    principals.invalidate(tokenHash);
+  }
+
+  public void invalidateUser(String username) {
+    principals
+        .asMap()
+        .values()
+        .removeIf(principal -> principal.userDetails().getUsername().equals(username));
+  }
+
+  private long timeToLive(AuthenticatedPrincipal principal) {
+    Duration untilExpiry = Duration.between(Instant.now(), principal.expiresAt());
+    Duration ttl = untilExpiry.compareTo(maxTtl) < 0 ? untilExpiry : maxTtl;
+    return Math.max(0, ttl.toNanos());
+  }
+}
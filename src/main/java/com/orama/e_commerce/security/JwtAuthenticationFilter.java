@@ -1,6 +1,7 @@
 package com.orama.e_commerce.security;
 
 import com.orama.e_commerce.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import jakarta.servlet.FilterChain;
@@ -24,14 +25,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   private final JwtService jwtService;
   private final UserDetailsService userDetailsService;
   private final TokenRevocationService tokenRevocationService;
+  private final AuthenticatedPrincipalCache authenticatedPrincipalCache;
 
   public JwtAuthenticationFilter(
       JwtService jwtService,
       UserDetailsService userDetailsService,
-      TokenRevocationService tokenRevocationService) {
+      TokenRevocationService tokenRevocationService,
+      AuthenticatedPrincipalCache authenticatedPrincipalCache) {
     this.jwtService = jwtService;
     this.userDetailsService = userDetailsService;
     this.tokenRevocationService = tokenRevocationService;
+    this.authenticatedPrincipalCache = authenticatedPrincipalCache;
   }
 
   @Override
@@ -49,19 +53,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     try {
       final String jwt = authHeader.substring(7);
-      final String userEmail = jwtService.extractUsername(jwt);
 
-      if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+      if (SecurityContextHolder.getContext().getAuthentication() == null) {
+        AuthenticatedPrincipal principal = resolvePrincipal(jwt);
 
-        if (jwtService.validateToken(jwt, userDetails)
-            && !tokenRevocationService.isTokenRevoked(jwt)) {
+        if (principal != null) {
+          UserDetails userDetails = principal.userDetails();
           UsernamePasswordAuthenticationToken authToken =
               new UsernamePasswordAuthenticationToken(
                   userDetails, null, userDetails.getAuthorities());
 
           Map<String, Object> details = new HashMap<>();
-          details.put("id", jwtService.extractUserId(jwt));
+          details.put("id", principal.userId());
           authToken.setDetails(details);
           SecurityContextHolder.getContext().setAuthentication(authToken);
         }
@@ -79,4 +82,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       response.getWriter().write("Invalid token");
     }
   }
+
+  // Hit no cache dispensa parse, consulta de usuario e de revogacao: a chave e o hash do token
+  // inteiro, que ja foi verificado quando a entrada foi criada.
+  private AuthenticatedPrincipal resolvePrincipal(String jwt) {
+    String tokenHash = TokenHashes.sha256Hex(jwt);
+    AuthenticatedPrincipal cached = authenticatedPrincipalCache.get(tokenHash);
+    if (cached != null) {
+      return cached;
+    }
+
+    Claims claims = jwtService.parseClaims(jwt);
+    String userEmail = claims.getSubject();
+    if (userEmail == null) {
+      return null;
+    }
+
+    UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+    if (!userEmail.equals(userDetails.getUsername())
+        || tokenRevocationService.isTokenHashRevoked(tokenHash)) {
+      return null;
+    }
+
+    AuthenticatedPrincipal principal =
+        new AuthenticatedPrincipal(
+            userDetails, claims.get("id", Long.class), claims.getExpiration().toInstant());
+    authenticatedPrincipalCache.put(tokenHash, principal);
+    return principal;
+  }
 }
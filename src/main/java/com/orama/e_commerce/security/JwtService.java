@@ -1,6 +1,7 @@
 package com.orama.e_commerce.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -27,6 +28,9 @@ public class JwtService {
   @Value("${jwt.refresh-expiration}")
   private Long refreshExpiration;
 
+  private SecretKey signingKey;
+  private JwtParser jwtParser;
+
   @PostConstruct
   public void validateSecret() {
     if (secret == null || secret.isBlank()) {
@@ -36,6 +40,10 @@ public class JwtService {
       throw new IllegalStateException(
           "JWT_SECRET deve ter no mínimo " + MIN_SECRET_LENGTH + " bytes (256 bits).");
     }
+
+    // Chave e parser sao imutaveis e thread-safe: monta uma vez em vez de a cada token.
+    signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+    jwtParser = Jwts.parser().verifyWith(signingKey).build();
   }
 
   public String extractUsername(String token) {
@@ -47,16 +55,14 @@ public class JwtService {
   }
 
   public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-    final Claims claims = extractAllClaims(token);
+    final Claims claims = parseClaims(token);
     return claimsResolver.apply(claims);
   }
 
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
-  }
-
-  private Boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
+  // Verifica assinatura e expiracao uma unica vez; use as claims retornadas em vez de chamar
+  // varios extract* para o mesmo token.
+  public Claims parseClaims(String token) {
+    return jwtParser.parseSignedClaims(token).getPayload();
   }
 
   public String generateToken(UserDetails userDetails, Long clientId, String name, String role) {
@@ -85,13 +91,13 @@ public class JwtService {
   }
 
   private SecretKey getSigningKey() {
-    byte[] keyBytes = secret.getBytes();
-    return Keys.hmacShaKeyFor(keyBytes);
+    return signingKey;
   }
 
   public Boolean validateToken(String token, UserDetails userDetails) {
-    final String username = extractUsername(token);
-    return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    final Claims claims = parseClaims(token);
+    return (claims.getSubject().equals(userDetails.getUsername())
+        && claims.getExpiration().after(new Date()));
   }
 
   public Long getAccessExpirationTime() {
@@ -1,6 +1,9 @@
 package com.orama.e_commerce.security;
 
 import com.orama.e_commerce.config.RateLimitFilter;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -40,7 +43,13 @@ public class SecurityConfig {
         .csrf(csrf -> csrf.disable())
         .authorizeHttpRequests(
             auth ->
+                // So health e prometheus, casados pelo endpoint e nao pela porta: se
+                // MANAGEMENT_PORT coincidir com server.port o resto da API continua com JWT.
+                // O scrape do Prometheus nao tem token.
                 auth.requestMatchers(
+                        EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class))
+                    .permitAll()
+                    .requestMatchers(
                         "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/api/health")
                     .permitAll()
                     .requestMatchers(
@@ -176,7 +176,7 @@ public class AddressService {
     if (!hasText(location.cityName()) || !hasText(location.stateUf())) {
       location = enrichFromCep(location, zipCode);
     } else if (!hasText(location.ibgeCode())) {
-      location = tryEnrichFromCep(location, zipCode);
+      location = enrichFromLocalIndex(location, zipCode);
     }
 
     if (!hasText(location.cityName()) || !hasText(location.stateUf())) {
@@ -201,6 +201,17 @@ public class AddressService {
         firstText(location.ibgeCode(), lookupResponse.ibgeCode()));
   }
 
+  // Cidade e UF informadas: o codigo IBGE sai do indice local, sem consultar o CEP.
+  private LocationData enrichFromLocalIndex(LocationData location, String zipCode) {
+    return locationService
+        .findIbgeCode(location.cityName(), location.stateUf())
+        .map(
+            ibgeCode ->
+                new LocationData(
+                    location.cityName(), location.stateUf(), location.countryCode(), ibgeCode))
+        .orElseGet(() -> tryEnrichFromCep(location, zipCode));
+  }
+
   private LocationData tryEnrichFromCep(LocationData location, String zipCode) {
     try {
       return enrichFromCep(location, zipCode);
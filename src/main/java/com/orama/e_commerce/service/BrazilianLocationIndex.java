@@ -0,0 +1,130 @@
+package com.orama.e_commerce.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+// Indice local montado na subida a partir dos arquivos em resources/data: municipios do IBGE
+// (codigo e nome+UF) e faixas de CEP por UF, buscadas por binary search.
+@Component
+public class BrazilianLocationIndex {
+
+  private static final String CITIES_RESOURCE = "data/brazilian-cities.csv";
+  private static final String CEP_RANGES_RESOURCE = "data/cep-uf-ranges.csv";
+  private static final String STATE_ID_PREFIX = "base.state_br_";
+
+  public record City(String ibgeCode, String name, String stateUf) {}
+
+  private record CepRange(int start, int end, String stateUf) {}
+
+  private final Map<String, City> citiesByIbgeCode;
+  private final Map<String, City> citiesByNameAndState;
+  private final int[] rangeStarts;
+  private final int[] rangeEnds;
+  private final String[] rangeStates;
+
+  public BrazilianLocationIndex() {
+    List<City> cities = loadCities();
+    this.citiesByIbgeCode = new HashMap<>(cities.size() * 2);
+    this.citiesByNameAndState = new HashMap<>(cities.size() * 2);
+    for (City city : cities) {
+      citiesByIbgeCode.put(city.ibgeCode(), city);
+      citiesByNameAndState.put(nameKey(city.name(), city.stateUf()), city);
+    }
+
+    List<CepRange> ranges = loadCepRanges();
+    this.rangeStarts = ranges.stream().mapToInt(CepRange::start).toArray();
+    this.rangeEnds = ranges.stream().mapToInt(CepRange::end).toArray();
+    this.rangeStates = ranges.stream().map(CepRange::stateUf).toArray(String[]::new);
+  }
+
+  public Optional<City> findByIbgeCode(String ibgeCode) {
+    return ibgeCode == null
+        ? Optional.empty()
+        : Optional.ofNullable(citiesByIbgeCode.get(ibgeCode));
+  }
+
+  public Optional<City> findByNameAndState(String cityName, String stateUf) {
+    if (cityName == null || stateUf == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(citiesByNameAndState.get(nameKey(cityName, stateUf)));
+  }
+
+  // cleanZip: CEP com 8 digitos, sem mascara.
+  public Optional<String> findStateUf(String cleanZip) {
+    int cep = Integer.parseInt(cleanZip);
+    int index = Arrays.binarySearch(rangeStarts, cep);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    if (index < 0 || cep > rangeEnds[index]) {
+      return Optional.empty();
+    }
+    return Optional.of(rangeStates[index]);
+  }
+
+  public int cityCount() {
+    return citiesByIbgeCode.size();
+  }
+
+  private static String nameKey(String cityName, String stateUf) {
+    String withoutAccents =
+        Normalizer.normalize(cityName.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    return withoutAccents.toLowerCase(Locale.ROOT) + "|" + stateUf.trim().toUpperCase(Locale.ROOT);
+  }
+
+  // id,name,ibge_code,state_id:id,country_id:id
+  private static List<City> loadCities() {
+    List<City> cities = new ArrayList<>();
+    for (String[] columns : readCsv(CITIES_RESOURCE)) {
+      String stateId = columns[3];
+      if (!stateId.startsWith(STATE_ID_PREFIX)) {
+        continue;
+      }
+      String stateUf = stateId.substring(STATE_ID_PREFIX.length()).toUpperCase(Locale.ROOT);
+      cities.add(new City(columns[2], columns[1], stateUf));
+    }
+    return cities;
+  }
+
+  // state_uf,cep_start,cep_end
+  private static List<CepRange> loadCepRanges() {
+    List<CepRange> ranges = new ArrayList<>();
+    for (String[] columns : readCsv(CEP_RANGES_RESOURCE)) {
+      ranges.add(
+          new CepRange(Integer.parseInt(columns[1]), Integer.parseInt(columns[2]), columns[0]));
+    }
+    ranges.sort(Comparator.comparingInt(CepRange::start));
+    return ranges;
+  }
+
+  private static List<String[]> readCsv(String resource) {
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new ClassPathResource(resource).getInputStream(), StandardCharsets.UTF_8))) {
+      return reader
+          .lines()
+          .skip(1)
+          .filter(line -> !line.isBlank())
+          .map(line -> line.split(","))
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao carregar " + resource, e);
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package com.orama.e_commerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.orama.e_commerce.dtos.location.CepLookupResponseDto;
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.models.CepCacheEntry;
+import com.orama.e_commerce.repository.CepCacheEntryRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+// Resolve CEP em camadas: cache em memoria -> tb_cep_cache -> ViaCEP. A chamada remota so
+// acontece em miss (ou quando a linha persistida passou de refresh-after).
+@Service
+public class CepResolver {
+
+  private static final Logger log = LoggerFactory.getLogger(CepResolver.class);
+
+  private final RestClient restClient;
+  private final CepCacheEntryRepository cepCacheEntryRepository;
+  private final BrazilianLocationIndex locationIndex;
+  private final Cache<String, CepLookupResponseDto> resolved;
+  private final Cache<String, Boolean> notFound;
+  private final Duration refreshAfter;
+  private final long persistentMaxSize;
+
+  public CepResolver(
+      RestClient.Builder restClientBuilder,
+      CepCacheEntryRepository cepCacheEntryRepository,
+      BrazilianLocationIndex locationIndex,
+      @Value("${location.cep-cache.memory-max-size:20000}") long memoryMaxSize,
+      @Value("${location.cep-cache.persistent-max-size:200000}") long persistentMaxSize,
+      @Value("${location.cep-cache.refresh-after:90d}") Duration refreshAfter,
+      @Value("${location.cep-cache.not-found-ttl:1h}") Duration notFoundTtl) {
+    this.restClient = restClientBuilder.baseUrl("https://viacep.com.br").build();
+    this.cepCacheEntryRepository = cepCacheEntryRepository;
+    this.locationIndex = locationIndex;
+    this.refreshAfter = refreshAfter;
+    this.persistentMaxSize = persistentMaxSize;
+    this.resolved =
+        Caffeine.newBuilder().maximumSize(memoryMaxSize).expireAfterWrite(refreshAfter).build();
+    this.notFound =
+        Caffeine.newBuilder().maximumSize(memoryMaxSize).expireAfterWrite(notFoundTtl).build();
+  }
+
+  public static String normalize(String cep) {
+    String cleanZip = cep == null ? "" : cep.replaceAll("\\D", "");
+    if (cleanZip.length() != 8) {
+      throw new BadRequestException("CEP inválido. Digite um CEP com 8 dígitos.");
+    }
+    return cleanZip;
+  }
+
+  public CepLookupResponseDto resolve(String cleanZip) {
+    return resolve(cleanZip, false);
+  }
+
+  // Para cotacao de frete: se o ViaCEP estiver fora, responde so com a UF do indice local.
+  public CepLookupResponseDto resolveOrLocal(String cleanZip) {
+    return resolve(cleanZip, true);
+  }
+
+  @Scheduled(cron = "${location.cep-cache.purge-cron:0 30 3 * * *}")
+  public void purgePersistentCache() {
+    int removed = cepCacheEntryRepository.deleteLeastRecentlyUsedBeyond(persistentMaxSize);
+    if (removed > 0) {
+      log.info("Removidos {} CEPs menos usados de tb_cep_cache", removed);
+    }
+  }
+
+  private CepLookupResponseDto resolve(String cleanZip, boolean allowLocalFallback) {
+    CepLookupResponseDto cached = resolved.getIfPresent(cleanZip);
+    if (cached != null) {
+      return cached;
+    }
+    if (notFound.getIfPresent(cleanZip) != null) {
+      throw new BadRequestException("CEP não encontrado.");
+    }
+
+    Instant now = Instant.now();
+    Optional<CepCacheEntry> stored = cepCacheEntryRepository.findById(cleanZip);
+    if (stored.isPresent() && stored.get().getFetchedAt().plus(refreshAfter).isAfter(now)) {
+      cepCacheEntryRepository.touch(cleanZip, now);
+      return remember(cleanZip, toDto(stored.get()));
+    }
+
+    Map<?, ?> viaCepData;
+    try {
+      viaCepData = fetchViaCep(cleanZip);
+    } catch (RestClientException e) {
+      log.warn("Falha ao consultar ViaCEP para {}: {}", cleanZip, e.getMessage());
+      if (stored.isPresent()) {
+        return remember(cleanZip, toDto(stored.get()));
+      }
+      if (allowLocalFallback) {
+        Optional<String> stateUf = locationIndex.findStateUf(cleanZip);
+        if (stateUf.isPresent()) {
+          return new CepLookupResponseDto(
+              formatZip(cleanZip), null, null, null, stateUf.get(), "BR", null);
+        }
+      }
+      throw new BadRequestException("Não foi possível consultar o CEP. Tente novamente.");
+    }
+
+    if (viaCepData == null || Boolean.TRUE.equals(viaCepData.get("erro"))) {
+      notFound.put(cleanZip, Boolean.TRUE);
+      throw new BadRequestException("CEP não encontrado.");
+    }
+
+    CepLookupResponseDto lookup = fromViaCep(cleanZip, viaCepData);
+    try {
+      cepCacheEntryRepository.upsert(
+          cleanZip,
+          lookup.street(),
+          lookup.district(),
+          lookup.cityName(),
+          lookup.stateUf(),
+          lookup.ibgeCode(),
+          now);
+    } catch (DataAccessException e) {
+      log.warn("Falha ao persistir CEP {} em cache: {}", cleanZip, e.getMessage());
+    }
+    return remember(cleanZip, lookup);
+  }
+
+  private CepLookupResponseDto remember(String cleanZip, CepLookupResponseDto lookup) {
+    resolved.put(cleanZip, lookup);
+    return lookup;
+  }
+
+  private CepLookupResponseDto fromViaCep(String cleanZip, Map<?, ?> viaCepData) {
+    String ibgeCode = (String) viaCepData.get("ibge");
+    String cityName = (String) viaCepData.get("localidade");
+    String stateUf = (String) viaCepData.get("uf");
+
+    Optional<BrazilianLocationIndex.City> city = locationIndex.findByIbgeCode(ibgeCode);
+    if (city.isPresent()) {
+      cityName = hasText(cityName) ? cityName : city.get().name();
+      stateUf = hasText(stateUf) ? stateUf : city.get().stateUf();
+    }
+
+    return new CepLookupResponseDto(
+        formatZip(cleanZip),
+        (String) viaCepData.get("logradouro"),
+        (String) viaCepData.get("bairro"),
+        cityName,
+        stateUf,
+        "BR",
+        ibgeCode);
+  }
+
+  private CepLookupResponseDto toDto(CepCacheEntry entry) {
+    return new CepLookupResponseDto(
+        formatZip(entry.getZipCode()),
+        entry.getStreet(),
+        entry.getDistrict(),
+        entry.getCityName(),
+        entry.getStateUf(),
+        "BR",
+        entry.getIbgeCode());
+  }
+
+  private Map<?, ?> fetchViaCep(String cep) {
+    return restClient.get().uri("/ws/{cep}/json/", cep).retrieve().body(Map.class);
+  }
+
+  private static String formatZip(String cleanZip) {
+    return cleanZip.substring(0, 5) + "-" + cleanZip.substring(5);
+  }
+
+  private static boolean hasText(String value) {
+    return value != null && !value.isBlank();
+  }
+}
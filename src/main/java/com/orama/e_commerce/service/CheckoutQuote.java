@@ -0,0 +1,15 @@
+package com.orama.e_commerce.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Conteudo assinado no token de cotacao. zipCode vai sem mascara.
+public record CheckoutQuote(
+    Long cartId,
+    Long clientId,
+    String zipCode,
+    BigDecimal subtotal,
+    BigDecimal discount,
+    BigDecimal shippingCost,
+    String cartFingerprint,
+    Instant expiresAt) {}
@@ -0,0 +1,137 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.dtos.order.CheckoutQuoteRequestDto;
+import com.orama.e_commerce.dtos.order.CheckoutQuoteResponseDto;
+import com.orama.e_commerce.dtos.order.OrderItemDto;
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.exceptions.cart.CartNotFoundException;
+import com.orama.e_commerce.exceptions.order.InvalidDiscountException;
+import com.orama.e_commerce.models.Cart;
+import com.orama.e_commerce.models.CartItem;
+import com.orama.e_commerce.repository.CartRepository;
+import com.orama.e_commerce.security.TokenHashes;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CheckoutQuoteService {
+
+  private final CartRepository cartRepository;
+  private final ShippingService shippingService;
+  private final CheckoutQuoteTokenService checkoutQuoteTokenService;
+
+  public CheckoutQuoteService(
+      CartRepository cartRepository,
+      ShippingService shippingService,
+      CheckoutQuoteTokenService checkoutQuoteTokenService) {
+    this.cartRepository = cartRepository;
+    this.shippingService = shippingService;
+    this.checkoutQuoteTokenService = checkoutQuoteTokenService;
+  }
+
+  // Carrinho, itens e produtos vem numa unica consulta com fetch join.
+  public CheckoutQuoteResponseDto quote(Long clientId, CheckoutQuoteRequestDto dto) {
+    Cart cart =
+        cartRepository.findActiveCartsWithProductsByClientId(clientId).stream()
+            .findFirst()
+            .orElseThrow(
+                () ->
+                    new CartNotFoundException(
+                        "Carrinho ativo não encontrado para o cliente id: " + clientId));
+
+    List<CartItem> items = cart.getItems();
+    if (items == null || items.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Não é possível criar pedido a partir de um carrinho vazio");
+    }
+
+    BigDecimal subtotal = calculateSubtotal(items);
+    BigDecimal discount = dto.discount() != null ? dto.discount() : BigDecimal.ZERO;
+    if (discount.compareTo(subtotal) > 0) {
+      throw new InvalidDiscountException("Desconto não pode exceder o subtotal");
+    }
+
+    String zipCode = CepResolver.normalize(dto.zipCode());
+    BigDecimal shippingCost = shippingService.getShippingCost(zipCode, subtotal.subtract(discount));
+
+    CheckoutQuote quote =
+        checkoutQuoteTokenService.issue(
+            cart.getId(),
+            clientId,
+            zipCode,
+            subtotal,
+            discount,
+            shippingCost,
+            fingerprint(items));
+
+    return new CheckoutQuoteResponseDto(
+        cart.getId(),
+        items.stream().map(CheckoutQuoteService::toItemDto).toList(),
+        subtotal,
+        discount,
+        shippingCost,
+        shippingCost.signum() == 0,
+        subtotal.subtract(discount).add(shippingCost),
+        checkoutQuoteTokenService.sign(quote),
+        quote.expiresAt());
+  }
+
+  // Valida o token contra o pedido que esta sendo criado. O carrinho ja deve estar carregado
+  // com os produtos (o createOrder precisa deles de qualquer forma); se algum preco ou
+  // quantidade mudou, a cotacao nao vale mais. O que o token garante e o valor cotado (frete
+  // e subtotal) enquanto nao expira, nao desempenho.
+  public CheckoutQuote redeem(String token, Cart cart, String zipCode, BigDecimal discount) {
+    CheckoutQuote quote =
+        checkoutQuoteTokenService
+            .verify(token)
+            .orElseThrow(
+                () -> new BadRequestException("Cotação inválida ou expirada. Gere uma nova."));
+
+    boolean sameRequest =
+        quote.cartId().equals(cart.getId())
+            && quote.clientId().equals(cart.getClient().getId())
+            && quote.zipCode().equals(CepResolver.normalize(zipCode))
+            && quote.discount().compareTo(discount) == 0;
+    if (!sameRequest) {
+      throw new BadRequestException("Cotação não corresponde a este pedido.");
+    }
+    if (!quote.cartFingerprint().equals(fingerprint(cart.getItems()))) {
+      throw new BadRequestException("O carrinho mudou desde a cotação. Gere uma nova.");
+    }
+    return quote;
+  }
+
+  static BigDecimal calculateSubtotal(List<CartItem> cartItems) {
+    return cartItems.stream()
+        .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+  // Produto, quantidade e preco atual de cada item; muda se o carrinho ou algum preco mudar.
+  static String fingerprint(List<CartItem> cartItems) {
+    return TokenHashes.sha256Hex(
+        cartItems.stream()
+            .sorted(Comparator.comparing(item -> item.getProduct().getId()))
+            .map(
+                item ->
+                    item.getProduct().getId()
+                        + ":"
+                        + item.getQuantity()
+                        + ":"
+                        + item.getProduct().getPrice().stripTrailingZeros().toPlainString())
+            .collect(Collectors.joining(";")));
+  }
+
+  private static OrderItemDto toItemDto(CartItem item) {
+    BigDecimal unitPrice = item.getProduct().getPrice();
+    return new OrderItemDto(
+        item.getProduct().getId(),
+        item.getProduct().getName(),
+        item.getQuantity(),
+        unitPrice,
+        unitPrice.multiply(BigDecimal.valueOf(item.getQuantity())));
+  }
+}
@@ -0,0 +1,103 @@
+package com.orama.e_commerce.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// A chave e derivada do segredo do JWT, mas e diferente da chave de autenticacao: um token de
+// cotacao nunca passa como token de acesso, e vice-versa.
+@Service
+public class CheckoutQuoteTokenService {
+
+  private static final String KEY_CONTEXT = "checkout-quote";
+
+  private final SecretKey signingKey;
+  private final JwtParser jwtParser;
+  private final Duration ttl;
+
+  public CheckoutQuoteTokenService(
+      @Value("${jwt.secret}") String secret,
+      @Value("${checkout.quote.ttl:10m}") Duration ttl) {
+    this.signingKey = deriveKey(secret);
+    this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+    this.ttl = ttl;
+  }
+
+  public CheckoutQuote issue(
+      Long cartId,
+      Long clientId,
+      String zipCode,
+      BigDecimal subtotal,
+      BigDecimal discount,
+      BigDecimal shippingCost,
+      String cartFingerprint) {
+    Instant expiresAt = Instant.now().plus(ttl);
+    return new CheckoutQuote(
+        cartId,
+        clientId,
+        zipCode,
+        subtotal,
+        discount,
+        shippingCost,
+        cartFingerprint,
+        expiresAt);
+  }
+
+  public String sign(CheckoutQuote quote) {
+    return Jwts.builder()
+        .claim("cart", quote.cartId())
+        .claim("client", quote.clientId())
+        .claim("zip", quote.zipCode())
+        .claim("subtotal", quote.subtotal().toPlainString())
+        .claim("discount", quote.discount().toPlainString())
+        .claim("shipping", quote.shippingCost().toPlainString())
+        .claim("fp", quote.cartFingerprint())
+        .expiration(Date.from(quote.expiresAt()))
+        .signWith(signingKey)
+        .compact();
+  }
+
+  // Vazio quando a assinatura nao confere ou o token expirou.
+  public Optional<CheckoutQuote> verify(String token) {
+    Claims claims;
+    try {
+      claims = jwtParser.parseSignedClaims(token).getPayload();
+    } catch (JwtException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new CheckoutQuote(
+            claims.get("cart", Long.class),
+            claims.get("client", Long.class),
+            claims.get("zip", String.class),
+            new BigDecimal(claims.get("subtotal", String.class)),
+            new BigDecimal(claims.get("discount", String.class)),
+            new BigDecimal(claims.get("shipping", String.class)),
+            claims.get("fp", String.class),
+            claims.getExpiration().toInstant()));
+  }
+
+  private static SecretKey deriveKey(String secret) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+      return Keys.hmacShaKeyFor(mac.doFinal(KEY_CONTEXT.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Não foi possível derivar a chave de cotação.", e);
+    }
+  }
+}
@@ -10,6 +10,7 @@ import com.orama.e_commerce.mapper.ClientMapper;
 import com.orama.e_commerce.mapper.ProductMapper;
 import com.orama.e_commerce.models.Client;
 import com.orama.e_commerce.repository.ClientRepository;
+import com.orama.e_commerce.security.AuthenticatedPrincipalCache;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -22,15 +23,18 @@ public class ClientService {
   private final ClientRepository clientRepository;
   private final ClientMapper clientMapper;
   private final PasswordEncoder passwordEncoder;
+  private final AuthenticatedPrincipalCache authenticatedPrincipalCache;
 
   public ClientService(
       ClientRepository clientRepository,
       ClientMapper clientMapper,
       PasswordEncoder passwordEncoder,
-      ProductMapper productMapper) {
+      ProductMapper productMapper,
+      AuthenticatedPrincipalCache authenticatedPrincipalCache) {
     this.clientRepository = clientRepository;
     this.clientMapper = clientMapper;
     this.passwordEncoder = passwordEncoder;
+    this.authenticatedPrincipalCache = authenticatedPrincipalCache;
   }
 
   public ClientResponseDto getById(Long id) {
@@ -101,9 +105,11 @@ public class ClientService {
       throw new EmailAlreadyExistsException("Email já está em uso por outro cliente.");
     }
 
+    String previousEmail = client.getEmail();
     clientMapper.updateDto(updateRequestDto, client);
 
     Client updatedClient = clientRepository.save(client);
+    authenticatedPrincipalCache.invalidateUser(previousEmail);
 
     return clientMapper.toResponseDto(updatedClient);
   }
@@ -130,6 +136,7 @@ public class ClientService {
 
     client.setActive(false);
     clientRepository.save(client);
+    authenticatedPrincipalCache.invalidateUser(client.getEmail());
   }
 
   @Transactional
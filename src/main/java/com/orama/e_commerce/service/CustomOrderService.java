@@ -1,8 +1,12 @@
 package com.orama.e_commerce.service;
 
 import com.orama.e_commerce.dtos.custom_order.CreateCustomOrderRequestDto;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderLogoDetailRow;
 import com.orama.e_commerce.dtos.custom_order.CustomOrderResponseDto;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
 import com.orama.e_commerce.dtos.custom_order.LogoDetailDto;
+import com.orama.e_commerce.dtos.pagination.CursorPageResponseDto;
 import com.orama.e_commerce.enums.CustomOrderStatus;
 import com.orama.e_commerce.exceptions.custom_order.CustomOrderNotFoundException;
 import com.orama.e_commerce.mapper.CustomOrderMapper;
@@ -12,30 +16,35 @@ import com.orama.e_commerce.models.CustomOrderLogoDetail;
 import com.orama.e_commerce.repository.ClientRepository;
 import com.orama.e_commerce.repository.CustomOrderRepository;
 import jakarta.transaction.Transactional;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
 public class CustomOrderService {
 
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final CustomOrderRepository customOrderRepository;
   private final ClientRepository clientRepository;
   private final CustomOrderMapper customOrderMapper;
   private final R2StorageService r2StorageService;
+  private final OrderNumberGenerator orderNumberGenerator;
 
   public CustomOrderService(
       CustomOrderRepository customOrderRepository,
       ClientRepository clientRepository,
       CustomOrderMapper customOrderMapper,
-      R2StorageService r2StorageService) {
+      R2StorageService r2StorageService,
+      OrderNumberGenerator orderNumberGenerator) {
     this.customOrderRepository = customOrderRepository;
     this.clientRepository = clientRepository;
     this.customOrderMapper = customOrderMapper;
     this.r2StorageService = r2StorageService;
+    this.orderNumberGenerator = orderNumberGenerator;
   }
 
   @Transactional
@@ -48,7 +57,7 @@ public class CustomOrderService {
 
     CustomOrder customOrder = customOrderMapper.toEntity(dto);
     customOrder.setClient(client);
-    customOrder.setOrderNumber(generateOrderNumber());
+    customOrder.setOrderNumber(orderNumberGenerator.nextCustomOrderNumber());
     customOrder.setStatus(CustomOrderStatus.DRAFT);
     customOrder.setLaserCut(dto.laserCut() != null ? dto.laserCut() : false);
     customOrder.setFullLaserCut(dto.fullLaserCut() != null ? dto.fullLaserCut() : false);
@@ -81,8 +90,34 @@ public class CustomOrderService {
         .toList();
   }
 
-  public List<CustomOrderResponseDto> getAllOrders() {
-    return customOrderRepository.findAll().stream().map(customOrderMapper::toResponseDto).toList();
+  public CursorPageResponseDto<CustomOrderResponseDto> getAllOrders(
+      CustomOrderSearchFilter filter, Long cursor, int size) {
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    List<CustomOrderListingRow> rows =
+        customOrderRepository.searchListingPage(
+            filter, cursor != null ? cursor : Long.MAX_VALUE, pageSize + 1);
+
+    boolean hasNext = rows.size() > pageSize;
+    List<CustomOrderListingRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+    if (page.isEmpty()) {
+      return new CursorPageResponseDto<>(List.of(), null, false);
+    }
+
+    Map<Long, List<CustomOrderLogoDetailRow>> detailsByOrder =
+        customOrderRepository
+            .findLogoDetailRows(page.stream().map(CustomOrderListingRow::id).toList())
+            .stream()
+            .collect(Collectors.groupingBy(CustomOrderLogoDetailRow::customOrderId));
+
+    List<CustomOrderResponseDto> content =
+        page.stream()
+            .map(
+                row ->
+                    customOrderMapper.toResponseDto(
+                        row, detailsByOrder.getOrDefault(row.id(), List.of())))
+            .toList();
+    Long nextCursor = hasNext ? page.get(page.size() - 1).id() : null;
+    return new CursorPageResponseDto<>(content, nextCursor, hasNext);
   }
 
   @Transactional
@@ -136,19 +171,6 @@ public class CustomOrderService {
     return customOrderMapper.toResponseDto(updated);
   }
 
-  private String generateOrderNumber() {
-    String prefix = "CUST-" + Instant.now() + "-";
-    String uniqueId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    String orderNumber = prefix + uniqueId;
-
-    while (customOrderRepository.existsByOrderNumber(orderNumber)) {
-      uniqueId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-      orderNumber = prefix + uniqueId;
-    }
-
-    return orderNumber;
-  }
-
   private List<CustomOrderLogoDetail> createLogoDetails(
       List<LogoDetailDto> dtos, CustomOrder customOrder) {
     return dtos.stream()
@@ -0,0 +1,265 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.enums.EmailOutboxStatus;
+import com.orama.e_commerce.events.email.EmailQueuedEvent;
+import com.orama.e_commerce.models.EmailOutboxEntry;
+import com.orama.e_commerce.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Envia os emails de tb_email_outbox numa thread propria. Cada lote sai numa unica chamada a
+// EmailService.send(MimeMessage...), que abre uma conexao SMTP e manda todas as mensagens por
+// ela. Falha transiente volta para a fila com backoff exponencial; endereco invalido, link
+// vencido ou tentativas esgotadas terminam em DEAD.
+@Component
+public class EmailOutboxDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final EmailService emailService;
+  private final EmailOutboxRepository outboxRepository;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration retryBase;
+  private final Duration processingLease;
+  private final Duration retention;
+  private final ThreadPoolExecutor dispatcher;
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong dead = new AtomicLong();
+
+  public EmailOutboxDispatcher(
+      EmailService emailService,
+      EmailOutboxRepository outboxRepository,
+      @Value("${email.outbox.batch-size:50}") int batchSize,
+      @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+      @Value("${email.outbox.retry-base:30s}") Duration retryBase,
+      @Value("${email.outbox.processing-lease:5m}") Duration processingLease,
+      @Value("${email.outbox.retention:7d}") Duration retention) {
+    this.emailService = emailService;
+    this.outboxRepository = outboxRepository;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.retryBase = retryBase;
+    this.processingLease = processingLease;
+    this.retention = retention;
+    // Uma thread: no maximo um drain em andamento e um agendado.
+    this.dispatcher =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "email-outbox-dispatcher");
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onQueued(EmailQueuedEvent event) {
+    wakeUp();
+  }
+
+  // Rede de seguranca para retentativas agendadas e emails gravados por outra instancia.
+  @Scheduled(fixedDelayString = "${email.outbox.poll-interval:10s}")
+  public void poll() {
+    wakeUp();
+  }
+
+  public void wakeUp() {
+    dispatcher.execute(this::drainSafely);
+  }
+
+  @Scheduled(cron = "${email.outbox.purge-cron:0 50 3 * * *}")
+  public void purgeSent() {
+    int removed = outboxRepository.deleteSentBefore(Instant.now().minus(retention));
+    if (removed > 0) {
+      log.info("Removidos {} emails enviados de tb_email_outbox", removed);
+    }
+  }
+
+  public long sentCount() {
+    return sent.get();
+  }
+
+  public long failedCount() {
+    return failed.get();
+  }
+
+  public long deadCount() {
+    return dead.get();
+  }
+
+  public long backlog() {
+    return outboxRepository.countByStatus(EmailOutboxStatus.PENDING)
+        + outboxRepository.countByStatus(EmailOutboxStatus.PROCESSING);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    dispatcher.shutdown();
+  }
+
+  private void drainSafely() {
+    try {
+      drain();
+    } catch (RuntimeException e) {
+      log.warn("Falha ao drenar fila de emails: {}", e.getMessage());
+    }
+  }
+
+  int drain() {
+    int released = outboxRepository.releaseExpiredLocks(Instant.now());
+    if (released > 0) {
+      log.warn("{} emails com lease vencido voltaram para a fila", released);
+    }
+
+    Instant startedAt = Instant.now();
+    int processed = 0;
+    List<EmailOutboxEntry> batch;
+    do {
+      Instant now = Instant.now();
+      batch = emailService.claimBatch(now, now.plus(processingLease), batchSize);
+      if (!batch.isEmpty()) {
+        sendBatch(batch);
+      }
+      processed += batch.size();
+    } while (batch.size() == batchSize);
+
+    if (processed > 0) {
+      log.info(
+          "Fila de emails: {} emails em {} ms (enviados {}, falhas {}, descartados {})",
+          processed,
+          Duration.between(startedAt, Instant.now()).toMillis(),
+          sent.get(),
+          failed.get(),
+          dead.get());
+    }
+    return processed;
+  }
+
+  void sendBatch(List<EmailOutboxEntry> batch) {
+    Instant now = Instant.now();
+    Map<MimeMessage, EmailOutboxEntry> messages = new LinkedHashMap<>();
+    for (EmailOutboxEntry entry : batch) {
+      if (entry.isExpired(now)) {
+        markDead(entry, "Email vencido antes do envio");
+        continue;
+      }
+      try {
+        messages.put(emailService.toMimeMessage(entry), entry);
+      } catch (MessagingException e) {
+        markDead(entry, e.getMessage());
+      }
+    }
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    try {
+      emailService.send(messages.keySet().toArray(MimeMessage[]::new));
+      markSent(messages.values());
+    } catch (MailSendException e) {
+      // Sem mapa de falhas nao da para saber o que saiu: trata o lote inteiro como falho.
+      Map<Object, Exception> failures = e.getFailedMessages();
+      List<EmailOutboxEntry> delivered = new ArrayList<>();
+      messages.forEach(
+          (message, entry) -> {
+            Exception failure = failures.isEmpty() ? e : failures.get(message);
+            if (failure == null) {
+              delivered.add(entry);
+            } else {
+              fail(entry, failure);
+            }
+          });
+      markSent(delivered);
+    } catch (MailException e) {
+      messages.values().forEach(entry -> fail(entry, e));
+    }
+  }
+
+  private void markSent(Collection<EmailOutboxEntry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    List<Long> ids = entries.stream().map(EmailOutboxEntry::getId).toList();
+    outboxRepository.markSent(ids, Instant.now());
+    sent.addAndGet(ids.size());
+  }
+
+  private void fail(EmailOutboxEntry entry, Exception e) {
+    if (isPermanent(e)) {
+      markDead(entry, e.getMessage());
+      return;
+    }
+    failed.incrementAndGet();
+    log.warn(
+        "Falha ao enviar email. id={}, template={}, attempts={}, message={}",
+        entry.getId(),
+        entry.getTemplate(),
+        entry.getAttempts() + 1,
+        e.getMessage());
+    outboxRepository.reschedule(
+        entry.getId(), Instant.now(), retryBase.toSeconds(), maxAttempts, truncate(e.getMessage()));
+  }
+
+  private void markDead(EmailOutboxEntry entry, String reason) {
+    dead.incrementAndGet();
+    log.warn(
+        "Email descartado sem nova tentativa. id={}, template={}, message={}",
+        entry.getId(),
+        entry.getTemplate(),
+        reason);
+    outboxRepository.markDead(entry.getId(), truncate(reason));
+  }
+
+  // Servidor recusou o destinatario (5xx no RCPT) ou endereco mal formado: repetir nao resolve.
+  private static boolean isPermanent(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof AddressException) {
+        return true;
+      }
+      if (cause instanceof SendFailedException sendFailed
+          && sendFailed.getInvalidAddresses() != null
+          && sendFailed.getInvalidAddresses().length > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+}
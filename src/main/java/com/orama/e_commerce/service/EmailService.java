@@ -1,59 +1,92 @@
 package com.orama.e_commerce.service;
 
+import com.orama.e_commerce.events.email.EmailQueuedEvent;
+import com.orama.e_commerce.models.EmailOutboxEntry;
+import com.orama.e_commerce.repository.EmailOutboxRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+// Enfileira emails em tb_email_outbox na transacao de quem pede o envio; o SMTP fica com o
+// EmailOutboxDispatcher, fora da requisicao e sem conexao de banco presa.
 @Service
 public class EmailService {
 
   private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
+  static final String PASSWORD_RESET = "PASSWORD_RESET";
+  private static final String PASSWORD_RESET_SUBJECT = "Redefinição de Senha";
+
+  private final EmailOutboxRepository outboxRepository;
   private final JavaMailSender mailSender;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EmailTemplate passwordResetTemplate;
 
-  public EmailService(JavaMailSender mailSender) {
+  public EmailService(
+      EmailOutboxRepository outboxRepository,
+      JavaMailSender mailSender,
+      ApplicationEventPublisher eventPublisher) {
+    this.outboxRepository = outboxRepository;
     this.mailSender = mailSender;
+    this.eventPublisher = eventPublisher;
+    this.passwordResetTemplate = EmailTemplate.load("templates/email/password-reset.html");
   }
 
-  public void sendPasswordResetEmail(String to, String name, String resetLink) {
-    try {
-      MimeMessage message = mailSender.createMimeMessage();
-      MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-      helper.setTo(to);
-      helper.setSubject("Redefinição de Senha");
-      helper.setText(buildResetEmailHtml(name, resetLink), true);
+  // Um pedido novo invalida o token anterior, entao o email ainda na fila com o link antigo sai
+  // junto. expiresAt e o vencimento do token: depois dele o email nao e mais enviado.
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void enqueuePasswordResetEmail(
+      String to, String name, String resetLink, long expiresInMinutes, Instant expiresAt) {
+    outboxRepository.discardPending(PASSWORD_RESET, to);
+    String body =
+        passwordResetTemplate.render(
+            Map.of(
+                "name", name,
+                "resetLink", resetLink,
+                "expiresInMinutes", Long.toString(expiresInMinutes)));
+    EmailOutboxEntry entry =
+        outboxRepository.save(
+            new EmailOutboxEntry(
+                PASSWORD_RESET, to, PASSWORD_RESET_SUBJECT, body, expiresAt, Instant.now()));
+    eventPublisher.publishEvent(new EmailQueuedEvent(entry.getId()));
+    logger.info("Password reset email queued. id={}", entry.getId());
+  }
 
-      mailSender.send(message);
-      logger.info("Password reset email sent to: {}", to);
-    } catch (MessagingException e) {
-      logger.error("Failed to send password reset email to: {}", to, e);
+  // Trava um lote com SKIP LOCKED e marca como PROCESSING ate lockedUntil; o envio acontece
+  // fora desta transacao.
+  @Transactional
+  public List<EmailOutboxEntry> claimBatch(Instant now, Instant lockedUntil, int limit) {
+    List<Long> ids = outboxRepository.lockDueIds(now, limit);
+    if (ids.isEmpty()) {
+      return List.of();
     }
+    outboxRepository.claim(ids, lockedUntil);
+    return outboxRepository.findAllByIdInOrderByIdAsc(ids);
+  }
+
+  public MimeMessage toMimeMessage(EmailOutboxEntry entry) throws MessagingException {
+    MimeMessage message = mailSender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+    helper.setTo(entry.getRecipient());
+    helper.setSubject(entry.getSubject());
+    helper.setText(entry.getBody(), true);
+    return message;
   }
 
-  private String buildResetEmailHtml(String name, String resetLink) {
-    return "<!DOCTYPE html>"
-        + "<html><head><meta charset=\"UTF-8\"></head><body style=\"font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto; padding: 20px;\">"
-        + "<h2 style=\"color: #333;\">Redefinição de Senha</h2>"
-        + "<p>Olá, <strong>"
-        + name
-        + "</strong>!</p>"
-        + "<p>Recebemos uma solicitação para redefinir sua senha. Clique no botão abaixo para criar uma nova senha:</p>"
-        + "<div style=\"text-align: center; margin: 30px 0;\">"
-        + "<a href=\""
-        + resetLink
-        + "\" style=\"background-color: #007bff; color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-size: 16px;\">Redefinir Senha</a>"
-        + "</div>"
-        + "<p>Se você não solicitou essa alteração, ignore este email. Sua senha permanecerá a mesma.</p>"
-        + "<p>Este link expira em <strong>30 minutos</strong>.</p>"
-        + "<hr style=\"border: none; border-top: 1px solid #eee; margin: 20px 0;\">"
-        + "<p style=\"color: #999; font-size: 12px;\">Se o botão não funcionar, copie e cole este link no seu navegador: "
-        + resetLink
-        + "</p>"
-        + "</body></html>";
+  // Um lote por conexao SMTP; o timer mede a sessao inteira, nao cada mensagem.
+  @Timed("email.smtp.send")
+  public void send(MimeMessage... messages) {
+    mailSender.send(messages);
   }
 }
@@ -0,0 +1,83 @@
+package com.orama.e_commerce.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.util.HtmlUtils;
+
+// Template HTML com marcadores {{nome}}, quebrado uma vez na subida em trechos literais e nomes
+// de variavel. render() so concatena os trechos, escapando os valores: nome de cliente nunca
+// vira HTML no email.
+public final class EmailTemplate {
+
+  private static final String OPEN = "{{";
+  private static final String CLOSE = "}}";
+
+  private final String name;
+  private final String[] literals;
+  private final String[] variables;
+  private final int literalLength;
+
+  private EmailTemplate(String name, String[] literals, String[] variables) {
+    this.name = name;
+    this.literals = literals;
+    this.variables = variables;
+    int length = 0;
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    this.literalLength = length;
+  }
+
+  public static EmailTemplate load(String resource) {
+    try (InputStream input = new ClassPathResource(resource).getInputStream()) {
+      return compile(resource, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao carregar template de email " + resource, e);
+    }
+  }
+
+  public static EmailTemplate compile(String name, String source) {
+    List<String> literals = new ArrayList<>();
+    List<String> variables = new ArrayList<>();
+    int position = 0;
+    while (true) {
+      int open = source.indexOf(OPEN, position);
+      if (open < 0) {
+        break;
+      }
+      int close = source.indexOf(CLOSE, open + OPEN.length());
+      if (close < 0) {
+        throw new IllegalArgumentException("Marcador sem fechamento no template " + name);
+      }
+      String variable = source.substring(open + OPEN.length(), close).trim();
+      if (variable.isEmpty()) {
+        throw new IllegalArgumentException("Marcador vazio no template " + name);
+      }
+      literals.add(source.substring(position, open));
+      variables.add(variable);
+      position = close + CLOSE.length();
+    }
+    literals.add(source.substring(position));
+    return new EmailTemplate(
+        name, literals.toArray(String[]::new), variables.toArray(String[]::new));
+  }
+
+  public String render(Map<String, String> values) {
+    StringBuilder html = new StringBuilder(literalLength + variables.length * 64);
+    for (int i = 0; i < variables.length; i++) {
+      String value = values.get(variables[i]);
+      if (value == null) {
+        throw new IllegalArgumentException(
+            "Variavel " + variables[i] + " ausente ao renderizar o template " + name);
+      }
+      html.append(literals[i]).append(HtmlUtils.htmlEscape(value, "UTF-8"));
+    }
+    return html.append(literals[variables.length]).toString();
+  }
+}
@@ -0,0 +1,206 @@
+package com.orama.e_commerce.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+// Decodifica a imagem uma vez e gera as larguras configuradas menores que a original, da maior
+// para a menor, cada uma reduzida a partir da anterior em passos de no maximo metade (bilinear
+// em cascata: barato e sem o serrilhado de uma reducao direta de 4000 para 320 px). Opaca sai
+// em JPEG progressivo; com transparencia, em PNG. Com o plugin WebP do ImageIO no classpath, cada
+// largura sai tambem em WebP (com alfa), para o <picture> servir WebP e cair no JPEG/PNG.
+public final class ImageDerivativeGenerator {
+
+  public static final String WEBP_CONTENT_TYPE = "image/webp";
+
+  public record Variant(int width, byte[] content) {}
+
+  public record Result(
+      String format, String contentType, List<Variant> variants, List<Variant> webpVariants) {
+
+    public int[] widths() {
+      return variants.stream().mapToInt(Variant::width).toArray();
+    }
+
+    public boolean hasWebp() {
+      return !webpVariants.isEmpty();
+    }
+  }
+
+  private final int[] widthsDescending;
+  private final float jpegQuality;
+  private final long maxSourcePixels;
+  private final float webpQuality;
+  // Desliga sozinho se a biblioteca nativa do libwebp nao carregar nesta plataforma.
+  private volatile boolean webp;
+
+  public ImageDerivativeGenerator(int[] widths, float jpegQuality, long maxSourcePixels) {
+    this(widths, jpegQuality, maxSourcePixels, false, 0f);
+  }
+
+  public ImageDerivativeGenerator(
+      int[] widths, float jpegQuality, long maxSourcePixels, boolean webp, float webpQuality) {
+    this.widthsDescending =
+        Arrays.stream(widths)
+            .filter(width -> width > 0)
+            .distinct()
+            .boxed()
+            .sorted(Comparator.reverseOrder())
+            .mapToInt(Integer::intValue)
+            .toArray();
+    this.jpegQuality = jpegQuality;
+    this.maxSourcePixels = maxSourcePixels;
+    this.webpQuality = webpQuality;
+    this.webp = webp && ImageIO.getImageWritersByMIMEType(WEBP_CONTENT_TYPE).hasNext();
+  }
+
+  public boolean webpEnabled() {
+    return webp;
+  }
+
+  // Vazio quando nao e imagem que o ImageIO leia (SVG, PDF...) ou quando as dimensoes declaradas
+  // passam de maxSourcePixels: o cabecalho e lido antes de alocar os pixels.
+  public Optional<Result> generate(InputStream source) throws IOException {
+    BufferedImage image;
+    try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+      if (input == null) {
+        return Optional.empty();
+      }
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        return Optional.empty();
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        if ((long) reader.getWidth(0) * reader.getHeight(0) > maxSourcePixels) {
+          return Optional.empty();
+        }
+        image = reader.read(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+
+    boolean alpha = image.getColorModel().hasAlpha();
+    String format = alpha ? "png" : "jpg";
+    List<Variant> variants = new ArrayList<>();
+    List<Variant> webpVariants = new ArrayList<>();
+    BufferedImage current = image;
+    for (int width : widthsDescending) {
+      if (width >= image.getWidth()) {
+        continue;
+      }
+      int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+      current = resize(current, width, height, alpha);
+      variants.add(new Variant(width, encode(current, format)));
+      byte[] webpContent = webp ? encodeWebp(current) : null;
+      if (webpContent != null) {
+        webpVariants.add(new Variant(width, webpContent));
+      }
+    }
+    // WebP parcial nao serve para o srcset: ou todas as larguras, ou nenhuma.
+    List<Variant> webpResult =
+        webpVariants.size() == variants.size() ? webpVariants.reversed() : List.of();
+    return Optional.of(
+        new Result(
+            format, alpha ? "image/png" : "image/jpeg", variants.reversed(), webpResult));
+  }
+
+  private static BufferedImage resize(BufferedImage source, int width, int height, boolean alpha) {
+    BufferedImage current = source;
+    int currentWidth = source.getWidth();
+    int currentHeight = source.getHeight();
+    do {
+      currentWidth = Math.max(width, currentWidth / 2);
+      currentHeight = Math.max(height, currentHeight / 2);
+      BufferedImage step =
+          new BufferedImage(
+              currentWidth,
+              currentHeight,
+              alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+      Graphics2D graphics = step.createGraphics();
+      try {
+        graphics.setRenderingHint(
+            RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(
+            RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+      } finally {
+        graphics.dispose();
+      }
+      current = step;
+    } while (currentWidth != width || currentHeight != height);
+    return current;
+  }
+
+  private byte[] encode(BufferedImage image, String format) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+      writer.setOutput(stream);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      if ("jpg".equals(format)) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+      }
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return output.toByteArray();
+  }
+
+  private byte[] encodeWebp(BufferedImage image) throws IOException {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(WEBP_CONTENT_TYPE);
+    if (!writers.hasNext()) {
+      return null;
+    }
+    ImageWriter writer = writers.next();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+      writer.setOutput(stream);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      String lossy = lossyCompressionType(param);
+      if (lossy != null) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionType(lossy);
+        param.setCompressionQuality(webpQuality);
+      }
+      writer.write(null, new IIOImage(image, null, null), param);
+    } catch (LinkageError e) {
+      webp = false;
+      return null;
+    } finally {
+      writer.dispose();
+    }
+    return output.toByteArray();
+  }
+
+  private static String lossyCompressionType(ImageWriteParam param) {
+    if (!param.canWriteCompressed() || param.getCompressionTypes() == null) {
+      return null;
+    }
+    return Arrays.stream(param.getCompressionTypes())
+        .filter(type -> type.toLowerCase().startsWith("lossy"))
+        .findFirst()
+        .orElse(null);
+  }
+}
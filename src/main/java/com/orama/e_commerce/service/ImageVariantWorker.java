@@ -0,0 +1,183 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.enums.ImageVariantStatus;
+import com.orama.e_commerce.events.media.MediaUploadedEvent;
+import com.orama.e_commerce.exceptions.StorageException;
+import com.orama.e_commerce.models.MediaLibrary;
+import com.orama.e_commerce.repository.MediaLibraryRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Gera as variantes redimensionadas das midias num pool pequeno e limitado, fora da requisicao
+// de upload. O original e relido do R2 (o arquivo temporario do multipart ja foi apagado
+// quando o worker roda). Fila cheia descarta: a varredura periodica pega de volta tudo que
+// continua PENDING, inclusive midias anteriores a esta versao. Erro de storage deixa PENDING
+// para a proxima varredura; imagem corrompida vira FAILED.
+@Component
+public class ImageVariantWorker {
+
+  private static final Logger log = LoggerFactory.getLogger(ImageVariantWorker.class);
+
+  private final MediaLibraryRepository mediaLibraryRepository;
+  private final MediaLibraryService mediaLibraryService;
+  private final R2StorageService r2StorageService;
+  private final ImageDerivativeGenerator generator;
+  private final Duration sweepMinAge;
+  private final int sweepBatch;
+  private final ThreadPoolExecutor executor;
+  private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+  private final AtomicLong generated = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  public ImageVariantWorker(
+      MediaLibraryRepository mediaLibraryRepository,
+      MediaLibraryService mediaLibraryService,
+      R2StorageService r2StorageService,
+      @Value("${image-variants.widths:320,640,1024,1600}") int[] widths,
+      @Value("${image-variants.jpeg-quality:0.8}") float jpegQuality,
+      @Value("${image-variants.max-source-pixels:40000000}") long maxSourcePixels,
+      @Value("${image-variants.webp-enabled:true}") boolean webpEnabled,
+      @Value("${image-variants.webp-quality:0.75}") float webpQuality,
+      @Value("${image-variants.workers:2}") int workers,
+      @Value("${image-variants.queue-capacity:200}") int queueCapacity,
+      @Value("${image-variants.sweep-min-age:2m}") Duration sweepMinAge,
+      @Value("${image-variants.sweep-batch:50}") int sweepBatch) {
+    this.mediaLibraryRepository = mediaLibraryRepository;
+    this.mediaLibraryService = mediaLibraryService;
+    this.r2StorageService = r2StorageService;
+    this.generator =
+        new ImageDerivativeGenerator(
+            widths, jpegQuality, maxSourcePixels, webpEnabled, webpQuality);
+    if (webpEnabled && !generator.webpEnabled()) {
+      log.warn("Plugin WebP do ImageIO indisponivel; variantes so em JPEG/PNG");
+    }
+    this.sweepMinAge = sweepMinAge;
+    this.sweepBatch = sweepBatch;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            0,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "image-variant-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onMediaUploaded(MediaUploadedEvent event) {
+    submit(event.mediaId());
+  }
+
+  @Scheduled(fixedDelayString = "${image-variants.sweep-interval:5m}")
+  public void sweep() {
+    mediaLibraryRepository
+        .findPendingVariantIds(Instant.now().minus(sweepMinAge), sweepBatch)
+        .forEach(this::submit);
+  }
+
+  public long generatedCount() {
+    return generated.get();
+  }
+
+  public long failedCount() {
+    return failed.get();
+  }
+
+  public int queueSize() {
+    return executor.getQueue().size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  // A mesma midia nunca fica duas vezes na fila (evento + varredura).
+  private void submit(Long mediaId) {
+    if (!queued.add(mediaId)) {
+      return;
+    }
+    try {
+      executor.execute(
+          () -> {
+            try {
+              process(mediaId);
+            } finally {
+              queued.remove(mediaId);
+            }
+          });
+    } catch (RuntimeException e) {
+      queued.remove(mediaId);
+      log.debug("Fila de variantes cheia; midia id={} fica para a varredura", mediaId);
+    }
+  }
+
+  void process(Long mediaId) {
+    Optional<MediaLibrary> found = mediaLibraryRepository.findById(mediaId);
+    if (found.isEmpty() || found.get().getVariantStatus() != ImageVariantStatus.PENDING) {
+      return;
+    }
+    MediaLibrary media = found.get();
+    try {
+      Optional<ImageDerivativeGenerator.Result> result;
+      try (InputStream original = r2StorageService.open(media.getFilename())) {
+        result = generator.generate(original);
+      }
+      if (result.isEmpty() || result.get().variants().isEmpty()) {
+        mediaLibraryService.applyVariants(media, ImageVariantStatus.SKIPPED, null, null, false);
+        return;
+      }
+      ImageDerivativeGenerator.Result derivatives = result.get();
+      for (ImageDerivativeGenerator.Variant variant : derivatives.variants()) {
+        r2StorageService.put(
+            ImageVariants.variantKey(media.getFilename(), variant.width(), derivatives.format()),
+            variant.content(),
+            derivatives.contentType());
+      }
+      for (ImageDerivativeGenerator.Variant variant : derivatives.webpVariants()) {
+        r2StorageService.put(
+            ImageVariants.variantKey(media.getFilename(), variant.width(), ImageVariants.WEBP),
+            variant.content(),
+            ImageDerivativeGenerator.WEBP_CONTENT_TYPE);
+      }
+      mediaLibraryService.applyVariants(
+          media,
+          ImageVariantStatus.READY,
+          derivatives.format(),
+          ImageVariants.joinWidths(derivatives.widths()),
+          derivatives.hasWebp());
+      generated.incrementAndGet();
+    } catch (StorageException e) {
+      log.warn("Falha de storage ao gerar variantes da midia id={}: {}", mediaId, e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      failed.incrementAndGet();
+      log.warn("Nao foi possivel gerar variantes da midia id={}: {}", mediaId, e.getMessage());
+      mediaLibraryService.applyVariants(media, ImageVariantStatus.FAILED, null, null, false);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.orama.e_commerce.service;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// Chaves deterministicas das variantes: "abc.png" -> "abc-w640.jpg". A mesma regra vale para a
+// key no R2 e para a URL publica, entao o srcset sai so da URL original, do formato e das
+// larguras gravadas, sem consultar o storage.
+public final class ImageVariants {
+
+  public static final String WEBP = "webp";
+
+  private ImageVariants() {}
+
+  public static String variantKey(String keyOrUrl, int width, String format) {
+    int slash = keyOrUrl.lastIndexOf('/');
+    int dot = keyOrUrl.lastIndexOf('.');
+    String base = dot > slash ? keyOrUrl.substring(0, dot) : keyOrUrl;
+    return base + "-w" + width + "." + format;
+  }
+
+  public static String srcset(String url, String format, String widths) {
+    if (url == null || format == null || widths == null || widths.isBlank()) {
+      return null;
+    }
+    return Arrays.stream(parseWidths(widths))
+        .mapToObj(width -> variantKey(url, width, format) + " " + width + "w")
+        .collect(Collectors.joining(", "));
+  }
+
+  // Segundo srcset, para <source type="image/webp">; null se a midia nao tem variantes WebP.
+  public static String webpSrcset(String url, boolean webp, String widths) {
+    return webp ? srcset(url, WEBP, widths) : null;
+  }
+
+  public static int[] parseWidths(String widths) {
+    if (widths == null || widths.isBlank()) {
+      return new int[0];
+    }
+    return Arrays.stream(widths.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+  }
+
+  public static String joinWidths(int[] widths) {
+    return Arrays.stream(widths).mapToObj(Integer::toString).collect(Collectors.joining(","));
+  }
+}
@@ -0,0 +1,146 @@
+package com.orama.e_commerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
+import com.orama.e_commerce.dtos.order.OrderListingRow;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import com.orama.e_commerce.enums.ExportFormat;
+import com.orama.e_commerce.repository.CustomOrderRepository;
+import com.orama.e_commerce.repository.OrderRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+// Exporta as listagens administrativas percorrendo o keyset em paginas fixas e escrevendo cada
+// pagina direto na resposta: a memoria usada nao cresce com o tamanho do resultado e nenhuma
+// transacao fica aberta durante o download. A duracao do download e limitada por
+// spring.mvc.async.request-timeout (EXPORT_REQUEST_TIMEOUT), dimensionado para o maior export;
+// os exports sao o unico uso de processamento assincrono do MVC.
+@Service
+public class ListingExportService {
+
+  static final int EXPORT_PAGE_SIZE = 500;
+
+  private final OrderRepository orderRepository;
+  private final CustomOrderRepository customOrderRepository;
+  private final ObjectMapper objectMapper;
+
+  public ListingExportService(
+      OrderRepository orderRepository,
+      CustomOrderRepository customOrderRepository,
+      ObjectMapper objectMapper) {
+    this.orderRepository = orderRepository;
+    this.customOrderRepository = customOrderRepository;
+    this.objectMapper = objectMapper;
+  }
+
+  public long exportOrders(OrderSearchFilter filter, ExportFormat format, OutputStream output)
+      throws IOException {
+    return export(
+        OrderListingRow.class,
+        (afterId, limit) -> orderRepository.searchListingPage(filter, afterId, limit),
+        OrderListingRow::id,
+        format,
+        output);
+  }
+
+  public long exportCustomOrders(
+      CustomOrderSearchFilter filter, ExportFormat format, OutputStream output)
+      throws IOException {
+    return export(
+        CustomOrderListingRow.class,
+        (afterId, limit) -> customOrderRepository.searchListingPage(filter, afterId, limit),
+        CustomOrderListingRow::id,
+        format,
+        output);
+  }
+
+  private <R extends Record> long export(
+      Class<R> rowType,
+      BiFunction<Long, Integer, List<R>> pageLoader,
+      ToLongFunction<R> idOf,
+      ExportFormat format,
+      OutputStream output)
+      throws IOException {
+    RecordComponent[] components = rowType.getRecordComponents();
+    // Nao fecha o writer: o stream pertence ao container.
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 16 * 1024);
+    if (format == ExportFormat.CSV) {
+      writeCsvHeader(writer, components);
+    }
+
+    long exported = 0;
+    long afterId = Long.MAX_VALUE;
+    List<R> page;
+    do {
+      page = pageLoader.apply(afterId, EXPORT_PAGE_SIZE);
+      for (R row : page) {
+        if (format == ExportFormat.CSV) {
+          writeCsvRow(writer, components, row);
+        } else {
+          writer.write(objectMapper.writeValueAsString(row));
+          writer.write('\n');
+        }
+      }
+      if (!page.isEmpty()) {
+        afterId = idOf.applyAsLong(page.get(page.size() - 1));
+        exported += page.size();
+        writer.flush();
+      }
+    } while (page.size() == EXPORT_PAGE_SIZE);
+
+    writer.flush();
+    return exported;
+  }
+
+  private static void writeCsvHeader(Writer writer, RecordComponent[] components)
+      throws IOException {
+    for (int i = 0; i < components.length; i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writer.write(components[i].getName());
+    }
+    writer.write("\r\n");
+  }
+
+  private static void writeCsvRow(Writer writer, RecordComponent[] components, Object row)
+      throws IOException {
+    for (int i = 0; i < components.length; i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      Object value = ReflectionUtils.invokeMethod(components[i].getAccessor(), row);
+      if (value != null) {
+        writer.write(csvValue(value));
+      }
+    }
+    writer.write("\r\n");
+  }
+
+  static String csvValue(Object value) {
+    String text = value.toString();
+    // Evita que planilhas interpretem texto livre (observacoes, nomes) como formula.
+    if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+      text = "'" + text;
+    }
+    if (text.indexOf(',') >= 0
+        || text.indexOf('"') >= 0
+        || text.indexOf('\n') >= 0
+        || text.indexOf('\r') >= 0) {
+      return '"' + text.replace("\"", "\"\"") + '"';
+    }
+    return text;
+  }
+}
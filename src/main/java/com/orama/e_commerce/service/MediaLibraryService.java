@@ -1,10 +1,14 @@
 package com.orama.e_commerce.service;
 
 import com.orama.e_commerce.dtos.media.MediaLibraryResponseDto;
+import com.orama.e_commerce.enums.ImageVariantStatus;
+import com.orama.e_commerce.events.media.MediaUploadedEvent;
 import com.orama.e_commerce.exceptions.media.MediaLibraryNotFoundException;
 import com.orama.e_commerce.models.MediaLibrary;
 import com.orama.e_commerce.repository.MediaLibraryRepository;
+import com.orama.e_commerce.repository.ProductImageRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -15,16 +19,28 @@ public class MediaLibraryService {
 
   private final MediaLibraryRepository repository;
   private final R2StorageService r2StorageService;
+  private final ProductImageRepository productImageRepository;
+  private final ProductCatalogCache productCatalogCache;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public MediaLibraryService(MediaLibraryRepository repository, R2StorageService r2StorageService) {
+  public MediaLibraryService(
+      MediaLibraryRepository repository,
+      R2StorageService r2StorageService,
+      ProductImageRepository productImageRepository,
+      ProductCatalogCache productCatalogCache,
+      ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
     this.r2StorageService = r2StorageService;
+    this.productImageRepository = productImageRepository;
+    this.productCatalogCache = productCatalogCache;
+    this.eventPublisher = eventPublisher;
   }
 
   public Page<MediaLibraryResponseDto> getAll(Pageable pageable) {
     return repository.findAll(pageable).map(this::toDto);
   }
 
+  // Sobe so o original; as variantes saem depois do commit, no ImageVariantWorker.
   @Transactional
   public MediaLibraryResponseDto upload(MultipartFile file) {
     String filename = r2StorageService.upload(file);
@@ -34,6 +50,7 @@ public class MediaLibraryService {
     media.setFilename(filename);
     media.setUrl(url);
     repository.save(media);
+    eventPublisher.publishEvent(new MediaUploadedEvent(media.getId()));
 
     return toDto(media);
   }
@@ -46,11 +63,45 @@ public class MediaLibraryService {
             .orElseThrow(
                 () -> new MediaLibraryNotFoundException("Mídia não encontrada com id: " + id));
 
+    for (int width : ImageVariants.parseWidths(media.getVariantWidths())) {
+      r2StorageService.delete(
+          ImageVariants.variantKey(media.getFilename(), width, media.getVariantFormat()));
+      if (media.isVariantWebp()) {
+        r2StorageService.delete(
+            ImageVariants.variantKey(media.getFilename(), width, ImageVariants.WEBP));
+      }
+    }
     r2StorageService.delete(media.getFilename());
     repository.delete(media);
   }
 
+  // Grava o resultado do worker e, se ha variantes, copia para as imagens de produto com a
+  // mesma URL e invalida esses produtos no cache do catalogo.
+  @Transactional
+  public void applyVariants(
+      MediaLibrary media,
+      ImageVariantStatus status,
+      String format,
+      String widths,
+      boolean webp) {
+    repository.updateVariants(media.getId(), status, format, widths, webp);
+    if (status != ImageVariantStatus.READY) {
+      return;
+    }
+    if (productImageRepository.updateVariantsByUrl(media.getUrl(), format, widths, webp) > 0) {
+      productImageRepository
+          .findProductIdsByUrl(media.getUrl())
+          .forEach(productCatalogCache::evictProduct);
+    }
+  }
+
   private MediaLibraryResponseDto toDto(MediaLibrary media) {
-    return new MediaLibraryResponseDto(media.getId(), media.getUrl(), media.getFilename());
+    return new MediaLibraryResponseDto(
+        media.getId(),
+        media.getUrl(),
+        media.getFilename(),
+        ImageVariants.srcset(media.getUrl(), media.getVariantFormat(), media.getVariantWidths()),
+        ImageVariants.webpSrcset(
+            media.getUrl(), media.isVariantWebp(), media.getVariantWidths()));
   }
 }
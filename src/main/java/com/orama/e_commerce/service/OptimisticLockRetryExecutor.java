@@ -0,0 +1,100 @@
+package com.orama.e_commerce.service;
+
+import jakarta.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Repete uma unidade de trabalho quando o commit perde a corrida do @Version para outro fluxo
+// (webhook, reconciliacao, sync do cliente, admin). Cada tentativa abre transacao nova e rele as
+// entidades, entao a regra de transicao roda de novo sobre o estado atual em vez de sobrescrever
+// quem ganhou. Dentro de uma transacao ja aberta nao ha o que repetir: o conflito sobe para ela.
+@Component
+public class OptimisticLockRetryExecutor {
+
+  private static final Logger log = LoggerFactory.getLogger(OptimisticLockRetryExecutor.class);
+
+  private final TransactionOperations transactionOperations;
+  private final int maxAttempts;
+  private final Duration backoff;
+
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder exhausted = new LongAdder();
+
+  @Autowired
+  public OptimisticLockRetryExecutor(
+      PlatformTransactionManager transactionManager,
+      @Value("${optimistic-lock.max-attempts:4}") int maxAttempts,
+      @Value("${optimistic-lock.backoff:20ms}") Duration backoff) {
+    this(new TransactionTemplate(transactionManager), maxAttempts, backoff);
+  }
+
+  OptimisticLockRetryExecutor(
+      TransactionOperations transactionOperations, int maxAttempts, Duration backoff) {
+    this.transactionOperations = transactionOperations;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.backoff = backoff;
+  }
+
+  public <T> T execute(String operation, Supplier<T> work) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return work.get();
+    }
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionOperations.execute(status -> work.get());
+      } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+        conflicts.increment();
+        if (attempt >= maxAttempts) {
+          exhausted.increment();
+          log.warn("Conflito de versao persistente ao {} apos {} tentativas", operation, attempt);
+          throw e;
+        }
+        log.debug("Conflito de versao ao {}, tentativa {}; relendo", operation, attempt);
+        pause(operation, attempt);
+      }
+    }
+  }
+
+  public void run(String operation, Runnable work) {
+    execute(
+        operation,
+        () -> {
+          work.run();
+          return null;
+        });
+  }
+
+  public long conflictCount() {
+    return conflicts.sum();
+  }
+
+  public long exhaustedCount() {
+    return exhausted.sum();
+  }
+
+  // Backoff linear com jitter: duas rajadas do mesmo pedido nao voltam a colidir no mesmo ms.
+  private void pause(String operation, int attempt) {
+    long base = backoff.toMillis() * attempt;
+    if (base <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(base + ThreadLocalRandom.current().nextLong(base));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrompido aguardando nova tentativa ao " + operation, e);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.repository.IdNodeLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Numeros de pedido curtos e ordenaveis (ex.: ORD-0B7Q2M9K4T8ZX) gerados em memoria, sem
+// consulta ao banco por pedido. O node id vem de id-generator.node-id quando fixado; senao, de
+// um lease em tb_id_node_lease renovado por heartbeat, para duas instancias nunca colidirem.
+@Component
+public class OrderNumberGenerator {
+
+  private static final Logger log = LoggerFactory.getLogger(OrderNumberGenerator.class);
+
+  private final IdNodeLeaseRepository leaseRepository;
+  private final int fixedNodeId;
+  private final Duration leaseTtl;
+  private final String instanceId;
+  // Tanto a inicializacao quanto a troca de node id consultam o banco; com synchronized a thread
+  // virtual ficaria presa ao carrier durante o JDBC.
+  private final ReentrantLock leaseLock = new ReentrantLock();
+
+  private volatile SnowflakeIdGenerator generator;
+  private volatile int leasedNodeId = -1;
+
+  public OrderNumberGenerator(
+      IdNodeLeaseRepository leaseRepository,
+      @Value("${id-generator.node-id:-1}") int fixedNodeId,
+      @Value("${id-generator.lease-ttl:10m}") Duration leaseTtl) {
+    this.leaseRepository = leaseRepository;
+    this.fixedNodeId = fixedNodeId;
+    this.leaseTtl = leaseTtl;
+    this.instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  // Aluga o node id na subida, fora da transacao do primeiro pedido.
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    generator();
+  }
+
+  public String nextOrderNumber() {
+    return "ORD-" + SnowflakeIdGenerator.encode(generator().nextId());
+  }
+
+  public String nextCustomOrderNumber() {
+    return "CUST-" + SnowflakeIdGenerator.encode(generator().nextId());
+  }
+
+  // Se o heartbeat nao achar mais o lease (pausa maior que o TTL), troca de node id antes que
+  // outra instancia gere numeros com o mesmo.
+  @Scheduled(fixedDelayString = "${id-generator.heartbeat-interval:1m}")
+  public void heartbeat() {
+    int nodeId = leasedNodeId;
+    if (nodeId < 0) {
+      return;
+    }
+    if (leaseRepository.heartbeat(nodeId, instanceId, Instant.now()) == 0) {
+      log.error("Lease do node id {} perdido; buscando outro", nodeId);
+      leaseLock.lock();
+      try {
+        int newNodeId = acquireNodeId();
+        generator.setNodeId(newNodeId);
+        leasedNodeId = newNodeId;
+      } finally {
+        leaseLock.unlock();
+      }
+    }
+  }
+
+  @PreDestroy
+  public void releaseLease() {
+    int nodeId = leasedNodeId;
+    if (nodeId >= 0) {
+      leaseRepository.release(nodeId, instanceId);
+    }
+  }
+
+  private SnowflakeIdGenerator generator() {
+    SnowflakeIdGenerator current = generator;
+    if (current != null) {
+      return current;
+    }
+    leaseLock.lock();
+    try {
+      if (generator == null) {
+        int nodeId = fixedNodeId >= 0 ? fixedNodeId : acquireNodeId();
+        generator = new SnowflakeIdGenerator(nodeId);
+        // So depois do gerador: o heartbeat usa leasedNodeId >= 0 como sinal de que ele existe.
+        if (fixedNodeId < 0) {
+          leasedNodeId = nodeId;
+        }
+        log.info("Gerador de numeros de pedido usando node id {}", nodeId);
+      }
+      return generator;
+    } finally {
+      leaseLock.unlock();
+    }
+  }
+
+  private int acquireNodeId() {
+    Instant now = Instant.now();
+    if (leaseRepository.claimFreeNode(instanceId, now, now.minus(leaseTtl)) == 0) {
+      throw new IllegalStateException("Nenhum node id livre em tb_id_node_lease");
+    }
+    return leaseRepository
+        .findNodeIdByInstanceId(instanceId)
+        .orElseThrow(() -> new IllegalStateException("Lease de node id nao encontrado"));
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "unknown";
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package com.orama.e_commerce.service;
 
 import com.orama.e_commerce.dtos.order.CreateOrderRequestDto;
+import com.orama.e_commerce.dtos.order.OrderItemRow;
+import com.orama.e_commerce.dtos.order.OrderListingRow;
 import com.orama.e_commerce.dtos.order.OrderResponseDto;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import com.orama.e_commerce.dtos.pagination.CursorPageResponseDto;
 import com.orama.e_commerce.enums.OrderStatus;
 import com.orama.e_commerce.exceptions.cart.CartNotFoundException;
 import com.orama.e_commerce.exceptions.order.InvalidDiscountException;
@@ -16,13 +20,15 @@ import com.orama.e_commerce.models.OrderShippingAddress;
 import com.orama.e_commerce.repository.AddressRepository;
 import com.orama.e_commerce.repository.CartRepository;
 import com.orama.e_commerce.repository.OrderRepository;
+import com.orama.e_commerce.service.gateway.GatewayOrderResult;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
-import java.time.Instant;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
@@ -43,12 +49,18 @@ public class OrderService {
           OrderStatus.DELIVERED,
           3);
 
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final OrderRepository orderRepository;
   private final CartRepository cartRepository;
   private final AddressRepository addressRepository;
   private final OrderMapper orderMapper;
   private final ShippingService shippingService;
   private final PaymentApplicationService paymentApplicationService;
+  private final StockReservationService stockReservationService;
+  private final CheckoutQuoteService checkoutQuoteService;
+  private final OrderNumberGenerator orderNumberGenerator;
+  private final OptimisticLockRetryExecutor optimisticLockRetry;
 
   public OrderService(
       OrderRepository orderRepository,
@@ -56,20 +68,29 @@ public class OrderService {
       AddressRepository addressRepository,
       OrderMapper orderMapper,
       ShippingService shippingService,
-      PaymentApplicationService paymentApplicationService) {
+      PaymentApplicationService paymentApplicationService,
+      StockReservationService stockReservationService,
+      CheckoutQuoteService checkoutQuoteService,
+      OrderNumberGenerator orderNumberGenerator,
+      OptimisticLockRetryExecutor optimisticLockRetry) {
     this.orderRepository = orderRepository;
     this.cartRepository = cartRepository;
     this.addressRepository = addressRepository;
     this.orderMapper = orderMapper;
     this.shippingService = shippingService;
     this.paymentApplicationService = paymentApplicationService;
+    this.stockReservationService = stockReservationService;
+    this.checkoutQuoteService = checkoutQuoteService;
+    this.orderNumberGenerator = orderNumberGenerator;
+    this.optimisticLockRetry = optimisticLockRetry;
   }
 
+  @Timed("checkout.order.create")
   @Transactional
   public OrderResponseDto createOrder(CreateOrderRequestDto dto) {
     Cart cart =
         cartRepository
-            .findById(dto.cartId())
+            .findByIdWithItemsAndProducts(dto.cartId())
             .orElseThrow(
                 () -> new CartNotFoundException("Carrinho não encontrado com id: " + dto.cartId()));
 
@@ -82,19 +103,30 @@ public class OrderService {
 
     order.setCart(cart);
     order.setClient(cart.getClient());
-    order.setOrderNumber(generateOrderNumber());
+    order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
     order.setStatus(OrderStatus.PENDING);
 
-    BigDecimal subtotal = calculateSubtotal(cart.getItems());
-    order.setSubtotal(subtotal);
-
     BigDecimal discount = dto.discount() != null ? dto.discount() : BigDecimal.ZERO;
-    if (discount.compareTo(subtotal) > 0) {
-      throw new InvalidDiscountException("Desconto não pode exceder o subtotal");
+    BigDecimal subtotal;
+    BigDecimal shippingCost;
+    if (dto.quoteToken() != null && !dto.quoteToken().isBlank()) {
+      // Cotacao assinada em POST /api/orders/quote. Nao e otimizacao: o frete e uma consulta na
+      // tabela em memoria, mais barata que verificar o JWT e o fingerprint do carrinho. O token
+      // trava o frete mostrado ao cliente mesmo se a tabela for recarregada antes do pedido;
+      // se o carrinho ou algum preco mudou, a cotacao e recusada.
+      CheckoutQuote quote =
+          checkoutQuoteService.redeem(dto.quoteToken(), cart, dto.zipCode(), discount);
+      subtotal = quote.subtotal();
+      shippingCost = quote.shippingCost();
+    } else {
+      subtotal = CheckoutQuoteService.calculateSubtotal(cart.getItems());
+      if (discount.compareTo(subtotal) > 0) {
+        throw new InvalidDiscountException("Desconto não pode exceder o subtotal");
+      }
+      shippingCost = shippingService.getShippingCost(dto.zipCode(), subtotal.subtract(discount));
     }
+    order.setSubtotal(subtotal);
     order.setDiscount(discount);
-
-    BigDecimal shippingCost = shippingService.getShippingCost(dto.zipCode());
     order.setShippingCost(shippingCost);
     order.setZipCode(dto.zipCode());
 
@@ -120,6 +152,7 @@ public class OrderService {
     order.setItems(orderItems);
 
     Order savedOrder = orderRepository.save(order);
+    stockReservationService.hold(savedOrder);
 
     return orderMapper.toResponseDto(savedOrder);
   }
@@ -138,14 +171,23 @@ public class OrderService {
     return orderMapper.toResponseDto(order);
   }
 
-  public List<OrderResponseDto> getAllOrders() {
-    List<Order> orders = orderRepository.findAll();
-    return orders.stream().map(orderMapper::toResponseDto).toList();
+  // Listagens por keyset (id decrescente): uma consulta para a pagina e outra para os itens,
+  // independente do tamanho da pagina.
+  public CursorPageResponseDto<OrderResponseDto> getAllOrders(
+      OrderSearchFilter filter, Long cursor, int size) {
+    int pageSize = clampPageSize(size);
+    List<OrderListingRow> rows =
+        orderRepository.searchListingPage(filter, afterId(cursor), pageSize + 1);
+    return toListingPage(rows, pageSize);
   }
 
-  public List<OrderResponseDto> getOrdersByClient(Long clientId) {
-    List<Order> orders = orderRepository.findByClientId(clientId);
-    return orders.stream().map(orderMapper::toResponseDto).toList();
+  public CursorPageResponseDto<OrderResponseDto> getOrdersByClient(
+      Long clientId, Long cursor, int size) {
+    int pageSize = clampPageSize(size);
+    List<OrderListingRow> rows =
+        orderRepository.findListingPageByClientId(
+            clientId, afterId(cursor), PageRequest.of(0, pageSize + 1));
+    return toListingPage(rows, pageSize);
   }
 
   public OrderResponseDto getOrderByOrderNumber(String orderNumber) {
@@ -159,18 +201,24 @@ public class OrderService {
     return orderMapper.toResponseDto(order);
   }
 
-  @Transactional
+  // Se um webhook mudar o pedido entre a leitura e o commit, a validacao roda de novo sobre o
+  // status atual em vez de o admin sobrescrever o pagamento.
   public OrderResponseDto updateOrderStatus(Long id, OrderStatus newStatus) {
-    Order order =
-        orderRepository
-            .findById(id)
-            .orElseThrow(() -> new OrderNotFoundException("Pedido não encontrado com id: " + id));
-
-    validateManualStatusUpdate(order, newStatus);
-    order.setStatus(newStatus);
-    Order updatedOrder = orderRepository.save(order);
-
-    return orderMapper.toResponseDto(updatedOrder);
+    return optimisticLockRetry.execute(
+        "atualizar status do pedido",
+        () -> {
+          Order order =
+              orderRepository
+                  .findById(id)
+                  .orElseThrow(
+                      () -> new OrderNotFoundException("Pedido não encontrado com id: " + id));
+
+          validateManualStatusUpdate(order, newStatus);
+          order.setStatus(newStatus);
+          Order updatedOrder = orderRepository.save(order);
+
+          return orderMapper.toResponseDto(updatedOrder);
+        });
   }
 
   private void validateManualStatusUpdate(Order order, OrderStatus newStatus) {
@@ -196,12 +244,33 @@ public class OrderService {
     }
   }
 
-  @Transactional
+  // Mesmo formato do initiatePayment: transacao curta para validar, cancelamento/estorno no
+  // Mercado Pago fora de transacao e aplicacao relendo o pedido. Um webhook que mude a versao
+  // durante a chamada faz so a aplicacao ser repetida, sem desfazer localmente um estorno feito.
   public OrderResponseDto cancelOrder(Long id, Long authenticatedClientId) {
-    Order order =
-        orderRepository
-            .findById(id)
-            .orElseThrow(() -> new OrderNotFoundException("Pedido não encontrado com id: " + id));
+    CancellationStart start =
+        optimisticLockRetry.execute(
+            "iniciar cancelamento", () -> startCancellation(id, authenticatedClientId));
+    if (start.response() != null) {
+      return start.response();
+    }
+
+    GatewayOrderResult remote =
+        paymentApplicationService.cancelOrRefundRemotePayment(id, start.providerOrderId());
+
+    return optimisticLockRetry.execute(
+        "aplicar cancelamento",
+        () -> {
+          Order order = findOrder(id);
+          OrderStatus finalStatus = paymentApplicationService.applyCancellationResult(remote);
+          return cancelLocally(order, finalStatus);
+        });
+  }
+
+  private record CancellationStart(OrderResponseDto response, String providerOrderId) {}
+
+  private CancellationStart startCancellation(Long id, Long authenticatedClientId) {
+    Order order = findOrder(id);
 
     if (authenticatedClientId != null && !order.getClient().getId().equals(authenticatedClientId)) {
       throw new org.springframework.security.access.AccessDeniedException(
@@ -209,36 +278,56 @@ public class OrderService {
     }
 
     if (order.getStatus() == OrderStatus.CANCELLED || order.getStatus() == OrderStatus.REFUNDED) {
-      return orderMapper.toResponseDto(order);
+      return new CancellationStart(orderMapper.toResponseDto(order), null);
     }
 
-    OrderStatus finalStatus =
-        order.getPaymentId() == null || order.getPaymentId().isBlank()
-            ? OrderStatus.CANCELLED
-            : paymentApplicationService.cancelOrRefundRemotePayment(order);
+    if (order.getPaymentId() == null || order.getPaymentId().isBlank()) {
+      return new CancellationStart(cancelLocally(order, OrderStatus.CANCELLED), null);
+    }
+    return new CancellationStart(null, order.getPaymentId());
+  }
+
+  private OrderResponseDto cancelLocally(Order order, OrderStatus finalStatus) {
     order.setStatus(finalStatus);
     Order cancelledOrder = orderRepository.save(order);
-
+    stockReservationService.release(cancelledOrder.getId());
     return orderMapper.toResponseDto(cancelledOrder);
   }
 
-  private String generateOrderNumber() {
-    String prefix = "ORD-" + Instant.now() + "-";
-    String uniqueId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    String orderNumber = prefix + uniqueId;
+  private Order findOrder(Long id) {
+    return orderRepository
+        .findById(id)
+        .orElseThrow(() -> new OrderNotFoundException("Pedido não encontrado com id: " + id));
+  }
 
-    while (orderRepository.existsByOrderNumber(orderNumber)) {
-      uniqueId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-      orderNumber = prefix + uniqueId;
+  private CursorPageResponseDto<OrderResponseDto> toListingPage(
+      List<OrderListingRow> rows, int pageSize) {
+    boolean hasNext = rows.size() > pageSize;
+    List<OrderListingRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+    if (page.isEmpty()) {
+      return new CursorPageResponseDto<>(List.of(), null, false);
     }
 
-    return orderNumber;
+    Map<Long, List<OrderItemRow>> itemsByOrder =
+        orderRepository.findListingItems(page.stream().map(OrderListingRow::id).toList()).stream()
+            .collect(Collectors.groupingBy(OrderItemRow::orderId));
+
+    List<OrderResponseDto> content =
+        page.stream()
+            .map(
+                row ->
+                    orderMapper.toResponseDto(row, itemsByOrder.getOrDefault(row.id(), List.of())))
+            .toList();
+    Long nextCursor = hasNext ? page.get(page.size() - 1).id() : null;
+    return new CursorPageResponseDto<>(content, nextCursor, hasNext);
   }
 
-  private BigDecimal calculateSubtotal(List<CartItem> cartItems) {
-    return cartItems.stream()
-        .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+  private static Long afterId(Long cursor) {
+    return cursor != null ? cursor : Long.MAX_VALUE;
+  }
+
+  private static int clampPageSize(int size) {
+    return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
   }
 
   private List<OrderItem> createOrderItems(List<CartItem> cartItems, Order order) {
@@ -62,8 +62,15 @@ public class PasswordResetService {
 
     passwordResetTokenRepository.save(resetToken);
 
+    // So enfileira: o SMTP fica fora da requisicao, e a resposta nao denuncia pelo tempo se o
+    // email existe.
     String resetLink = frontendUrl + "/redefinir-senha?token=" + resetToken.getToken();
-    emailService.sendPasswordResetEmail(client.getEmail(), client.getName(), resetLink);
+    emailService.enqueuePasswordResetEmail(
+        client.getEmail(),
+        client.getName(),
+        resetLink,
+        TOKEN_EXPIRATION_MINUTES,
+        resetToken.getExpiresAt());
 
     logger.info("Password reset token generated for client: {}", client.getId());
   }
@@ -7,11 +7,12 @@ import com.orama.e_commerce.enums.OrderStatus;
 import com.orama.e_commerce.enums.PaymentAttemptStatus;
 import com.orama.e_commerce.events.payment.PaymentApprovedEvent;
 import com.orama.e_commerce.events.payment.PaymentFailedEvent;
+import com.orama.e_commerce.events.payment.PaymentWebhookQueuedEvent;
 import com.orama.e_commerce.exceptions.order.OrderNotFoundException;
 import com.orama.e_commerce.exceptions.payment.OrderOwnershipException;
 import com.orama.e_commerce.exceptions.payment.PaymentAlreadyInProgressException;
-import com.orama.e_commerce.exceptions.payment.PaymentGatewayException;
-import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
+import com.orama.e_commerce.exceptions.payment.PaymentGatewayUnavailableException;
+import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
 import com.orama.e_commerce.exceptions.payment.WebhookProcessingException;
 import com.orama.e_commerce.exceptions.payment.WebhookSignatureException;
 import com.orama.e_commerce.models.Address;
@@ -21,16 +22,20 @@ import com.orama.e_commerce.models.OrderShippingAddress;
 import com.orama.e_commerce.models.PaymentAttempt;
 import com.orama.e_commerce.repository.OrderRepository;
 import com.orama.e_commerce.repository.PaymentAttemptRepository;
+import com.orama.e_commerce.repository.PaymentWebhookInboxRepository;
 import com.orama.e_commerce.service.gateway.CreatePaymentCommand;
 import com.orama.e_commerce.service.gateway.GatewayOrderResult;
 import com.orama.e_commerce.service.gateway.GatewayPaymentResult;
 import com.orama.e_commerce.service.gateway.PaymentGateway;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -41,6 +46,7 @@ public class PaymentApplicationService {
   private static final String PROVIDER = "MERCADOPAGO";
   private static final String CURRENCY = "BRL";
   private static final String DOCUMENT_TYPE_CPF = "CPF";
+  private static final String CREDIT_CARD = "CREDIT_CARD";
 
   private final OrderRepository orderRepository;
   private final PaymentAttemptRepository paymentAttemptRepository;
@@ -49,6 +55,10 @@ public class PaymentApplicationService {
   private final PaymentStatusMapper paymentStatusMapper;
   private final ApplicationEventPublisher eventPublisher;
   private final PaymentAttemptService paymentAttemptService;
+  private final PaymentWebhookInboxRepository paymentWebhookInboxRepository;
+  private final PaymentEventOutbox paymentEventOutbox;
+  private final OptimisticLockRetryExecutor optimisticLockRetry;
+  private final PaymentTransitionMetrics transitionMetrics;
 
   public PaymentApplicationService(
       OrderRepository orderRepository,
@@ -57,7 +67,11 @@ public class PaymentApplicationService {
       WebhookVerifier webhookVerifier,
       PaymentStatusMapper paymentStatusMapper,
       ApplicationEventPublisher eventPublisher,
-      PaymentAttemptService paymentAttemptService) {
+      PaymentAttemptService paymentAttemptService,
+      PaymentWebhookInboxRepository paymentWebhookInboxRepository,
+      PaymentEventOutbox paymentEventOutbox,
+      OptimisticLockRetryExecutor optimisticLockRetry,
+      PaymentTransitionMetrics transitionMetrics) {
     this.orderRepository = orderRepository;
     this.paymentAttemptRepository = paymentAttemptRepository;
     this.paymentGateway = paymentGateway;
@@ -65,12 +79,275 @@ public class PaymentApplicationService {
     this.paymentStatusMapper = paymentStatusMapper;
     this.eventPublisher = eventPublisher;
     this.paymentAttemptService = paymentAttemptService;
+    this.paymentWebhookInboxRepository = paymentWebhookInboxRepository;
+    this.paymentEventOutbox = paymentEventOutbox;
+    this.optimisticLockRetry = optimisticLockRetry;
+    this.transitionMetrics = transitionMetrics;
   }
 
-  @Transactional
+  // Abre a tentativa (PAYMENT_PENDING) numa transacao curta, chama o gateway fora de transacao e
+  // aplica o resultado relendo tentativa e pedido: a versao do pedido nao fica presa durante a
+  // chamada ao Mercado Pago e um webhook ou cancelamento no meio nao e sobrescrito. Se o pedido
+  // foi cancelado nesse meio tempo, a order remota e desfeita e o cliente recebe erro.
+  @Timed("payment.initiate")
   public InitiatePaymentResponseDto initiatePayment(
       Long orderId, Long clientId, InitiatePaymentRequestDto dto) {
 
+    OpenedAttempt opened =
+        optimisticLockRetry.execute("abrir pagamento", () -> openAttempt(orderId, clientId, dto));
+
+    GatewayPaymentResult result = createOrRecord(opened.attemptId(), orderId, opened.command());
+
+    if (!applyOrVoidCreatedPayment(opened.attemptId(), orderId, result)) {
+      throw new IllegalArgumentException(
+          "Pedido encerrado durante a criação do pagamento; a cobrança foi desfeita.");
+    }
+
+    return new InitiatePaymentResponseDto(
+        result.providerOrderId(),
+        result.providerPaymentId(),
+        result.status(),
+        result.statusDetail(),
+        result.qrCode(),
+        result.qrCodeBase64(),
+        result.ticketUrl(),
+        result.digitableLine(),
+        result.challengeUrl());
+  }
+
+  // Reconciliacao de tentativa orfa (CREATED sem providerOrderId): reenvia a criacao com a mesma
+  // chave de idempotencia, e o Mercado Pago devolve a order ja existente em vez de criar outra.
+  // Cartao nao da para reenviar (o token nao e guardado) e espera o webhook achar a tentativa
+  // pelo external_reference. Passado expireBefore, a chave pode ja ter expirado no gateway e a
+  // tentativa e encerrada como falha.
+  public boolean recoverOrphanAttempt(Long attemptId, Instant expireBefore) {
+    OrphanReplay replay =
+        optimisticLockRetry.execute(
+            "preparar reenvio de pagamento", () -> prepareOrphanReplay(attemptId, expireBefore));
+    if (replay == null) {
+      return false;
+    }
+    if (replay.command() == null) {
+      optimisticLockRetry.run(
+          "expirar tentativa orfa",
+          () ->
+              paymentAttemptService.markFailed(
+                  attemptId, replay.orderId(), PaymentAttemptService.OUTCOME_UNKNOWN + "_expired"));
+      return true;
+    }
+
+    GatewayPaymentResult result = createOrRecord(attemptId, replay.orderId(), replay.command());
+    applyOrVoidCreatedPayment(attemptId, replay.orderId(), result);
+    return true;
+  }
+
+  @Timed("payment.webhook")
+  public void handleWebhook(String xSignature, String xRequestId, MercadoPagoWebhookDto dto) {
+    handleWebhook(xSignature, xRequestId, null, dto);
+  }
+
+  // So verifica e grava no inbox; a consulta ao gateway fica com o PaymentWebhookInboxWorker,
+  // fora da thread do Tomcat e sem segurar conexao do pool.
+  @Timed("payment.webhook")
+  public void handleWebhook(
+      String xSignature, String xRequestId, String queryDataId, MercadoPagoWebhookDto dto) {
+    if (dto == null || !isOrderWebhook(dto.type())) return;
+
+    String dataId = resolveWebhookDataId(queryDataId, dto);
+    if (dataId == null || dataId.isBlank()) {
+      log.warn(
+          "Webhook de order rejeitado: data.id ausente. action={}, xRequestId={}",
+          dto.action(),
+          maskIdentifier(xRequestId));
+      throw new WebhookSignatureException("Webhook de order sem data.id.");
+    }
+
+    webhookVerifier.verify(xSignature, xRequestId, dataId);
+
+    try {
+      int inserted =
+          paymentWebhookInboxRepository.enqueue(xRequestId, dataId, dto.action(), Instant.now());
+      if (inserted == 0) {
+        log.debug(
+            "Webhook duplicado ignorado. dataId={}, xRequestId={}",
+            maskIdentifier(dataId),
+            maskIdentifier(xRequestId));
+        return;
+      }
+    } catch (DataAccessException e) {
+      throw new WebhookProcessingException("Erro ao registrar webhook do Mercado Pago.", e);
+    }
+    eventPublisher.publishEvent(new PaymentWebhookQueuedEvent(dataId));
+  }
+
+  public void applyWebhookResult(GatewayOrderResult result) {
+    optimisticLockRetry.run("aplicar webhook", () -> applyGatewayResultByProviderOrderId(result));
+  }
+
+  public void applyReconciliation(Long attemptId, GatewayOrderResult result) {
+    optimisticLockRetry.run(
+        "aplicar reconciliacao",
+        () ->
+            paymentAttemptRepository
+                .findById(attemptId)
+                .ifPresent(attempt -> applyGatewayResult(attempt, result)));
+  }
+
+  // Aplica uma pagina da reconciliacao numa transacao so, com um unico SELECT das tentativas.
+  public void applyReconciliationBatch(Map<Long, GatewayOrderResult> resultsByAttemptId) {
+    if (resultsByAttemptId.isEmpty()) return;
+    optimisticLockRetry.run(
+        "aplicar lote de reconciliacao",
+        () -> {
+          for (PaymentAttempt attempt :
+              paymentAttemptRepository.findAllWithOrderByIdIn(resultsByAttemptId.keySet())) {
+            applyGatewayResult(attempt, resultsByAttemptId.get(attempt.getId()));
+          }
+        });
+  }
+
+  // A consulta ao gateway fica entre duas transacoes curtas; so a aplicacao do resultado
+  // e repetida em caso de conflito de versao.
+  public InitiatePaymentResponseDto syncPaymentStatus(Long orderId, Long clientId) {
+    String providerOrderId =
+        optimisticLockRetry.execute(
+            "consultar pedido para sync", () -> findOwnedPaymentId(orderId, clientId));
+
+    if (providerOrderId == null || providerOrderId.isBlank()) {
+      return new InitiatePaymentResponseDto(null, null, "created", null, null, null, null, null);
+    }
+
+    GatewayOrderResult result = paymentGateway.getOrderStatus(providerOrderId);
+    String providerPaymentId =
+        optimisticLockRetry.execute("sincronizar pagamento", () -> applySyncResult(result));
+
+    return new InitiatePaymentResponseDto(
+        result.providerOrderId(),
+        providerPaymentId,
+        result.status(),
+        result.statusDetail(),
+        null,
+        null,
+        null,
+        null);
+  }
+
+  // Lado remoto do cancelamento, fora de transacao: consulta a order no Mercado Pago e cancela
+  // (ou estorna, se ja aprovada) com chave idempotente. Nao grava nada; quem cancela aplica o
+  // resultado com applyCancellationResult relendo o pedido.
+  public GatewayOrderResult cancelOrRefundRemotePayment(Long orderId, String providerOrderId) {
+    GatewayOrderResult currentResult = paymentGateway.getOrderStatus(providerOrderId);
+    PaymentAttemptStatus currentStatus =
+        paymentStatusMapper.toAttemptStatus(currentResult.status(), currentResult.statusDetail());
+
+    if (currentStatus == PaymentAttemptStatus.REFUNDED || isRemoteCancelledStatus(currentStatus)) {
+      return currentResult;
+    }
+    if (currentStatus == PaymentAttemptStatus.CHARGED_BACK) {
+      throw new IllegalArgumentException(
+          "Pedido com chargeback nao pode ser cancelado automaticamente.");
+    }
+
+    try {
+      return currentStatus == PaymentAttemptStatus.APPROVED
+          ? paymentGateway.refundOrder(providerOrderId, operationKey(orderId, "refund"))
+          : paymentGateway.cancelOrder(providerOrderId, operationKey(orderId, "cancel"));
+    } catch (PaymentGatewayUnavailableException e) {
+      throw e;
+    } catch (TransientPaymentGatewayException e) {
+      return resolveUnknownCancellation(providerOrderId, e);
+    }
+  }
+
+  // Timeout ou 5xx no cancelamento/reembolso nao diz se ele aconteceu, como na criacao. Reconsulta
+  // a order: se ja consta cancelada ou estornada, segue; senao o erro sobe e o cliente pode
+  // repetir, ja que a chave idempotente impede estorno em dobro.
+  private GatewayOrderResult resolveUnknownCancellation(
+      String providerOrderId, TransientPaymentGatewayException cause) {
+    GatewayOrderResult current = paymentGateway.getOrderStatus(providerOrderId);
+    PaymentAttemptStatus status =
+        paymentStatusMapper.toAttemptStatus(current.status(), current.statusDetail());
+    if (status == PaymentAttemptStatus.REFUNDED || isRemoteCancelledStatus(status)) {
+      return current;
+    }
+    log.warn(
+        "Resultado do cancelamento/reembolso desconhecido. providerOrderId={}, status={}",
+        maskIdentifier(providerOrderId),
+        current.status());
+    throw new TransientPaymentGatewayException(
+        "Resultado do cancelamento no gateway de pagamento ainda desconhecido; tente novamente.",
+        cause);
+  }
+
+  // Roda na transacao de quem cancela: atualiza a tentativa e devolve o status final do pedido.
+  public OrderStatus applyCancellationResult(GatewayOrderResult result) {
+    PaymentAttemptStatus attemptStatus = applyGatewayResultByProviderOrderId(result);
+    if (attemptStatus == PaymentAttemptStatus.REFUNDED) {
+      return OrderStatus.REFUNDED;
+    }
+    if (isRemoteCancelledStatus(attemptStatus)) {
+      return OrderStatus.CANCELLED;
+    }
+    throw new IllegalStateException(
+        "Mercado Pago retornou status intermediario apos cancelamento/reembolso: "
+            + result.status()
+            + "/"
+            + result.statusDetail());
+  }
+
+  private record OpenedAttempt(Long attemptId, CreatePaymentCommand command) {}
+
+  private record OrphanReplay(Long orderId, CreatePaymentCommand command) {}
+
+  // Timeout ou 5xx nao dizem se a order foi criada: marcar FAILED liberaria o estoque de um
+  // pedido possivelmente cobrado. So recusa do gateway (4xx) ou circuito aberto, quando a
+  // chamada nem saiu, viram falha.
+  private GatewayPaymentResult createOrRecord(
+      Long attemptId, Long orderId, CreatePaymentCommand command) {
+    try {
+      return paymentGateway.createPayment(command);
+    } catch (TransientPaymentGatewayException e) {
+      if (e instanceof PaymentGatewayUnavailableException) {
+        recordFailure(attemptId, orderId, e);
+      } else {
+        optimisticLockRetry.run(
+            "registrar resultado desconhecido",
+            () -> paymentAttemptService.markOutcomeUnknown(attemptId, e.getMessage()));
+      }
+      throw e;
+    } catch (RuntimeException e) {
+      recordFailure(attemptId, orderId, e);
+      throw e;
+    }
+  }
+
+  private void recordFailure(Long attemptId, Long orderId, RuntimeException e) {
+    optimisticLockRetry.run(
+        "registrar falha de pagamento",
+        () -> paymentAttemptService.markFailed(attemptId, orderId, e.getMessage()));
+  }
+
+  private OrphanReplay prepareOrphanReplay(Long attemptId, Instant expireBefore) {
+    PaymentAttempt attempt = paymentAttemptRepository.findById(attemptId).orElse(null);
+    if (attempt == null
+        || attempt.getStatus() != PaymentAttemptStatus.CREATED
+        || attempt.getProviderOrderId() != null) {
+      return null;
+    }
+    Order order = attempt.getOrder();
+    if (attempt.getCreatedAt() != null && attempt.getCreatedAt().isBefore(expireBefore)) {
+      return new OrphanReplay(order.getId(), null);
+    }
+    if (CREDIT_CARD.equals(attempt.getMethod())) {
+      return null;
+    }
+    InitiatePaymentRequestDto dto =
+        new InitiatePaymentRequestDto(attempt.getMethod(), null, null, null);
+    return new OrphanReplay(
+        order.getId(), buildCommand(order, dto, attempt.getIdempotencyKey()));
+  }
+
+  private OpenedAttempt openAttempt(Long orderId, Long clientId, InitiatePaymentRequestDto dto) {
     Order order =
         orderRepository
             .findById(orderId)
@@ -110,174 +387,113 @@ public class PaymentApplicationService {
     attempt.setIdempotencyKey(idempotencyKey);
     attempt.setAttemptNumber(attemptNumber);
     attempt.setStatus(PaymentAttemptStatus.CREATED);
-    paymentAttemptService.openAttempt(attempt, order);
+    paymentAttemptRepository.save(attempt);
+    transitionMetrics.record(null, PaymentAttemptStatus.CREATED);
 
-    try {
-      CreatePaymentCommand command = buildCommand(order, dto, idempotencyKey);
-      GatewayPaymentResult result = paymentGateway.createPayment(command);
+    order.setStatus(OrderStatus.PAYMENT_PENDING);
+    orderRepository.save(order);
 
-      PaymentAttemptStatus attemptStatus =
-          paymentStatusMapper.toAttemptStatus(result.status(), result.statusDetail());
+    return new OpenedAttempt(attempt.getId(), buildCommand(order, dto, idempotencyKey));
+  }
 
+  // Pedido cancelado (estoque ja liberado) ou tentativa encerrada enquanto a criacao estava em
+  // voo: a order remota nao pode reviver o pedido, entao e cancelada ou estornada no gateway.
+  private boolean applyOrVoidCreatedPayment(
+      Long attemptId, Long orderId, GatewayPaymentResult result) {
+    boolean applied =
+        optimisticLockRetry.execute(
+            "aplicar pagamento criado", () -> applyCreatedPayment(attemptId, result));
+    if (applied) {
+      return true;
+    }
+    GatewayOrderResult voided = cancelOrRefundRemotePayment(orderId, result.providerOrderId());
+    optimisticLockRetry.run(
+        "aplicar cancelamento de pagamento encerrado",
+        () -> applyGatewayResultByProviderOrderId(voided));
+    return false;
+  }
+
+  private boolean applyCreatedPayment(Long attemptId, GatewayPaymentResult result) {
+    PaymentAttempt attempt =
+        paymentAttemptRepository
+            .findById(attemptId)
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "Tentativa de pagamento nao encontrada: " + attemptId));
+    // Webhook ou reconciliacao ja vinculou a tentativa enquanto a criacao estava em voo.
+    if (attempt.getProviderOrderId() != null) {
+      return true;
+    }
+    Order order = attempt.getOrder();
+    if (order.getStatus() == OrderStatus.CANCELLED
+        || order.getStatus() == OrderStatus.REFUNDED
+        || attempt.getStatus() != PaymentAttemptStatus.CREATED) {
+      log.warn(
+          "Pagamento criado para tentativa ja encerrada; desfazendo no gateway. "
+              + "attemptId={}, providerOrderId={}, orderStatus={}, attemptStatus={}",
+          attemptId,
+          result.providerOrderId(),
+          order.getStatus(),
+          attempt.getStatus());
+      // So vincula a order remota, para o resultado do cancelamento achar a tentativa; o
+      // status do pedido fica como esta.
       attempt.setProviderOrderId(result.providerOrderId());
       attempt.setProviderPaymentId(result.providerPaymentId());
-      attempt.setStatus(attemptStatus);
-      attempt.setStatusDetail(result.statusDetail());
-      if (result.paymentMethodId() != null) {
-        attempt.setMethod(result.paymentMethodId());
-      }
       paymentAttemptRepository.save(attempt);
-
-      order.setPaymentId(result.providerOrderId());
-      OrderStatus newOrderStatus = paymentStatusMapper.toOrderStatus(attemptStatus);
-      if (newOrderStatus != null) {
-        order.setStatus(newOrderStatus);
-      }
-      orderRepository.save(order);
-
-      if (attemptStatus == PaymentAttemptStatus.APPROVED) {
-        eventPublisher.publishEvent(
-            new PaymentApprovedEvent(
-                order.getId(), attempt.getId(), PaymentAttemptStatus.CREATED, Instant.now()));
-      }
-
-      return new InitiatePaymentResponseDto(
-          result.providerOrderId(),
-          result.providerPaymentId(),
-          result.status(),
-          result.statusDetail(),
-          result.qrCode(),
-          result.qrCodeBase64(),
-          result.ticketUrl(),
-          result.digitableLine(),
-          result.challengeUrl());
-
-    } catch (RuntimeException e) {
-      paymentAttemptService.markFailed(attempt, order, e.getMessage());
-      throw e;
+      return false;
     }
-  }
 
-  @Transactional
-  public void handleWebhook(String xSignature, String xRequestId, MercadoPagoWebhookDto dto) {
-    handleWebhook(xSignature, xRequestId, null, dto);
-  }
-
-  @Transactional
-  public void handleWebhook(
-      String xSignature, String xRequestId, String queryDataId, MercadoPagoWebhookDto dto) {
-    if (dto == null || !isOrderWebhook(dto.type())) return;
+    PaymentAttemptStatus attemptStatus =
+        paymentStatusMapper.toAttemptStatus(result.status(), result.statusDetail());
 
-    String dataId = resolveWebhookDataId(queryDataId, dto);
-    if (dataId == null || dataId.isBlank()) {
-      log.warn(
-          "Webhook de order rejeitado: data.id ausente. action={}, xRequestId={}",
-          dto.action(),
-          maskIdentifier(xRequestId));
-      throw new WebhookSignatureException("Webhook de order sem data.id.");
+    attempt.setProviderOrderId(result.providerOrderId());
+    attempt.setProviderPaymentId(result.providerPaymentId());
+    attempt.setStatus(attemptStatus);
+    attempt.setStatusDetail(result.statusDetail());
+    if (result.paymentMethodId() != null) {
+      attempt.setMethod(result.paymentMethodId());
     }
+    paymentAttemptRepository.save(attempt);
+    transitionMetrics.record(PaymentAttemptStatus.CREATED, attemptStatus);
 
-    webhookVerifier.verify(xSignature, xRequestId, dataId);
-
-    try {
-      GatewayOrderResult result = paymentGateway.getOrderStatus(dataId);
-      PaymentAttempt attempt =
-          paymentAttemptRepository.findByProviderOrderId(result.providerOrderId()).orElse(null);
-      if (attempt == null) return;
-      applyGatewayResult(attempt, result);
-    } catch (PermanentPaymentGatewayException e) {
-      log.warn(
-          "Webhook de order ignorado: gateway nao encontrou/aceitou data.id. dataId={}, xRequestId={}, message={}",
-          maskIdentifier(dataId),
-          maskIdentifier(xRequestId),
-          e.getMessage());
-    } catch (PaymentGatewayException e) {
-      throw new WebhookProcessingException("Erro ao processar webhook do Mercado Pago.", e);
+    order.setPaymentId(result.providerOrderId());
+    OrderStatus newOrderStatus = paymentStatusMapper.toOrderStatus(attemptStatus);
+    if (newOrderStatus != null) {
+      order.setStatus(newOrderStatus);
     }
-  }
+    orderRepository.save(order);
 
-  @Transactional
-  public void applyReconciliation(Long attemptId, GatewayOrderResult result) {
-    PaymentAttempt attempt = paymentAttemptRepository.findById(attemptId).orElse(null);
-    if (attempt == null) return;
-    applyGatewayResult(attempt, result);
+    if (attemptStatus == PaymentAttemptStatus.APPROVED) {
+      paymentEventOutbox.append(
+          new PaymentApprovedEvent(
+              order.getId(), attempt.getId(), PaymentAttemptStatus.CREATED, Instant.now()));
+    }
+    return true;
   }
 
-  @Transactional
-  public InitiatePaymentResponseDto syncPaymentStatus(Long orderId, Long clientId) {
+  private String findOwnedPaymentId(Long orderId, Long clientId) {
     Order order =
         orderRepository
             .findById(orderId)
             .orElseThrow(
-                () -> new OrderNotFoundException("Pedido nÃ£o encontrado com id: " + orderId));
+                () -> new OrderNotFoundException("Pedido não encontrado com id: " + orderId));
 
     if (!order.getClient().getId().equals(clientId)) {
       throw new OrderOwnershipException(
-          "Acesso negado: o pedido nÃ£o pertence ao usuÃ¡rio autenticado.");
-    }
-
-    if (order.getPaymentId() == null || order.getPaymentId().isBlank()) {
-      return new InitiatePaymentResponseDto(null, null, "created", null, null, null, null, null);
+          "Acesso negado: o pedido não pertence ao usuário autenticado.");
     }
+    return order.getPaymentId();
+  }
 
-    GatewayOrderResult result = paymentGateway.getOrderStatus(order.getPaymentId());
+  private String applySyncResult(GatewayOrderResult result) {
     PaymentAttempt attempt =
         paymentAttemptRepository.findByProviderOrderId(result.providerOrderId()).orElse(null);
-    String providerPaymentId = attempt != null ? attempt.getProviderPaymentId() : null;
-
-    if (attempt != null) {
-      applyGatewayResult(attempt, result);
-    }
-
-    return new InitiatePaymentResponseDto(
-        result.providerOrderId(),
-        providerPaymentId,
-        result.status(),
-        result.statusDetail(),
-        null,
-        null,
-        null,
-        null);
-  }
-
-  @Transactional
-  public OrderStatus cancelOrRefundRemotePayment(Order order) {
-    if (order.getPaymentId() == null || order.getPaymentId().isBlank()) {
-      return OrderStatus.CANCELLED;
-    }
-
-    GatewayOrderResult currentResult = paymentGateway.getOrderStatus(order.getPaymentId());
-    PaymentAttemptStatus currentStatus =
-        paymentStatusMapper.toAttemptStatus(currentResult.status(), currentResult.statusDetail());
-
-    if (currentStatus == PaymentAttemptStatus.REFUNDED) {
-      applyGatewayResultByProviderOrderId(currentResult);
-      return OrderStatus.REFUNDED;
-    }
-    if (isRemoteCancelledStatus(currentStatus)) {
-      applyGatewayResultByProviderOrderId(currentResult);
-      return OrderStatus.CANCELLED;
-    }
-    if (currentStatus == PaymentAttemptStatus.CHARGED_BACK) {
-      throw new IllegalArgumentException(
-          "Pedido com chargeback nao pode ser cancelado automaticamente.");
-    }
-
-    GatewayOrderResult operationResult =
-        currentStatus == PaymentAttemptStatus.APPROVED
-            ? paymentGateway.refundOrder(order.getPaymentId(), operationKey(order, "refund"))
-            : paymentGateway.cancelOrder(order.getPaymentId(), operationKey(order, "cancel"));
-
-    PaymentAttemptStatus operationStatus = applyGatewayResultByProviderOrderId(operationResult);
-    OrderStatus orderStatus = paymentStatusMapper.toOrderStatus(operationStatus);
-    if (orderStatus == null) {
-      throw new IllegalStateException(
-          "Mercado Pago retornou status intermediario apos cancelamento/reembolso: "
-              + operationResult.status()
-              + "/"
-              + operationResult.statusDetail());
+    if (attempt == null) {
+      return null;
     }
-    return orderStatus;
+    applyGatewayResult(attempt, result);
+    return attempt.getProviderPaymentId();
   }
 
   private void applyGatewayResult(PaymentAttempt attempt, GatewayOrderResult result) {
@@ -313,12 +529,13 @@ public class PaymentApplicationService {
     }
 
     if (oldStatus != newAttemptStatus) {
+      transitionMetrics.record(oldStatus, newAttemptStatus);
       if (newAttemptStatus == PaymentAttemptStatus.APPROVED) {
-        eventPublisher.publishEvent(
+        paymentEventOutbox.append(
             new PaymentApprovedEvent(
                 attempt.getOrder().getId(), attempt.getId(), oldStatus, Instant.now()));
       } else if (isTerminalFailureStatus(newAttemptStatus)) {
-        eventPublisher.publishEvent(
+        paymentEventOutbox.append(
             new PaymentFailedEvent(
                 attempt.getOrder().getId(),
                 attempt.getId(),
@@ -334,10 +551,39 @@ public class PaymentApplicationService {
         paymentStatusMapper.toAttemptStatus(result.status(), result.statusDetail());
     paymentAttemptRepository
         .findByProviderOrderId(result.providerOrderId())
+        .or(() -> linkOrphanAttempt(result))
         .ifPresent(attempt -> applyGatewayResult(attempt, result));
     return attemptStatus;
   }
 
+  // Order criada no gateway cuja resposta se perdeu (timeout): a tentativa nao tem
+  // providerOrderId, mas o external_reference e o numero do pedido.
+  private Optional<PaymentAttempt> linkOrphanAttempt(GatewayOrderResult result) {
+    if (!hasText(result.externalReference()) || !hasText(result.providerOrderId())) {
+      return Optional.empty();
+    }
+    return orderRepository
+        .findByOrderNumber(result.externalReference())
+        .flatMap(
+            order ->
+                paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(order.getId()))
+        .filter(
+            attempt ->
+                attempt.getStatus() == PaymentAttemptStatus.CREATED
+                    && attempt.getProviderOrderId() == null)
+        .map(
+            attempt -> {
+              log.info(
+                  "Tentativa orfa vinculada pelo external_reference. "
+                      + "attemptId={}, providerOrderId={}",
+                  attempt.getId(),
+                  result.providerOrderId());
+              attempt.setProviderOrderId(result.providerOrderId());
+              attempt.getOrder().setPaymentId(result.providerOrderId());
+              return attempt;
+            });
+  }
+
   private CreatePaymentCommand buildCommand(
       Order order, InitiatePaymentRequestDto dto, String idempotencyKey) {
 
@@ -462,8 +708,8 @@ public class PaymentApplicationService {
     return value.substring(0, 3) + "***" + value.substring(value.length() - 3);
   }
 
-  private String operationKey(Order order, String operation) {
-    return "order-" + order.getId() + "-" + operation + "-v1";
+  private String operationKey(Long orderId, String operation) {
+    return "order-" + orderId + "-" + operation + "-v1";
   }
 
   private static boolean isTerminalFailureStatus(PaymentAttemptStatus status) {
@@ -8,43 +8,67 @@ import com.orama.e_commerce.models.PaymentAttempt;
 import com.orama.e_commerce.repository.OrderRepository;
 import com.orama.e_commerce.repository.PaymentAttemptRepository;
 import java.time.Instant;
-import org.springframework.context.ApplicationEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class PaymentAttemptService {
 
+  public static final String OUTCOME_UNKNOWN = "outcome_unknown";
+
+  private static final Logger log = LoggerFactory.getLogger(PaymentAttemptService.class);
+
   private final PaymentAttemptRepository paymentAttemptRepository;
   private final OrderRepository orderRepository;
-  private final ApplicationEventPublisher eventPublisher;
+  private final PaymentEventOutbox paymentEventOutbox;
+  private final PaymentTransitionMetrics transitionMetrics;
 
   public PaymentAttemptService(
       PaymentAttemptRepository paymentAttemptRepository,
       OrderRepository orderRepository,
-      ApplicationEventPublisher eventPublisher) {
+      PaymentEventOutbox paymentEventOutbox,
+      PaymentTransitionMetrics transitionMetrics) {
     this.paymentAttemptRepository = paymentAttemptRepository;
     this.orderRepository = orderRepository;
-    this.eventPublisher = eventPublisher;
+    this.paymentEventOutbox = paymentEventOutbox;
+    this.transitionMetrics = transitionMetrics;
   }
 
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
-  public void openAttempt(PaymentAttempt attempt, Order order) {
-    paymentAttemptRepository.save(attempt);
-    order.setStatus(OrderStatus.PAYMENT_PENDING);
-    orderRepository.save(order);
-  }
-
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
-  public void markFailed(PaymentAttempt attempt, Order order, String errorMessage) {
+  // Rele tentativa e pedido: quem chama esta fora da transacao que os carregou e pode ter
+  // perdido uma atualizacao concorrente (webhook ou cancelamento). So falha tentativa ainda em
+  // aberto; se um webhook ja a levou adiante (aprovada, cancelada...), nao mexe em nada.
+  @Transactional
+  public void markFailed(Long attemptId, Long orderId, String errorMessage) {
+    PaymentAttempt attempt =
+        paymentAttemptRepository
+            .findById(attemptId)
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "Tentativa de pagamento nao encontrada: " + attemptId));
+    if (attempt.getStatus() != PaymentAttemptStatus.CREATED
+        && attempt.getStatus() != PaymentAttemptStatus.PENDING) {
+      log.warn(
+          "Falha de pagamento ignorada: tentativa ja em {}. attemptId={}, erro={}",
+          attempt.getStatus(),
+          attemptId,
+          errorMessage);
+      return;
+    }
+    Order order =
+        orderRepository
+            .findById(orderId)
+            .orElseThrow(() -> new IllegalStateException("Pedido nao encontrado: " + orderId));
     PaymentAttemptStatus previousStatus = attempt.getStatus();
     attempt.setStatus(PaymentAttemptStatus.FAILED);
     attempt.setStatusDetail(errorMessage);
     paymentAttemptRepository.save(attempt);
+    transitionMetrics.record(previousStatus, PaymentAttemptStatus.FAILED);
     order.setStatus(OrderStatus.PENDING);
     orderRepository.save(order);
-    eventPublisher.publishEvent(
+    paymentEventOutbox.append(
         new PaymentFailedEvent(
             order.getId(),
             attempt.getId(),
@@ -52,4 +76,29 @@ public class PaymentAttemptService {
             PaymentAttemptStatus.FAILED,
             Instant.now()));
   }
+
+  // Timeout ou erro de rede ao criar: o Mercado Pago pode ter criado a order (e cobrado). A
+  // tentativa segue CREATED sem providerOrderId e o pedido em PAYMENT_PENDING, sem liberar
+  // estoque; a reconciliacao resolve pela chave de idempotencia ou pelo external_reference.
+  @Transactional
+  public void markOutcomeUnknown(Long attemptId, String errorMessage) {
+    PaymentAttempt attempt =
+        paymentAttemptRepository
+            .findById(attemptId)
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "Tentativa de pagamento nao encontrada: " + attemptId));
+    if (attempt.getStatus() != PaymentAttemptStatus.CREATED
+        || attempt.getProviderOrderId() != null) {
+      return;
+    }
+    attempt.setStatusDetail(OUTCOME_UNKNOWN);
+    paymentAttemptRepository.save(attempt);
+    log.warn(
+        "Resultado desconhecido ao criar pagamento; tentativa fica para reconciliacao. "
+            + "attemptId={}, erro={}",
+        attemptId,
+        errorMessage);
+  }
 }
@@ -0,0 +1,85 @@
+package com.orama.e_commerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orama.e_commerce.events.payment.PaymentEvent;
+import com.orama.e_commerce.events.payment.PaymentOutboxAppendedEvent;
+import com.orama.e_commerce.models.PaymentOutboxEntry;
+import com.orama.e_commerce.repository.PaymentOutboxRepository;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Grava eventos de pagamento em tb_payment_outbox. append() exige a transacao de quem mudou a
+// PaymentAttempt: ou os dois commitam juntos, ou nenhum.
+@Component
+public class PaymentEventOutbox {
+
+  @SuppressWarnings("unchecked")
+  private static final Map<String, Class<? extends PaymentEvent>> EVENT_TYPES =
+      Arrays.stream(PaymentEvent.class.getPermittedSubclasses())
+          .map(type -> (Class<? extends PaymentEvent>) type)
+          .collect(Collectors.toUnmodifiableMap(Class::getSimpleName, Function.identity()));
+
+  private final PaymentOutboxRepository outboxRepository;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public PaymentEventOutbox(
+      PaymentOutboxRepository outboxRepository,
+      ObjectMapper objectMapper,
+      ApplicationEventPublisher eventPublisher) {
+    this.outboxRepository = outboxRepository;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void append(PaymentEvent event) {
+    outboxRepository.save(
+        new PaymentOutboxEntry(
+            event.getClass().getSimpleName(), event.orderId(), serialize(event), Instant.now()));
+    eventPublisher.publishEvent(new PaymentOutboxAppendedEvent(event.orderId()));
+  }
+
+  // Trava um lote com SKIP LOCKED e marca como PROCESSING ate lockedUntil; a entrega acontece
+  // fora desta transacao.
+  @Transactional
+  public List<PaymentOutboxEntry> claimBatch(Instant now, Instant lockedUntil, int limit) {
+    List<Long> ids = outboxRepository.lockDueIds(now, limit);
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    outboxRepository.claim(ids, lockedUntil);
+    return outboxRepository.findAllByIdInOrderByIdAsc(ids);
+  }
+
+  public PaymentEvent read(PaymentOutboxEntry entry) {
+    Class<? extends PaymentEvent> type = EVENT_TYPES.get(entry.getEventType());
+    if (type == null) {
+      throw new IllegalStateException(
+          "Tipo de evento desconhecido no outbox: " + entry.getEventType());
+    }
+    try {
+      return objectMapper.readValue(entry.getPayload(), type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Payload invalido no outbox id=" + entry.getId(), e);
+    }
+  }
+
+  private String serialize(PaymentEvent event) {
+    try {
+      return objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(
+          "Falha ao serializar " + event.getClass().getSimpleName(), e);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.enums.OutboxStatus;
+import com.orama.e_commerce.events.payment.PaymentEvent;
+import com.orama.e_commerce.events.payment.PaymentOutboxAppendedEvent;
+import com.orama.e_commerce.models.PaymentOutboxEntry;
+import com.orama.e_commerce.repository.PaymentOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Entrega os eventos de tb_payment_outbox aos @EventListener de pagamento (PaymentEventLogger,
+// StockReservationPaymentListener...) numa thread propria, fora da requisicao. Entrega pelo
+// menos uma vez: o evento so vira DELIVERED depois que todos os listeners retornaram, entao
+// eles precisam ser idempotentes.
+@Component
+public class PaymentOutboxDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(PaymentOutboxDispatcher.class);
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final PaymentEventOutbox paymentEventOutbox;
+  private final PaymentOutboxRepository outboxRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration retryBase;
+  private final Duration processingLease;
+  private final Duration retention;
+  private final ThreadPoolExecutor dispatcher;
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  public PaymentOutboxDispatcher(
+      PaymentEventOutbox paymentEventOutbox,
+      PaymentOutboxRepository outboxRepository,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${payment.outbox.batch-size:100}") int batchSize,
+      @Value("${payment.outbox.max-attempts:10}") int maxAttempts,
+      @Value("${payment.outbox.retry-base:5s}") Duration retryBase,
+      @Value("${payment.outbox.processing-lease:2m}") Duration processingLease,
+      @Value("${payment.outbox.retention:7d}") Duration retention) {
+    this.paymentEventOutbox = paymentEventOutbox;
+    this.outboxRepository = outboxRepository;
+    this.eventPublisher = eventPublisher;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.retryBase = retryBase;
+    this.processingLease = processingLease;
+    this.retention = retention;
+    // Uma thread: entrega em ordem de id e no maximo um drain em andamento e um agendado.
+    this.dispatcher =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "payment-outbox-dispatcher");
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onAppended(PaymentOutboxAppendedEvent event) {
+    wakeUp();
+  }
+
+  // Rede de seguranca para retentativas agendadas e eventos gravados por outra instancia.
+  @Scheduled(fixedDelayString = "${payment.outbox.poll-interval:5s}")
+  public void poll() {
+    wakeUp();
+  }
+
+  public void wakeUp() {
+    dispatcher.execute(this::drainSafely);
+  }
+
+  @Scheduled(cron = "${payment.outbox.purge-cron:0 45 3 * * *}")
+  public void purgeDelivered() {
+    int removed = outboxRepository.deleteDeliveredBefore(Instant.now().minus(retention));
+    if (removed > 0) {
+      log.info("Removidos {} eventos entregues de tb_payment_outbox", removed);
+    }
+  }
+
+  public long deliveredCount() {
+    return delivered.get();
+  }
+
+  public long failedCount() {
+    return failed.get();
+  }
+
+  public long backlog() {
+    return outboxRepository.countByStatus(OutboxStatus.PENDING)
+        + outboxRepository.countByStatus(OutboxStatus.PROCESSING);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    dispatcher.shutdown();
+  }
+
+  private void drainSafely() {
+    try {
+      drain();
+    } catch (RuntimeException e) {
+      log.warn("Falha ao drenar outbox de pagamentos: {}", e.getMessage());
+    }
+  }
+
+  int drain() {
+    int released = outboxRepository.releaseExpiredLocks(Instant.now());
+    if (released > 0) {
+      log.warn("{} eventos do outbox com lease vencido voltaram para a fila", released);
+    }
+
+    Instant startedAt = Instant.now();
+    int processed = 0;
+    List<PaymentOutboxEntry> batch;
+    do {
+      Instant now = Instant.now();
+      batch = paymentEventOutbox.claimBatch(now, now.plus(processingLease), batchSize);
+      batch.forEach(this::deliver);
+      processed += batch.size();
+    } while (batch.size() == batchSize);
+
+    if (processed > 0) {
+      log.info(
+          "Outbox de pagamentos: {} eventos em {} ms (entregues {}, falhas {} desde a subida)",
+          processed,
+          Duration.between(startedAt, Instant.now()).toMillis(),
+          delivered.get(),
+          failed.get());
+    }
+    return processed;
+  }
+
+  void deliver(PaymentOutboxEntry entry) {
+    try {
+      PaymentEvent event = paymentEventOutbox.read(entry);
+      eventPublisher.publishEvent(event);
+      outboxRepository.markDelivered(entry.getId(), Instant.now());
+      delivered.incrementAndGet();
+    } catch (RuntimeException e) {
+      failed.incrementAndGet();
+      log.warn(
+          "Falha ao entregar evento do outbox. id={}, type={}, orderId={}, message={}",
+          entry.getId(),
+          entry.getEventType(),
+          entry.getOrderId(),
+          e.getMessage());
+      outboxRepository.reschedule(
+          entry.getId(),
+          Instant.now(),
+          retryBase.toSeconds(),
+          maxAttempts,
+          truncate(e.getMessage()));
+    }
+  }
+
+  private static String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+}
@@ -1,19 +1,34 @@
 package com.orama.e_commerce.service;
 
+import com.orama.e_commerce.dtos.payment.StaleAttemptRow;
 import com.orama.e_commerce.enums.PaymentAttemptStatus;
-import com.orama.e_commerce.models.PaymentAttempt;
 import com.orama.e_commerce.repository.PaymentAttemptRepository;
 import com.orama.e_commerce.service.gateway.GatewayOrderResult;
 import com.orama.e_commerce.service.gateway.PaymentGateway;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+// Varre as tentativas stale por keyset, em paginas. As consultas ao gateway de cada pagina rodam
+// em virtual threads, limitadas por um semaforo (concorrencia) e por um bucket (requisicoes por
+// segundo); os resultados da pagina sao aplicados numa transacao so.
 @Component
 public class PaymentReconciliationJob {
 
@@ -24,39 +39,217 @@ public class PaymentReconciliationJob {
           PaymentAttemptStatus.AUTHORIZED,
           PaymentAttemptStatus.AWAITING_CHALLENGE);
 
+  public record RunStats(int scanned, int applied, int errors, Duration duration, Duration maxLag) {
+
+    public double throughputPerSecond() {
+      long millis = Math.max(1, duration.toMillis());
+      return scanned * 1000.0 / millis;
+    }
+  }
+
   private final PaymentAttemptRepository paymentAttemptRepository;
   private final PaymentGateway paymentGateway;
   private final PaymentApplicationService paymentApplicationService;
   private final int staleMinutes;
+  private final int pageSize;
+  private final int maxConcurrency;
+  private final int requestsPerSecond;
+  private final int maxPerRun;
+  private final Duration backoffBase;
+  private final Duration backoffMax;
+  private final int orphanBatchSize;
+  private final Duration orphanExpiry;
+
+  private volatile RunStats lastRun;
 
   public PaymentReconciliationJob(
       PaymentAttemptRepository paymentAttemptRepository,
       PaymentGateway paymentGateway,
       PaymentApplicationService paymentApplicationService,
-      @Value("${payment.reconciliation.stale-minutes:10}") int staleMinutes) {
+      @Value("${payment.reconciliation.stale-minutes:10}") int staleMinutes,
+      @Value("${payment.reconciliation.page-size:200}") int pageSize,
+      @Value("${payment.reconciliation.max-concurrency:16}") int maxConcurrency,
+      @Value("${payment.reconciliation.requests-per-second:20}") int requestsPerSecond,
+      @Value("${payment.reconciliation.max-per-run:5000}") int maxPerRun,
+      @Value("${payment.reconciliation.backoff-base:5m}") Duration backoffBase,
+      @Value("${payment.reconciliation.backoff-max:6h}") Duration backoffMax,
+      @Value("${payment.reconciliation.orphan-batch-size:50}") int orphanBatchSize,
+      @Value("${payment.reconciliation.orphan-expiry:24h}") Duration orphanExpiry) {
     this.paymentAttemptRepository = paymentAttemptRepository;
     this.paymentGateway = paymentGateway;
     this.paymentApplicationService = paymentApplicationService;
     this.staleMinutes = staleMinutes;
+    this.pageSize = pageSize;
+    this.maxConcurrency = maxConcurrency;
+    this.requestsPerSecond = requestsPerSecond;
+    this.maxPerRun = maxPerRun;
+    this.backoffBase = backoffBase;
+    this.backoffMax = backoffMax;
+    this.orphanBatchSize = orphanBatchSize;
+    this.orphanExpiry = orphanExpiry;
+  }
+
+  public RunStats lastRun() {
+    return lastRun;
   }
 
   @Scheduled(cron = "${payment.reconciliation.cron:0 */5 * * * *}")
   public void reconcileStaleAttempts() {
-    Instant cutoff = Instant.now().minus(staleMinutes, ChronoUnit.MINUTES);
-    List<PaymentAttempt> stale =
-        paymentAttemptRepository.findStaleAttempts(RECONCILABLE_STATUSES, cutoff);
-    log.info("Reconciliando {} tentativas de pagamento stale (cutoff: {})", stale.size(), cutoff);
-    for (PaymentAttempt attempt : stale) {
+    Instant startedAt = Instant.now();
+    Instant cutoff = startedAt.minus(staleMinutes, ChronoUnit.MINUTES);
+    Semaphore permits = new Semaphore(maxConcurrency);
+    Bucket rateLimit =
+        Bucket.builder()
+            .addLimit(
+                Bandwidth.classic(
+                    requestsPerSecond, Refill.greedy(requestsPerSecond, Duration.ofSeconds(1))))
+            .build();
+
+    int scanned = 0;
+    int applied = 0;
+    Instant oldestUpdate = null;
+    long afterId = 0;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      while (scanned < maxPerRun) {
+        int limit = Math.min(pageSize, maxPerRun - scanned);
+        List<StaleAttemptRow> page =
+            paymentAttemptRepository.findStaleAttemptPage(
+                RECONCILABLE_STATUSES, cutoff, startedAt, afterId, PageRequest.of(0, limit));
+        if (page.isEmpty()) {
+          break;
+        }
+        afterId = page.get(page.size() - 1).id();
+        scanned += page.size();
+        for (StaleAttemptRow row : page) {
+          if (row.updatedAt() != null
+              && (oldestUpdate == null || row.updatedAt().isBefore(oldestUpdate))) {
+            oldestUpdate = row.updatedAt();
+          }
+        }
+
+        Map<Long, GatewayOrderResult> results = lookUp(page, executor, permits, rateLimit);
+        applied += apply(results);
+        paymentAttemptRepository.scheduleNextReconcile(
+            page.stream().map(StaleAttemptRow::id).toList(),
+            Instant.now(),
+            backoffBase.toSeconds(),
+            backoffMax.toSeconds());
+
+        if (page.size() < limit) {
+          break;
+        }
+      }
+    }
+
+    recoverOrphans(cutoff, startedAt);
+
+    RunStats stats =
+        new RunStats(
+            scanned,
+            applied,
+            scanned - applied,
+            Duration.between(startedAt, Instant.now()),
+            oldestUpdate != null ? Duration.between(oldestUpdate, startedAt) : Duration.ZERO);
+    lastRun = stats;
+    if (scanned > 0) {
+      log.info(
+          "Reconciliacao: {} tentativas, {} aplicadas, {} erros em {} ms ({} /s, lag max {} s)",
+          stats.scanned(),
+          stats.applied(),
+          stats.errors(),
+          stats.duration().toMillis(),
+          String.format("%.1f", stats.throughputPerSecond()),
+          stats.maxLag().toSeconds());
+    }
+  }
+
+  // Criacoes sem resposta (timeout, queda no meio da chamada) nao tem providerOrderId para
+  // consultar; sao reenviadas com a mesma chave de idempotencia, uma a uma e em lote pequeno.
+  private void recoverOrphans(Instant cutoff, Instant startedAt) {
+    List<Long> ids =
+        paymentAttemptRepository.findOrphanAttemptIds(
+            PaymentAttemptStatus.CREATED, cutoff, startedAt, PageRequest.of(0, orphanBatchSize));
+    if (ids.isEmpty()) {
+      return;
+    }
+    Instant expireBefore = startedAt.minus(orphanExpiry);
+    int recovered = 0;
+    for (Long id : ids) {
+      try {
+        if (paymentApplicationService.recoverOrphanAttempt(id, expireBefore)) {
+          recovered++;
+        }
+      } catch (RuntimeException e) {
+        log.warn("Falha ao recuperar tentativa orfa id={}: {}", id, e.getMessage());
+      }
+    }
+    paymentAttemptRepository.scheduleNextReconcile(
+        ids, Instant.now(), backoffBase.toSeconds(), backoffMax.toSeconds());
+    log.info("Reconciliacao de orfas: {} tentativas, {} resolvidas", ids.size(), recovered);
+  }
+
+  private Map<Long, GatewayOrderResult> lookUp(
+      List<StaleAttemptRow> page, ExecutorService executor, Semaphore permits, Bucket rateLimit) {
+    Map<Long, CompletableFuture<GatewayOrderResult>> pending = new LinkedHashMap<>();
+    for (StaleAttemptRow row : page) {
+      pending.put(
+          row.id(),
+          CompletableFuture.supplyAsync(
+              () -> fetchStatus(row.providerOrderId(), permits, rateLimit), executor));
+    }
+
+    Map<Long, GatewayOrderResult> results = new LinkedHashMap<>();
+    for (StaleAttemptRow row : page) {
       try {
-        GatewayOrderResult result = paymentGateway.getOrderStatus(attempt.getProviderOrderId());
-        paymentApplicationService.applyReconciliation(attempt.getId(), result);
-      } catch (Exception e) {
+        results.put(row.id(), pending.get(row.id()).join());
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
         log.warn(
             "Falha ao reconciliar attempt id={} providerOrderId={}: {}",
-            attempt.getId(),
-            attempt.getProviderOrderId(),
-            e.getMessage());
+            row.id(),
+            row.providerOrderId(),
+            cause.getMessage());
+      }
+    }
+    return results;
+  }
+
+  private GatewayOrderResult fetchStatus(String providerOrderId, Semaphore permits, Bucket rate) {
+    try {
+      permits.acquire();
+      try {
+        rate.asBlocking().consume(1);
+        return paymentGateway.getOrderStatus(providerOrderId);
+      } finally {
+        permits.release();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Reconciliacao interrompida", e);
+    }
+  }
+
+  // Uma transacao por pagina; se ela falhar, reaplica item a item para isolar o culpado.
+  private int apply(Map<Long, GatewayOrderResult> results) {
+    if (results.isEmpty()) {
+      return 0;
+    }
+    try {
+      paymentApplicationService.applyReconciliationBatch(results);
+      return results.size();
+    } catch (RuntimeException e) {
+      log.warn("Falha ao aplicar lote de reconciliacao, aplicando um a um: {}", e.getMessage());
+    }
+
+    int applied = 0;
+    for (Map.Entry<Long, GatewayOrderResult> entry : results.entrySet()) {
+      try {
+        paymentApplicationService.applyReconciliation(entry.getKey(), entry.getValue());
+        applied++;
+      } catch (RuntimeException e) {
+        log.warn("Falha ao reconciliar attempt id={}: {}", entry.getKey(), e.getMessage());
       }
     }
+    return applied;
   }
 }
@@ -0,0 +1,43 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.enums.PaymentAttemptStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Conta as transicoes de status das tentativas de pagamento (payment.attempt.transitions, tags
+// from/to). Dentro de transacao so conta no afterCommit: rollback e nova tentativa do
+// OptimisticLockRetryExecutor nao inflam o contador.
+@Component
+public class PaymentTransitionMetrics {
+
+  private final MeterRegistry meterRegistry;
+
+  public PaymentTransitionMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public void record(PaymentAttemptStatus from, PaymentAttemptStatus to) {
+    if (from == to) {
+      return;
+    }
+    Counter counter =
+        Counter.builder("payment.attempt.transitions")
+            .tag("from", from == null ? "NONE" : from.name())
+            .tag("to", to.name())
+            .register(meterRegistry);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              counter.increment();
+            }
+          });
+    } else {
+      counter.increment();
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.events.payment.PaymentWebhookQueuedEvent;
+import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
+import com.orama.e_commerce.repository.PaymentWebhookInboxRepository;
+import com.orama.e_commerce.service.gateway.GatewayOrderResult;
+import com.orama.e_commerce.service.gateway.PaymentGateway;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Drena tb_payment_webhook_inbox: cada data.id pendente vira uma unica consulta ao gateway,
+// nao importa quantas notificacoes repetidas chegaram para ele. O despachante roda numa thread
+// so (no maximo um drain em andamento e um agendado); o trabalho vai para um pool limitado.
+@Component
+public class PaymentWebhookInboxWorker {
+
+  private static final Logger log = LoggerFactory.getLogger(PaymentWebhookInboxWorker.class);
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final PaymentWebhookInboxRepository inboxRepository;
+  private final PaymentGateway paymentGateway;
+  private final PaymentApplicationService paymentApplicationService;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration retryBase;
+  private final Duration processingLease;
+  private final Duration retention;
+  private final int purgeBatchSize;
+  private final ThreadPoolExecutor dispatcher;
+  private final ThreadPoolExecutor workers;
+
+  public PaymentWebhookInboxWorker(
+      PaymentWebhookInboxRepository inboxRepository,
+      PaymentGateway paymentGateway,
+      PaymentApplicationService paymentApplicationService,
+      @Value("${payment.webhook.inbox.workers:4}") int workerCount,
+      @Value("${payment.webhook.inbox.batch-size:50}") int batchSize,
+      @Value("${payment.webhook.inbox.max-attempts:8}") int maxAttempts,
+      @Value("${payment.webhook.inbox.retry-base:5s}") Duration retryBase,
+      @Value("${payment.webhook.inbox.processing-lease:2m}") Duration processingLease,
+      @Value("${payment.webhook.inbox.retention:7d}") Duration retention,
+      @Value("${payment.webhook.inbox.purge-batch-size:1000}") int purgeBatchSize) {
+    this.inboxRepository = inboxRepository;
+    this.paymentGateway = paymentGateway;
+    this.paymentApplicationService = paymentApplicationService;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.retryBase = retryBase;
+    this.processingLease = processingLease;
+    this.retention = retention;
+    this.purgeBatchSize = purgeBatchSize;
+    this.dispatcher =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1),
+            namedThreads("webhook-inbox-dispatcher-"),
+            new ThreadPoolExecutor.DiscardPolicy());
+    // CallerRuns: com a fila cheia o proprio despachante processa, o que segura o ritmo do drain.
+    this.workers =
+        new ThreadPoolExecutor(
+            workerCount,
+            workerCount,
+            0,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(batchSize),
+            namedThreads("webhook-inbox-worker-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @EventListener
+  public void onQueued(PaymentWebhookQueuedEvent event) {
+    wakeUp();
+  }
+
+  // Rede de seguranca para retentativas agendadas e sinais perdidos (ex.: outra instancia).
+  @Scheduled(fixedDelayString = "${payment.webhook.inbox.poll-interval:5s}")
+  public void poll() {
+    wakeUp();
+  }
+
+  public void wakeUp() {
+    dispatcher.execute(this::drainSafely);
+  }
+
+  // Linhas PROCESSED e FAILED so servem para deduplicar retentativas do Mercado Pago, que param
+  // bem antes da retencao. Apaga em lotes para nao segurar lock nem gerar WAL demais de uma vez.
+  @Scheduled(cron = "${payment.webhook.inbox.purge-cron:0 55 3 * * *}")
+  public void purgeResolved() {
+    Instant cutoff = Instant.now().minus(retention);
+    int total = 0;
+    int removed;
+    do {
+      removed = inboxRepository.deleteResolvedBefore(cutoff, purgeBatchSize);
+      total += removed;
+    } while (removed == purgeBatchSize);
+    if (total > 0) {
+      log.info("Removidas {} notificacoes resolvidas de tb_payment_webhook_inbox", total);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    dispatcher.shutdown();
+    workers.shutdown();
+  }
+
+  private void drainSafely() {
+    try {
+      drain();
+    } catch (RuntimeException e) {
+      log.warn("Falha ao drenar inbox de webhooks: {}", e.getMessage());
+    }
+  }
+
+  int drain() {
+    Instant now = Instant.now();
+    int released = inboxRepository.releaseExpiredLocks(now);
+    if (released > 0) {
+      log.warn("{} notificacoes de webhook com lease vencido voltaram para a fila", released);
+    }
+
+    int processed = 0;
+    List<String> dataIds;
+    do {
+      dataIds = inboxRepository.findDueDataIds(Instant.now(), batchSize);
+      CompletableFuture.allOf(
+              dataIds.stream()
+                  .map(dataId -> CompletableFuture.runAsync(() -> process(dataId), workers))
+                  .toArray(CompletableFuture[]::new))
+          .join();
+      processed += dataIds.size();
+    } while (dataIds.size() == batchSize);
+    return processed;
+  }
+
+  void process(String dataId) {
+    Instant now = Instant.now();
+    if (inboxRepository.claim(dataId, now, now.plus(processingLease)) == 0) {
+      return;
+    }
+
+    try {
+      GatewayOrderResult result = paymentGateway.getOrderStatus(dataId);
+      paymentApplicationService.applyWebhookResult(result);
+      inboxRepository.markProcessed(dataId, Instant.now(), null);
+    } catch (PermanentPaymentGatewayException e) {
+      log.warn(
+          "Webhook descartado: gateway recusou data.id. dataId={}, message={}",
+          dataId,
+          e.getMessage());
+      inboxRepository.markProcessed(dataId, Instant.now(), truncate(e.getMessage()));
+    } catch (RuntimeException e) {
+      log.warn("Falha ao processar webhook. dataId={}, message={}", dataId, e.getMessage());
+      inboxRepository.reschedule(
+          dataId, Instant.now(), retryBase.toSeconds(), maxAttempts, truncate(e.getMessage()));
+    }
+  }
+
+  private static String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+
+  private static ThreadFactory namedThreads(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
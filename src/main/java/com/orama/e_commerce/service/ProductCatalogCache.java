@@ -0,0 +1,91 @@
+package com.orama.e_commerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.orama.e_commerce.config.CatalogCacheProperties;
+import com.orama.e_commerce.dtos.product.ProductCacheStatsDto;
+import com.orama.e_commerce.dtos.product.ProductResponseDto;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class ProductCatalogCache {
+
+  private final Cache<Long, ProductResponseDto> products;
+  private final Cache<Pageable, Page<ProductResponseDto>> activePages;
+
+  public ProductCatalogCache(CatalogCacheProperties properties) {
+    this.products =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getProductMaxSize())
+            .expireAfterWrite(properties.getTtl())
+            .recordStats()
+            .build();
+    this.activePages =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getPageMaxSize())
+            .expireAfterWrite(properties.getTtl())
+            .recordStats()
+            .build();
+  }
+
+  public ProductResponseDto getProduct(Long id, Function<Long, ProductResponseDto> loader) {
+    return products.get(id, loader);
+  }
+
+  public Page<ProductResponseDto> getActivePage(
+      Pageable pageable, Function<Pageable, Page<ProductResponseDto>> loader) {
+    return activePages.get(pageable, loader);
+  }
+
+  // Invalida na hora e de novo apos o commit, para que uma leitura concorrente feita antes do
+  // commit nao deixe o valor antigo de volta no cache.
+  public void evictProduct(Long id) {
+    runNowAndAfterCommit(
+        () -> {
+          if (id != null) {
+            products.invalidate(id);
+          }
+          activePages.invalidateAll();
+        });
+  }
+
+  public void evictActivePages() {
+    runNowAndAfterCommit(activePages::invalidateAll);
+  }
+
+  public List<ProductCacheStatsDto> stats() {
+    return List.of(
+        toStatsDto("products", products.estimatedSize(), products.stats()),
+        toStatsDto("active-pages", activePages.estimatedSize(), activePages.stats()));
+  }
+
+  private void runNowAndAfterCommit(Runnable eviction) {
+    eviction.run();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              eviction.run();
+            }
+          });
+    }
+  }
+
+  private ProductCacheStatsDto toStatsDto(String region, long size, CacheStats stats) {
+    return new ProductCacheStatsDto(
+        region,
+        size,
+        stats.hitCount(),
+        stats.missCount(),
+        stats.evictionCount(),
+        stats.hitRate());
+  }
+}
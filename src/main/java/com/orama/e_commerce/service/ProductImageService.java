@@ -2,14 +2,19 @@ package com.orama.e_commerce.service;
 
 import com.orama.e_commerce.dtos.product_image.ProductImageRequestDto;
 import com.orama.e_commerce.dtos.product_image.ProductImageResponseDto;
+import com.orama.e_commerce.enums.ImageVariantStatus;
 import com.orama.e_commerce.exceptions.BadRequestException;
 import com.orama.e_commerce.exceptions.product_image.ProductImageNotFoundException;
 import com.orama.e_commerce.mapper.ProductImageMapper;
+import com.orama.e_commerce.models.MediaLibrary;
 import com.orama.e_commerce.models.Product;
 import com.orama.e_commerce.models.ProductImage;
+import com.orama.e_commerce.repository.MediaLibraryRepository;
 import com.orama.e_commerce.repository.ProductImageRepository;
 import jakarta.transaction.Transactional;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,14 +26,20 @@ public class ProductImageService {
   private final ProductImageRepository productImageRepository;
   private final ProductService productService;
   private final ProductImageMapper productImageMapper;
+  private final ProductCatalogCache productCatalogCache;
+  private final MediaLibraryRepository mediaLibraryRepository;
 
   public ProductImageService(
       ProductImageRepository productImageRepository,
       ProductService productService,
-      ProductImageMapper productImageMapper) {
+      ProductImageMapper productImageMapper,
+      ProductCatalogCache productCatalogCache,
+      MediaLibraryRepository mediaLibraryRepository) {
     this.productImageRepository = productImageRepository;
     this.productService = productService;
     this.productImageMapper = productImageMapper;
+    this.productCatalogCache = productCatalogCache;
+    this.mediaLibraryRepository = mediaLibraryRepository;
   }
 
   public Page<ProductImageResponseDto> getImagesByProductId(Long productId, Pageable pageable) {
@@ -47,8 +58,10 @@ public class ProductImageService {
 
     ProductImage productImage = productImageMapper.toEntity(productImageRequestDto);
     productImage.setProduct(product);
+    copyReadyVariants(List.of(productImage));
 
     productImageRepository.save(productImage);
+    productCatalogCache.evictProduct(productId);
 
     return productImageMapper.toResponseDto(productImage);
   }
@@ -60,18 +73,28 @@ public class ProductImageService {
 
     Product product = productService.findById(productId);
 
-    return imageRequestDtos.stream()
-        .map(
-            requestDto -> {
-              ProductImage productImage = productImageMapper.toEntity(requestDto);
+    List<ProductImage> images =
+        imageRequestDtos.stream()
+            .map(
+                requestDto -> {
+                  ProductImage productImage = productImageMapper.toEntity(requestDto);
 
-              productImage.setProduct(product);
+                  productImage.setProduct(product);
 
-              ProductImage savedImage = productImageRepository.save(productImage);
+                  return productImage;
+                })
+            .collect(Collectors.toList());
+    copyReadyVariants(images);
 
-              return productImageMapper.toResponseDto(savedImage);
-            })
-        .collect(Collectors.toList());
+    // saveAll deixa o Hibernate agrupar os INSERTs num unico batch JDBC
+    List<ProductImageResponseDto> responses =
+        productImageRepository.saveAll(images).stream()
+            .map(productImageMapper::toResponseDto)
+            .collect(Collectors.toList());
+
+    productCatalogCache.evictProduct(productId);
+
+    return responses;
   }
 
   @Transactional
@@ -85,6 +108,26 @@ public class ProductImageService {
     // deletar o arquivo fisico do armazenamento externo: storageService.delete(image.getUrl());
 
     productImageRepository.delete(image);
+    productCatalogCache.evictProduct(productId);
+  }
+
+  // Imagem vinda da biblioteca ja com variantes prontas herda o srcset na hora; se ainda estiverem
+  // sendo geradas, o MediaLibraryService.applyVariants copia quando terminar.
+  private void copyReadyVariants(List<ProductImage> images) {
+    Map<String, MediaLibrary> mediaByUrl =
+        mediaLibraryRepository
+            .findAllByUrlIn(images.stream().map(ProductImage::getUrl).toList())
+            .stream()
+            .filter(media -> media.getVariantStatus() == ImageVariantStatus.READY)
+            .collect(Collectors.toMap(MediaLibrary::getUrl, Function.identity(), (a, b) -> a));
+    for (ProductImage image : images) {
+      MediaLibrary media = mediaByUrl.get(image.getUrl());
+      if (media != null) {
+        image.setVariantFormat(media.getVariantFormat());
+        image.setVariantWidths(media.getVariantWidths());
+        image.setVariantWebp(media.isVariantWebp());
+      }
+    }
   }
 
   private ProductImage findById(Long id) {
@@ -9,8 +9,11 @@ import com.orama.e_commerce.mapper.ProductMapper;
 import com.orama.e_commerce.models.Product;
 import com.orama.e_commerce.repository.ProductRepository;
 import jakarta.transaction.Transactional;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -19,24 +22,28 @@ public class ProductService {
 
   private final ProductRepository productRepository;
   private final ProductMapper productMapper;
+  private final ProductCatalogCache productCatalogCache;
 
-  public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+  public ProductService(
+      ProductRepository productRepository,
+      ProductMapper productMapper,
+      ProductCatalogCache productCatalogCache) {
     this.productRepository = productRepository;
     this.productMapper = productMapper;
+    this.productCatalogCache = productCatalogCache;
   }
 
   public ProductResponseDto getById(Long id) {
-    Product product = findById(id);
-
-    if (!product.getActive()) {
-      throw new ProductNotFoundException("Produto não encontrado ou inativo.");
-    }
-
-    return productMapper.toResponseDto(product);
+    return productCatalogCache.getProduct(id, this::loadActiveProduct);
   }
 
   public Page<ProductResponseDto> getAllActiveProducts(Pageable pageable) {
-    return productRepository.findByActiveTrue(pageable).map(productMapper::toResponseDto);
+    return productCatalogCache.getActivePage(
+        pageable, p -> productRepository.findByActiveTrue(p).map(productMapper::toResponseDto));
+  }
+
+  public List<ProductCacheStatsDto> getCacheStats() {
+    return productCatalogCache.stats();
   }
 
   public Page<ProductResponseDto> getAll(Pageable pageable) {
@@ -44,8 +51,18 @@ public class ProductService {
   }
 
   public Page<ProductResponseDto> getAllByName(String name, Pageable pageable) {
+    if (name == null || name.isBlank()) {
+      return getAllActiveProducts(pageable);
+    }
+
+    // A busca ja ordena por relevancia; um sort vindo da requisicao quebraria a query nativa.
+    Pageable unsorted =
+        pageable.isPaged()
+            ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+            : pageable;
+
     return productRepository
-        .findByNameContainingIgnoreCaseAndActiveTrue(name, pageable)
+        .searchActive(name.trim(), unsorted)
         .map(productMapper::toResponseDto);
   }
 
@@ -60,6 +77,7 @@ public class ProductService {
     product.setActive(true);
 
     productRepository.save(product);
+    productCatalogCache.evictActivePages();
 
     return productMapper.toResponseDto(product);
   }
@@ -72,6 +90,7 @@ public class ProductService {
     productMapper.updateDto(productUpdateRequestDto, product);
 
     Product updatedProduct = productRepository.save(product);
+    productCatalogCache.evictProduct(id);
 
     return productMapper.toResponseDto(updatedProduct);
   }
@@ -79,18 +98,18 @@ public class ProductService {
   // Muda a quantidade do produto no estoque: Adiciona (ex: 1) ou subtrai (ex: -1)
   @Transactional
   public ProductResponseDto stockAdjustment(Long id, ProductStockAdjustmentDto stockAdjustmentDto) {
-    Product product = findById(id);
-
-    int newStock = product.getStock() + stockAdjustmentDto.quantity();
-    if (newStock < 0) {
+    // UPDATE condicional, sem carregar a entidade antes, para nao sobrescrever reservas
+    // feitas entre a leitura e a escrita.
+    int updated = productRepository.adjustStock(id, stockAdjustmentDto.quantity(), Instant.now());
+    if (updated == 0) {
+      if (!productRepository.existsById(id)) {
+        throw new ProductNotFoundException("Produto não encontrado com id: " + id);
+      }
       throw new StockNegativeException("Ajuste de estoque resulta em estoque negativo.");
     }
+    productCatalogCache.evictProduct(id);
 
-    product.setStock(newStock);
-
-    productRepository.save(product);
-
-    return productMapper.toResponseDto(product);
+    return productMapper.toResponseDto(findById(id));
   }
 
   // Muda o valor total do estoque do produto para outro valor
@@ -103,6 +122,7 @@ public class ProductService {
     product.setStock(newStockValue);
 
     productRepository.save(product);
+    productCatalogCache.evictProduct(id);
 
     return productMapper.toResponseDto(product);
   }
@@ -117,6 +137,7 @@ public class ProductService {
 
     product.setActive(false);
     productRepository.save(product);
+    productCatalogCache.evictProduct(id);
   }
 
   @Transactional
@@ -129,6 +150,17 @@ public class ProductService {
 
     product.setActive(true);
     productRepository.save(product);
+    productCatalogCache.evictProduct(id);
+  }
+
+  private ProductResponseDto loadActiveProduct(Long id) {
+    Product product = findById(id);
+
+    if (!product.getActive()) {
+      throw new ProductNotFoundException("Produto não encontrado ou inativo.");
+    }
+
+    return productMapper.toResponseDto(product);
   }
 
   protected Product findById(Long id) {
@@ -1,71 +1,167 @@
 package com.orama.e_commerce.service;
 
 import com.orama.e_commerce.exceptions.StorageException;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.ContentStreamProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
+// Upload para o R2 sem copiar o arquivo para o heap: o corpo da requisicao e lido direto do
+// MultipartFile (em disco no Tomcat) e reaberto quando o SDK precisa reler. Acima de
+// multipart-threshold o arquivo vai em partes enviadas em paralelo, cada uma lendo so a sua
+// faixa. O CRC32 de cada parte e calculado pelo SDK sobre o proprio stream e conferido pelo R2.
 @Service
 public class R2StorageService {
 
-  @Value("${cloudflare.r2.account-id}")
-  private String accountId;
+  private static final Logger log = LoggerFactory.getLogger(R2StorageService.class);
 
-  @Value("${cloudflare.r2.access-key-id}")
-  private String accessKeyId;
+  // Minimo do S3/R2 para todas as partes menos a ultima.
+  private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+  private static final int SNIFF_LENGTH = 12;
+  private static final String FALLBACK_CONTENT_TYPE = "application/octet-stream";
+  private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
 
-  @Value("${cloudflare.r2.secret-access-key}")
-  private String secretAccessKey;
+  private final S3Client s3Client;
+  private final String bucketName;
+  private final String publicUrl;
+  private final long multipartThreshold;
+  private final long partSize;
+  private final int uploadConcurrency;
 
-  @Value("${cloudflare.r2.bucket-name}")
-  private String bucketName;
-
-  @Value("${cloudflare.r2.public-url}")
-  private String publicUrl;
-
-  private S3Client s3Client;
-
-  @PostConstruct
-  private void init() {
-    s3Client =
+  @Autowired
+  public R2StorageService(
+      @Value("${cloudflare.r2.account-id}") String accountId,
+      @Value("${cloudflare.r2.access-key-id}") String accessKeyId,
+      @Value("${cloudflare.r2.secret-access-key}") String secretAccessKey,
+      @Value("${cloudflare.r2.bucket-name}") String bucketName,
+      @Value("${cloudflare.r2.public-url}") String publicUrl,
+      @Value("${cloudflare.r2.multipart-threshold:8MB}") DataSize multipartThreshold,
+      @Value("${cloudflare.r2.part-size:5MB}") DataSize partSize,
+      @Value("${cloudflare.r2.upload-concurrency:4}") int uploadConcurrency) {
+    this(
         S3Client.builder()
             .endpointOverride(URI.create("https://" + accountId + ".r2.cloudflarestorage.com"))
             .credentialsProvider(
                 StaticCredentialsProvider.create(
                     AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
             .region(Region.of("auto"))
-            .build();
+            .build(),
+        bucketName,
+        publicUrl,
+        multipartThreshold.toBytes(),
+        partSize.toBytes(),
+        uploadConcurrency);
+  }
+
+  R2StorageService(
+      S3Client s3Client,
+      String bucketName,
+      String publicUrl,
+      long multipartThreshold,
+      long partSize,
+      int uploadConcurrency) {
+    this.s3Client = s3Client;
+    this.bucketName = bucketName;
+    this.publicUrl = publicUrl;
+    this.partSize = Math.max(partSize, MIN_PART_SIZE);
+    this.multipartThreshold = Math.max(multipartThreshold, this.partSize);
+    this.uploadConcurrency = Math.max(1, uploadConcurrency);
   }
 
+  @Timed("storage.r2")
   public String upload(MultipartFile file) {
     String filename = UUID.randomUUID() + getExtension(file.getOriginalFilename());
+    try {
+      long size = file.getSize();
+      String contentType = detectContentType(file);
+      if (size >= multipartThreshold) {
+        uploadMultipart(filename, file, size, contentType);
+      } else {
+        PutObjectRequest request =
+            PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(filename)
+                .contentType(contentType)
+                .contentLength(size)
+                .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                .build();
+        s3Client.putObject(request, body(file, 0, size, contentType));
+      }
+      return filename;
+    } catch (SdkException e) {
+      throw new StorageException("Falha ao fazer upload para o R2: " + e.getMessage());
+    } catch (Exception e) {
+      throw new StorageException("Falha ao processar o arquivo: " + e.getMessage());
+    }
+  }
+
+  @Timed("storage.r2")
+  public InputStream open(String filename) {
+    try {
+      GetObjectRequest request =
+          GetObjectRequest.builder().bucket(bucketName).key(filename).build();
+      return s3Client.getObject(request);
+    } catch (SdkException e) {
+      throw new StorageException("Falha ao ler objeto do R2: " + e.getMessage());
+    }
+  }
+
+  // Objetos pequenos gerados no servidor (ex.: variantes de imagem). A key e deterministica e o
+  // conteudo nao muda para a mesma key, entao pode ficar em cache indefinidamente.
+  @Timed("storage.r2")
+  public void put(String filename, byte[] content, String contentType) {
     try {
       PutObjectRequest request =
           PutObjectRequest.builder()
               .bucket(bucketName)
               .key(filename)
-              .contentType(file.getContentType())
+              .contentType(contentType)
+              .cacheControl(IMMUTABLE_CACHE_CONTROL)
+              .checksumAlgorithm(ChecksumAlgorithm.CRC32)
               .build();
-      s3Client.putObject(request, RequestBody.fromBytes(file.getBytes()));
-      return filename;
+      s3Client.putObject(request, RequestBody.fromBytes(content));
     } catch (SdkException e) {
       throw new StorageException("Falha ao fazer upload para o R2: " + e.getMessage());
-    } catch (Exception e) {
-      throw new StorageException("Falha ao processar o arquivo: " + e.getMessage());
     }
   }
 
+  @Timed("storage.r2")
   public void delete(String filename) {
     try {
       DeleteObjectRequest request =
@@ -80,8 +176,224 @@ public class R2StorageService {
     return publicUrl + "/" + filename;
   }
 
+  @PreDestroy
+  public void close() {
+    s3Client.close();
+  }
+
+  // Partes em virtual threads, no maximo upload-concurrency ao mesmo tempo. Qualquer falha aborta
+  // o upload para o R2 nao guardar partes orfas.
+  private void uploadMultipart(String key, MultipartFile file, long size, String contentType) {
+    String uploadId =
+        s3Client
+            .createMultipartUpload(
+                CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                    .build())
+            .uploadId();
+    int partCount = (int) ((size + partSize - 1) / partSize);
+    Semaphore permits = new Semaphore(uploadConcurrency);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<CompletableFuture<CompletedPart>> pending = new ArrayList<>(partCount);
+      for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+        long offset = (partNumber - 1) * partSize;
+        long length = Math.min(partSize, size - offset);
+        int number = partNumber;
+        pending.add(
+            CompletableFuture.supplyAsync(
+                () -> uploadPart(key, uploadId, number, file, offset, length, permits), executor));
+      }
+      List<CompletedPart> parts = new ArrayList<>(partCount);
+      for (CompletableFuture<CompletedPart> part : pending) {
+        parts.add(part.join());
+      }
+      s3Client.completeMultipartUpload(
+          CompleteMultipartUploadRequest.builder()
+              .bucket(bucketName)
+              .key(key)
+              .uploadId(uploadId)
+              .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+              .build());
+      log.info(
+          "Upload multipart para o R2 concluido. key={}, parts={}, bytes={}", key, partCount, size);
+    } catch (RuntimeException e) {
+      abort(key, uploadId);
+      if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private CompletedPart uploadPart(
+      String key,
+      String uploadId,
+      int partNumber,
+      MultipartFile file,
+      long offset,
+      long length,
+      Semaphore permits) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StorageException("Upload multipart interrompido na parte " + partNumber);
+    }
+    try {
+      UploadPartResponse response =
+          s3Client.uploadPart(
+              UploadPartRequest.builder()
+                  .bucket(bucketName)
+                  .key(key)
+                  .uploadId(uploadId)
+                  .partNumber(partNumber)
+                  .contentLength(length)
+                  .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                  .build(),
+              body(file, offset, length, FALLBACK_CONTENT_TYPE));
+      return CompletedPart.builder()
+          .partNumber(partNumber)
+          .eTag(response.eTag())
+          .checksumCRC32(response.checksumCRC32())
+          .build();
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void abort(String key, String uploadId) {
+    try {
+      s3Client.abortMultipartUpload(
+          AbortMultipartUploadRequest.builder()
+              .bucket(bucketName)
+              .key(key)
+              .uploadId(uploadId)
+              .build());
+    } catch (SdkException e) {
+      log.warn("Falha ao abortar upload multipart. key={}, uploadId={}", key, uploadId, e);
+    }
+  }
+
+  // Cada newStream() reabre o arquivo e pula ate offset: o SDK pode reler o corpo (assinatura,
+  // checksum, retentativa) sem que nada fique bufferizado em memoria.
+  private static RequestBody body(
+      MultipartFile file, long offset, long length, String contentType) {
+    ContentStreamProvider provider =
+        () -> {
+          try {
+            InputStream input = file.getInputStream();
+            input.skipNBytes(offset);
+            return new RangeInputStream(input, length);
+          } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler o arquivo enviado", e);
+          }
+        };
+    return RequestBody.fromContentProvider(provider, length, contentType);
+  }
+
+  // Tipo pelos primeiros bytes do arquivo; o Content-Type declarado pelo cliente so vale quando a
+  // assinatura nao e reconhecida.
+  static String detectContentType(MultipartFile file) throws IOException {
+    byte[] header;
+    try (InputStream input = file.getInputStream()) {
+      header = input.readNBytes(SNIFF_LENGTH);
+    }
+    String sniffed = sniff(header);
+    if (sniffed != null) {
+      return sniffed;
+    }
+    String declared = file.getContentType();
+    return declared == null || declared.isBlank() ? FALLBACK_CONTENT_TYPE : declared;
+  }
+
+  private static String sniff(byte[] header) {
+    if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+      return "image/png";
+    }
+    if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+      return "image/jpeg";
+    }
+    if (startsWith(header, 0, 'G', 'I', 'F', '8')) {
+      return "image/gif";
+    }
+    if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+      return "image/webp";
+    }
+    if (startsWith(header, 0, '%', 'P', 'D', 'F', '-')) {
+      return "application/pdf";
+    }
+    return null;
+  }
+
+  private static boolean startsWith(byte[] data, int offset, int... signature) {
+    if (data.length < offset + signature.length) {
+      return false;
+    }
+    for (int i = 0; i < signature.length; i++) {
+      if ((data[offset + i] & 0xFF) != signature[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private String getExtension(String originalFilename) {
     if (originalFilename == null || !originalFilename.contains(".")) return "";
     return originalFilename.substring(originalFilename.lastIndexOf("."));
   }
+
+  // Limita a leitura a uma faixa do arquivo (uma parte do multipart).
+  private static final class RangeInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    RangeInputStream(InputStream in, long length) {
+      super(in);
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int value = super.read();
+      if (value >= 0) {
+        remaining--;
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+      if (read > 0) {
+        remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(Math.min(n, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
 }
@@ -0,0 +1,115 @@
+package com.orama.e_commerce.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Copia em memoria de tb_revoked_tokens. O Bloom filter responde "com certeza nao revogado" sem
+// tocar no mapa nem no banco; so possiveis positivos seguem adiante.
+@Component
+public class RevokedTokenRegistry {
+
+  private final int expectedInsertions;
+  private final double falsePositiveRate;
+  private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+  private volatile BloomFilter bloomFilter;
+  private volatile boolean loaded;
+
+  public RevokedTokenRegistry(
+      @Value("${security.revocation.bloom-expected-insertions:100000}") int expectedInsertions,
+      @Value("${security.revocation.bloom-false-positive-rate:0.01}") double falsePositiveRate) {
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+    this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+  }
+
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  public boolean mightContain(String tokenHash) {
+    return bloomFilter.mightContain(tokenHash);
+  }
+
+  public boolean contains(String tokenHash, Instant now) {
+    Instant expiresAt = revoked.get(tokenHash);
+    return expiresAt != null && expiresAt.isAfter(now);
+  }
+
+  public int size() {
+    return revoked.size();
+  }
+
+  // Escritas sao raras; sincronizar evita perder um add durante a troca do filtro em rebuild().
+  public synchronized void add(String tokenHash, Instant expiresAt) {
+    revoked.merge(tokenHash, expiresAt, (a, b) -> a.isAfter(b) ? a : b);
+    bloomFilter.put(tokenHash);
+  }
+
+  public synchronized void replaceAll(Map<String, Instant> entries) {
+    revoked.clear();
+    revoked.putAll(entries);
+    rebuild();
+    loaded = true;
+  }
+
+  public synchronized void purgeExpired(Instant now) {
+    revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    rebuild();
+  }
+
+  private void rebuild() {
+    BloomFilter rebuilt =
+        new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2), falsePositiveRate);
+    revoked.keySet().forEach(rebuilt::put);
+    bloomFilter = rebuilt;
+  }
+
+  // Os hashes ja sao SHA-256 em hex, entao os dois primeiros blocos de 64 bits servem de base
+  // para o double hashing (Kirsch-Mitzenmacher).
+  static final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+      int n = Math.max(1, expectedInsertions);
+      long m =
+          (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+      this.bitCount = Math.max(64, m);
+      this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+      this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    void put(String tokenHash) {
+      long h1 = Long.parseUnsignedLong(tokenHash.substring(0, 16), 16);
+      long h2 = Long.parseUnsignedLong(tokenHash.substring(16, 32), 16);
+      for (int i = 0; i < hashFunctions; i++) {
+        long bit = Math.floorMod(h1 + i * h2, bitCount);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << (bit & 63);
+        long current;
+        do {
+          current = bits.get(word);
+        } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+      }
+    }
+
+    boolean mightContain(String tokenHash) {
+      long h1 = Long.parseUnsignedLong(tokenHash.substring(0, 16), 16);
+      long h2 = Long.parseUnsignedLong(tokenHash.substring(16, 32), 16);
+      for (int i = 0; i < hashFunctions; i++) {
+        long bit = Math.floorMod(h1 + i * h2, bitCount);
+        if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package com.orama.e_commerce.service;
+
+import java.math.BigDecimal;
+
+public record ShippingQuote(Long ruleId, String region, BigDecimal cost) {
+
+  public boolean freeShipping() {
+    return cost.signum() == 0;
+  }
+}
@@ -0,0 +1,87 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.repository.ShippingRateRuleRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Mantem a tabela de frete compilada em memoria. Alteracoes feitas pelo admin recompilam apos o
+// commit; o refresh agendado cobre as demais instancias.
+@Component
+public class ShippingRateEngine {
+
+  private static final Logger log = LoggerFactory.getLogger(ShippingRateEngine.class);
+
+  private final ShippingRateRuleRepository shippingRateRuleRepository;
+  private final BrazilianLocationIndex locationIndex;
+
+  // Lock em vez de synchronized: a primeira carga vai ao banco e, em thread virtual, synchronized
+  // prenderia o carrier durante o JDBC.
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private volatile ShippingRateTable table;
+
+  public ShippingRateEngine(
+      ShippingRateRuleRepository shippingRateRuleRepository,
+      BrazilianLocationIndex locationIndex) {
+    this.shippingRateRuleRepository = shippingRateRuleRepository;
+    this.locationIndex = locationIndex;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${shipping.rates.refresh-cron:0 */5 * * * *}")
+  public void reload() {
+    ShippingRateTable compiled =
+        ShippingRateTable.compile(shippingRateRuleRepository.findAllByActiveTrue());
+    table = compiled;
+    log.debug("Tabela de frete recompilada com {} regras ativas", compiled.ruleCount());
+  }
+
+  // Dentro de transacao, so recompila depois do commit para nao publicar regra que pode voltar.
+  public void reloadAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      reload();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            reload();
+          }
+        });
+  }
+
+  // cleanZip: CEP com 8 digitos, sem mascara.
+  public ShippingQuote quote(String cleanZip, BigDecimal orderValue) {
+    String stateUf = locationIndex.findStateUf(cleanZip).orElse(null);
+    return currentTable()
+        .quote(cleanZip, stateUf, orderValue, Instant.now())
+        .orElseThrow(() -> new BadRequestException("Não há frete disponível para este CEP."));
+  }
+
+  private ShippingRateTable currentTable() {
+    ShippingRateTable current = table;
+    if (current == null) {
+      loadLock.lock();
+      try {
+        if (table == null) {
+          reload();
+        }
+        current = table;
+      } finally {
+        loadLock.unlock();
+      }
+    }
+    return current;
+  }
+}
@@ -0,0 +1,93 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleRequestDto;
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleResponseDto;
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.exceptions.shipping.ShippingRateRuleNotFoundException;
+import com.orama.e_commerce.mapper.ShippingRateRuleMapper;
+import com.orama.e_commerce.models.ShippingRateRule;
+import com.orama.e_commerce.repository.ShippingRateRuleRepository;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ShippingRateRuleService {
+
+  private final ShippingRateRuleRepository shippingRateRuleRepository;
+  private final ShippingRateRuleMapper shippingRateRuleMapper;
+  private final ShippingRateEngine shippingRateEngine;
+
+  public ShippingRateRuleService(
+      ShippingRateRuleRepository shippingRateRuleRepository,
+      ShippingRateRuleMapper shippingRateRuleMapper,
+      ShippingRateEngine shippingRateEngine) {
+    this.shippingRateRuleRepository = shippingRateRuleRepository;
+    this.shippingRateRuleMapper = shippingRateRuleMapper;
+    this.shippingRateEngine = shippingRateEngine;
+  }
+
+  public List<ShippingRateRuleResponseDto> getAll() {
+    return shippingRateRuleRepository.findAllByOrderByPriorityAscIdAsc().stream()
+        .map(shippingRateRuleMapper::toResponseDto)
+        .toList();
+  }
+
+  @Transactional
+  public ShippingRateRuleResponseDto create(ShippingRateRuleRequestDto dto) {
+    ShippingRateRule rule = new ShippingRateRule();
+    apply(dto, rule);
+    ShippingRateRule saved = shippingRateRuleRepository.save(rule);
+    shippingRateEngine.reloadAfterCommit();
+    return shippingRateRuleMapper.toResponseDto(saved);
+  }
+
+  @Transactional
+  public ShippingRateRuleResponseDto update(Long id, ShippingRateRuleRequestDto dto) {
+    ShippingRateRule rule = findRule(id);
+    apply(dto, rule);
+    ShippingRateRule saved = shippingRateRuleRepository.save(rule);
+    shippingRateEngine.reloadAfterCommit();
+    return shippingRateRuleMapper.toResponseDto(saved);
+  }
+
+  @Transactional
+  public void delete(Long id) {
+    shippingRateRuleRepository.delete(findRule(id));
+    shippingRateEngine.reloadAfterCommit();
+  }
+
+  private ShippingRateRule findRule(Long id) {
+    return shippingRateRuleRepository
+        .findById(id)
+        .orElseThrow(
+            () ->
+                new ShippingRateRuleNotFoundException(
+                    "Regra de frete não encontrada com id: " + id));
+  }
+
+  private void apply(ShippingRateRuleRequestDto dto, ShippingRateRule rule) {
+    if ((dto.cepStart() == null) != (dto.cepEnd() == null)) {
+      throw new BadRequestException("Informe o CEP inicial e o final da faixa.");
+    }
+    if (dto.startsAt() != null && dto.endsAt() != null && !dto.startsAt().isBefore(dto.endsAt())) {
+      throw new BadRequestException("O início da vigência deve ser anterior ao fim.");
+    }
+
+    shippingRateRuleMapper.updateEntity(dto, rule);
+    if (dto.cepStart() != null) {
+      String cepStart = CepResolver.normalize(dto.cepStart());
+      String cepEnd = CepResolver.normalize(dto.cepEnd());
+      if (cepStart.compareTo(cepEnd) > 0) {
+        throw new BadRequestException("O CEP inicial deve ser menor ou igual ao final.");
+      }
+      rule.setCepStart(cepStart);
+      rule.setCepEnd(cepEnd);
+    }
+    if (dto.stateUf() != null) {
+      rule.setStateUf(dto.stateUf().toUpperCase(Locale.ROOT));
+    }
+    rule.setActive(dto.active() == null || dto.active());
+  }
+}
@@ -0,0 +1,176 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.models.ShippingRateRule;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+// Tabela de frete compilada e imutavel. As faixas de CEP viram intervalos elementares
+// (pontos de corte ordenados), cada um com as regras que o cobrem ja em ordem de prioridade;
+// regras sem faixa ficam em listas por UF e globais. A consulta e um binary search mais
+// varreduras curtas, sem I/O.
+final class ShippingRateTable {
+
+  private record CompiledRule(
+      int rank,
+      Long id,
+      String region,
+      String stateUf,
+      BigDecimal cost,
+      BigDecimal minOrderValue,
+      Instant startsAt,
+      Instant endsAt) {
+
+    boolean matches(String destinationUf, BigDecimal orderValue, Instant now) {
+      if (stateUf != null && !stateUf.equals(destinationUf)) {
+        return false;
+      }
+      if (minOrderValue != null
+          && (orderValue == null || orderValue.compareTo(minOrderValue) < 0)) {
+        return false;
+      }
+      if (startsAt != null && now.isBefore(startsAt)) {
+        return false;
+      }
+      return endsAt == null || now.isBefore(endsAt);
+    }
+  }
+
+  private static final CompiledRule[] NONE = new CompiledRule[0];
+
+  private final int[] segmentStarts;
+  private final CompiledRule[][] segmentRules;
+  private final Map<String, CompiledRule[]> stateRules;
+  private final CompiledRule[] globalRules;
+  private final int ruleCount;
+
+  private ShippingRateTable(
+      int[] segmentStarts,
+      CompiledRule[][] segmentRules,
+      Map<String, CompiledRule[]> stateRules,
+      CompiledRule[] globalRules,
+      int ruleCount) {
+    this.segmentStarts = segmentStarts;
+    this.segmentRules = segmentRules;
+    this.stateRules = stateRules;
+    this.globalRules = globalRules;
+    this.ruleCount = ruleCount;
+  }
+
+  static ShippingRateTable compile(List<ShippingRateRule> rules) {
+    List<ShippingRateRule> ordered = new ArrayList<>(rules);
+    ordered.sort(
+        Comparator.comparing(ShippingRateRule::getPriority)
+            .thenComparing(
+                ShippingRateRule::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+    List<int[]> ranges = new ArrayList<>();
+    List<CompiledRule> rangeRules = new ArrayList<>();
+    Map<String, List<CompiledRule>> byState = new HashMap<>();
+    List<CompiledRule> global = new ArrayList<>();
+    TreeSet<Integer> cuts = new TreeSet<>();
+
+    for (int rank = 0; rank < ordered.size(); rank++) {
+      ShippingRateRule rule = ordered.get(rank);
+      String stateUf =
+          rule.getStateUf() == null ? null : rule.getStateUf().toUpperCase(Locale.ROOT);
+      CompiledRule compiled =
+          new CompiledRule(
+              rank,
+              rule.getId(),
+              rule.getRegion(),
+              stateUf,
+              rule.getCost(),
+              rule.getMinOrderValue(),
+              rule.getStartsAt(),
+              rule.getEndsAt());
+
+      if (rule.getCepStart() != null) {
+        int start = Integer.parseInt(rule.getCepStart());
+        int end = Integer.parseInt(rule.getCepEnd());
+        ranges.add(new int[] {start, end});
+        rangeRules.add(compiled);
+        cuts.add(start);
+        cuts.add(end + 1);
+      } else if (stateUf != null) {
+        byState.computeIfAbsent(stateUf, uf -> new ArrayList<>()).add(compiled);
+      } else {
+        global.add(compiled);
+      }
+    }
+
+    int[] starts = cuts.stream().mapToInt(Integer::intValue).toArray();
+    CompiledRule[][] segments = new CompiledRule[starts.length][];
+    for (int i = 0; i < starts.length; i++) {
+      int point = starts[i];
+      List<CompiledRule> covering = new ArrayList<>();
+      for (int r = 0; r < rangeRules.size(); r++) {
+        int[] range = ranges.get(r);
+        if (range[0] <= point && point <= range[1]) {
+          covering.add(rangeRules.get(r));
+        }
+      }
+      segments[i] = covering.isEmpty() ? NONE : covering.toArray(CompiledRule[]::new);
+    }
+
+    Map<String, CompiledRule[]> stateRules = new HashMap<>();
+    byState.forEach((uf, list) -> stateRules.put(uf, list.toArray(CompiledRule[]::new)));
+
+    return new ShippingRateTable(
+        starts, segments, stateRules, global.toArray(CompiledRule[]::new), ordered.size());
+  }
+
+  // cleanZip: CEP com 8 digitos; stateUf pode ser nulo quando o CEP nao cai em nenhuma faixa.
+  Optional<ShippingQuote> quote(
+      String cleanZip, String stateUf, BigDecimal orderValue, Instant now) {
+    CompiledRule[] segment = segmentFor(Integer.parseInt(cleanZip));
+    CompiledRule best = firstMatch(segment, stateUf, orderValue, now, null);
+    if (stateUf != null) {
+      CompiledRule[] byState = stateRules.getOrDefault(stateUf, NONE);
+      best = firstMatch(byState, stateUf, orderValue, now, best);
+    }
+    best = firstMatch(globalRules, stateUf, orderValue, now, best);
+    return best == null
+        ? Optional.empty()
+        : Optional.of(new ShippingQuote(best.id(), best.region(), best.cost()));
+  }
+
+  int ruleCount() {
+    return ruleCount;
+  }
+
+  private CompiledRule[] segmentFor(int cep) {
+    int index = Arrays.binarySearch(segmentStarts, cep);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    return index < 0 ? NONE : segmentRules[index];
+  }
+
+  // Cada lista ja esta em ordem de rank, entao basta o primeiro que casar e que seja melhor
+  // que o atual.
+  private static CompiledRule firstMatch(
+      CompiledRule[] candidates,
+      String stateUf,
+      BigDecimal orderValue,
+      Instant now,
+      CompiledRule current) {
+    for (CompiledRule candidate : candidates) {
+      if (current != null && candidate.rank() > current.rank()) {
+        return current;
+      }
+      if (candidate.matches(stateUf, orderValue, now)) {
+        return candidate;
+      }
+    }
+    return current;
+  }
+}
@@ -0,0 +1,37 @@
+package com.orama.e_commerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StockReservationExpiryJob {
+
+  private static final Logger log = LoggerFactory.getLogger(StockReservationExpiryJob.class);
+
+  private final StockReservationService stockReservationService;
+  private final int batchSize;
+
+  public StockReservationExpiryJob(
+      StockReservationService stockReservationService,
+      @Value("${stock.reservation.expiry-batch-size:200}") int batchSize) {
+    this.stockReservationService = stockReservationService;
+    this.batchSize = batchSize;
+  }
+
+  @Scheduled(cron = "${stock.reservation.expiry-cron:0 * * * * *}")
+  public void releaseExpiredReservations() {
+    int total = 0;
+    int released;
+    do {
+      released = stockReservationService.releaseExpired(batchSize);
+      total += released;
+    } while (released == batchSize);
+
+    if (total > 0) {
+      log.info("Liberadas {} reservas de estoque expiradas", total);
+    }
+  }
+}
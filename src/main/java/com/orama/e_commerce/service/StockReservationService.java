@@ -0,0 +1,175 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.enums.OrderStatus;
+import com.orama.e_commerce.enums.StockReservationStatus;
+import com.orama.e_commerce.exceptions.product.InsufficientStockException;
+import com.orama.e_commerce.models.Order;
+import com.orama.e_commerce.models.OrderItem;
+import com.orama.e_commerce.models.Product;
+import com.orama.e_commerce.models.StockReservation;
+import com.orama.e_commerce.repository.ProductRepository;
+import com.orama.e_commerce.repository.StockReservationRepository;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+@Service
+public class StockReservationService {
+
+  private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+  // Pedidos com pagamento em andamento mantem a reserva ate o gateway responder; quem resolve
+  // esses casos e a reconciliacao de pagamentos.
+  private static final List<OrderStatus> EXPIRABLE_ORDER_STATUSES =
+      List.of(OrderStatus.PENDING, OrderStatus.CANCELLED);
+
+  private final StockReservationRepository stockReservationRepository;
+  private final ProductRepository productRepository;
+  private final ProductCatalogCache productCatalogCache;
+  private final Duration holdTtl;
+
+  public StockReservationService(
+      StockReservationRepository stockReservationRepository,
+      ProductRepository productRepository,
+      ProductCatalogCache productCatalogCache,
+      @Value("${stock.reservation.hold-ttl:30m}") Duration holdTtl) {
+    this.stockReservationRepository = stockReservationRepository;
+    this.productRepository = productRepository;
+    this.productCatalogCache = productCatalogCache;
+    this.holdTtl = holdTtl;
+  }
+
+  // Deve rodar dentro da transacao que cria o pedido, o mais tarde possivel: o lock de linha
+  // do UPDATE condicional dura so ate o commit.
+  @Transactional
+  public void hold(Order order) {
+    Instant now = Instant.now();
+    Instant expiresAt = now.plus(holdTtl);
+
+    // Ordena por id do produto para que pedidos concorrentes travem as linhas na mesma ordem.
+    Map<Long, Product> products = new TreeMap<>();
+    Map<Long, Integer> quantities = new TreeMap<>();
+    for (OrderItem item : order.getItems()) {
+      Long productId = item.getProduct().getId();
+      products.putIfAbsent(productId, item.getProduct());
+      quantities.merge(productId, item.getQuantity(), Integer::sum);
+    }
+
+    List<StockReservation> reservations = new ArrayList<>();
+    for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+      Long productId = entry.getKey();
+      int quantity = entry.getValue();
+      if (productRepository.decrementStockIfAvailable(productId, quantity, now) == 0) {
+        throw new InsufficientStockException(
+            "Estoque insuficiente para o produto id: " + productId);
+      }
+      reservations.add(new StockReservation(order, products.get(productId), quantity, expiresAt));
+    }
+
+    stockReservationRepository.saveAll(reservations);
+    quantities.keySet().forEach(productCatalogCache::evictProduct);
+  }
+
+  @Transactional
+  public void commit(Long orderId) {
+    Instant now = Instant.now();
+    for (StockReservation reservation :
+        stockReservationRepository.findByOrderIdWithProduct(orderId)) {
+      if (reservation.getStatus() == StockReservationStatus.HELD) {
+        stockReservationRepository.transition(
+            reservation.getId(),
+            StockReservationStatus.HELD,
+            StockReservationStatus.COMMITTED,
+            now);
+      } else if (reservation.getStatus() == StockReservationStatus.RELEASED
+          || reservation.getStatus() == StockReservationStatus.SHORTFALL) {
+        recommitReleased(reservation, now);
+      }
+    }
+  }
+
+  @Transactional
+  public void release(Long orderId) {
+    Instant now = Instant.now();
+    for (StockReservation reservation :
+        stockReservationRepository.findByOrderIdWithProduct(orderId)) {
+      if (reservation.getStatus() == StockReservationStatus.HELD) {
+        releaseHold(reservation, now);
+      }
+    }
+  }
+
+  @Transactional
+  public int releaseExpired(int batchSize) {
+    Instant now = Instant.now();
+    List<StockReservation> expired =
+        stockReservationRepository.findExpiredHolds(
+            now, EXPIRABLE_ORDER_STATUSES, PageRequest.of(0, batchSize));
+
+    int released = 0;
+    for (StockReservation reservation : expired) {
+      if (releaseHold(reservation, now)) {
+        released++;
+      }
+    }
+    return released;
+  }
+
+  private boolean releaseHold(StockReservation reservation, Instant now) {
+    int changed =
+        stockReservationRepository.transition(
+            reservation.getId(),
+            StockReservationStatus.HELD,
+            StockReservationStatus.RELEASED,
+            now);
+    if (changed == 0) {
+      return false;
+    }
+
+    Long productId = reservation.getProduct().getId();
+    productRepository.adjustStock(productId, reservation.getQuantity(), now);
+    productCatalogCache.evictProduct(productId);
+    return true;
+  }
+
+  // Pagamento aprovado depois que a reserva expirou: tenta pegar o estoque de novo. So vira
+  // COMMITTED com o estoque de fato baixado; sem estoque a reserva fica em SHORTFALL, que pode ser
+  // consultada e e tentada de novo se o evento de aprovacao chegar outra vez.
+  private void recommitReleased(StockReservation reservation, Instant now) {
+    StockReservationStatus from = reservation.getStatus();
+    Long productId = reservation.getProduct().getId();
+    int quantity = reservation.getQuantity();
+
+    if (productRepository.adjustStock(productId, -quantity, now) == 0) {
+      if (from == StockReservationStatus.RELEASED) {
+        stockReservationRepository.transition(
+            reservation.getId(), from, StockReservationStatus.SHORTFALL, now);
+      }
+      log.error(
+          "Pedido pago sem estoque disponivel; reserva em SHORTFALL. "
+              + "orderId={} productId={} quantity={}",
+          reservation.getOrder().getId(),
+          productId,
+          quantity);
+      return;
+    }
+
+    // Outro commit do mesmo pedido ganhou a transicao: devolve o que foi baixado aqui.
+    if (stockReservationRepository.transition(
+            reservation.getId(), from, StockReservationStatus.COMMITTED, now)
+        == 0) {
+      productRepository.adjustStock(productId, quantity, now);
+      return;
+    }
+    productCatalogCache.evictProduct(productId);
+  }
+}
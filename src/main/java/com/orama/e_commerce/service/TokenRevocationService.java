@@ -2,33 +2,76 @@ package com.orama.e_commerce.service;
 
 import com.orama.e_commerce.models.RevokedToken;
 import com.orama.e_commerce.repository.RevokedTokenRepository;
+import com.orama.e_commerce.security.AuthenticatedPrincipalCache;
 import com.orama.e_commerce.security.JwtService;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import com.orama.e_commerce.security.TokenHashes;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @EnableScheduling
 @Service
 public class TokenRevocationService {
 
+  private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
   private final RevokedTokenRepository revokedTokenRepository;
   private final JwtService jwtService;
+  private final AuthenticatedPrincipalCache authenticatedPrincipalCache;
+  private final RevokedTokenRegistry revokedTokenRegistry;
+  private final Duration syncOverlap;
+
+  private volatile Instant lastSync;
 
   public TokenRevocationService(
-      RevokedTokenRepository revokedTokenRepository, JwtService jwtService) {
+      RevokedTokenRepository revokedTokenRepository,
+      JwtService jwtService,
+      AuthenticatedPrincipalCache authenticatedPrincipalCache,
+      RevokedTokenRegistry revokedTokenRegistry,
+      @Value("${security.revocation.sync-overlap:1m}") Duration syncOverlap) {
     this.revokedTokenRepository = revokedTokenRepository;
     this.jwtService = jwtService;
+    this.authenticatedPrincipalCache = authenticatedPrincipalCache;
+    this.revokedTokenRegistry = revokedTokenRegistry;
+    this.syncOverlap = syncOverlap;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void loadRevokedTokens() {
+    Instant now = Instant.now();
+    Map<String, Instant> active =
+        revokedTokenRepository.findAllByExpiresAtAfter(now).stream()
+            .collect(
+                Collectors.toMap(
+                    RevokedToken::getTokenHash, RevokedToken::getExpiresAt, (a, b) -> a));
+    lastSync = now;
+    revokedTokenRegistry.replaceAll(active);
+    log.info("Carregados {} tokens revogados em memoria", active.size());
   }
 
   @Transactional
   public void revokeToken(String token) {
     String hash = hashToken(token);
+    Instant expiresAt = jwtService.extractExpiration(token).toInstant();
+    // Registro antes do cache: um request no meio do filtro que repovoar o cache depois daqui ja
+    // ve a revogacao. A segunda invalidacao apos o commit cobre quem passou pela checagem antes.
+    revokedTokenRegistry.add(hash, expiresAt);
+    authenticatedPrincipalCache.invalidate(hash);
+    invalidateAfterCommit(hash);
 
     if (revokedTokenRepository.existsByTokenHash(hash)) {
       return;
@@ -37,27 +80,73 @@ public class TokenRevocationService {
     RevokedToken revokedToken = new RevokedToken();
     revokedToken.setTokenHash(hash);
     revokedToken.setRevokedAt(Instant.now());
-    revokedToken.setExpiresAt(jwtService.extractExpiration(token).toInstant());
+    revokedToken.setExpiresAt(expiresAt);
     revokedTokenRepository.save(revokedToken);
   }
 
   public boolean isTokenRevoked(String token) {
-    return revokedTokenRepository.existsByTokenHash(hashToken(token));
+    return isTokenHashRevoked(hashToken(token));
+  }
+
+  // Antes da carga inicial vale o banco. Depois, negativo do Bloom encerra a consulta; so
+  // possiveis positivos que nao estao no mapa (falso positivo ou entrada expirada) vao ao banco.
+  public boolean isTokenHashRevoked(String tokenHash) {
+    if (!revokedTokenRegistry.isLoaded()) {
+      return revokedTokenRepository.existsByTokenHash(tokenHash);
+    }
+    if (!revokedTokenRegistry.mightContain(tokenHash)) {
+      return false;
+    }
+    if (revokedTokenRegistry.contains(tokenHash, Instant.now())) {
+      return true;
+    }
+    return revokedTokenRepository.existsByTokenHash(tokenHash);
+  }
+
+  // Traz revogacoes feitas por outras instancias. A sobreposicao cobre diferenca de relogio
+  // entre nos e commits que terminaram depois da ultima leitura.
+  @Transactional(readOnly = true)
+  @Scheduled(cron = "${security.revocation.sync-cron:*/30 * * * * *}")
+  public void syncRevokedTokens() {
+    if (!revokedTokenRegistry.isLoaded()) {
+      return;
+    }
+
+    Instant now = Instant.now();
+    List<RevokedToken> recent =
+        revokedTokenRepository.findAllByRevokedAtAfterAndExpiresAtAfter(
+            lastSync.minus(syncOverlap), now);
+    for (RevokedToken revokedToken : recent) {
+      if (!revokedTokenRegistry.contains(revokedToken.getTokenHash(), now)) {
+        revokedTokenRegistry.add(revokedToken.getTokenHash(), revokedToken.getExpiresAt());
+        authenticatedPrincipalCache.invalidate(revokedToken.getTokenHash());
+      }
+    }
+    lastSync = now;
   }
 
   @Transactional
   @Scheduled(cron = "0 0 3 * * *")
   public void purgeExpiredTokens() {
-    revokedTokenRepository.deleteAllByExpiresAtBefore(Instant.now());
+    Instant now = Instant.now();
+    revokedTokenRepository.deleteAllByExpiresAtBefore(now);
+    revokedTokenRegistry.purgeExpired(now);
   }
 
-  private String hashToken(String token) {
-    try {
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-      return HexFormat.of().formatHex(hash);
-    } catch (NoSuchAlgorithmException e) {
-      throw new IllegalStateException("SHA-256 não disponível.", e);
+  private void invalidateAfterCommit(String hash) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
     }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            authenticatedPrincipalCache.invalidate(hash);
+          }
+        });
+  }
+
+  private String hashToken(String token) {
+    return TokenHashes.sha256Hex(token);
   }
 }
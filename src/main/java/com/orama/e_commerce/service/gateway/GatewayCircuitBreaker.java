@@ -0,0 +1,129 @@
+package com.orama.e_commerce.service.gateway;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Janela deslizante das ultimas N chamadas; chamada lenta conta como falha (o limite e por
+// operacao e quem chama decide). Aberto, recusa tudo ate openDuration passar; meio-aberto, deixa
+// passar halfOpenProbes sondas: todas com sucesso fecham o circuito, qualquer falha reabre.
+final class GatewayCircuitBreaker {
+
+  private static final Logger log = LoggerFactory.getLogger(GatewayCircuitBreaker.class);
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final boolean[] window;
+  private final int minimumCalls;
+  private final int failureRateThreshold;
+  private final long openNanos;
+  private final int halfOpenProbes;
+  private final LongSupplier nanoClock;
+
+  private State state = State.CLOSED;
+  private int windowIndex;
+  private int windowCount;
+  private int windowFailures;
+  private long openedAt;
+  private int probesInFlight;
+  private int probeSuccesses;
+
+  GatewayCircuitBreaker(
+      int windowSize,
+      int minimumCalls,
+      int failureRateThreshold,
+      Duration openDuration,
+      int halfOpenProbes,
+      LongSupplier nanoClock) {
+    this.window = new boolean[Math.max(1, windowSize)];
+    this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+    this.failureRateThreshold = failureRateThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    this.nanoClock = nanoClock;
+  }
+
+  synchronized State state() {
+    return state;
+  }
+
+  synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN) {
+      if (nanoClock.getAsLong() - openedAt < openNanos) {
+        return false;
+      }
+      transitionTo(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+        return false;
+      }
+      probesInFlight++;
+    }
+    return true;
+  }
+
+  // Permissao obtida mas a chamada nem saiu (ex.: bulkhead cheio).
+  synchronized void releasePermission() {
+    if (state == State.HALF_OPEN && probesInFlight > 0) {
+      probesInFlight--;
+    }
+  }
+
+  synchronized void onSuccess(boolean slow) {
+    record(slow);
+  }
+
+  synchronized void onFailure() {
+    record(true);
+  }
+
+  private void record(boolean failed) {
+    if (state == State.HALF_OPEN) {
+      probesInFlight = Math.max(0, probesInFlight - 1);
+      if (failed) {
+        transitionTo(State.OPEN);
+      } else if (++probeSuccesses >= halfOpenProbes) {
+        transitionTo(State.CLOSED);
+      }
+      return;
+    }
+    if (state == State.OPEN) {
+      return;
+    }
+
+    if (windowCount == window.length && window[windowIndex]) {
+      windowFailures--;
+    }
+    window[windowIndex] = failed;
+    if (failed) {
+      windowFailures++;
+    }
+    windowIndex = (windowIndex + 1) % window.length;
+    windowCount = Math.min(windowCount + 1, window.length);
+
+    if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+      transitionTo(State.OPEN);
+    }
+  }
+
+  private void transitionTo(State next) {
+    log.warn("Circuito do gateway de pagamento: {} -> {}", state, next);
+    state = next;
+    probesInFlight = 0;
+    probeSuccesses = 0;
+    if (next == State.OPEN) {
+      openedAt = nanoClock.getAsLong();
+    }
+    if (next == State.CLOSED) {
+      windowIndex = 0;
+      windowCount = 0;
+      windowFailures = 0;
+    }
+  }
+}
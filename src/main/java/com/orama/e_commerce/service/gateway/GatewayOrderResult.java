@@ -1,4 +1,14 @@
 package com.orama.e_commerce.service.gateway;
 
 public record GatewayOrderResult(
-    String providerOrderId, String status, String statusDetail, String paymentMethodId) {}
+    String providerOrderId,
+    String status,
+    String statusDetail,
+    String paymentMethodId,
+    String externalReference) {
+
+  public GatewayOrderResult(
+      String providerOrderId, String status, String statusDetail, String paymentMethodId) {
+    this(providerOrderId, status, statusDetail, paymentMethodId, null);
+  }
+}
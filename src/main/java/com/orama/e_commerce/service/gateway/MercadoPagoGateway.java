@@ -24,6 +24,7 @@ import com.orama.e_commerce.config.CustomOrderClient;
 import com.orama.e_commerce.exceptions.payment.PaymentGatewayException;
 import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
 import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
+import io.micrometer.core.annotation.Timed;
 import java.time.Instant;
 import java.util.List;
 import java.util.Locale;
@@ -33,6 +34,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+// Timer por metodo (tag method): e o tempo da chamada ao Mercado Pago em si, sem a espera de
+// bulkhead e o timeout do ResilientPaymentGateway.
+@Timed("payment.gateway")
 @Component
 public class MercadoPagoGateway implements PaymentGateway {
 
@@ -317,7 +321,8 @@ public class MercadoPagoGateway implements PaymentGateway {
       }
     }
 
-    return new GatewayOrderResult(mpOrder.getId(), status, statusDetail, paymentMethodId);
+    return new GatewayOrderResult(
+        mpOrder.getId(), status, statusDetail, paymentMethodId, mpOrder.getExternalReference());
   }
 
   private PaymentGatewayException classifyMpApiException(MPApiException e, String operation) {
@@ -0,0 +1,221 @@
+package com.orama.e_commerce.service.gateway;
+
+import com.orama.e_commerce.config.PaymentGatewayResilienceProperties;
+import com.orama.e_commerce.exceptions.payment.PaymentGatewayUnavailableException;
+import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
+import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+// Decora o PaymentGateway real com timeout por operacao, bulkhead e circuit breaker, para que um
+// incidente no Mercado Pago derrube so os pagamentos e nao o pool do Tomcat. A chamada roda numa
+// virtual thread; se o timeout vencer, quem chamou recebe erro transiente, mas a permissao do
+// bulkhead so volta quando a chamada ao SDK termina de fato.
+@Component
+@Primary
+public class ResilientPaymentGateway implements PaymentGateway {
+
+  private static final Logger log = LoggerFactory.getLogger(ResilientPaymentGateway.class);
+
+  public record Metrics(
+      String circuitState,
+      long successful,
+      long failed,
+      long timedOut,
+      long rejected,
+      long shortCircuited,
+      int inFlight) {}
+
+  private final PaymentGateway delegate;
+  private final PaymentGatewayResilienceProperties properties;
+  private final GatewayCircuitBreaker circuitBreaker;
+  private final Semaphore bulkhead;
+  private final LongSupplier nanoClock;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final LongAdder successful = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder shortCircuited = new LongAdder();
+
+  @Autowired
+  public ResilientPaymentGateway(
+      MercadoPagoGateway delegate, PaymentGatewayResilienceProperties properties) {
+    this(delegate, properties, System::nanoTime);
+  }
+
+  ResilientPaymentGateway(
+      PaymentGateway delegate,
+      PaymentGatewayResilienceProperties properties,
+      LongSupplier nanoClock) {
+    this.delegate = delegate;
+    this.properties = properties;
+    this.nanoClock = nanoClock;
+    this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+    this.circuitBreaker =
+        new GatewayCircuitBreaker(
+            properties.getSlidingWindowSize(),
+            properties.getMinimumCalls(),
+            properties.getFailureRateThreshold(),
+            properties.getOpenDuration(),
+            properties.getHalfOpenProbes(),
+            nanoClock);
+  }
+
+  // Criar tem limite de lentidao proprio: 3DS e antifraude deixam a criacao legitimamente mais
+  // lenta, e um pico so nela nao pode abrir o circuito para consultas e estornos.
+  @Override
+  public GatewayPaymentResult createPayment(CreatePaymentCommand command) {
+    return call(
+        "criar pagamento",
+        properties.getCreateTimeout(),
+        properties.getCreateSlowCallThreshold(),
+        () -> delegate.createPayment(command));
+  }
+
+  @Override
+  public GatewayOrderResult getOrderStatus(String providerOrderId) {
+    return call(
+        "consultar order",
+        properties.getQueryTimeout(),
+        properties.getSlowCallThreshold(),
+        () -> delegate.getOrderStatus(providerOrderId));
+  }
+
+  @Override
+  public GatewayOrderResult cancelOrder(String providerOrderId, String idempotencyKey) {
+    return call(
+        "cancelar order",
+        properties.getCancelTimeout(),
+        properties.getSlowCallThreshold(),
+        () -> delegate.cancelOrder(providerOrderId, idempotencyKey));
+  }
+
+  @Override
+  public GatewayOrderResult refundOrder(String providerOrderId, String idempotencyKey) {
+    return call(
+        "reembolsar order",
+        properties.getRefundTimeout(),
+        properties.getSlowCallThreshold(),
+        () -> delegate.refundOrder(providerOrderId, idempotencyKey));
+  }
+
+  public Metrics metrics() {
+    return new Metrics(
+        circuitBreaker.state().name(),
+        successful.sum(),
+        failed.sum(),
+        timedOut.sum(),
+        rejected.sum(),
+        shortCircuited.sum(),
+        properties.getMaxConcurrentCalls() - bulkhead.availablePermits());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T call(
+      String operation, Duration timeout, Duration slowCallThreshold, Supplier<T> gatewayCall) {
+    if (!circuitBreaker.tryAcquirePermission()) {
+      shortCircuited.increment();
+      throw new PaymentGatewayUnavailableException(
+          "Gateway de pagamento indisponivel (circuito aberto) ao " + operation);
+    }
+    if (!acquireBulkhead()) {
+      circuitBreaker.releasePermission();
+      rejected.increment();
+      throw new PaymentGatewayUnavailableException(
+          "Gateway de pagamento sobrecarregado: limite de chamadas simultaneas ao " + operation);
+    }
+
+    // Quem pegar o flag primeiro devolve a permissao: a tarefa ao terminar, ou o cancelamento
+    // se a tarefa ainda nem tinha comecado.
+    AtomicBoolean started = new AtomicBoolean();
+    long startedAt = nanoClock.getAsLong();
+    Future<T> future =
+        executor.submit(
+            () -> {
+              if (!started.compareAndSet(false, true)) {
+                return null;
+              }
+              try {
+                return gatewayCall.get();
+              } finally {
+                bulkhead.release();
+              }
+            });
+    try {
+      T result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      circuitBreaker.onSuccess(isSlow(startedAt, slowCallThreshold));
+      successful.increment();
+      return result;
+    } catch (TimeoutException e) {
+      abandon(future, started);
+      circuitBreaker.onFailure();
+      timedOut.increment();
+      log.warn("Timeout de {} ms ao {} no gateway de pagamento", timeout.toMillis(), operation);
+      throw new TransientPaymentGatewayException(
+          "Tempo esgotado ao " + operation + " no gateway de pagamento", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      // Erro de negocio (4xx) e resposta do gateway: ele esta de pe, nao conta para o circuito.
+      if (cause instanceof PermanentPaymentGatewayException permanent) {
+        circuitBreaker.onSuccess(isSlow(startedAt, slowCallThreshold));
+        throw permanent;
+      }
+      circuitBreaker.onFailure();
+      failed.increment();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new TransientPaymentGatewayException(
+          "Erro inesperado ao " + operation + " no gateway de pagamento", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abandon(future, started);
+      circuitBreaker.releasePermission();
+      throw new TransientPaymentGatewayException(
+          "Chamada ao gateway de pagamento interrompida ao " + operation, e);
+    }
+  }
+
+  private boolean isSlow(long startedAt, Duration slowCallThreshold) {
+    return nanoClock.getAsLong() - startedAt >= slowCallThreshold.toNanos();
+  }
+
+  private void abandon(Future<?> future, AtomicBoolean started) {
+    if (started.compareAndSet(false, true)) {
+      bulkhead.release();
+    }
+    future.cancel(true);
+  }
+
+  private boolean acquireBulkhead() {
+    try {
+      long maxWaitMillis = properties.getMaxWaitForPermit().toMillis();
+      return bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
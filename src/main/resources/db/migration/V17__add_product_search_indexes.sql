@@ -0,0 +1,19 @@
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- unaccent() e STABLE; o wrapper IMMUTABLE permite usa-lo em colunas geradas e indices.
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+ALTER TABLE tb_product
+    ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('portuguese', f_unaccent(coalesce(name, ''))), 'A') ||
+        setweight(to_tsvector('portuguese', f_unaccent(coalesce(description, ''))), 'B')
+    ) STORED;
+
+CREATE INDEX idx_product_search_vector
+    ON tb_product USING GIN (search_vector);
+
+CREATE INDEX idx_product_name_trgm
+    ON tb_product USING GIN (f_unaccent(lower(name)) gin_trgm_ops);
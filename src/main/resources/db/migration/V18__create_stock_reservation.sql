@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS tb_stock_reservation (
+    id          BIGSERIAL PRIMARY KEY,
+    order_id    BIGINT      NOT NULL REFERENCES tb_order(id),
+    product_id  BIGINT      NOT NULL REFERENCES tb_product(id),
+    quantity    INTEGER     NOT NULL CHECK (quantity > 0),
+    status      VARCHAR(20) NOT NULL,
+    expires_at  TIMESTAMP   NOT NULL,
+    created_at  TIMESTAMP   NOT NULL DEFAULT NOW(),
+    updated_at  TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_order_id
+    ON tb_stock_reservation (order_id);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_held_expires_at
+    ON tb_stock_reservation (expires_at)
+    WHERE status = 'HELD';
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS tb_cep_cache (
+    zip_code      VARCHAR(8)   PRIMARY KEY,
+    street        VARCHAR(255),
+    district      VARCHAR(255),
+    city_name     VARCHAR(120),
+    state_uf      VARCHAR(2),
+    ibge_code     VARCHAR(7),
+    fetched_at    TIMESTAMP    NOT NULL DEFAULT NOW(),
+    last_used_at  TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_cep_cache_last_used_at
+    ON tb_cep_cache (last_used_at);
@@ -0,0 +1,26 @@
+CREATE TABLE IF NOT EXISTS tb_shipping_rate_rule (
+    id               BIGSERIAL PRIMARY KEY,
+    name             VARCHAR(120)   NOT NULL,
+    region           VARCHAR(60)    NOT NULL,
+    cep_start        VARCHAR(8),
+    cep_end          VARCHAR(8),
+    state_uf         VARCHAR(2),
+    min_order_value  NUMERIC(15, 2),
+    cost             NUMERIC(15, 2) NOT NULL CHECK (cost >= 0),
+    priority         INTEGER        NOT NULL DEFAULT 0,
+    active           BOOLEAN        NOT NULL DEFAULT TRUE,
+    starts_at        TIMESTAMP,
+    ends_at          TIMESTAMP,
+    created_at       TIMESTAMP      NOT NULL DEFAULT NOW(),
+    updated_at       TIMESTAMP,
+    CONSTRAINT ck_shipping_rate_rule_cep_range
+        CHECK ((cep_start IS NULL AND cep_end IS NULL)
+            OR (cep_start IS NOT NULL AND cep_end IS NOT NULL AND cep_start <= cep_end))
+);
+
+-- Regra que estava fixa no ShippingService: CEP 40000-000 a 65999-999 gratis, resto R$ 60.
+INSERT INTO tb_shipping_rate_rule (name, region, cep_start, cep_end, cost, priority)
+VALUES ('Nordeste - frete gratis', 'Nordeste', '40000000', '65999999', 0.00, 100);
+
+INSERT INTO tb_shipping_rate_rule (name, region, cost, priority)
+VALUES ('Frete padrao', 'Demais regiões', 60.00, 1000);
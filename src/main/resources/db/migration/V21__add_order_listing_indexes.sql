@@ -0,0 +1,7 @@
+-- Listagem por keyset do cliente: WHERE client_id = ? AND id < ? ORDER BY id DESC.
+CREATE INDEX IF NOT EXISTS idx_order_client_id_id
+    ON tb_order (client_id, id DESC);
+
+-- Itens da pagina sao buscados por order_cart_id IN (...); a FK nao tinha indice.
+CREATE INDEX IF NOT EXISTS idx_order_item_order_cart_id
+    ON tb_order_item (order_cart_id);
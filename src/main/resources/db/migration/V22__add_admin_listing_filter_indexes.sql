@@ -0,0 +1,25 @@
+-- Listagem administrativa por keyset com filtros opcionais. Nos filtros de igualdade (status,
+-- cliente) o indice composto termina em id, entao "filtro AND id < ? ORDER BY id DESC LIMIT n"
+-- le o indice ja na ordem e para no LIMIT. Na faixa de datas, (order_date, id) so limita as
+-- linhas lidas a faixa: a ordem por id nao vem do indice, o Postgres ordena toda a faixa antes
+-- do LIMIT e o custo de cada pagina cresce com o tamanho do periodo.
+CREATE INDEX IF NOT EXISTS idx_order_status_id
+    ON tb_order (status_order, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_order_order_date_id
+    ON tb_order (order_date, id);
+
+-- Coberto pelo prefixo de idx_order_status_id.
+DROP INDEX IF EXISTS idx_order_status;
+
+CREATE INDEX IF NOT EXISTS idx_custom_order_status_id
+    ON tb_custom_order (status, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_custom_order_client_id_id
+    ON tb_custom_order (client_id, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_custom_order_created_at_id
+    ON tb_custom_order (created_at, id);
+
+DROP INDEX IF EXISTS idx_custom_order_status;
+DROP INDEX IF EXISTS idx_custom_order_client;
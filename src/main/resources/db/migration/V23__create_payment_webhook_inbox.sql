@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS tb_payment_webhook_inbox (
+    id               BIGSERIAL    PRIMARY KEY,
+    request_id       VARCHAR(100) NOT NULL,
+    data_id          VARCHAR(100) NOT NULL,
+    action           VARCHAR(50),
+    status           VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP    NOT NULL DEFAULT NOW(),
+    locked_until     TIMESTAMP,
+    last_error       VARCHAR(500),
+    received_at      TIMESTAMP    NOT NULL DEFAULT NOW(),
+    processed_at     TIMESTAMP,
+    CONSTRAINT uk_payment_webhook_inbox_request UNIQUE (request_id, data_id)
+);
+
+-- Fila de trabalho: so as linhas ainda nao resolvidas entram no indice.
+CREATE INDEX IF NOT EXISTS idx_payment_webhook_inbox_due
+    ON tb_payment_webhook_inbox (next_attempt_at, data_id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+CREATE INDEX IF NOT EXISTS idx_payment_webhook_inbox_data_id
+    ON tb_payment_webhook_inbox (data_id);
@@ -0,0 +1,9 @@
+ALTER TABLE tb_payment_attempt
+    ADD COLUMN IF NOT EXISTS reconcile_attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS next_reconcile_at TIMESTAMP;
+
+-- Varredura por keyset da reconciliacao: so tentativas ainda em aberto entram no indice.
+CREATE INDEX IF NOT EXISTS idx_payment_attempt_reconcile_scan
+    ON tb_payment_attempt (id)
+    WHERE status IN ('PENDING', 'AUTHORIZED', 'AWAITING_CHALLENGE')
+      AND provider_order_id IS NOT NULL;
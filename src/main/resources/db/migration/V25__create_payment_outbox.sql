@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS tb_payment_outbox (
+    id               BIGSERIAL    PRIMARY KEY,
+    event_type       VARCHAR(100) NOT NULL,
+    order_id         BIGINT       NOT NULL,
+    payload          TEXT         NOT NULL,
+    status           VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP    NOT NULL DEFAULT NOW(),
+    locked_until     TIMESTAMP,
+    last_error       VARCHAR(500),
+    created_at       TIMESTAMP    NOT NULL DEFAULT NOW(),
+    delivered_at     TIMESTAMP
+);
+
+-- Fila do dispatcher: so eventos ainda nao entregues entram no indice.
+CREATE INDEX IF NOT EXISTS idx_payment_outbox_due
+    ON tb_payment_outbox (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+CREATE INDEX IF NOT EXISTS idx_payment_outbox_delivered_at
+    ON tb_payment_outbox (delivered_at)
+    WHERE status = 'DELIVERED';
@@ -0,0 +1,13 @@
+-- Um node id (10 bits do Snowflake) por instancia da aplicacao, alugado com heartbeat.
+CREATE TABLE IF NOT EXISTS tb_id_node_lease (
+    node_id       SMALLINT     PRIMARY KEY,
+    instance_id   VARCHAR(100),
+    heartbeat_at  TIMESTAMP    NOT NULL
+);
+
+INSERT INTO tb_id_node_lease (node_id, instance_id, heartbeat_at)
+SELECT n, NULL, TIMESTAMP '1970-01-01 00:00:00'
+FROM generate_series(0, 1023) AS n
+ON CONFLICT (node_id) DO NOTHING;
+
+CREATE INDEX IF NOT EXISTS idx_id_node_lease_instance ON tb_id_node_lease (instance_id);
@@ -0,0 +1,7 @@
+-- Entidades criadas em lote reservam 50 ids por nextval (otimizador pooled do Hibernate), o que
+-- permite agrupar os INSERTs em batch. O INCREMENT precisa bater com o allocationSize mapeado.
+ALTER SEQUENCE tb_order_item_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tb_cart_item_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tb_payment_attempt_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tb_product_image_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tb_custom_order_logo_detail_id_seq INCREMENT BY 50;
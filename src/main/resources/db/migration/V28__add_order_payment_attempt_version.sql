@@ -0,0 +1,7 @@
+-- Controle otimista (@Version) de pedido e tentativa de pagamento: webhook, reconciliacao,
+-- sync do cliente e admin podem alterar a mesma linha ao mesmo tempo.
+ALTER TABLE tb_order
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE tb_payment_attempt
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,12 @@
+-- Estado do rate limit compartilhado entre instancias. UNLOGGED: perder os buckets num crash do
+-- Postgres so zera os limites, e evita WAL a cada requisicao.
+CREATE UNLOGGED TABLE IF NOT EXISTS tb_rate_limit_bucket (
+    bucket_key   VARCHAR(512)     PRIMARY KEY,
+    tokens       DOUBLE PRECISION NOT NULL,
+    allowed      BOOLEAN          NOT NULL,
+    refilled_at  TIMESTAMP        NOT NULL,
+    expires_at   TIMESTAMP        NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_bucket_expires_at
+    ON tb_rate_limit_bucket (expires_at);
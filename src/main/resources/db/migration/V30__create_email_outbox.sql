@@ -0,0 +1,29 @@
+CREATE TABLE IF NOT EXISTS tb_email_outbox (
+    id               BIGSERIAL    PRIMARY KEY,
+    template         VARCHAR(50)  NOT NULL,
+    recipient        VARCHAR(255) NOT NULL,
+    subject          VARCHAR(255) NOT NULL,
+    body             TEXT         NOT NULL,
+    status           VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP    NOT NULL DEFAULT NOW(),
+    expires_at       TIMESTAMP,
+    locked_until     TIMESTAMP,
+    last_error       VARCHAR(500),
+    created_at       TIMESTAMP    NOT NULL DEFAULT NOW(),
+    sent_at          TIMESTAMP
+);
+
+-- Fila do sender: so emails ainda nao enviados entram no indice.
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due
+    ON tb_email_outbox (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+-- Um novo pedido de redefinicao descarta o email pendente anterior do mesmo destinatario.
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending_recipient
+    ON tb_email_outbox (recipient, template)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_sent_at
+    ON tb_email_outbox (sent_at)
+    WHERE status = 'SENT';
@@ -0,0 +1,20 @@
+ALTER TABLE tb_media_library
+    ADD COLUMN IF NOT EXISTS variant_status VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    ADD COLUMN IF NOT EXISTS variant_format VARCHAR(10),
+    ADD COLUMN IF NOT EXISTS variant_widths VARCHAR(100);
+
+ALTER TABLE tb_product_image
+    ADD COLUMN IF NOT EXISTS variant_format VARCHAR(10),
+    ADD COLUMN IF NOT EXISTS variant_widths VARCHAR(100);
+
+-- Varredura das midias ainda sem variantes (uploads anteriores a esta versao e fila cheia).
+CREATE INDEX IF NOT EXISTS idx_media_library_variant_pending
+    ON tb_media_library (id)
+    WHERE variant_status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_media_library_url
+    ON tb_media_library (url);
+
+-- Variantes prontas sao copiadas para as imagens de produto que apontam para a mesma URL.
+CREATE INDEX IF NOT EXISTS idx_product_image_url
+    ON tb_product_image (image_url);
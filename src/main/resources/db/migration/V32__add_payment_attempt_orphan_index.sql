@@ -0,0 +1,6 @@
+-- Tentativas cuja criacao no gateway ficou sem resposta (timeout): continuam CREATED e sem
+-- provider_order_id ate a reconciliacao reenviar a criacao ou o webhook vincular a order.
+CREATE INDEX IF NOT EXISTS idx_payment_attempt_orphan_scan
+    ON tb_payment_attempt (id)
+    WHERE status = 'CREATED'
+      AND provider_order_id IS NULL;
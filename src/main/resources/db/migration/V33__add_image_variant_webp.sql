@@ -0,0 +1,9 @@
+ALTER TABLE tb_media_library
+    ADD COLUMN IF NOT EXISTS variant_webp BOOLEAN NOT NULL DEFAULT FALSE;
+
+ALTER TABLE tb_product_image
+    ADD COLUMN IF NOT EXISTS variant_webp BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Midias ja processadas voltam para a varredura para ganhar as variantes WebP. As colunas de
+-- JPEG/PNG continuam preenchidas, entao o srcset atual segue valendo ate o reprocessamento.
+UPDATE tb_media_library SET variant_status = 'PENDING' WHERE variant_status = 'READY';
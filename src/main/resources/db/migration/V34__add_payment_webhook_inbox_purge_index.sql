@@ -0,0 +1,4 @@
+-- Purga das notificacoes ja resolvidas (PROCESSED/FAILED) depois da retencao.
+CREATE INDEX IF NOT EXISTS idx_payment_webhook_inbox_resolved
+    ON tb_payment_webhook_inbox (received_at)
+    WHERE status IN ('PROCESSED', 'FAILED');
@@ -0,0 +1,87 @@
+package com.orama.e_commerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitedDataSourceTest {
+
+  private DataSource target;
+  private ConcurrencyLimitedDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    target = mock(DataSource.class);
+    when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    dataSource = new ConcurrencyLimitedDataSource(target, 2, Duration.ofMillis(50));
+  }
+
+  @Test
+  void closingConnectionReturnsPermit() throws SQLException {
+    Connection first = dataSource.getConnection();
+    dataSource.getConnection();
+    assertThat(dataSource.available()).isZero();
+
+    first.close();
+
+    assertThat(dataSource.available()).isEqualTo(1);
+  }
+
+  @Test
+  void doubleCloseReturnsPermitOnce() throws SQLException {
+    Connection connection = dataSource.getConnection();
+    Connection other = dataSource.getConnection();
+
+    connection.close();
+    connection.close();
+
+    assertThat(dataSource.available()).isEqualTo(1);
+    other.close();
+    assertThat(dataSource.available()).isEqualTo(2);
+  }
+
+  @Test
+  void waitsUpToTimeoutThenRejects() throws SQLException {
+    dataSource.getConnection();
+    dataSource.getConnection();
+
+    assertThatThrownBy(dataSource::getConnection)
+        .isInstanceOf(SQLTransientConnectionException.class);
+    assertThat(dataSource.rejectedCount()).isEqualTo(1);
+    verify(target, times(2)).getConnection();
+  }
+
+  @Test
+  void targetFailureReleasesPermit() throws SQLException {
+    when(target.getConnection()).thenThrow(new SQLException("pool fechado"));
+
+    assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class);
+
+    assertThat(dataSource.available()).isEqualTo(2);
+    assertThat(dataSource.rejectedCount()).isZero();
+  }
+
+  @Test
+  void delegatesCallsToUnderlyingConnection() throws SQLException {
+    Connection raw = mock(Connection.class);
+    when(target.getConnection()).thenReturn(raw);
+
+    Connection connection = dataSource.getConnection();
+    connection.setAutoCommit(false);
+    connection.close();
+
+    verify(raw).setAutoCommit(false);
+    verify(raw).close();
+  }
+}
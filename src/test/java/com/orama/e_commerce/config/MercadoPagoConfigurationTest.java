@@ -2,6 +2,7 @@ package com.orama.e_commerce.config;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -30,4 +31,36 @@ class MercadoPagoConfigurationTest {
         .isInstanceOf(IllegalStateException.class)
         .hasMessageContaining("MERCADOPAGO_WEBHOOK_SECRET");
   }
+
+  @Test
+  void shouldFailFastWhenCreateTimeoutIsShorterThanSdkTimeouts() {
+    MercadoPagoConfiguration configuration = new MercadoPagoConfiguration();
+    ReflectionTestUtils.setField(configuration, "accessToken", "TEST-access-token");
+    ReflectionTestUtils.setField(configuration, "webhookSecret", "webhook-secret");
+    ReflectionTestUtils.setField(configuration, "connectTimeout", Duration.ofSeconds(3));
+    ReflectionTestUtils.setField(configuration, "socketTimeout", Duration.ofSeconds(20));
+    ReflectionTestUtils.setField(configuration, "createTimeout", Duration.ofSeconds(15));
+    ReflectionTestUtils.setField(configuration, "cancelTimeout", Duration.ofSeconds(25));
+    ReflectionTestUtils.setField(configuration, "refundTimeout", Duration.ofSeconds(25));
+
+    assertThatThrownBy(configuration::init)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("create-timeout");
+  }
+
+  @Test
+  void shouldFailFastWhenRefundTimeoutIsShorterThanSdkTimeouts() {
+    MercadoPagoConfiguration configuration = new MercadoPagoConfiguration();
+    ReflectionTestUtils.setField(configuration, "accessToken", "TEST-access-token");
+    ReflectionTestUtils.setField(configuration, "webhookSecret", "webhook-secret");
+    ReflectionTestUtils.setField(configuration, "connectTimeout", Duration.ofSeconds(3));
+    ReflectionTestUtils.setField(configuration, "socketTimeout", Duration.ofSeconds(20));
+    ReflectionTestUtils.setField(configuration, "createTimeout", Duration.ofSeconds(25));
+    ReflectionTestUtils.setField(configuration, "cancelTimeout", Duration.ofSeconds(25));
+    ReflectionTestUtils.setField(configuration, "refundTimeout", Duration.ofSeconds(8));
+
+    assertThatThrownBy(configuration::init)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("refund-timeout");
+  }
 }
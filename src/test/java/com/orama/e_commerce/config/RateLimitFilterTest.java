@@ -2,6 +2,7 @@ package com.orama.e_commerce.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.ServletException;
 import java.io.IOException;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,8 @@ import org.springframework.mock.web.MockHttpServletResponse;
 
 class RateLimitFilterTest {
 
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
   @Test
   void wildcardEndpointLimitAppliesToPaymentOrderPath() throws ServletException, IOException {
     RateLimitProperties properties = new RateLimitProperties();
@@ -20,7 +23,7 @@ class RateLimitFilterTest {
     limit.setRequestsPerMinute(10);
     properties.getEndpoints().put("POST:/api/payments/orders/**", limit);
 
-    RateLimitFilter filter = new RateLimitFilter(properties);
+    RateLimitFilter filter = filter(properties);
 
     for (int i = 0; i < 10; i++) {
       MockHttpServletResponse response = execute(filter, "/api/payments/orders/" + i);
@@ -30,13 +33,14 @@ class RateLimitFilterTest {
     MockHttpServletResponse blockedResponse = execute(filter, "/api/payments/orders/999");
 
     assertThat(blockedResponse.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    assertThat(rejections("POST:/api/payments/orders/**")).isEqualTo(1.0);
   }
 
   @Test
   void xForwardedForIsIgnoredByDefaultToAvoidClientSpoofing() throws ServletException, IOException {
     RateLimitProperties properties = new RateLimitProperties();
     properties.setDefaultRequestsPerMinute(1);
-    RateLimitFilter filter = new RateLimitFilter(properties);
+    RateLimitFilter filter = filter(properties);
 
     MockHttpServletResponse firstResponse =
         execute(filter, "/api/payments/orders/1", "198.51.100.10");
@@ -53,7 +57,7 @@ class RateLimitFilterTest {
     RateLimitProperties properties = new RateLimitProperties();
     properties.setDefaultRequestsPerMinute(1);
     properties.setTrustXForwardedFor(true);
-    RateLimitFilter filter = new RateLimitFilter(properties);
+    RateLimitFilter filter = filter(properties);
 
     MockHttpServletResponse firstResponse =
         execute(filter, "/api/payments/orders/1", "198.51.100.10");
@@ -64,6 +68,44 @@ class RateLimitFilterTest {
     assertThat(secondClientResponse.getStatus()).isEqualTo(HttpStatus.OK.value());
   }
 
+  @Test
+  void defaultLimitIsSharedByAllIdsOfTheSameRoute() throws ServletException, IOException {
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setDefaultRequestsPerMinute(1);
+    RateLimitFilter filter = filter(properties);
+
+    MockHttpServletResponse firstResponse = execute(filter, "GET", "/api/products/1", null);
+    MockHttpServletResponse otherIdResponse = execute(filter, "GET", "/api/products/999999", null);
+    MockHttpServletResponse otherRouteResponse = execute(filter, "GET", "/api/carts/1", null);
+
+    assertThat(firstResponse.getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(otherIdResponse.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    assertThat(otherRouteResponse.getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(rejections("default")).isEqualTo(1.0);
+  }
+
+  @Test
+  void inMemoryStoreIsBoundedUnderManyDistinctKeys() {
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setMaxBuckets(100);
+    InMemoryRateLimitBucketStore store = new InMemoryRateLimitBucketStore(properties);
+
+    for (int i = 0; i < 10_000; i++) {
+      store.tryConsume("198.51.100." + i + ":GET:/", 60);
+    }
+
+    assertThat(store.size()).isLessThanOrEqualTo(100);
+  }
+
+  private RateLimitFilter filter(RateLimitProperties properties) {
+    return new RateLimitFilter(
+        properties, new InMemoryRateLimitBucketStore(properties), meterRegistry);
+  }
+
+  private double rejections(String rule) {
+    return meterRegistry.get("rate.limit.rejections").tag("rule", rule).counter().count();
+  }
+
   private MockHttpServletResponse execute(RateLimitFilter filter, String path)
       throws ServletException, IOException {
     return execute(filter, path, null);
@@ -71,7 +113,13 @@ class RateLimitFilterTest {
 
   private MockHttpServletResponse execute(RateLimitFilter filter, String path, String forwardedFor)
       throws ServletException, IOException {
-    MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+    return execute(filter, "POST", path, forwardedFor);
+  }
+
+  private MockHttpServletResponse execute(
+      RateLimitFilter filter, String method, String path, String forwardedFor)
+      throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
     request.setRemoteAddr("192.0.2.10");
     if (forwardedFor != null) {
       request.addHeader("X-Forwarded-For", forwardedFor);
@@ -0,0 +1,60 @@
+package com.orama.e_commerce.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Resolucao de regra que o RateLimitFilter faz em toda requisicao, com as mesmas regras do
+// application.yml: rota exata, rota com "/**" e rota sem regra (vira template com {id}).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitRuleMatcherBenchmark {
+
+  private RateLimitRuleMatcher matcher;
+
+  @Setup
+  public void setUp() {
+    Map<String, RateLimitProperties.EndpointLimit> endpoints = new LinkedHashMap<>();
+    endpoints.put("POST:/api/auth/login", limit(10));
+    endpoints.put("POST:/api/auth/register", limit(5));
+    endpoints.put("POST:/api/orders", limit(30));
+    endpoints.put("POST:/api/payments/orders/**", limit(10));
+    endpoints.put("POST:/api/auth/forgot-password", limit(3));
+    matcher = new RateLimitRuleMatcher(endpoints, 60);
+  }
+
+  @Benchmark
+  public RateLimitRuleMatcher.Rule exactRule() {
+    return matcher.match("POST", "/api/auth/login");
+  }
+
+  @Benchmark
+  public RateLimitRuleMatcher.Rule descendantRule() {
+    return matcher.match("POST", "/api/payments/orders/12345");
+  }
+
+  @Benchmark
+  public RateLimitRuleMatcher.Rule defaultTemplate() {
+    return matcher.match("GET", "/api/products/98765/images");
+  }
+
+  private static RateLimitProperties.EndpointLimit limit(int requestsPerMinute) {
+    RateLimitProperties.EndpointLimit limit = new RateLimitProperties.EndpointLimit();
+    limit.setRequestsPerMinute(requestsPerMinute);
+    return limit;
+  }
+}
@@ -0,0 +1,77 @@
+package com.orama.e_commerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RateLimitRuleMatcherTest {
+
+  private final RateLimitRuleMatcher matcher =
+      new RateLimitRuleMatcher(
+          endpoints(
+              "POST:/api/auth/login", 10,
+              "POST:/api/payments/orders/**", 20,
+              "POST:/api/payments/orders/{orderId}/refund", 5,
+              "GET:/api/**", 200,
+              "GET:/api/products/**", 100),
+          60);
+
+  @Test
+  void exactPatternMatches() {
+    assertThat(matcher.match("POST", "/api/auth/login").key()).isEqualTo("POST:/api/auth/login");
+    assertThat(matcher.match("POST", "/api/auth/login/").requestsPerMinute()).isEqualTo(10);
+  }
+
+  @Test
+  void templatedSegmentBeatsDoubleWildcard() {
+    assertThat(matcher.match("POST", "/api/payments/orders/42/refund").requestsPerMinute())
+        .isEqualTo(5);
+    assertThat(matcher.match("POST", "/api/payments/orders/42").requestsPerMinute())
+        .isEqualTo(20);
+  }
+
+  @Test
+  void deepestDoubleWildcardWins() {
+    assertThat(matcher.match("GET", "/api/products/7/images").key())
+        .isEqualTo("GET:/api/products/**");
+    assertThat(matcher.match("GET", "/api/carts/7").key()).isEqualTo("GET:/api/**");
+  }
+
+  @Test
+  void doubleWildcardDoesNotCoverItsOwnPrefix() {
+    RateLimitRuleMatcher.Rule rule = matcher.match("POST", "/api/payments/orders");
+
+    assertThat(rule.key()).isEqualTo("POST:/api/payments/orders");
+    assertThat(rule.requestsPerMinute()).isEqualTo(60);
+  }
+
+  @Test
+  void unmatchedPathIsTemplatedSoIdsShareOneKey() {
+    assertThat(matcher.match("DELETE", "/api/products/123/images/9").key())
+        .isEqualTo("DELETE:/api/products/{id}/images/{id}");
+    assertThat(matcher.match("GET", "/orders/number/ORD-0B7Q2M9K4T8ZX").key())
+        .isEqualTo("GET:/orders/number/{id}");
+    assertThat(matcher.match("PUT", "/" + "x".repeat(200)).key()).isEqualTo("PUT:/{id}");
+    assertThat(matcher.match("PUT", "/a/b/c/d/e/f/g/h/i/j").key())
+        .isEqualTo("PUT:/a/b/c/d/e/f/g/h/**");
+  }
+
+  @Test
+  void patternWithoutMethodIsRejected() {
+    assertThatThrownBy(() -> new RateLimitRuleMatcher(endpoints("/api/auth/login", 10), 60))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Map<String, RateLimitProperties.EndpointLimit> endpoints(Object... entries) {
+    Map<String, RateLimitProperties.EndpointLimit> endpoints = new LinkedHashMap<>();
+    for (int i = 0; i < entries.length; i += 2) {
+      RateLimitProperties.EndpointLimit limit = new RateLimitProperties.EndpointLimit();
+      limit.setRequestsPerMinute((Integer) entries[i + 1]);
+      endpoints.put((String) entries[i], limit);
+    }
+    return endpoints;
+  }
+}
@@ -22,11 +22,15 @@ import com.orama.e_commerce.exceptions.payment.OrderOwnershipException;
 import com.orama.e_commerce.exceptions.payment.PaymentAlreadyInProgressException;
 import com.orama.e_commerce.exceptions.payment.WebhookProcessingException;
 import com.orama.e_commerce.exceptions.payment.WebhookSignatureException;
+import com.orama.e_commerce.security.AuthenticatedPrincipalCache;
 import com.orama.e_commerce.security.JwtAuthenticationFilter;
 import com.orama.e_commerce.security.JwtService;
 import com.orama.e_commerce.security.SecurityConfig;
 import com.orama.e_commerce.service.PaymentApplicationService;
 import com.orama.e_commerce.service.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -307,6 +311,11 @@ class PaymentControllerTest {
   @TestConfiguration(proxyBeanMethods = false)
   static class SecurityTestConfig {
 
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
     @Bean
     JwtAuthenticationFilter jwtAuthenticationFilter() {
       return new JwtAuthenticationFilter(
@@ -314,7 +323,8 @@ class PaymentControllerTest {
           userName -> {
             throw new IllegalStateException("JWT lookup is not used by these MockMvc tests.");
           },
-          Mockito.mock(TokenRevocationService.class));
+          Mockito.mock(TokenRevocationService.class),
+          new AuthenticatedPrincipalCache(100, Duration.ofMinutes(5)));
     }
 
     @Bean
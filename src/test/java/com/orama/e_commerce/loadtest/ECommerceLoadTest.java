@@ -0,0 +1,425 @@
+package com.orama.e_commerce.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orama.e_commerce.enums.UserRole;
+import com.orama.e_commerce.models.Client;
+import com.orama.e_commerce.models.Product;
+import com.orama.e_commerce.repository.ClientRepository;
+import com.orama.e_commerce.repository.ProductRepository;
+import com.orama.e_commerce.security.JwtService;
+import com.orama.e_commerce.service.PaymentReconciliationJob;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+
+// Carga ponta a ponta: app completa sobre o Postgres do Testcontainers, com gateway, ViaCEP e SMTP
+// fakes. Roda so com -Dloadtest=true (perfil loadtest do Maven); taxa, duracao e latencias dos
+// fakes vem de loadtest.* e o relatorio sai em target/load-test-report.md. Eventos JFR de pinning
+// de threads virtuais sao coletados durante toda a execucao.
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.allow-bean-definition-overriding=true",
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "rate-limit.default-requests-per-minute=1000000",
+      "rate-limit.endpoints[POST:/api/auth/login].requests-per-minute=1000000",
+      "rate-limit.endpoints[POST:/api/auth/register].requests-per-minute=1000000",
+      "rate-limit.endpoints[POST:/api/orders].requests-per-minute=1000000",
+      "rate-limit.endpoints[POST:/api/payments/orders/**].requests-per-minute=1000000",
+      "payment.reconciliation.cron=-",
+      "payment.reconciliation.stale-minutes=0",
+      "payment.reconciliation.requests-per-second=500",
+      "payment.webhook.inbox.poll-interval=500ms"
+    })
+@ActiveProfiles("test")
+@Import(LoadTestConfiguration.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ECommerceLoadTest {
+
+  private static final Logger log = LoggerFactory.getLogger(ECommerceLoadTest.class);
+
+  private static final String WEBHOOK_SECRET = "fake-webhook-secret-for-tests";
+  private static final String ZIP_CODE = "01310100";
+  private static final int PRODUCTS = 50;
+
+  @LocalServerPort private int port;
+
+  @Autowired private ClientRepository clientRepository;
+  @Autowired private ProductRepository productRepository;
+  @Autowired private JwtService jwtService;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PaymentReconciliationJob reconciliationJob;
+
+  @Value("${loadtest.rps:20}")
+  private double rps;
+
+  @Value("${loadtest.webhook-rps:100}")
+  private double webhookRps;
+
+  @Value("${loadtest.duration:30s}")
+  private Duration duration;
+
+  @Value("${loadtest.users:200}")
+  private int userCount;
+
+  @Value("${loadtest.max-error-rate:0.01}")
+  private double maxErrorRate;
+
+  @Value("${loadtest.pinning-threshold:20ms}")
+  private Duration pinningThreshold;
+
+  private final BlockingQueue<LoadUser> users = new LinkedBlockingQueue<>();
+  private final List<Long> productIds = new ArrayList<>();
+  private final List<String> providerOrderIds = Collections.synchronizedList(new ArrayList<>());
+
+  private HttpClient http;
+  private Statistics statistics;
+  private LoadTestReport report;
+  private VirtualThreadPinningMonitor pinning;
+
+  private record LoadUser(long clientId, String token) {}
+
+  @BeforeAll
+  void setUp() {
+    http =
+        HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    pinning = new VirtualThreadPinningMonitor(pinningThreshold);
+    pinning.start();
+    report =
+        new LoadTestReport(
+            "Teste de carga: " + rps + " jornadas/s por " + duration.toSeconds() + " s");
+
+    List<Product> products = new ArrayList<>();
+    for (int i = 0; i < PRODUCTS; i++) {
+      Product product = new Product();
+      product.setName("Bone carga " + i);
+      product.setPrice(new BigDecimal("89.90").add(BigDecimal.valueOf(i)));
+      product.setStock(1_000_000);
+      product.setActive(true);
+      products.add(product);
+    }
+    productRepository.saveAll(products).forEach(product -> productIds.add(product.getId()));
+
+    List<Client> clients = new ArrayList<>();
+    for (int i = 0; i < userCount; i++) {
+      Client client = new Client();
+      client.setName("Cliente Carga " + i);
+      client.setEmail("carga" + i + "@loadtest.local");
+      client.setPasswordHash("hash");
+      client.setCpf(String.format("%011d", 90_000_000_000L + i));
+      client.setRole(UserRole.USER);
+      client.setActive(true);
+      clients.add(client);
+    }
+    for (Client client : clientRepository.saveAll(clients)) {
+      User principal =
+          new User(client.getEmail(), "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+      String token = jwtService.generateToken(principal, client.getId(), client.getName(), "USER");
+      users.add(new LoadUser(client.getId(), token));
+    }
+  }
+
+  @AfterAll
+  void writeReport() throws Exception {
+    pinning.close();
+    log.info("Relatorio de carga:\n{}", report.render());
+    report.write(Path.of("target", "load-test-report.md"));
+  }
+
+  @Test
+  @Order(1)
+  @DisplayName("Navegacao no catalogo: listagem paginada e detalhe de produto")
+  void browseCatalog() {
+    LoadDriver.Result result =
+        drive(
+            "catalogo",
+            rps,
+            (sequence, steps) -> {
+              steps.step(
+                  "listar-produtos", () -> get("/api/products?size=20&page=" + sequence % 3));
+              long productId = productIds.get((int) (sequence % productIds.size()));
+              steps.step("detalhe-produto", () -> get("/api/products/" + productId));
+            });
+
+    assertErrorRate(result);
+  }
+
+  @Test
+  @Order(2)
+  @DisplayName("Carrinho: busca o carrinho ativo e adiciona um item")
+  void addToCart() {
+    LoadDriver.Result result =
+        drive(
+            "carrinho",
+            rps,
+            (sequence, steps) -> {
+              LoadUser user = users.take();
+              try {
+                steps.step("carrinho-ativo", () -> activeCart(user));
+                steps.step("adicionar-item", () -> addItem(user, sequence));
+              } finally {
+                users.add(user);
+              }
+            });
+
+    assertErrorRate(result);
+  }
+
+  @Test
+  @Order(3)
+  @DisplayName("Checkout: carrinho, cotacao, pedido e pagamento PIX")
+  void checkout() {
+    LoadDriver.Result result =
+        drive(
+            "checkout",
+            rps,
+            (sequence, steps) -> {
+              LoadUser user = users.take();
+              try {
+                steps.step("adicionar-item", () -> addItem(user, sequence));
+                JsonNode cart = readTree(steps.step("carrinho-ativo", () -> activeCart(user)));
+                long cartId = cart.get("id").asLong();
+                JsonNode quote =
+                    readTree(
+                        steps.step(
+                            "cotacao",
+                            () -> post(user, "/api/orders/quote", Map.of("zipCode", ZIP_CODE))));
+                JsonNode order =
+                    readTree(
+                        steps.step(
+                            "pedido",
+                            () ->
+                                post(
+                                    user,
+                                    "/api/orders",
+                                    Map.of(
+                                        "cartId",
+                                        cartId,
+                                        "zipCode",
+                                        ZIP_CODE,
+                                        "quoteToken",
+                                        quote.get("quoteToken").asText()))));
+                JsonNode payment =
+                    readTree(
+                        steps.step(
+                            "pagamento-pix",
+                            () ->
+                                post(
+                                    user,
+                                    "/api/payments/orders/" + order.get("id").asLong(),
+                                    Map.of("paymentType", "PIX"))));
+                providerOrderIds.add(payment.get("mpOrderId").asText());
+              } finally {
+                users.add(user);
+              }
+            });
+
+    assertErrorRate(result);
+  }
+
+  // Rajada de webhooks assinados sobre metade dos pedidos: cada data.id chega varias vezes, como
+  // nos reenvios do Mercado Pago. A outra metade fica pendente para a reconciliacao.
+  @Test
+  @Order(4)
+  @DisplayName("Tempestade de webhooks com duplicatas e drenagem do inbox")
+  void webhookStorm() throws Exception {
+    assumeFalse(providerOrderIds.isEmpty(), "checkout nao gerou pagamentos");
+    List<String> dataIds;
+    synchronized (providerOrderIds) {
+      dataIds = List.copyOf(providerOrderIds.subList(0, Math.max(1, providerOrderIds.size() / 2)));
+    }
+
+    LoadDriver.Result result =
+        drive(
+            "webhook",
+            webhookRps,
+            (sequence, steps) -> {
+              String dataId = dataIds.get((int) (sequence % dataIds.size()));
+              steps.step("notificacao", () -> webhook(dataId));
+            });
+
+    long drainStart = System.nanoTime();
+    Instant deadline = Instant.now().plusSeconds(60);
+    long pending = pendingInboxRows();
+    while (pending > 0 && Instant.now().isBefore(deadline)) {
+      Thread.sleep(100);
+      pending = pendingInboxRows();
+    }
+    report.note(
+        "webhook: "
+            + dataIds.size()
+            + " pedidos distintos; inbox drenado em "
+            + Duration.ofNanos(System.nanoTime() - drainStart).toMillis()
+            + " ms ("
+            + pending
+            + " pendentes ao final).");
+
+    assertErrorRate(result);
+    assertThat(pending).isZero();
+  }
+
+  @Test
+  @Order(5)
+  @DisplayName("Reconciliacao dos pagamentos que nao receberam webhook")
+  void reconciliation() {
+    long statementsBefore = statistics.getPrepareStatementCount();
+    reconciliationJob.reconcileStaleAttempts();
+    long statements = statistics.getPrepareStatementCount() - statementsBefore;
+    PaymentReconciliationJob.RunStats stats = reconciliationJob.lastRun();
+
+    report.addReconciliation("reconciliacao", stats, statements);
+
+    assertThat(stats.errors()).isLessThanOrEqualTo((int) (stats.scanned() * maxErrorRate));
+  }
+
+  // Pinning sem nenhum frame da aplicacao na pilha (ex.: threads internas de biblioteca) entra so
+  // no relatorio; com frame nosso reprova, mesmo que o monitor seja de uma biblioteca chamada.
+  @Test
+  @Order(6)
+  @DisplayName("Sem pinning de thread virtual em codigo da aplicacao")
+  void noVirtualThreadPinningInApplicationCode() {
+    pinning.stop();
+    report.note(
+        "pinning de threads virtuais (>= "
+            + pinningThreshold.toMillis()
+            + " ms): "
+            + pinning.total()
+            + " eventos"
+            + (pinning.total() == 0 ? "" : "; " + String.join(", ", pinning.summary(5))));
+
+    assertThat(pinning.applicationSites()).isEmpty();
+  }
+
+  private LoadDriver.Result drive(String scenario, double rate, LoadDriver.Journey journey) {
+    LoadDriver.Result result =
+        LoadDriver.run(scenario, rate, duration, statistics::getPrepareStatementCount, journey);
+    report.add(result);
+    return result;
+  }
+
+  private void assertErrorRate(LoadDriver.Result result) {
+    assertThat(result.journeys().errorRate())
+        .as("taxa de erro de %s (primeiro erro: %s)", result.scenario(), result.firstError())
+        .isLessThanOrEqualTo(maxErrorRate);
+  }
+
+  private HttpResponse<String> activeCart(LoadUser user) throws Exception {
+    return send(
+        authorized(request("/api/carts/client/" + user.clientId() + "/active"), user).GET());
+  }
+
+  private HttpResponse<String> addItem(LoadUser user, long sequence) throws Exception {
+    long productId = productIds.get((int) (sequence % productIds.size()));
+    return post(
+        user,
+        "/api/carts/client/" + user.clientId() + "/items",
+        Map.of("productId", productId, "quantity", 1));
+  }
+
+  private HttpResponse<String> get(String path) throws Exception {
+    return send(request(path).GET());
+  }
+
+  private HttpResponse<String> post(LoadUser user, String path, Object body) throws Exception {
+    return send(
+        authorized(request(path), user)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))));
+  }
+
+  private HttpResponse<String> webhook(String dataId) throws Exception {
+    String requestId = UUID.randomUUID().toString();
+    String ts = Long.toString(Instant.now().getEpochSecond());
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+    String manifest = "id:" + dataId + ";request-id:" + requestId + ";ts:" + ts + ";";
+    String v1 = HexFormat.of().formatHex(mac.doFinal(manifest.getBytes(StandardCharsets.UTF_8)));
+    String body =
+        objectMapper.writeValueAsString(
+            Map.of("type", "order", "action", "order.processed", "data", Map.of("id", dataId)));
+    return send(
+        request("/api/payments/webhook?type=order&data.id=" + dataId)
+            .header("Content-Type", "application/json")
+            .header("x-signature", "ts=" + ts + ",v1=" + v1)
+            .header("x-request-id", requestId)
+            .POST(HttpRequest.BodyPublishers.ofString(body)));
+  }
+
+  private HttpRequest.Builder request(String path) {
+    return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+        .timeout(Duration.ofSeconds(30));
+  }
+
+  private HttpRequest.Builder authorized(HttpRequest.Builder builder, LoadUser user) {
+    return builder.header("Authorization", "Bearer " + user.token());
+  }
+
+  private HttpResponse<String> send(HttpRequest.Builder builder) throws Exception {
+    return http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private JsonNode readTree(String body) throws Exception {
+    return objectMapper.readTree(body);
+  }
+
+  private long pendingInboxRows() {
+    Long count =
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM tb_payment_webhook_inbox"
+                + " WHERE status IN ('PENDING', 'PROCESSING')",
+            Long.class);
+    return count == null ? 0 : count;
+  }
+}
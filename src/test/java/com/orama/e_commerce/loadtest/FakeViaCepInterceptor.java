@@ -0,0 +1,68 @@
+package com.orama.e_commerce.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+// Responde pelo ViaCEP sem sair da JVM; as demais chamadas do RestClient seguem normalmente.
+class FakeViaCepInterceptor implements ClientHttpRequestInterceptor {
+
+  private static final String HOST = "viacep.com.br";
+  private static final Pattern CEP_PATH = Pattern.compile("/ws/(\\d{8})/json/?");
+
+  private final Duration latency;
+
+  FakeViaCepInterceptor(Duration latency) {
+    this.latency = latency;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    if (!HOST.equals(request.getURI().getHost())) {
+      return execution.execute(request, body);
+    }
+    Matcher matcher = CEP_PATH.matcher(request.getURI().getPath());
+    if (!matcher.matches()) {
+      return json("{\"erro\": true}", HttpStatus.BAD_REQUEST);
+    }
+    simulateLatency();
+    String cep = matcher.group(1);
+    return json(
+        "{\"cep\": \""
+            + cep.substring(0, 5)
+            + "-"
+            + cep.substring(5)
+            + "\", \"logradouro\": \"Avenida Paulista\", \"bairro\": \"Bela Vista\","
+            + " \"localidade\": \"São Paulo\", \"uf\": \"SP\", \"ibge\": \"3550308\"}",
+        HttpStatus.OK);
+  }
+
+  private ClientHttpResponse json(String body, HttpStatus status) {
+    MockClientHttpResponse response =
+        new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    return response;
+  }
+
+  private void simulateLatency() throws IOException {
+    if (latency.isZero()) {
+      return;
+    }
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrompido aguardando ViaCEP fake", e);
+    }
+  }
+}
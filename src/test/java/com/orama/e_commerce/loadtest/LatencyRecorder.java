@@ -0,0 +1,51 @@
+package com.orama.e_commerce.loadtest;
+
+import java.util.Arrays;
+
+// Amostras de latencia em nanos de uma etapa; as threads virtuais do driver gravam em paralelo.
+final class LatencyRecorder {
+
+  private long[] samples = new long[1024];
+  private int count;
+  private long errors;
+
+  synchronized void record(long nanos, boolean success) {
+    if (count == samples.length) {
+      samples = Arrays.copyOf(samples, count * 2);
+    }
+    samples[count++] = nanos;
+    if (!success) {
+      errors++;
+    }
+  }
+
+  synchronized Snapshot snapshot() {
+    long[] sorted = Arrays.copyOf(samples, count);
+    Arrays.sort(sorted);
+    return new Snapshot(sorted, errors);
+  }
+
+  record Snapshot(long[] sorted, long errors) {
+
+    int requests() {
+      return sorted.length;
+    }
+
+    double errorRate() {
+      return sorted.length == 0 ? 0 : (double) errors / sorted.length;
+    }
+
+    // Nearest-rank: o p99 de 100 amostras e a 99a, sem interpolar.
+    double percentileMillis(double percentile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+      return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    double maxMillis() {
+      return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+    }
+  }
+}
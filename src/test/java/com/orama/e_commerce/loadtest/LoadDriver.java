@@ -0,0 +1,119 @@
+package com.orama.e_commerce.loadtest;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+// Modelo aberto: as jornadas chegam a uma taxa fixa, cada uma numa thread virtual, e nao esperam
+// a anterior terminar. A latencia da jornada conta a partir do instante agendado, entao fila e
+// atraso do proprio driver aparecem no p99 (sem coordinated omission).
+final class LoadDriver {
+
+  private LoadDriver() {}
+
+  @FunctionalInterface
+  interface Journey {
+    void run(long sequence, Steps steps) throws Exception;
+  }
+
+  record Result(
+      String scenario,
+      LatencyRecorder.Snapshot journeys,
+      Map<String, LatencyRecorder.Snapshot> steps,
+      Duration elapsed,
+      long statements,
+      String firstError) {
+
+    double throughput(LatencyRecorder.Snapshot snapshot) {
+      long millis = Math.max(1, elapsed.toMillis());
+      return (snapshot.requests() - snapshot.errors()) * 1000.0 / millis;
+    }
+
+    double statementsPerJourney() {
+      return journeys.requests() == 0 ? 0 : (double) statements / journeys.requests();
+    }
+  }
+
+  static final class Steps {
+
+    private final Map<String, LatencyRecorder> recorders =
+        Collections.synchronizedMap(new LinkedHashMap<>());
+
+    <T> T step(String name, Callable<HttpResponse<T>> call) throws Exception {
+      LatencyRecorder recorder = recorders.computeIfAbsent(name, ignored -> new LatencyRecorder());
+      long start = System.nanoTime();
+      HttpResponse<T> response;
+      try {
+        response = call.call();
+      } catch (Exception e) {
+        recorder.record(System.nanoTime() - start, false);
+        throw e;
+      }
+      boolean success = response.statusCode() / 100 == 2;
+      recorder.record(System.nanoTime() - start, success);
+      if (!success) {
+        throw new IllegalStateException(
+            name + " respondeu " + response.statusCode() + ": " + response.body());
+      }
+      return response.body();
+    }
+
+    private Map<String, LatencyRecorder.Snapshot> snapshot() {
+      Map<String, LatencyRecorder.Snapshot> snapshots = new LinkedHashMap<>();
+      synchronized (recorders) {
+        recorders.forEach((name, recorder) -> snapshots.put(name, recorder.snapshot()));
+      }
+      return snapshots;
+    }
+  }
+
+  static Result run(
+      String scenario, double rps, Duration duration, LongSupplier statements, Journey journey) {
+    long intervalNanos = (long) (1_000_000_000L / rps);
+    long durationNanos = duration.toNanos();
+    LatencyRecorder journeys = new LatencyRecorder();
+    Steps steps = new Steps();
+    AtomicReference<String> firstError = new AtomicReference<>();
+
+    long statementsBefore = statements.getAsLong();
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (long sequence = 0; sequence * intervalNanos < durationNanos; sequence++) {
+        long intendedStart = start + sequence * intervalNanos;
+        long wait = intendedStart - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        long current = sequence;
+        executor.submit(
+            () -> {
+              boolean success = true;
+              try {
+                journey.run(current, steps);
+              } catch (Exception e) {
+                success = false;
+                firstError.compareAndSet(null, e.getMessage());
+              }
+              journeys.record(System.nanoTime() - intendedStart, success);
+            });
+      }
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    return new Result(
+        scenario,
+        journeys.snapshot(),
+        steps.snapshot(),
+        elapsed,
+        statements.getAsLong() - statementsBefore,
+        firstError.get());
+  }
+}
@@ -0,0 +1,61 @@
+package com.orama.e_commerce.loadtest;
+
+import com.orama.e_commerce.service.fake.FakeMailSender;
+import com.orama.e_commerce.service.gateway.CreatePaymentCommand;
+import com.orama.e_commerce.service.gateway.GatewayOrderResult;
+import com.orama.e_commerce.service.gateway.GatewayPaymentResult;
+import com.orama.e_commerce.service.gateway.MercadoPagoGateway;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSender;
+
+// Dependencias externas trocadas por fakes em memoria. O gateway substitui so o bean do SDK do
+// Mercado Pago, entao o ResilientPaymentGateway (bulkhead, timeouts e breaker) segue no caminho.
+@TestConfiguration(proxyBeanMethods = false)
+class LoadTestConfiguration {
+
+  @Bean
+  LoadTestPaymentGateway loadTestPaymentGateway(
+      @Value("${loadtest.gateway-latency:80ms}") Duration latency) {
+    return new LoadTestPaymentGateway(latency);
+  }
+
+  @Bean
+  MercadoPagoGateway mercadoPagoGateway(LoadTestPaymentGateway fake) {
+    return new MercadoPagoGateway(null, null, "LOADTEST", null) {
+      @Override
+      public GatewayPaymentResult createPayment(CreatePaymentCommand command) {
+        return fake.createPayment(command);
+      }
+
+      @Override
+      public GatewayOrderResult getOrderStatus(String providerOrderId) {
+        return fake.getOrderStatus(providerOrderId);
+      }
+
+      @Override
+      public GatewayOrderResult cancelOrder(String providerOrderId, String idempotencyKey) {
+        return fake.cancelOrder(providerOrderId, idempotencyKey);
+      }
+
+      @Override
+      public GatewayOrderResult refundOrder(String providerOrderId, String idempotencyKey) {
+        return fake.refundOrder(providerOrderId, idempotencyKey);
+      }
+    };
+  }
+
+  @Bean
+  RestClientCustomizer fakeViaCepCustomizer(
+      @Value("${loadtest.viacep-latency:40ms}") Duration latency) {
+    return builder -> builder.requestInterceptor(new FakeViaCepInterceptor(latency));
+  }
+
+  @Bean
+  JavaMailSender javaMailSender() {
+    return new FakeMailSender();
+  }
+}
@@ -0,0 +1,71 @@
+package com.orama.e_commerce.loadtest;
+
+import com.orama.e_commerce.service.gateway.CreatePaymentCommand;
+import com.orama.e_commerce.service.gateway.GatewayOrderResult;
+import com.orama.e_commerce.service.gateway.GatewayPaymentResult;
+import com.orama.e_commerce.service.gateway.PaymentGateway;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Gateway thread-safe para carga: todo PIX nasce pendente e qualquer consulta (webhook ou
+// reconciliacao) ja o encontra aprovado. A latencia simula a ida ao Mercado Pago.
+class LoadTestPaymentGateway implements PaymentGateway {
+
+  private final Duration latency;
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicLong calls = new AtomicLong();
+
+  LoadTestPaymentGateway(Duration latency) {
+    this.latency = latency;
+  }
+
+  long calls() {
+    return calls.get();
+  }
+
+  @Override
+  public GatewayPaymentResult createPayment(CreatePaymentCommand command) {
+    simulateLatency();
+    long id = sequence.incrementAndGet();
+    return new GatewayPaymentResult(
+        "ltord" + id,
+        "ltpay" + id,
+        "action_required",
+        "waiting_transfer",
+        "pix",
+        "00020126580014br.gov.bcb.pix",
+        null,
+        null,
+        null);
+  }
+
+  @Override
+  public GatewayOrderResult getOrderStatus(String providerOrderId) {
+    simulateLatency();
+    return new GatewayOrderResult(providerOrderId, "processed", "accredited", "pix");
+  }
+
+  @Override
+  public GatewayOrderResult cancelOrder(String providerOrderId, String idempotencyKey) {
+    simulateLatency();
+    return new GatewayOrderResult(providerOrderId, "canceled", "by_collector", "pix");
+  }
+
+  @Override
+  public GatewayOrderResult refundOrder(String providerOrderId, String idempotencyKey) {
+    simulateLatency();
+    return new GatewayOrderResult(providerOrderId, "refunded", "refunded", "pix");
+  }
+
+  private void simulateLatency() {
+    calls.incrementAndGet();
+    if (latency.isZero()) {
+      return;
+    }
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.orama.e_commerce.loadtest;
+
+import com.orama.e_commerce.service.PaymentReconciliationJob;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Tabela markdown com uma linha por jornada e uma por etapa HTTP dela.
+final class LoadTestReport {
+
+  private static final String HEADER =
+      "| Cenario | Etapa | Requisicoes | Erros | p50 (ms) | p95 (ms) | p99 (ms) | Max (ms)"
+          + " | Vazao (req/s) | Statements/jornada |\n"
+          + "|---|---|---:|---:|---:|---:|---:|---:|---:|---:|\n";
+
+  private final String title;
+  private final List<String> rows = new ArrayList<>();
+  private final List<String> notes = new ArrayList<>();
+
+  LoadTestReport(String title) {
+    this.title = title;
+  }
+
+  synchronized void add(LoadDriver.Result result) {
+    rows.add(
+        row(
+            result.scenario(),
+            "jornada",
+            result.journeys(),
+            result.throughput(result.journeys()),
+            format(result.statementsPerJourney())));
+    for (Map.Entry<String, LatencyRecorder.Snapshot> step : result.steps().entrySet()) {
+      rows.add(
+          row(
+              result.scenario(),
+              step.getKey(),
+              step.getValue(),
+              result.throughput(step.getValue()),
+              "-"));
+    }
+    if (result.firstError() != null) {
+      notes.add(result.scenario() + ": primeiro erro: " + result.firstError());
+    }
+  }
+
+  synchronized void addReconciliation(
+      String scenario, PaymentReconciliationJob.RunStats stats, long statements) {
+    double perAttempt = stats.scanned() == 0 ? 0 : (double) statements / stats.scanned();
+    rows.add(
+        String.format(
+            Locale.ROOT,
+            "| %s | execucao | %d | %d | - | - | - | %s | %s | %s |",
+            scenario,
+            stats.scanned(),
+            stats.errors(),
+            format(stats.duration().toMillis()),
+            format(stats.throughputPerSecond()),
+            format(perAttempt)));
+    notes.add(
+        scenario
+            + ": "
+            + stats.applied()
+            + " tentativas atualizadas, maior atraso "
+            + stats.maxLag().toMillis()
+            + " ms; Statements/jornada aqui e por tentativa.");
+  }
+
+  synchronized void note(String note) {
+    notes.add(note);
+  }
+
+  synchronized String render() {
+    StringBuilder out = new StringBuilder("# ").append(title).append("\n\n").append(HEADER);
+    rows.forEach(row -> out.append(row).append('\n'));
+    if (!notes.isEmpty()) {
+      out.append('\n');
+      notes.forEach(note -> out.append("- ").append(note).append('\n'));
+    }
+    return out.toString();
+  }
+
+  void write(Path path) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, render());
+  }
+
+  private static String row(
+      String scenario,
+      String step,
+      LatencyRecorder.Snapshot snapshot,
+      double throughput,
+      String statements) {
+    return String.format(
+        Locale.ROOT,
+        "| %s | %s | %d | %d (%.2f%%) | %s | %s | %s | %s | %s | %s |",
+        scenario,
+        step,
+        snapshot.requests(),
+        snapshot.errors(),
+        snapshot.errorRate() * 100,
+        format(snapshot.percentileMillis(50)),
+        format(snapshot.percentileMillis(95)),
+        format(snapshot.percentileMillis(99)),
+        format(snapshot.maxMillis()),
+        format(throughput),
+        statements);
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.1f", value);
+  }
+}
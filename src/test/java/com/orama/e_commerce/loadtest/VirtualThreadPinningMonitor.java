@@ -0,0 +1,104 @@
+package com.orama.e_commerce.loadtest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+// Escuta jdk.VirtualThreadPinned via JFR durante a carga: thread virtual bloqueada enquanto
+// presa ao carrier (synchronized ou frame nativo). Agrupa pelo primeiro frame da aplicacao para
+// separar o que e nosso do que vem de biblioteca.
+final class VirtualThreadPinningMonitor implements AutoCloseable {
+
+  private static final String EVENT = "jdk.VirtualThreadPinned";
+  private static final String APPLICATION_PACKAGE = "com.orama.e_commerce.";
+
+  private final RecordingStream stream = new RecordingStream();
+  private final Map<String, LongAdder> bySite = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> byApplicationSite = new ConcurrentHashMap<>();
+
+  VirtualThreadPinningMonitor(Duration threshold) {
+    stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(EVENT, this::onPinned);
+  }
+
+  void start() {
+    stream.startAsync();
+  }
+
+  // stop() entrega os eventos ainda no buffer antes de retornar.
+  void stop() {
+    stream.stop();
+  }
+
+  Map<String, Long> applicationSites() {
+    return sorted(byApplicationSite);
+  }
+
+  List<String> summary(int limit) {
+    return sorted(bySite).entrySet().stream()
+        .limit(limit)
+        .map(entry -> entry.getValue() + "x " + entry.getKey())
+        .toList();
+  }
+
+  long total() {
+    return bySite.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  @Override
+  public void close() {
+    stream.close();
+  }
+
+  private void onPinned(RecordedEvent event) {
+    RecordedStackTrace stackTrace = event.getStackTrace();
+    List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+    String site = frames.isEmpty() ? "(sem stack)" : describe(frames.get(0));
+    String applicationSite =
+        frames.stream()
+            .filter(frame -> frame.isJavaFrame() && isApplicationFrame(frame))
+            .findFirst()
+            .map(VirtualThreadPinningMonitor::describe)
+            .orElse(null);
+
+    bySite
+        .computeIfAbsent(applicationSite != null ? applicationSite : site, k -> new LongAdder())
+        .increment();
+    if (applicationSite != null) {
+      byApplicationSite.computeIfAbsent(applicationSite, k -> new LongAdder()).increment();
+    }
+  }
+
+  // O proprio harness (driver e relatorio) nao conta como codigo da aplicacao.
+  private static boolean isApplicationFrame(RecordedFrame frame) {
+    String type = frame.getMethod().getType().getName();
+    return type.startsWith(APPLICATION_PACKAGE)
+        && !type.startsWith(APPLICATION_PACKAGE + "loadtest.");
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return frame.getMethod().getType().getName()
+        + "."
+        + frame.getMethod().getName()
+        + ":"
+        + frame.getLineNumber();
+  }
+
+  private static Map<String, Long> sorted(Map<String, LongAdder> counts) {
+    Map<String, Long> snapshot = new LinkedHashMap<>();
+    counts.entrySet().stream()
+        .sorted(
+            Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum())
+                .reversed())
+        .forEach(entry -> snapshot.put(entry.getKey(), entry.getValue().sum()));
+    return snapshot;
+  }
+}
@@ -0,0 +1,48 @@
+package com.orama.e_commerce.mapper;
+
+import com.orama.e_commerce.dtos.order.OrderResponseDto;
+import com.orama.e_commerce.models.Order;
+import com.orama.e_commerce.testdata.OrderTestBuilder;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+  @Param({"1", "10"})
+  public int items;
+
+  private OrderMapper orderMapper;
+  private Order order;
+
+  @Setup
+  public void setUp() {
+    orderMapper = new OrderMapperImpl();
+    OrderTestBuilder builder = OrderTestBuilder.anOrder();
+    for (int i = 0; i < items; i++) {
+      builder.withItem("Bone " + i, new BigDecimal("89.90"), i + 1);
+    }
+    order = builder.build();
+  }
+
+  @Benchmark
+  public OrderResponseDto toResponseDto() {
+    return orderMapper.toResponseDto(order);
+  }
+}
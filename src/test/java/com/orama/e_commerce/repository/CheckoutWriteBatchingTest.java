@@ -0,0 +1,100 @@
+package com.orama.e_commerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.orama.e_commerce.enums.OrderStatus;
+import com.orama.e_commerce.models.Cart;
+import com.orama.e_commerce.models.Client;
+import com.orama.e_commerce.models.Order;
+import com.orama.e_commerce.models.OrderItem;
+import com.orama.e_commerce.models.Product;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+// Conta as idas ao banco de um checkout com 20 itens no Postgres de verdade (Testcontainers).
+// Com IDENTITY cada item era um INSERT proprio; com sequence pooled e batch JDBC os itens saem
+// num unico statement preparado.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class CheckoutWriteBatchingTest {
+
+  private static final int ITEMS = 20;
+
+  @Autowired private TestEntityManager entityManager;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private Client client;
+  private Cart cart;
+  private List<Product> products;
+
+  @BeforeEach
+  void setUp() {
+    client = new Client();
+    client.setName("Cliente Batch");
+    client.setEmail("batch@example.com");
+    client.setPasswordHash("hash");
+    entityManager.persist(client);
+
+    cart = new Cart();
+    cart.setClient(client);
+    entityManager.persist(cart);
+
+    products = new ArrayList<>();
+    for (int i = 0; i < ITEMS; i++) {
+      Product product = new Product();
+      product.setName("Produto " + i);
+      product.setPrice(new BigDecimal("10.00"));
+      product.setStock(100);
+      product.setActive(true);
+      products.add(entityManager.persist(product));
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  @DisplayName("Checkout com 20 itens: itens gravados num unico batch")
+  void persistOrder_twentyItems_batchesItemInserts() {
+    Order order = new Order();
+    order.setOrderNumber("ORD-BATCH");
+    order.setStatus(OrderStatus.PENDING);
+    order.setClient(entityManager.getEntityManager().getReference(Client.class, client.getId()));
+    order.setCart(entityManager.getEntityManager().getReference(Cart.class, cart.getId()));
+    List<OrderItem> items = new ArrayList<>();
+    for (Product product : products) {
+      OrderItem item = new OrderItem();
+      item.setOrder(order);
+      item.setProduct(
+          entityManager.getEntityManager().getReference(Product.class, product.getId()));
+      item.setQuantity(1);
+      item.setUnitPrice(product.getPrice());
+      items.add(item);
+    }
+    order.setItems(items);
+
+    entityManager.persist(order);
+    entityManager.flush();
+
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(ITEMS + 1);
+    // INSERT do pedido (IDENTITY), nextval da sequence (ate 2 na primeira reserva do pool) e um
+    // unico batch com os 20 itens. Sem batch seriam pelo menos 21 statements.
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+  }
+}
@@ -0,0 +1,81 @@
+package com.orama.e_commerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.orama.e_commerce.models.Product;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+// A busca depende de f_unaccent, pg_trgm e da coluna gerada search_vector (V17), entao so pode
+// ser exercitada no Postgres de verdade (Testcontainers).
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ProductSearchQueryTest {
+
+  @Autowired private TestEntityManager entityManager;
+  @Autowired private ProductRepository productRepository;
+
+  private Product caneca;
+  private Product camiseta;
+
+  @BeforeEach
+  void setUp() {
+    caneca = persist("Caneca de Cerâmica", "Caneca esmaltada 300ml", true);
+    camiseta = persist("Camiseta Algodão", "Malha fio 30", true);
+    persist("Caneca Térmica", "Fora de linha", false);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  @DisplayName("Busca ignora acentos e nao devolve produtos inativos")
+  void searchActive_accentInsensitive_skipsInactive() {
+    Page<Product> page = productRepository.searchActive("ceramica", PageRequest.of(0, 10));
+
+    assertThat(page.getContent()).extracting(Product::getId).containsExactly(caneca.getId());
+    assertThat(page.getTotalElements()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Busca tolera erro de digitacao pelo trigram")
+  void searchActive_typo_matchesByTrigram() {
+    Page<Product> page = productRepository.searchActive("camisetta", PageRequest.of(0, 10));
+
+    assertThat(page.getContent()).extracting(Product::getId).containsExactly(camiseta.getId());
+  }
+
+  @Test
+  @DisplayName("Busca por trecho do nome encontra o produto")
+  void searchActive_substring_matchesName() {
+    Page<Product> page = productRepository.searchActive("amiset", PageRequest.of(0, 10));
+
+    assertThat(page.getContent()).extracting(Product::getId).containsExactly(camiseta.getId());
+  }
+
+  @Test
+  @DisplayName("% e _ no termo sao texto, nao curinga do LIKE")
+  void searchActive_likeWildcards_areEscaped() {
+    assertThat(productRepository.searchActive("%", PageRequest.of(0, 10))).isEmpty();
+    assertThat(productRepository.searchActive("_", PageRequest.of(0, 10))).isEmpty();
+  }
+
+  private Product persist(String name, String description, boolean active) {
+    Product product = new Product();
+    product.setName(name);
+    product.setDescription(description);
+    product.setPrice(new BigDecimal("49.90"));
+    product.setStock(10);
+    product.setActive(active);
+    return entityManager.persist(product);
+  }
+}
@@ -0,0 +1,127 @@
+package com.orama.e_commerce.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.orama.e_commerce.service.TokenRevocationService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtAuthenticationFilterTest {
+
+  private static final String SECRET = "test-secret-with-at-least-thirty-two-bytes!";
+
+  private JwtService jwtService;
+  private UserDetailsService userDetailsService;
+  private TokenRevocationService tokenRevocationService;
+  private JwtAuthenticationFilter filter;
+  private UserDetails userDetails;
+
+  @BeforeEach
+  void setUp() {
+    jwtService = newJwtService(3_600_000L);
+    userDetailsService = mock(UserDetailsService.class);
+    tokenRevocationService = mock(TokenRevocationService.class);
+    filter =
+        new JwtAuthenticationFilter(
+            jwtService,
+            userDetailsService,
+            tokenRevocationService,
+            new AuthenticatedPrincipalCache(100, Duration.ofMinutes(5)));
+    userDetails =
+        new User("client@test.com", "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    when(userDetailsService.loadUserByUsername("client@test.com")).thenReturn(userDetails);
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void repeatedRequestsWithSameTokenSkipUserAndRevocationLookups()
+      throws ServletException, IOException {
+    String token = jwtService.generateToken(userDetails, 7L, "Cliente", "USER");
+
+    Authentication first = execute(token).authentication;
+    SecurityContextHolder.clearContext();
+    Authentication second = execute(token).authentication;
+
+    assertThat(first).isNotNull();
+    assertThat(second).isNotNull();
+    assertThat(second.getDetails()).isEqualTo(Map.of("id", 7L));
+    verify(userDetailsService, times(1)).loadUserByUsername("client@test.com");
+    verify(tokenRevocationService, times(1)).isTokenHashRevoked(anyString());
+  }
+
+  @Test
+  void revokedTokenIsNotAuthenticatedNorCached() throws ServletException, IOException {
+    String token = jwtService.generateToken(userDetails, 7L, "Cliente", "USER");
+    when(tokenRevocationService.isTokenHashRevoked(TokenHashes.sha256Hex(token))).thenReturn(true);
+
+    Authentication first = execute(token).authentication;
+    Authentication second = execute(token).authentication;
+
+    assertThat(first).isNull();
+    assertThat(second).isNull();
+    verify(userDetailsService, times(2)).loadUserByUsername("client@test.com");
+  }
+
+  @Test
+  void expiredTokenIsRejected() throws ServletException, IOException {
+    String token = newJwtService(-1_000L).generateToken(userDetails, 7L, "Cliente", "USER");
+
+    Result result = execute(token);
+
+    assertThat(result.response.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+    assertThat(result.response.getContentAsString()).isEqualTo("Token expired");
+    verify(userDetailsService, never()).loadUserByUsername(anyString());
+  }
+
+  private static JwtService newJwtService(long accessExpiration) {
+    JwtService service = new JwtService();
+    ReflectionTestUtils.setField(service, "secret", SECRET);
+    ReflectionTestUtils.setField(service, "accessExpiration", accessExpiration);
+    ReflectionTestUtils.setField(service, "refreshExpiration", 2_592_000_000L);
+    service.validateSecret();
+    return service;
+  }
+
+  private Result execute(String token) throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+    request.addHeader("Authorization", "Bearer " + token);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    AtomicReference<Authentication> authentication = new AtomicReference<>();
+    FilterChain chain =
+        (req, res) -> authentication.set(SecurityContextHolder.getContext().getAuthentication());
+
+    filter.doFilter(request, response, chain);
+
+    return new Result(response, authentication.get());
+  }
+
+  private record Result(MockHttpServletResponse response, Authentication authentication) {}
+}
@@ -0,0 +1,60 @@
+package com.orama.e_commerce.security;
+
+import io.jsonwebtoken.Claims;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// Toda requisicao autenticada passa por parseClaims; login e refresh por generateToken.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+  private JwtService jwtService;
+  private UserDetails user;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "secret", "benchmark-secret-with-at-least-32-bytes");
+    ReflectionTestUtils.setField(jwtService, "accessExpiration", 3_600_000L);
+    ReflectionTestUtils.setField(jwtService, "refreshExpiration", 2_592_000_000L);
+    jwtService.validateSecret();
+    user =
+        new User("client@test.com", "unused", List.of(new SimpleGrantedAuthority("ROLE_CLIENT")));
+    token = jwtService.generateToken(user, 42L, "Cliente Benchmark", "CLIENT");
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtService.generateToken(user, 42L, "Cliente Benchmark", "CLIENT");
+  }
+
+  @Benchmark
+  public Claims parseClaims() {
+    return jwtService.parseClaims(token);
+  }
+
+  @Benchmark
+  public Boolean validateToken() {
+    return jwtService.validateToken(token, user);
+  }
+}
@@ -154,6 +154,33 @@ class AddressServiceTest {
     verify(addressRepository).save(address);
   }
 
+  @Test
+  void shouldResolveIbgeCodeFromLocalIndexWithoutCepLookup() {
+    AddressRequestDto requestDto =
+        new AddressRequestDto(
+            "Rua das Flores",
+            "123",
+            "Apt 45",
+            "Centro",
+            "01234-567",
+            "São Paulo",
+            "SP",
+            "BR",
+            null,
+            false);
+    address.setIbgeCode(null);
+
+    when(addressMapper.toEntity(requestDto)).thenReturn(address);
+    when(locationService.findIbgeCode("São Paulo", "SP")).thenReturn(Optional.of("3550308"));
+    when(addressRepository.save(any(Address.class))).thenReturn(address);
+    when(addressMapper.toResponseDto(address)).thenReturn(addressResponseDto);
+
+    addressService.createAddress(requestDto, 1L);
+
+    assertEquals("3550308", address.getIbgeCode());
+    verify(locationService, never()).lookupCep(any());
+  }
+
   @Test
   void shouldThrowWhenTextualCityIsMissingAndCepLookupFails() {
     AddressRequestDto requestDto =
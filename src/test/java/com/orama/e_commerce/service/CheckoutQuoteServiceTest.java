@@ -0,0 +1,170 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.orama.e_commerce.dtos.order.CheckoutQuoteRequestDto;
+import com.orama.e_commerce.dtos.order.CheckoutQuoteResponseDto;
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.exceptions.cart.CartNotFoundException;
+import com.orama.e_commerce.exceptions.order.InvalidDiscountException;
+import com.orama.e_commerce.models.Cart;
+import com.orama.e_commerce.models.CartItem;
+import com.orama.e_commerce.models.Client;
+import com.orama.e_commerce.models.Product;
+import com.orama.e_commerce.repository.CartRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutQuoteServiceTest {
+
+  private static final String SECRET = "test-secret-with-at-least-32-bytes-of-entropy";
+
+  @Mock private CartRepository cartRepository;
+  @Mock private ShippingService shippingService;
+
+  private CheckoutQuoteService checkoutQuoteService;
+  private Cart cart;
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    checkoutQuoteService =
+        new CheckoutQuoteService(
+            cartRepository,
+            shippingService,
+            new CheckoutQuoteTokenService(SECRET, Duration.ofMinutes(10)));
+
+    Client client = new Client();
+    client.setId(1L);
+
+    product = new Product();
+    product.setId(5L);
+    product.setName("Bone Trucker");
+    product.setPrice(new BigDecimal("80.00"));
+
+    CartItem item = new CartItem();
+    item.setProduct(product);
+    item.setQuantity(3);
+
+    cart = new Cart();
+    cart.setId(10L);
+    cart.setClient(client);
+    cart.setItems(List.of(item));
+  }
+
+  @Test
+  void shouldQuoteActiveCartInOneFetch() {
+    when(cartRepository.findActiveCartsWithProductsByClientId(1L)).thenReturn(List.of(cart));
+    when(shippingService.getShippingCost(eq("01310100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
+
+    CheckoutQuoteResponseDto quote =
+        checkoutQuoteService.quote(
+            1L, new CheckoutQuoteRequestDto("01310-100", new BigDecimal("40.00")));
+
+    assertEquals(new BigDecimal("240.00"), quote.subtotal());
+    assertEquals(new BigDecimal("260.00"), quote.total());
+    assertFalse(quote.freeShipping());
+    assertEquals(1, quote.items().size());
+    assertNotNull(quote.quoteToken());
+    verify(shippingService).getShippingCost("01310100", new BigDecimal("200.00"));
+    verify(cartRepository, times(1)).findActiveCartsWithProductsByClientId(1L);
+    verifyNoMoreInteractions(cartRepository);
+  }
+
+  @Test
+  void shouldThrowWhenClientHasNoActiveCart() {
+    when(cartRepository.findActiveCartsWithProductsByClientId(1L)).thenReturn(List.of());
+
+    assertThrows(
+        CartNotFoundException.class,
+        () -> checkoutQuoteService.quote(1L, new CheckoutQuoteRequestDto("01310-100", null)));
+  }
+
+  @Test
+  void shouldRejectDiscountAboveSubtotal() {
+    when(cartRepository.findActiveCartsWithProductsByClientId(1L)).thenReturn(List.of(cart));
+
+    assertThrows(
+        InvalidDiscountException.class,
+        () ->
+            checkoutQuoteService.quote(
+                1L, new CheckoutQuoteRequestDto("01310-100", new BigDecimal("500.00"))));
+    verifyNoInteractions(shippingService);
+  }
+
+  @Test
+  void shouldRedeemTokenForSameCartZipAndDiscount() {
+    String token = issueToken(BigDecimal.ZERO);
+
+    CheckoutQuote quote = checkoutQuoteService.redeem(token, cart, "01310100", BigDecimal.ZERO);
+
+    assertEquals(new BigDecimal("240.00"), quote.subtotal());
+    assertEquals(new BigDecimal("60.00"), quote.shippingCost());
+  }
+
+  @Test
+  void shouldRejectTokenWhenPriceChangedAfterQuote() {
+    String token = issueToken(BigDecimal.ZERO);
+    product.setPrice(new BigDecimal("90.00"));
+
+    assertThrows(
+        BadRequestException.class,
+        () -> checkoutQuoteService.redeem(token, cart, "01310-100", BigDecimal.ZERO));
+  }
+
+  @Test
+  void shouldRejectTokenForDifferentZipOrDiscount() {
+    String token = issueToken(BigDecimal.ZERO);
+
+    assertThrows(
+        BadRequestException.class,
+        () -> checkoutQuoteService.redeem(token, cart, "20040-002", BigDecimal.ZERO));
+    assertThrows(
+        BadRequestException.class,
+        () -> checkoutQuoteService.redeem(token, cart, "01310-100", BigDecimal.ONE));
+  }
+
+  @Test
+  void shouldRejectTamperedOrForeignToken() {
+    String token = issueToken(BigDecimal.ZERO);
+    CheckoutQuoteTokenService otherKey =
+        new CheckoutQuoteTokenService("another-secret-of-32-bytes-or-more", Duration.ofMinutes(10));
+    String foreign =
+        otherKey.sign(
+            otherKey.issue(
+                10L,
+                1L,
+                "01310100",
+                new BigDecimal("240.00"),
+                BigDecimal.ZERO,
+                BigDecimal.ZERO,
+                CheckoutQuoteService.fingerprint(cart.getItems())));
+
+    assertThrows(
+        BadRequestException.class,
+        () -> checkoutQuoteService.redeem(token + "x", cart, "01310-100", BigDecimal.ZERO));
+    assertThrows(
+        BadRequestException.class,
+        () -> checkoutQuoteService.redeem(foreign, cart, "01310-100", BigDecimal.ZERO));
+  }
+
+  private String issueToken(BigDecimal discount) {
+    when(cartRepository.findActiveCartsWithProductsByClientId(1L)).thenReturn(List.of(cart));
+    when(shippingService.getShippingCost(eq("01310100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
+    return checkoutQuoteService
+        .quote(1L, new CheckoutQuoteRequestDto("01310-100", discount))
+        .quoteToken();
+  }
+}
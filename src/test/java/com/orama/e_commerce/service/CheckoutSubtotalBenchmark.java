@@ -0,0 +1,52 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.models.CartItem;
+import com.orama.e_commerce.models.Product;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Subtotal do carrinho (BigDecimal) que o OrderService e a cotacao de checkout usam.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutSubtotalBenchmark {
+
+  @Param({"3", "20"})
+  public int items;
+
+  private List<CartItem> cartItems;
+
+  @Setup
+  public void setUp() {
+    cartItems = new ArrayList<>();
+    for (int i = 0; i < items; i++) {
+      Product product = new Product((long) i + 1);
+      product.setPrice(new BigDecimal("89.90").add(BigDecimal.valueOf(i)));
+      CartItem item = new CartItem((long) i + 1);
+      item.setProduct(product);
+      item.setQuantity(i % 3 + 1);
+      cartItems.add(item);
+    }
+  }
+
+  @Benchmark
+  public BigDecimal calculateSubtotal() {
+    return CheckoutQuoteService.calculateSubtotal(cartItems);
+  }
+}
@@ -14,6 +14,7 @@ import com.orama.e_commerce.exceptions.client.*;
 import com.orama.e_commerce.mapper.ClientMapper;
 import com.orama.e_commerce.models.Client;
 import com.orama.e_commerce.repository.ClientRepository;
+import com.orama.e_commerce.security.AuthenticatedPrincipalCache;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,6 +35,7 @@ class ClientServiceTest {
   @Mock private ClientRepository clientRepository;
   @Mock private ClientMapper clientMapper;
   @Mock private PasswordEncoder passwordEncoder;
+  @Mock private AuthenticatedPrincipalCache authenticatedPrincipalCache;
 
   @InjectMocks private ClientService clientService;
 
@@ -186,6 +188,7 @@ class ClientServiceTest {
     assertNotNull(result);
     verify(clientMapper).updateDto(updateRequestDto, client);
     verify(clientRepository).save(client);
+    verify(authenticatedPrincipalCache).invalidateUser("joao@email.com");
   }
 
   @Test
@@ -246,6 +249,7 @@ class ClientServiceTest {
 
     assertFalse(client.getActive());
     verify(clientRepository).save(client);
+    verify(authenticatedPrincipalCache).invalidateUser("joao@email.com");
   }
 
   @Test
@@ -0,0 +1,96 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderLogoDetailRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderResponseDto;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
+import com.orama.e_commerce.dtos.pagination.CursorPageResponseDto;
+import com.orama.e_commerce.enums.CustomOrderStatus;
+import com.orama.e_commerce.enums.LogoPosition;
+import com.orama.e_commerce.enums.LogoTechnique;
+import com.orama.e_commerce.mapper.CustomOrderMapper;
+import com.orama.e_commerce.repository.ClientRepository;
+import com.orama.e_commerce.repository.CustomOrderRepository;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CustomOrderServiceTest {
+
+  private static final CustomOrderSearchFilter FILTER =
+      new CustomOrderSearchFilter(CustomOrderStatus.SUBMITTED, null, null, null);
+
+  @Mock private CustomOrderRepository customOrderRepository;
+  @Mock private ClientRepository clientRepository;
+  @Mock private CustomOrderMapper customOrderMapper;
+  @Mock private R2StorageService r2StorageService;
+  @Mock private OrderNumberGenerator orderNumberGenerator;
+
+  @InjectMocks private CustomOrderService customOrderService;
+
+  @Test
+  void shouldListPageWithLogoDetailsInOneExtraQuery() {
+    CustomOrderListingRow first = row(12L);
+    CustomOrderListingRow second = row(11L);
+    CustomOrderLogoDetailRow detail =
+        new CustomOrderLogoDetailRow(12L, LogoPosition.FRENTE, LogoTechnique.BORDADO);
+    CustomOrderResponseDto dto = mock(CustomOrderResponseDto.class);
+    when(customOrderRepository.searchListingPage(FILTER, Long.MAX_VALUE, 2))
+        .thenReturn(List.of(first, second));
+    when(customOrderRepository.findLogoDetailRows(List.of(12L))).thenReturn(List.of(detail));
+    when(customOrderMapper.toResponseDto(first, List.of(detail))).thenReturn(dto);
+
+    CursorPageResponseDto<CustomOrderResponseDto> result =
+        customOrderService.getAllOrders(FILTER, null, 1);
+
+    assertEquals(List.of(dto), result.content());
+    assertTrue(result.hasNext());
+    assertEquals(12L, result.nextCursor());
+    verify(customOrderRepository, never()).findAll();
+  }
+
+  @Test
+  void shouldSkipLogoQueryWhenPageIsEmpty() {
+    when(customOrderRepository.searchListingPage(FILTER, 5L, 21)).thenReturn(List.of());
+
+    CursorPageResponseDto<CustomOrderResponseDto> result =
+        customOrderService.getAllOrders(FILTER, 5L, 20);
+
+    assertTrue(result.content().isEmpty());
+    assertNull(result.nextCursor());
+    verify(customOrderRepository, never()).findLogoDetailRows(any());
+  }
+
+  private static CustomOrderListingRow row(Long id) {
+    return new CustomOrderListingRow(
+        id,
+        "CUST-" + id,
+        3L,
+        "Cliente",
+        null,
+        null,
+        null,
+        false,
+        false,
+        null,
+        null,
+        null,
+        null,
+        null,
+        10,
+        null,
+        null,
+        null,
+        null,
+        CustomOrderStatus.SUBMITTED,
+        Instant.parse("2025-01-01T10:00:00Z"));
+  }
+}
@@ -0,0 +1,191 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.orama.e_commerce.events.email.EmailQueuedEvent;
+import com.orama.e_commerce.models.EmailOutboxEntry;
+import com.orama.e_commerce.repository.EmailOutboxRepository;
+import com.orama.e_commerce.service.fake.FakeMailSender;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+  @Mock EmailOutboxRepository outboxRepository;
+  @Mock ApplicationEventPublisher eventPublisher;
+
+  FakeMailSender mailSender;
+  EmailService emailService;
+  EmailOutboxDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() {
+    mailSender = new FakeMailSender();
+    emailService = new EmailService(outboxRepository, mailSender, eventPublisher);
+    dispatcher =
+        new EmailOutboxDispatcher(
+            emailService,
+            outboxRepository,
+            2,
+            8,
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(5),
+            Duration.ofDays(7));
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  @DisplayName("Enfileira o email renderizado, descarta o pendente anterior e sinaliza o sender")
+  void enqueuePasswordResetEmail_savesRenderedEmailAndSignals() {
+    when(outboxRepository.save(any(EmailOutboxEntry.class)))
+        .thenAnswer(
+            invocation -> {
+              EmailOutboxEntry saved = invocation.getArgument(0);
+              ReflectionTestUtils.setField(saved, "id", 42L);
+              return saved;
+            });
+    Instant expiresAt = Instant.now().plus(30, ChronoUnit.MINUTES);
+
+    emailService.enqueuePasswordResetEmail(
+        "ana@test.com", "Ana <b>", "https://loja/redefinir-senha?token=abc", 30, expiresAt);
+
+    ArgumentCaptor<EmailOutboxEntry> captor = ArgumentCaptor.forClass(EmailOutboxEntry.class);
+    verify(outboxRepository).discardPending(EmailService.PASSWORD_RESET, "ana@test.com");
+    verify(outboxRepository).save(captor.capture());
+    EmailOutboxEntry entry = captor.getValue();
+    assertThat(entry.getRecipient()).isEqualTo("ana@test.com");
+    assertThat(entry.getExpiresAt()).isEqualTo(expiresAt);
+    assertThat(entry.getBody())
+        .contains("Ana &lt;b&gt;")
+        .contains("href=\"https://loja/redefinir-senha?token=abc\"")
+        .contains("<strong>30 minutos</strong>")
+        .doesNotContain("{{");
+    verify(eventPublisher).publishEvent(new EmailQueuedEvent(42L));
+  }
+
+  @Test
+  @DisplayName("Lote inteiro sai por uma unica conexao SMTP e fica SENT")
+  void sendBatch_allAccepted_usesOneConnectionAndMarksSent() {
+    dispatcher.sendBatch(List.of(entry(1L, "a@test.com"), entry(2L, "b@test.com")));
+
+    assertThat(mailSender.getConnectionCount()).isEqualTo(1);
+    assertThat(mailSender.getDelivered()).hasSize(2);
+    verify(outboxRepository).markSent(eq(List.of(1L, 2L)), any(Instant.class));
+    assertThat(dispatcher.sentCount()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Falha transiente de um destinatario: so ele volta para a fila")
+  void sendBatch_transientFailure_reschedulesOnlyFailedMessage() {
+    mailSender.failTemporarily("b@test.com");
+
+    dispatcher.sendBatch(List.of(entry(1L, "a@test.com"), entry(2L, "b@test.com")));
+
+    verify(outboxRepository).markSent(eq(List.of(1L)), any(Instant.class));
+    verify(outboxRepository).reschedule(eq(2L), any(Instant.class), eq(30L), eq(8), anyString());
+    verify(outboxRepository, never()).markDead(anyLong(), anyString());
+    assertThat(dispatcher.failedCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Destinatario recusado pelo servidor: vai para DEAD sem nova tentativa")
+  void sendBatch_rejectedRecipient_marksDead() {
+    mailSender.rejectRecipient("ghost@test.com");
+
+    dispatcher.sendBatch(List.of(entry(1L, "ghost@test.com")));
+
+    verify(outboxRepository).markDead(eq(1L), anyString());
+    verify(outboxRepository, never())
+        .reschedule(anyLong(), any(Instant.class), anyLong(), anyInt(), anyString());
+    assertThat(dispatcher.deadCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Servidor fora do ar: lote inteiro volta para a fila com backoff")
+  void sendBatch_connectionDown_reschedulesAll() {
+    mailSender.setConnectionDown(true);
+
+    dispatcher.sendBatch(List.of(entry(1L, "a@test.com"), entry(2L, "b@test.com")));
+
+    verify(outboxRepository, never()).markSent(anyCollection(), any(Instant.class));
+    verify(outboxRepository).reschedule(eq(1L), any(Instant.class), eq(30L), eq(8), anyString());
+    verify(outboxRepository).reschedule(eq(2L), any(Instant.class), eq(30L), eq(8), anyString());
+  }
+
+  @Test
+  @DisplayName("Link ja vencido: descarta sem abrir conexao")
+  void sendBatch_expiredEmail_marksDeadWithoutSending() {
+    EmailOutboxEntry expired =
+        new EmailOutboxEntry(
+            EmailService.PASSWORD_RESET,
+            "a@test.com",
+            "Assunto",
+            "<p>oi</p>",
+            Instant.now().minusSeconds(1),
+            Instant.now().minus(1, ChronoUnit.HOURS));
+    ReflectionTestUtils.setField(expired, "id", 5L);
+
+    dispatcher.sendBatch(List.of(expired));
+
+    assertThat(mailSender.getConnectionCount()).isZero();
+    verify(outboxRepository).markDead(eq(5L), anyString());
+  }
+
+  @Test
+  @DisplayName("Lote cheio: busca o proximo ate vir um lote menor")
+  void drain_fullBatch_claimsNextBatch() {
+    when(outboxRepository.lockDueIds(any(Instant.class), anyInt()))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(outboxRepository.findAllByIdInOrderByIdAsc(List.of(1L, 2L)))
+        .thenReturn(List.of(entry(1L, "a@test.com"), entry(2L, "b@test.com")));
+    when(outboxRepository.findAllByIdInOrderByIdAsc(List.of(3L)))
+        .thenReturn(List.of(entry(3L, "c@test.com")));
+
+    int processed = dispatcher.drain();
+
+    assertThat(processed).isEqualTo(3);
+    assertThat(mailSender.getConnectionCount()).isEqualTo(2);
+    verify(outboxRepository).claim(eq(List.of(1L, 2L)), any(Instant.class));
+    verify(outboxRepository).markSent(eq(List.of(3L)), any(Instant.class));
+  }
+
+  private EmailOutboxEntry entry(Long id, String recipient) {
+    Instant now = Instant.now();
+    EmailOutboxEntry entry =
+        new EmailOutboxEntry(
+            EmailService.PASSWORD_RESET,
+            recipient,
+            "Redefinição de Senha",
+            "<p>oi</p>",
+            now.plus(30, ChronoUnit.MINUTES),
+            now);
+    ReflectionTestUtils.setField(entry, "id", id);
+    return entry;
+  }
+}
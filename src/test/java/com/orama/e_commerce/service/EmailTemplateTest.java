@@ -0,0 +1,54 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class EmailTemplateTest {
+
+  @Test
+  @DisplayName("Substitui os marcadores escapando os valores")
+  void render_replacesPlaceholdersEscapingValues() {
+    EmailTemplate template =
+        EmailTemplate.compile(
+            "teste", "<p>Olá, {{ name }}!</p><a href=\"{{link}}\">{{link}}</a>");
+
+    String html =
+        template.render(Map.of("name", "<script>João</script>", "link", "https://x?a=1"));
+
+    assertThat(html)
+        .isEqualTo(
+            "<p>Olá, &lt;script&gt;João&lt;/script&gt;!</p>"
+                + "<a href=\"https://x?a=1\">https://x?a=1</a>");
+  }
+
+  @Test
+  @DisplayName("Variavel sem valor: falha em vez de mandar o marcador cru")
+  void render_missingValue_throws() {
+    EmailTemplate template = EmailTemplate.compile("teste", "<p>{{name}}</p>");
+
+    assertThatThrownBy(() -> template.render(Map.of()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("name");
+  }
+
+  @Test
+  @DisplayName("Marcador sem fechamento e recusado na compilacao")
+  void compile_unclosedPlaceholder_throws() {
+    assertThatThrownBy(() -> EmailTemplate.compile("teste", "<p>{{name</p>"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("Template de redefinicao de senha carrega do classpath")
+  void load_passwordResetTemplate() {
+    String html =
+        EmailTemplate.load("templates/email/password-reset.html")
+            .render(Map.of("name", "Ana", "resetLink", "https://x", "expiresInMinutes", "30"));
+
+    assertThat(html).contains("Olá, <strong>Ana</strong>").doesNotContain("{{");
+  }
+}
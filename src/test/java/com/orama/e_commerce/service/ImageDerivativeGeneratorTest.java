@@ -0,0 +1,110 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ImageDerivativeGeneratorTest {
+
+  private final ImageDerivativeGenerator generator =
+      new ImageDerivativeGenerator(new int[] {1600, 320, 640}, 0.8f, 40_000_000);
+
+  @Test
+  @DisplayName("Foto opaca: JPEG nas larguras menores que a original, sem ampliar")
+  void generate_opaqueImage_jpegVariantsWithoutUpscaling() throws IOException {
+    byte[] png = encode(image(1000, 500, BufferedImage.TYPE_INT_RGB), "png");
+
+    ImageDerivativeGenerator.Result result = generator.generate(stream(png)).orElseThrow();
+
+    assertThat(result.format()).isEqualTo("jpg");
+    assertThat(result.contentType()).isEqualTo("image/jpeg");
+    assertThat(result.widths()).containsExactly(320, 640);
+    BufferedImage small = ImageIO.read(stream(result.variants().get(0).content()));
+    assertThat(small.getWidth()).isEqualTo(320);
+    assertThat(small.getHeight()).isEqualTo(160);
+  }
+
+  @Test
+  @DisplayName("Imagem com transparencia: variantes em PNG, preservando o canal alfa")
+  void generate_transparentImage_pngVariants() throws IOException {
+    byte[] png = encode(image(800, 800, BufferedImage.TYPE_INT_ARGB), "png");
+
+    ImageDerivativeGenerator.Result result = generator.generate(stream(png)).orElseThrow();
+
+    assertThat(result.format()).isEqualTo("png");
+    BufferedImage variant = ImageIO.read(stream(result.variants().get(1).content()));
+    assertThat(variant.getWidth()).isEqualTo(640);
+    assertThat(variant.getColorModel().hasAlpha()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Com o plugin WebP: mesmas larguras tambem em WebP, ao lado do fallback")
+  void generate_webpEnabled_webpVariantsAlongsideFallback() throws IOException {
+    ImageDerivativeGenerator withWebp =
+        new ImageDerivativeGenerator(new int[] {320, 640}, 0.8f, 40_000_000, true, 0.75f);
+    assumeTrue(withWebp.webpEnabled(), "plugin WebP do ImageIO indisponivel");
+    byte[] png = encode(image(1000, 500, BufferedImage.TYPE_INT_RGB), "png");
+
+    ImageDerivativeGenerator.Result result = withWebp.generate(stream(png)).orElseThrow();
+
+    assertThat(result.format()).isEqualTo("jpg");
+    assertThat(result.webpVariants())
+        .extracting(ImageDerivativeGenerator.Variant::width)
+        .containsExactly(320, 640);
+    BufferedImage webp = ImageIO.read(stream(result.webpVariants().get(0).content()));
+    assertThat(webp.getWidth()).isEqualTo(320);
+  }
+
+  @Test
+  @DisplayName("WebP desligado: so o fallback em JPEG/PNG")
+  void generate_webpDisabled_noWebpVariants() throws IOException {
+    byte[] png = encode(image(1000, 500, BufferedImage.TYPE_INT_RGB), "png");
+
+    ImageDerivativeGenerator.Result result = generator.generate(stream(png)).orElseThrow();
+
+    assertThat(result.hasWebp()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Arquivo que nao e imagem: sem variantes")
+  void generate_notAnImage_empty() throws IOException {
+    assertThat(generator.generate(stream("<svg/>".getBytes()))).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Dimensoes acima do limite: recusa antes de decodificar os pixels")
+  void generate_tooManyPixels_empty() throws IOException {
+    ImageDerivativeGenerator strict = new ImageDerivativeGenerator(new int[] {320}, 0.8f, 10_000);
+    byte[] png = encode(image(1000, 500, BufferedImage.TYPE_INT_RGB), "png");
+
+    assertThat(strict.generate(stream(png))).isEmpty();
+  }
+
+  private static BufferedImage image(int width, int height, int type) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(new Color(200, 40, 40, type == BufferedImage.TYPE_INT_ARGB ? 128 : 255));
+    graphics.fillRect(0, 0, width / 2, height);
+    graphics.dispose();
+    return image;
+  }
+
+  private static byte[] encode(BufferedImage image, String format) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ImageIO.write(image, format, output);
+    return output.toByteArray();
+  }
+
+  private static ByteArrayInputStream stream(byte[] content) {
+    return new ByteArrayInputStream(content);
+  }
+}
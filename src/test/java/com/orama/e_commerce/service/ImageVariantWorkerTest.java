@@ -0,0 +1,120 @@
+package com.orama.e_commerce.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.orama.e_commerce.enums.ImageVariantStatus;
+import com.orama.e_commerce.exceptions.StorageException;
+import com.orama.e_commerce.models.MediaLibrary;
+import com.orama.e_commerce.repository.MediaLibraryRepository;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantWorkerTest {
+
+  @Mock MediaLibraryRepository mediaLibraryRepository;
+  @Mock MediaLibraryService mediaLibraryService;
+  @Mock R2StorageService r2StorageService;
+
+  ImageVariantWorker worker;
+  MediaLibrary media;
+
+  @BeforeEach
+  void setUp() {
+    worker =
+        new ImageVariantWorker(
+            mediaLibraryRepository,
+            mediaLibraryService,
+            r2StorageService,
+            new int[] {320, 640, 1600},
+            0.8f,
+            40_000_000,
+            false,
+            0.75f,
+            1,
+            10,
+            Duration.ofMinutes(2),
+            50);
+    media = new MediaLibrary();
+    media.setId(7L);
+    media.setFilename("abc.png");
+    media.setUrl("https://cdn/abc.png");
+    when(mediaLibraryRepository.findById(7L)).thenReturn(Optional.of(media));
+  }
+
+  @AfterEach
+  void tearDown() {
+    worker.shutdown();
+  }
+
+  @Test
+  @DisplayName("Gera as variantes com keys deterministicas e marca a midia como READY")
+  void process_image_uploadsVariantsAndMarksReady() throws IOException {
+    when(r2StorageService.open("abc.png")).thenReturn(new ByteArrayInputStream(jpeg(1000, 750)));
+
+    worker.process(7L);
+
+    verify(r2StorageService).put(eq("abc-w320.jpg"), any(byte[].class), eq("image/jpeg"));
+    verify(r2StorageService).put(eq("abc-w640.jpg"), any(byte[].class), eq("image/jpeg"));
+    verify(r2StorageService, never()).put(eq("abc-w1600.jpg"), any(byte[].class), anyString());
+    verify(mediaLibraryService)
+        .applyVariants(media, ImageVariantStatus.READY, "jpg", "320,640", false);
+  }
+
+  @Test
+  @DisplayName("Arquivo que nao e imagem: marca SKIPPED sem subir nada")
+  void process_notAnImage_marksSkipped() {
+    when(r2StorageService.open("abc.png")).thenReturn(new ByteArrayInputStream("%PDF-".getBytes()));
+
+    worker.process(7L);
+
+    verify(r2StorageService, never()).put(anyString(), any(byte[].class), anyString());
+    verify(mediaLibraryService)
+        .applyVariants(eq(media), eq(ImageVariantStatus.SKIPPED), isNull(), isNull(), eq(false));
+  }
+
+  @Test
+  @DisplayName("Falha ao ler do R2: continua PENDING para a proxima varredura")
+  void process_storageFailure_keepsPending() {
+    when(r2StorageService.open("abc.png")).thenThrow(new StorageException("R2 fora"));
+
+    worker.process(7L);
+
+    verify(mediaLibraryService, never()).applyVariants(any(), any(), any(), any(), anyBoolean());
+  }
+
+  @Test
+  @DisplayName("Midia ja processada: nao gera de novo")
+  void process_alreadyReady_skips() {
+    media.setVariantStatus(ImageVariantStatus.READY);
+
+    worker.process(7L);
+
+    verify(r2StorageService, never()).open(anyString());
+  }
+
+  private static byte[] jpeg(int width, int height) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", output);
+    return output.toByteArray();
+  }
+}
@@ -0,0 +1,146 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderListingRow;
+import com.orama.e_commerce.dtos.custom_order.CustomOrderSearchFilter;
+import com.orama.e_commerce.dtos.order.OrderListingRow;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import com.orama.e_commerce.enums.CapLine;
+import com.orama.e_commerce.enums.CustomOrderStatus;
+import com.orama.e_commerce.enums.ExportFormat;
+import com.orama.e_commerce.enums.OrderStatus;
+import com.orama.e_commerce.repository.CustomOrderRepository;
+import com.orama.e_commerce.repository.OrderRepository;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ListingExportServiceTest {
+
+  private static final int PAGE = ListingExportService.EXPORT_PAGE_SIZE;
+
+  @Mock private OrderRepository orderRepository;
+  @Mock private CustomOrderRepository customOrderRepository;
+
+  private ListingExportService listingExportService;
+  private OrderSearchFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    listingExportService =
+        new ListingExportService(
+            orderRepository, customOrderRepository, new ObjectMapper().findAndRegisterModules());
+    filter = new OrderSearchFilter(OrderStatus.PENDING, null, null, null);
+  }
+
+  @Test
+  void shouldWalkKeysetPagesUntilShortPage() throws Exception {
+    List<OrderListingRow> firstPage =
+        LongStream.range(0, PAGE).mapToObj(i -> orderRow(2000L - i, "Cliente")).toList();
+    long lastId = 2000L - PAGE + 1;
+    when(orderRepository.searchListingPage(filter, Long.MAX_VALUE, PAGE)).thenReturn(firstPage);
+    when(orderRepository.searchListingPage(filter, lastId, PAGE))
+        .thenReturn(List.of(orderRow(7L, "Cliente")));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    long exported = listingExportService.exportOrders(filter, ExportFormat.CSV, output);
+
+    assertEquals(PAGE + 1L, exported);
+    String[] lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+    assertEquals(PAGE + 2, lines.length);
+    assertTrue(lines[0].startsWith("id,orderNumber,orderDate,status,"));
+    assertTrue(lines[PAGE + 1].startsWith("7,ORD-7,"));
+    verify(orderRepository, times(2)).searchListingPage(eq(filter), anyLong(), eq(PAGE));
+  }
+
+  @Test
+  void shouldEscapeCsvValues() throws Exception {
+    when(orderRepository.searchListingPage(filter, Long.MAX_VALUE, PAGE))
+        .thenReturn(List.of(orderRow(1L, "Silva, \"Ze\""), orderRow(2L, "=HYPERLINK(1)")));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    listingExportService.exportOrders(filter, ExportFormat.CSV, output);
+
+    String csv = output.toString(StandardCharsets.UTF_8);
+    assertTrue(csv.contains(",\"Silva, \"\"Ze\"\"\","));
+    assertTrue(csv.contains(",'=HYPERLINK(1),"));
+  }
+
+  @Test
+  void shouldWriteOneJsonObjectPerLine() throws Exception {
+    CustomOrderSearchFilter customFilter =
+        new CustomOrderSearchFilter(CustomOrderStatus.DRAFT, null, null, 3L);
+    when(customOrderRepository.searchListingPage(customFilter, Long.MAX_VALUE, PAGE))
+        .thenReturn(List.of(customRow(11L), customRow(10L)));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    long exported =
+        listingExportService.exportCustomOrders(customFilter, ExportFormat.NDJSON, output);
+
+    assertEquals(2, exported);
+    String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("{\"id\":11,\"orderNumber\":\"CUST-11\""));
+    assertTrue(lines[1].contains("\"status\":\"DRAFT\""));
+  }
+
+  private static OrderListingRow orderRow(Long id, String clientName) {
+    return new OrderListingRow(
+        id,
+        "ORD-" + id,
+        Instant.parse("2025-01-01T10:00:00Z"),
+        OrderStatus.PENDING,
+        new BigDecimal("100.00"),
+        BigDecimal.ZERO,
+        new BigDecimal("60.00"),
+        new BigDecimal("160.00"),
+        "01310100",
+        1L,
+        clientName,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+
+  private static CustomOrderListingRow customRow(Long id) {
+    return new CustomOrderListingRow(
+        id,
+        "CUST-" + id,
+        3L,
+        "Cliente",
+        CapLine.PREMIUM,
+        null,
+        null,
+        false,
+        false,
+        null,
+        "preto",
+        null,
+        null,
+        null,
+        50,
+        null,
+        null,
+        null,
+        null,
+        CustomOrderStatus.DRAFT,
+        Instant.parse("2025-01-01T10:00:00Z"));
+  }
+}
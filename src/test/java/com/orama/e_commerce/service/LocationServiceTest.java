@@ -1,11 +1,22 @@
 package com.orama.e_commerce.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.ExpectedCount.once;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 import com.orama.e_commerce.dtos.location.CepLookupResponseDto;
 import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.models.CepCacheEntry;
+import com.orama.e_commerce.repository.CepCacheEntryRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
@@ -14,14 +25,32 @@ import org.springframework.web.client.RestClient;
 
 class LocationServiceTest {
 
+  private static BrazilianLocationIndex locationIndex;
+
   private MockRestServiceServer server;
+  private CepCacheEntryRepository cepCacheEntryRepository;
   private LocationService locationService;
 
+  @BeforeAll
+  static void loadIndex() {
+    locationIndex = new BrazilianLocationIndex();
+  }
+
   @BeforeEach
   void setUp() {
     RestClient.Builder builder = RestClient.builder();
     server = MockRestServiceServer.bindTo(builder).build();
-    locationService = new LocationService(builder);
+    cepCacheEntryRepository = mock(CepCacheEntryRepository.class);
+    CepResolver cepResolver =
+        new CepResolver(
+            builder,
+            cepCacheEntryRepository,
+            locationIndex,
+            100,
+            1000,
+            Duration.ofDays(90),
+            Duration.ofHours(1));
+    locationService = new LocationService(cepResolver, locationIndex);
   }
 
   @Test
@@ -52,6 +81,73 @@ class LocationServiceTest {
     assertEquals("SP", result.stateUf());
     assertEquals("BR", result.countryCode());
     assertEquals("3550308", result.ibgeCode());
+    verify(cepCacheEntryRepository)
+        .upsert(
+            eq("01234567"),
+            eq("Rua das Flores"),
+            eq("Centro"),
+            eq("Sao Paulo"),
+            eq("SP"),
+            eq("3550308"),
+            any(Instant.class));
+    server.verify();
+  }
+
+  @Test
+  void shouldServeRepeatedLookupFromMemory() {
+    server
+        .expect(once(), requestTo("https://viacep.com.br/ws/01310100/json/"))
+        .andRespond(
+            withSuccess(
+                """
+                {"logradouro": "Avenida Paulista", "bairro": "Bela Vista",
+                 "localidade": "São Paulo", "uf": "SP", "ibge": "3550308"}
+                """,
+                MediaType.APPLICATION_JSON));
+
+    CepLookupResponseDto first = locationService.lookupCep("01310-100");
+    CepLookupResponseDto second = locationService.lookupCep("01310100");
+
+    assertEquals(first, second);
+    verify(cepCacheEntryRepository, times(1)).findById("01310100");
+    server.verify();
+  }
+
+  @Test
+  void shouldServeLookupFromPersistentCacheWithoutRemoteCall() {
+    CepCacheEntry entry = new CepCacheEntry();
+    entry.setZipCode("01310100");
+    entry.setStreet("Avenida Paulista");
+    entry.setDistrict("Bela Vista");
+    entry.setCityName("São Paulo");
+    entry.setStateUf("SP");
+    entry.setIbgeCode("3550308");
+    entry.setFetchedAt(Instant.now().minus(Duration.ofDays(1)));
+    when(cepCacheEntryRepository.findById("01310100")).thenReturn(Optional.of(entry));
+
+    CepLookupResponseDto result = locationService.lookupCep("01310-100");
+
+    assertEquals("Avenida Paulista", result.street());
+    assertEquals("3550308", result.ibgeCode());
+    verify(cepCacheEntryRepository).touch(eq("01310100"), any(Instant.class));
+    server.verify();
+  }
+
+  @Test
+  void shouldFallBackToStaleEntryWhenViaCepIsDown() {
+    CepCacheEntry entry = new CepCacheEntry();
+    entry.setZipCode("01310100");
+    entry.setCityName("São Paulo");
+    entry.setStateUf("SP");
+    entry.setFetchedAt(Instant.now().minus(Duration.ofDays(120)));
+    when(cepCacheEntryRepository.findById("01310100")).thenReturn(Optional.of(entry));
+    server
+        .expect(requestTo("https://viacep.com.br/ws/01310100/json/"))
+        .andRespond(withServerError());
+
+    CepLookupResponseDto result = locationService.lookupCep("01310-100");
+
+    assertEquals("São Paulo", result.cityName());
     server.verify();
   }
 
@@ -63,10 +159,17 @@ class LocationServiceTest {
   @Test
   void shouldThrowWhenViaCepReturnsError() {
     server
-        .expect(requestTo("https://viacep.com.br/ws/99999999/json/"))
+        .expect(once(), requestTo("https://viacep.com.br/ws/99999999/json/"))
         .andRespond(withSuccess("{\"erro\": true}", MediaType.APPLICATION_JSON));
 
+    assertThrows(BadRequestException.class, () -> locationService.lookupCep("99999-999"));
     assertThrows(BadRequestException.class, () -> locationService.lookupCep("99999-999"));
     server.verify();
   }
+
+  @Test
+  void shouldFindIbgeCodeIgnoringAccents() {
+    assertEquals(Optional.of("3550308"), locationService.findIbgeCode("Sao Paulo", "sp"));
+    assertEquals(Optional.empty(), locationService.findIbgeCode("Cidade Inexistente", "SP"));
+  }
 }
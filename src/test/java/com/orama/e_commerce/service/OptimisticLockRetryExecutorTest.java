@@ -0,0 +1,77 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.orama.e_commerce.models.Order;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+class OptimisticLockRetryExecutorTest {
+
+  private final OptimisticLockRetryExecutor executor =
+      new OptimisticLockRetryExecutor(TransactionOperations.withoutTransaction(), 3, Duration.ZERO);
+
+  @Test
+  @DisplayName("Conflito de versao: repete ate o commit passar")
+  void execute_conflictThenSuccess_retries() {
+    AtomicInteger calls = new AtomicInteger();
+
+    String result =
+        executor.execute(
+            "teste",
+            () -> {
+              if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Order.class, 1L);
+              }
+              return "ok";
+            });
+
+    assertThat(result).isEqualTo("ok");
+    assertThat(calls).hasValue(3);
+    assertThat(executor.conflictCount()).isEqualTo(2);
+    assertThat(executor.exhaustedCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Conflito persistente: desiste apos o maximo de tentativas e propaga")
+  void execute_persistentConflict_rethrowsAfterMaxAttempts() {
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                executor.run(
+                    "teste",
+                    () -> {
+                      calls.incrementAndGet();
+                      throw new ObjectOptimisticLockingFailureException(Order.class, 1L);
+                    }))
+        .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+    assertThat(calls).hasValue(3);
+    assertThat(executor.exhaustedCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Erro de negocio nao e repetido")
+  void execute_otherException_doesNotRetry() {
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                executor.run(
+                    "teste",
+                    () -> {
+                      calls.incrementAndGet();
+                      throw new IllegalArgumentException("status invalido");
+                    }))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThat(calls).hasValue(1);
+    assertThat(executor.conflictCount()).isZero();
+  }
+}
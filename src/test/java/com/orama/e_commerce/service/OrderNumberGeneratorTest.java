@@ -0,0 +1,110 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.orama.e_commerce.repository.IdNodeLeaseRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OrderNumberGeneratorTest {
+
+  @Mock IdNodeLeaseRepository leaseRepository;
+
+  @Test
+  @DisplayName("Node id fixo: gera numeros sem tocar no banco")
+  void nextOrderNumber_fixedNodeId_skipsLease() {
+    OrderNumberGenerator generator =
+        new OrderNumberGenerator(leaseRepository, 7, Duration.ofMinutes(10));
+
+    String first = generator.nextOrderNumber();
+    String second = generator.nextCustomOrderNumber();
+
+    assertThat(first).startsWith("ORD-").hasSize(17);
+    assertThat(second).startsWith("CUST-").hasSize(18);
+    verifyNoInteractions(leaseRepository);
+  }
+
+  @Test
+  @DisplayName("Sem node id fixo: aluga um uma vez e reaproveita")
+  void nextOrderNumber_leasesNodeIdOnce() {
+    when(leaseRepository.claimFreeNode(anyString(), any(Instant.class), any(Instant.class)))
+        .thenReturn(1);
+    when(leaseRepository.findNodeIdByInstanceId(anyString())).thenReturn(Optional.of(42));
+    OrderNumberGenerator generator =
+        new OrderNumberGenerator(leaseRepository, -1, Duration.ofMinutes(10));
+
+    String first = generator.nextOrderNumber();
+    String second = generator.nextOrderNumber();
+
+    assertThat(second).isGreaterThan(first);
+    verify(leaseRepository, times(1))
+        .claimFreeNode(anyString(), any(Instant.class), any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Subida: aluga o node id antes do primeiro pedido e o heartbeat ja o renova")
+  void initialize_leasesNodeIdEagerly() {
+    when(leaseRepository.claimFreeNode(anyString(), any(Instant.class), any(Instant.class)))
+        .thenReturn(1);
+    when(leaseRepository.findNodeIdByInstanceId(anyString())).thenReturn(Optional.of(42));
+    when(leaseRepository.heartbeat(eq(42), anyString(), any(Instant.class))).thenReturn(1);
+    OrderNumberGenerator generator =
+        new OrderNumberGenerator(leaseRepository, -1, Duration.ofMinutes(10));
+
+    generator.initialize();
+    generator.heartbeat();
+    generator.nextOrderNumber();
+
+    verify(leaseRepository, times(1))
+        .claimFreeNode(anyString(), any(Instant.class), any(Instant.class));
+    verify(leaseRepository).heartbeat(eq(42), anyString(), any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Heartbeat sem lease: troca de node id")
+  void heartbeat_lostLease_reacquires() {
+    when(leaseRepository.claimFreeNode(anyString(), any(Instant.class), any(Instant.class)))
+        .thenReturn(1);
+    when(leaseRepository.findNodeIdByInstanceId(anyString()))
+        .thenReturn(Optional.of(42), Optional.of(43));
+    when(leaseRepository.heartbeat(eq(42), anyString(), any(Instant.class))).thenReturn(0);
+    OrderNumberGenerator generator =
+        new OrderNumberGenerator(leaseRepository, -1, Duration.ofMinutes(10));
+    generator.nextOrderNumber();
+
+    generator.heartbeat();
+    generator.releaseLease();
+
+    verify(leaseRepository, times(2))
+        .claimFreeNode(anyString(), any(Instant.class), any(Instant.class));
+    verify(leaseRepository).release(eq(43), anyString());
+  }
+
+  @Test
+  @DisplayName("Todos os node ids ocupados: falha explicita")
+  void nextOrderNumber_noFreeNode_throws() {
+    when(leaseRepository.claimFreeNode(anyString(), any(Instant.class), any(Instant.class)))
+        .thenReturn(0);
+    OrderNumberGenerator generator =
+        new OrderNumberGenerator(leaseRepository, -1, Duration.ofMinutes(10));
+
+    assertThatThrownBy(generator::nextOrderNumber).isInstanceOf(IllegalStateException.class);
+    verify(leaseRepository, times(0)).heartbeat(anyInt(), anyString(), any(Instant.class));
+  }
+}
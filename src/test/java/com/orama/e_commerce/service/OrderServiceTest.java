@@ -2,21 +2,28 @@ package com.orama.e_commerce.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import com.orama.e_commerce.dtos.order.CreateOrderRequestDto;
+import com.orama.e_commerce.dtos.order.OrderItemRow;
+import com.orama.e_commerce.dtos.order.OrderListingRow;
 import com.orama.e_commerce.dtos.order.OrderResponseDto;
+import com.orama.e_commerce.dtos.order.OrderSearchFilter;
+import com.orama.e_commerce.dtos.pagination.CursorPageResponseDto;
 import com.orama.e_commerce.enums.OrderStatus;
 import com.orama.e_commerce.exceptions.cart.CartNotFoundException;
 import com.orama.e_commerce.exceptions.order.InvalidDiscountException;
 import com.orama.e_commerce.exceptions.order.OrderNotFoundException;
+import com.orama.e_commerce.exceptions.product.InsufficientStockException;
 import com.orama.e_commerce.mapper.OrderMapper;
 import com.orama.e_commerce.models.*;
 import com.orama.e_commerce.repository.AddressRepository;
 import com.orama.e_commerce.repository.CartRepository;
 import com.orama.e_commerce.repository.OrderRepository;
+import com.orama.e_commerce.service.gateway.GatewayOrderResult;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,17 +34,30 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 
 @ExtendWith(MockitoExtension.class)
 class OrderServiceTest {
 
+  private static final OrderSearchFilter NO_FILTER = new OrderSearchFilter(null, null, null, null);
+
   @Mock private OrderRepository orderRepository;
   @Mock private CartRepository cartRepository;
   @Mock private AddressRepository addressRepository;
   @Mock private OrderMapper orderMapper;
   @Mock private ShippingService shippingService;
   @Mock private PaymentApplicationService paymentApplicationService;
+  @Mock private StockReservationService stockReservationService;
+  @Mock private CheckoutQuoteService checkoutQuoteService;
+  @Mock private OrderNumberGenerator orderNumberGenerator;
+
+  @Spy
+  private OptimisticLockRetryExecutor optimisticLockRetry =
+      new OptimisticLockRetryExecutor(TransactionOperations.withoutTransaction(), 3, Duration.ZERO);
 
   @InjectMocks private OrderService orderService;
 
@@ -118,14 +138,14 @@ class OrderServiceTest {
   @Test
   void shouldCreateOrder() {
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L);
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
     when(orderMapper.toEntity(requestDto)).thenReturn(order);
-    when(orderRepository.existsByOrderNumber(anyString())).thenReturn(false);
     when(orderRepository.save(any(Order.class))).thenReturn(order);
     when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
-    when(shippingService.getShippingCost("01310-100")).thenReturn(new BigDecimal("60.00"));
+    when(shippingService.getShippingCost(eq("01310-100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
     when(addressRepository.findById(1L)).thenReturn(Optional.of(address));
     when(addressRepository.existsByIdAndClientId(1L, 1L)).thenReturn(true);
 
@@ -134,19 +154,67 @@ class OrderServiceTest {
     assertNotNull(result);
     assertEquals("ORD-123", result.orderNumber());
     verify(orderRepository).save(any(Order.class));
+    verify(stockReservationService).hold(order);
+  }
+
+  @Test
+  void shouldCreateOrderFromQuoteTokenWithoutRecomputingShipping() {
+    CreateOrderRequestDto requestDto =
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", null, "quote-token");
+    CheckoutQuote quote =
+        new CheckoutQuote(
+            1L,
+            1L,
+            "01310100",
+            new BigDecimal("200.00"),
+            BigDecimal.ZERO,
+            new BigDecimal("45.00"),
+            "fingerprint",
+            Instant.now().plusSeconds(600));
+
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
+    when(orderMapper.toEntity(requestDto)).thenReturn(order);
+    when(checkoutQuoteService.redeem("quote-token", cart, "01310-100", BigDecimal.ZERO))
+        .thenReturn(quote);
+    when(orderRepository.save(any(Order.class))).thenReturn(order);
+    when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
+
+    orderService.createOrder(requestDto);
+
+    assertEquals(new BigDecimal("45.00"), order.getShippingCost());
+    assertEquals(new BigDecimal("245.00"), order.getTotal());
+    verifyNoInteractions(shippingService);
+  }
+
+  @Test
+  void shouldPropagateInsufficientStockWhenReservationFails() {
+    CreateOrderRequestDto requestDto =
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", null, null);
+
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
+    when(orderMapper.toEntity(requestDto)).thenReturn(order);
+    when(orderRepository.save(any(Order.class))).thenReturn(order);
+    when(shippingService.getShippingCost(eq("01310-100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
+    doThrow(new InsufficientStockException("Estoque insuficiente para o produto id: 1"))
+        .when(stockReservationService)
+        .hold(order);
+
+    assertThrows(InsufficientStockException.class, () -> orderService.createOrder(requestDto));
+    verify(orderMapper, never()).toResponseDto(any(Order.class));
   }
 
   @Test
   void shouldCreateOrderWithDiscount() {
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, new BigDecimal("50.00"), "01310-100", 1L);
+        new CreateOrderRequestDto(1L, new BigDecimal("50.00"), "01310-100", 1L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
     when(orderMapper.toEntity(requestDto)).thenReturn(order);
-    when(orderRepository.existsByOrderNumber(anyString())).thenReturn(false);
     when(orderRepository.save(any(Order.class))).thenReturn(order);
     when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
-    when(shippingService.getShippingCost("01310-100")).thenReturn(new BigDecimal("60.00"));
+    when(shippingService.getShippingCost(eq("01310-100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
     when(addressRepository.findById(1L)).thenReturn(Optional.of(address));
     when(addressRepository.existsByIdAndClientId(1L, 1L)).thenReturn(true);
 
@@ -159,9 +227,9 @@ class OrderServiceTest {
   @Test
   void shouldThrowCartNotFoundExceptionWhenCartNotFound() {
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(99L, BigDecimal.ZERO, "01310-100", 1L);
+        new CreateOrderRequestDto(99L, BigDecimal.ZERO, "01310-100", 1L, null);
 
-    when(cartRepository.findById(99L)).thenReturn(Optional.empty());
+    when(cartRepository.findByIdWithItemsAndProducts(99L)).thenReturn(Optional.empty());
 
     assertThrows(CartNotFoundException.class, () -> orderService.createOrder(requestDto));
   }
@@ -170,9 +238,9 @@ class OrderServiceTest {
   void shouldThrowIllegalArgumentExceptionWhenCartIsEmpty() {
     cart.setItems(new ArrayList<>());
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L);
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
 
     assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(requestDto));
   }
@@ -181,9 +249,9 @@ class OrderServiceTest {
   void shouldThrowIllegalArgumentExceptionWhenCartItemsIsNull() {
     cart.setItems(null);
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L);
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
 
     assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(requestDto));
   }
@@ -191,9 +259,9 @@ class OrderServiceTest {
   @Test
   void shouldThrowInvalidDiscountExceptionWhenDiscountExceedsSubtotal() {
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, new BigDecimal("300.00"), "01310-100", 1L);
+        new CreateOrderRequestDto(1L, new BigDecimal("300.00"), "01310-100", 1L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
     when(orderMapper.toEntity(requestDto)).thenReturn(order);
 
     assertThrows(InvalidDiscountException.class, () -> orderService.createOrder(requestDto));
@@ -202,12 +270,12 @@ class OrderServiceTest {
   @Test
   void shouldThrowIllegalArgumentExceptionWhenAddressNotFound() {
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 99L);
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 99L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
     when(orderMapper.toEntity(requestDto)).thenReturn(order);
-    when(orderRepository.existsByOrderNumber(anyString())).thenReturn(false);
-    when(shippingService.getShippingCost("01310-100")).thenReturn(new BigDecimal("60.00"));
+    when(shippingService.getShippingCost(eq("01310-100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
     when(addressRepository.findById(99L)).thenReturn(Optional.empty());
 
     assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(requestDto));
@@ -216,12 +284,12 @@ class OrderServiceTest {
   @Test
   void shouldThrowAccessDeniedWhenAddressDoesNotBelongToClient() {
     CreateOrderRequestDto requestDto =
-        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L);
+        new CreateOrderRequestDto(1L, BigDecimal.ZERO, "01310-100", 1L, null);
 
-    when(cartRepository.findById(1L)).thenReturn(Optional.of(cart));
+    when(cartRepository.findByIdWithItemsAndProducts(1L)).thenReturn(Optional.of(cart));
     when(orderMapper.toEntity(requestDto)).thenReturn(order);
-    when(orderRepository.existsByOrderNumber(anyString())).thenReturn(false);
-    when(shippingService.getShippingCost("01310-100")).thenReturn(new BigDecimal("60.00"));
+    when(shippingService.getShippingCost(eq("01310-100"), any(BigDecimal.class)))
+        .thenReturn(new BigDecimal("60.00"));
     when(addressRepository.findById(1L)).thenReturn(Optional.of(address));
     when(addressRepository.existsByIdAndClientId(1L, 1L)).thenReturn(false);
 
@@ -250,27 +318,62 @@ class OrderServiceTest {
   }
 
   @Test
-  void shouldGetAllOrders() {
-    when(orderRepository.findAll()).thenReturn(List.of(order));
-    when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
+  void shouldGetAllOrdersWithTwoQueriesPerPage() {
+    OrderListingRow first = listingRow(30L);
+    OrderListingRow second = listingRow(29L);
+    OrderListingRow lookahead = listingRow(28L);
+    OrderItemRow item = new OrderItemRow(30L, 1L, "Produto Teste", 2, new BigDecimal("100.00"));
+    when(orderRepository.searchListingPage(NO_FILTER, Long.MAX_VALUE, 3))
+        .thenReturn(List.of(first, second, lookahead));
+    when(orderRepository.findListingItems(List.of(30L, 29L))).thenReturn(List.of(item));
+    when(orderMapper.toResponseDto(first, List.of(item))).thenReturn(orderResponseDto);
+    when(orderMapper.toResponseDto(second, List.of())).thenReturn(orderResponseDto);
+
+    CursorPageResponseDto<OrderResponseDto> result = orderService.getAllOrders(NO_FILTER, null, 2);
+
+    assertEquals(2, result.content().size());
+    assertTrue(result.hasNext());
+    assertEquals(29L, result.nextCursor());
+    verify(orderRepository, never()).findAll();
+  }
 
-    List<OrderResponseDto> result = orderService.getAllOrders();
+  @Test
+  void shouldPassFiltersAndCursorToListingSearch() {
+    OrderSearchFilter filter =
+        new OrderSearchFilter(
+            OrderStatus.PAYMENT_CONFIRMED, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+    when(orderRepository.searchListingPage(filter, 40L, 21)).thenReturn(List.of());
 
-    assertNotNull(result);
-    assertEquals(1, result.size());
-    verify(orderRepository).findAll();
+    CursorPageResponseDto<OrderResponseDto> result = orderService.getAllOrders(filter, 40L, 20);
+
+    assertFalse(result.hasNext());
+    verify(orderRepository).searchListingPage(filter, 40L, 21);
   }
 
   @Test
-  void shouldGetOrdersByClient() {
-    when(orderRepository.findByClientId(1L)).thenReturn(List.of(order));
-    when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
+  void shouldGetOrdersByClientAfterCursor() {
+    OrderListingRow row = listingRow(5L);
+    when(orderRepository.findListingPageByClientId(eq(1L), eq(10L), any(Pageable.class)))
+        .thenReturn(List.of(row));
+    when(orderRepository.findListingItems(List.of(5L))).thenReturn(List.of());
+    when(orderMapper.toResponseDto(row, List.of())).thenReturn(orderResponseDto);
+
+    CursorPageResponseDto<OrderResponseDto> result = orderService.getOrdersByClient(1L, 10L, 20);
+
+    assertEquals(1, result.content().size());
+    assertFalse(result.hasNext());
+    assertNull(result.nextCursor());
+  }
+
+  @Test
+  void shouldSkipItemQueryWhenPageIsEmpty() {
+    when(orderRepository.searchListingPage(NO_FILTER, Long.MAX_VALUE, 101)).thenReturn(List.of());
 
-    List<OrderResponseDto> result = orderService.getOrdersByClient(1L);
+    CursorPageResponseDto<OrderResponseDto> result =
+        orderService.getAllOrders(NO_FILTER, null, 500);
 
-    assertNotNull(result);
-    assertEquals(1, result.size());
-    verify(orderRepository).findByClientId(1L);
+    assertTrue(result.content().isEmpty());
+    verify(orderRepository, never()).findListingItems(any());
   }
 
   @Test
@@ -321,6 +424,22 @@ class OrderServiceTest {
     verify(orderRepository).save(order);
   }
 
+  @Test
+  void shouldRereadAndRevalidateOrderWhenStatusUpdateLosesVersionRace() {
+    order.setStatus(OrderStatus.PAYMENT_CONFIRMED);
+    when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(orderRepository.save(order))
+        .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, 1L))
+        .thenReturn(order);
+    when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
+
+    OrderResponseDto result = orderService.updateOrderStatus(1L, OrderStatus.PROCESSING);
+
+    assertNotNull(result);
+    verify(orderRepository, times(2)).findById(1L);
+    verify(orderRepository, times(2)).save(order);
+  }
+
   @Test
   void shouldRejectManualFinancialOrCancellationStatusUpdate() {
     when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
@@ -383,6 +502,7 @@ class OrderServiceTest {
     assertNotNull(result);
     assertEquals(OrderStatus.CANCELLED, order.getStatus());
     verify(orderRepository).save(order);
+    verify(stockReservationService).release(1L);
     verifyNoInteractions(paymentApplicationService);
   }
 
@@ -403,8 +523,12 @@ class OrderServiceTest {
   @Test
   void shouldCancelRemotePaymentBeforeLocalCancel() {
     order.setPaymentId("MP-ORDER-123");
+    GatewayOrderResult remote =
+        new GatewayOrderResult("MP-ORDER-123", "canceled", "canceled", "pix");
     when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(paymentApplicationService.cancelOrRefundRemotePayment(order))
+    when(paymentApplicationService.cancelOrRefundRemotePayment(1L, "MP-ORDER-123"))
+        .thenReturn(remote);
+    when(paymentApplicationService.applyCancellationResult(remote))
         .thenReturn(OrderStatus.CANCELLED);
     when(orderRepository.save(any(Order.class))).thenReturn(order);
     when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
@@ -413,16 +537,21 @@ class OrderServiceTest {
 
     assertNotNull(result);
     assertEquals(OrderStatus.CANCELLED, order.getStatus());
-    verify(paymentApplicationService).cancelOrRefundRemotePayment(order);
+    verify(paymentApplicationService).cancelOrRefundRemotePayment(1L, "MP-ORDER-123");
     verify(orderRepository).save(order);
+    verify(stockReservationService).release(1L);
   }
 
   @Test
   void shouldRefundRemotePaymentBeforeLocalRefund() {
     order.setPaymentId("MP-ORDER-123");
     order.setStatus(OrderStatus.PAYMENT_CONFIRMED);
+    GatewayOrderResult remote =
+        new GatewayOrderResult("MP-ORDER-123", "refunded", "refunded", "visa");
     when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(paymentApplicationService.cancelOrRefundRemotePayment(order))
+    when(paymentApplicationService.cancelOrRefundRemotePayment(1L, "MP-ORDER-123"))
+        .thenReturn(remote);
+    when(paymentApplicationService.applyCancellationResult(remote))
         .thenReturn(OrderStatus.REFUNDED);
     when(orderRepository.save(any(Order.class))).thenReturn(order);
     when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
@@ -431,10 +560,35 @@ class OrderServiceTest {
 
     assertNotNull(result);
     assertEquals(OrderStatus.REFUNDED, order.getStatus());
-    verify(paymentApplicationService).cancelOrRefundRemotePayment(order);
+    verify(paymentApplicationService).cancelOrRefundRemotePayment(1L, "MP-ORDER-123");
     verify(orderRepository).save(order);
   }
 
+  @Test
+  void shouldRetryOnlyLocalApplyWhenVersionConflictsAfterRefund() {
+    order.setPaymentId("MP-ORDER-123");
+    order.setStatus(OrderStatus.PAYMENT_CONFIRMED);
+    GatewayOrderResult remote =
+        new GatewayOrderResult("MP-ORDER-123", "refunded", "refunded", "visa");
+    when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(paymentApplicationService.cancelOrRefundRemotePayment(1L, "MP-ORDER-123"))
+        .thenReturn(remote);
+    when(paymentApplicationService.applyCancellationResult(remote))
+        .thenReturn(OrderStatus.REFUNDED);
+    when(orderRepository.save(order))
+        .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, 1L))
+        .thenReturn(order);
+    when(orderMapper.toResponseDto(order)).thenReturn(orderResponseDto);
+
+    OrderResponseDto result = orderService.cancelOrder(1L, 1L);
+
+    assertNotNull(result);
+    assertEquals(OrderStatus.REFUNDED, order.getStatus());
+    verify(paymentApplicationService, times(1)).cancelOrRefundRemotePayment(1L, "MP-ORDER-123");
+    verify(paymentApplicationService, times(2)).applyCancellationResult(remote);
+    verify(stockReservationService, times(1)).release(1L);
+  }
+
   @Test
   void shouldNotCallRemoteAgainWhenOrderAlreadyRefunded() {
     order.setPaymentId("MP-ORDER-123");
@@ -464,4 +618,27 @@ class OrderServiceTest {
 
     assertThrows(OrderNotFoundException.class, () -> orderService.cancelOrder(99L, 1L));
   }
+
+  private OrderListingRow listingRow(Long id) {
+    return new OrderListingRow(
+        id,
+        "ORD-" + id,
+        Instant.now(),
+        OrderStatus.PENDING,
+        new BigDecimal("200.00"),
+        BigDecimal.ZERO,
+        new BigDecimal("60.00"),
+        new BigDecimal("260.00"),
+        "01310-100",
+        1L,
+        "João Silva",
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
 }
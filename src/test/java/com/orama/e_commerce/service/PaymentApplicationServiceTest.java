@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -17,9 +18,11 @@ import com.orama.e_commerce.enums.OrderStatus;
 import com.orama.e_commerce.enums.PaymentAttemptStatus;
 import com.orama.e_commerce.events.payment.PaymentApprovedEvent;
 import com.orama.e_commerce.events.payment.PaymentFailedEvent;
+import com.orama.e_commerce.events.payment.PaymentWebhookQueuedEvent;
 import com.orama.e_commerce.exceptions.order.OrderNotFoundException;
 import com.orama.e_commerce.exceptions.payment.OrderOwnershipException;
 import com.orama.e_commerce.exceptions.payment.PaymentAlreadyInProgressException;
+import com.orama.e_commerce.exceptions.payment.PaymentGatewayUnavailableException;
 import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
 import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
 import com.orama.e_commerce.exceptions.payment.WebhookProcessingException;
@@ -30,6 +33,7 @@ import com.orama.e_commerce.models.Order;
 import com.orama.e_commerce.models.PaymentAttempt;
 import com.orama.e_commerce.repository.OrderRepository;
 import com.orama.e_commerce.repository.PaymentAttemptRepository;
+import com.orama.e_commerce.repository.PaymentWebhookInboxRepository;
 import com.orama.e_commerce.service.fake.FakePaymentGateway;
 import com.orama.e_commerce.service.gateway.CreatePaymentCommand;
 import com.orama.e_commerce.service.gateway.GatewayOrderResult;
@@ -37,7 +41,10 @@ import com.orama.e_commerce.service.gateway.GatewayPaymentResult;
 import com.orama.e_commerce.testdata.AddressTestBuilder;
 import com.orama.e_commerce.testdata.ClientTestBuilder;
 import com.orama.e_commerce.testdata.OrderTestBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -50,6 +57,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -59,18 +70,35 @@ class PaymentApplicationServiceTest {
   @Mock PaymentAttemptRepository paymentAttemptRepository;
   @Mock WebhookVerifier webhookVerifier;
   @Mock ApplicationEventPublisher eventPublisher;
+  @Mock PaymentWebhookInboxRepository paymentWebhookInboxRepository;
+  @Mock PaymentEventOutbox paymentEventOutbox;
 
   FakePaymentGateway fakeGateway;
   PaymentStatusMapper statusMapper;
   PaymentAttemptService paymentAttemptService;
   PaymentApplicationService service;
+  PaymentAttempt savedAttempt;
+  SimpleMeterRegistry meterRegistry;
 
   @BeforeEach
   void setUp() {
+    // Como um repositorio real: save devolve a entidade e findById acha a ultima salva, ja que
+    // os passos do initiatePayment releem a tentativa pelo id em transacoes separadas.
+    when(paymentAttemptRepository.save(any(PaymentAttempt.class)))
+        .thenAnswer(
+            invocation -> {
+              savedAttempt = invocation.getArgument(0);
+              return savedAttempt;
+            });
+    when(paymentAttemptRepository.findById(any()))
+        .thenAnswer(invocation -> Optional.ofNullable(savedAttempt));
     fakeGateway = new FakePaymentGateway();
     statusMapper = new PaymentStatusMapper();
+    meterRegistry = new SimpleMeterRegistry();
+    PaymentTransitionMetrics transitionMetrics = new PaymentTransitionMetrics(meterRegistry);
     paymentAttemptService =
-        new PaymentAttemptService(paymentAttemptRepository, orderRepository, eventPublisher);
+        new PaymentAttemptService(
+            paymentAttemptRepository, orderRepository, paymentEventOutbox, transitionMetrics);
     service =
         new PaymentApplicationService(
             orderRepository,
@@ -79,7 +107,12 @@ class PaymentApplicationServiceTest {
             webhookVerifier,
             statusMapper,
             eventPublisher,
-            paymentAttemptService);
+            paymentAttemptService,
+            paymentWebhookInboxRepository,
+            paymentEventOutbox,
+            new OptimisticLockRetryExecutor(
+                TransactionOperations.withoutTransaction(), 3, Duration.ZERO),
+            transitionMetrics);
   }
 
   private InitiatePaymentRequestDto pixRequest() {
@@ -174,6 +207,14 @@ class PaymentApplicationServiceTest {
       assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
       assertThat(order.getPaymentId()).isEqualTo("MP-ORDER-789");
       assertThat(fakeGateway.getCreatePaymentCallCount()).isEqualTo(1);
+      assertThat(
+              meterRegistry
+                  .get("payment.attempt.transitions")
+                  .tag("from", "CREATED")
+                  .tag("to", "APPROVED")
+                  .counter()
+                  .count())
+          .isEqualTo(1.0);
     }
 
     @Test
@@ -249,7 +290,7 @@ class PaymentApplicationServiceTest {
       assertThat(response.paymentId()).isEqualTo("MP-PAY-3DS");
       assertThat(attempt.getStatus()).isEqualTo(PaymentAttemptStatus.APPROVED);
       assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
-      verify(eventPublisher).publishEvent(any(PaymentApprovedEvent.class));
+      verify(paymentEventOutbox).append(any(PaymentApprovedEvent.class));
     }
   }
 
@@ -404,7 +445,8 @@ class PaymentApplicationServiceTest {
       when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
 
       assertThatThrownBy(() -> service.syncPaymentStatus(1L, 999L))
-          .isInstanceOf(OrderOwnershipException.class);
+          .isInstanceOf(OrderOwnershipException.class)
+          .hasMessageContaining("não pertence ao usuário");
 
       assertThat(fakeGateway.getGetOrderStatusCallCount()).isZero();
     }
@@ -473,8 +515,8 @@ class PaymentApplicationServiceTest {
 
     @Test
     @DisplayName(
-        "TransientPaymentGatewayException: attempt FAILED, Order volta para PENDING, propaga")
-    void initiatePayment_transientGatewayException_rollsBackOrder() {
+        "Timeout/5xx: resultado desconhecido, attempt segue CREATED, Order em PAYMENT_PENDING")
+    void initiatePayment_transientGatewayException_keepsAttemptForReconciliation() {
       Client client = ClientTestBuilder.aClient().withId(50L).build();
       Order order =
           OrderTestBuilder.anOrder()
@@ -494,7 +536,34 @@ class PaymentApplicationServiceTest {
           .isInstanceOf(TransientPaymentGatewayException.class)
           .hasMessageContaining("temporariamente");
 
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_PENDING);
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.CREATED);
+      assertThat(savedAttempt.getStatusDetail()).isEqualTo(PaymentAttemptService.OUTCOME_UNKNOWN);
+      verifyNoInteractions(paymentEventOutbox);
+    }
+
+    @Test
+    @DisplayName("Circuito aberto: gateway nao foi chamado, attempt FAILED e Order volta a PENDING")
+    void initiatePayment_gatewayUnavailable_rollsBackOrder() {
+      Client client = ClientTestBuilder.aClient().withId(50L).build();
+      Order order =
+          OrderTestBuilder.anOrder()
+              .withId(1L)
+              .withClient(client)
+              .withStatus(OrderStatus.PENDING)
+              .build();
+
+      when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+      when(paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(1L))
+          .thenReturn(Optional.empty());
+      fakeGateway.setNextCreateException(
+          new PaymentGatewayUnavailableException("Gateway de pagamento indisponivel"));
+
+      assertThatThrownBy(() -> service.initiatePayment(1L, 50L, pixRequest()))
+          .isInstanceOf(PaymentGatewayUnavailableException.class);
+
       assertThat(order.getStatus()).isEqualTo(OrderStatus.PENDING);
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.FAILED);
     }
 
     @Test
@@ -536,15 +605,54 @@ class PaymentApplicationServiceTest {
       when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
       when(paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(1L))
           .thenReturn(Optional.empty());
-      fakeGateway.setNextCreateException(new TransientPaymentGatewayException("timeout"));
+      fakeGateway.setNextCreateException(new PermanentPaymentGatewayException("Dados invalidos"));
 
       assertThatThrownBy(() -> service.initiatePayment(1L, 50L, pixRequest()))
-          .isInstanceOf(TransientPaymentGatewayException.class);
+          .isInstanceOf(PermanentPaymentGatewayException.class);
 
       verify(paymentAttemptRepository, times(2)).save(any());
     }
   }
 
+  @Nested
+  @DisplayName("markFailed")
+  class MarkFailed {
+
+    @Test
+    @DisplayName("Tentativa ja aprovada por webhook: markFailed nao mexe em tentativa nem pedido")
+    void markFailed_attemptAlreadyApproved_isNoOp() {
+      Order order =
+          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_CONFIRMED).build();
+      savedAttempt = new PaymentAttempt();
+      savedAttempt.setOrder(order);
+      savedAttempt.setStatus(PaymentAttemptStatus.APPROVED);
+      when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+      paymentAttemptService.markFailed(99L, 1L, "timeout");
+
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.APPROVED);
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
+      verify(paymentAttemptRepository, never()).save(any());
+      verifyNoInteractions(paymentEventOutbox);
+    }
+
+    @Test
+    @DisplayName("Tentativa PENDING: vira FAILED e o pedido volta a PENDING")
+    void markFailed_pendingAttempt_marksFailed() {
+      Order order =
+          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
+      savedAttempt = new PaymentAttempt();
+      savedAttempt.setOrder(order);
+      savedAttempt.setStatus(PaymentAttemptStatus.PENDING);
+      when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+      paymentAttemptService.markFailed(99L, 1L, "recusado");
+
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.FAILED);
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+  }
+
   @Nested
   @DisplayName("Idempotencia")
   class Idempotency {
@@ -580,59 +688,41 @@ class PaymentApplicationServiceTest {
   class Webhook {
 
     @Test
-    @DisplayName("Order aprovada: attempt APPROVED, Order vira PAYMENT_CONFIRMED, verify chamado")
-    void handleWebhook_approvedOrder_setsOrderToConfirmed() {
-      Order order =
-          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
-      PaymentAttempt attempt = new PaymentAttempt();
-      attempt.setOrder(order);
-      attempt.setStatus(PaymentAttemptStatus.PENDING);
-      attempt.setProviderOrderId("MP-ORDER-123");
-
+    @DisplayName("Webhook verificado vai para o inbox sem consultar o gateway")
+    void handleWebhook_verifiedOrder_isQueuedWithoutCallingGateway() {
       MercadoPagoWebhookDto dto =
           new MercadoPagoWebhookDto(
               "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-123"));
-
-      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-123"))
-          .thenReturn(Optional.of(attempt));
-      fakeGateway.setNextOrderStatusResult(
-          new GatewayOrderResult("MP-ORDER-123", "processed", null, "visa"));
+      when(paymentWebhookInboxRepository.enqueue(
+              eq("req-id-1"), eq("MP-ORDER-123"), eq("order.updated"), any(Instant.class)))
+          .thenReturn(1);
 
       service.handleWebhook("ts=1,v1=abc", "req-id-1", dto);
 
-      assertThat(attempt.getStatus()).isEqualTo(PaymentAttemptStatus.APPROVED);
-      assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
-      assertThat(order.getPaymentMethod()).isEqualTo("visa");
       verify(webhookVerifier).verify("ts=1,v1=abc", "req-id-1", "MP-ORDER-123");
+      verify(eventPublisher).publishEvent(new PaymentWebhookQueuedEvent("MP-ORDER-123"));
+      assertThat(fakeGateway.getGetOrderStatusCallCount()).isZero();
+      verify(paymentAttemptRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("data.id via query tem precedencia sobre body")
     void handleWebhook_queryDataId_takesPrecedenceOverBodyDataId() {
-      Order order =
-          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
-      PaymentAttempt attempt = new PaymentAttempt();
-      attempt.setOrder(order);
-      attempt.setStatus(PaymentAttemptStatus.PENDING);
-      attempt.setProviderOrderId("MP-ORDER-QUERY");
-
       MercadoPagoWebhookDto dto =
           new MercadoPagoWebhookDto(
               "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-BODY"));
-
-      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-QUERY"))
-          .thenReturn(Optional.of(attempt));
-      fakeGateway.setNextOrderStatusResult(
-          new GatewayOrderResult("MP-ORDER-QUERY", "processed", null, "visa"));
+      when(paymentWebhookInboxRepository.enqueue(
+              eq("req-id-1"), eq("MP-ORDER-QUERY"), eq("order.updated"), any(Instant.class)))
+          .thenReturn(1);
 
       service.handleWebhook("sig", "req-id-1", "MP-ORDER-QUERY", dto);
 
-      assertThat(fakeGateway.getLastQueriedOrderId()).isEqualTo("MP-ORDER-QUERY");
       verify(webhookVerifier).verify("sig", "req-id-1", "MP-ORDER-QUERY");
+      verify(eventPublisher).publishEvent(new PaymentWebhookQueuedEvent("MP-ORDER-QUERY"));
     }
 
     @Test
-    @DisplayName("Webhook de order sem data.id e rejeitado antes de consultar gateway")
+    @DisplayName("Webhook de order sem data.id e rejeitado antes de gravar no inbox")
     void handleWebhook_missingDataId_throwsSignatureException() {
       MercadoPagoWebhookDto dto = new MercadoPagoWebhookDto("order", "order.updated", null);
 
@@ -640,58 +730,36 @@ class PaymentApplicationServiceTest {
           .isInstanceOf(WebhookSignatureException.class);
 
       verify(webhookVerifier, never()).verify(any(), any(), any());
-      assertThat(fakeGateway.getGetOrderStatusCallCount()).isZero();
-    }
-
-    @Test
-    @DisplayName("ProviderOrderId desconhecido: no-op silencioso, sem update")
-    void handleWebhook_unknownProviderOrderId_isNoOp() {
-      MercadoPagoWebhookDto dto =
-          new MercadoPagoWebhookDto(
-              "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("UNKNOWN-ID"));
-
-      when(paymentAttemptRepository.findByProviderOrderId("UNKNOWN-ID"))
-          .thenReturn(Optional.empty());
-      fakeGateway.setNextOrderStatusResult(
-          new GatewayOrderResult("UNKNOWN-ID", "processing", null, null));
-
-      assertThatNoException().isThrownBy(() -> service.handleWebhook("sig", "req-id", dto));
-
-      verify(webhookVerifier).verify("sig", "req-id", "UNKNOWN-ID");
-      verify(paymentAttemptRepository, never()).save(any());
-      verify(orderRepository, never()).save(any());
+      verifyNoInteractions(paymentWebhookInboxRepository);
     }
 
     @Test
-    @DisplayName("Gateway lanca erro permanente para order desconhecida: no-op sem update")
-    void handleWebhook_permanentGatewayException_isNoOp() {
+    @DisplayName("Reentrega com mesmo x-request-id: nao sinaliza o worker de novo")
+    void handleWebhook_duplicateDelivery_isNoOp() {
       MercadoPagoWebhookDto dto =
           new MercadoPagoWebhookDto(
-              "order", "order.processed", new MercadoPagoWebhookDto.WebhookData("123456"));
-
-      fakeGateway.setNextOrderStatusException(
-          new PermanentPaymentGatewayException("Order invalida no Mercado Pago"));
+              "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-123"));
+      when(paymentWebhookInboxRepository.enqueue(any(), any(), any(), any(Instant.class)))
+          .thenReturn(0);
 
       assertThatNoException().isThrownBy(() -> service.handleWebhook("sig", "req-id", dto));
 
-      verify(webhookVerifier).verify("sig", "req-id", "123456");
-      verify(paymentAttemptRepository, never()).save(any());
-      verify(orderRepository, never()).save(any());
+      verifyNoInteractions(eventPublisher);
     }
 
     @Test
-    @DisplayName("Gateway lanca erro transiente: traduz para WebhookProcessingException")
-    void handleWebhook_transientGatewayException_throwsWebhookProcessingException() {
+    @DisplayName("Falha ao gravar no inbox: WebhookProcessingException para o MP reenviar")
+    void handleWebhook_inboxFailure_throwsWebhookProcessingException() {
       MercadoPagoWebhookDto dto =
           new MercadoPagoWebhookDto(
               "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-123"));
-
-      fakeGateway.setNextOrderStatusException(
-          new TransientPaymentGatewayException("MP fora do ar"));
+      when(paymentWebhookInboxRepository.enqueue(any(), any(), any(), any(Instant.class)))
+          .thenThrow(new DataAccessResourceFailureException("db down"));
 
       assertThatThrownBy(() -> service.handleWebhook("sig", "req-id", dto))
-          .isInstanceOf(WebhookProcessingException.class)
-          .hasCauseInstanceOf(TransientPaymentGatewayException.class);
+          .isInstanceOf(WebhookProcessingException.class);
+
+      verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -704,7 +772,69 @@ class PaymentApplicationServiceTest {
       service.handleWebhook("sig", "req-id", dto);
 
       verify(webhookVerifier, never()).verify(any(), any(), any());
-      assertThat(fakeGateway.getGetOrderStatusCallCount()).isZero();
+      verifyNoInteractions(paymentWebhookInboxRepository);
+    }
+
+    @Test
+    @DisplayName("Resultado aprovado: attempt APPROVED, Order vira PAYMENT_CONFIRMED")
+    void applyWebhookResult_approvedOrder_setsOrderToConfirmed() {
+      Order order =
+          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
+      PaymentAttempt attempt = new PaymentAttempt();
+      attempt.setOrder(order);
+      attempt.setStatus(PaymentAttemptStatus.PENDING);
+      attempt.setProviderOrderId("MP-ORDER-123");
+      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-123"))
+          .thenReturn(Optional.of(attempt));
+
+      service.applyWebhookResult(new GatewayOrderResult("MP-ORDER-123", "processed", null, "visa"));
+
+      assertThat(attempt.getStatus()).isEqualTo(PaymentAttemptStatus.APPROVED);
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
+      assertThat(order.getPaymentMethod()).isEqualTo("visa");
+    }
+
+    @Test
+    @DisplayName("ProviderOrderId desconhecido: no-op silencioso, sem update")
+    void applyWebhookResult_unknownProviderOrderId_isNoOp() {
+      when(paymentAttemptRepository.findByProviderOrderId("UNKNOWN-ID"))
+          .thenReturn(Optional.empty());
+
+      assertThatNoException()
+          .isThrownBy(
+              () ->
+                  service.applyWebhookResult(
+                      new GatewayOrderResult("UNKNOWN-ID", "processing", null, null)));
+
+      verify(paymentAttemptRepository, never()).save(any());
+      verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Order criada apos timeout: vincula a tentativa orfa pelo external_reference")
+    void applyWebhookResult_orphanAttempt_isLinkedByExternalReference() {
+      Order order =
+          OrderTestBuilder.anOrder()
+              .withId(1L)
+              .withOrderNumber("ORD-ABC")
+              .withStatus(OrderStatus.PAYMENT_PENDING)
+              .build();
+      PaymentAttempt attempt = new PaymentAttempt();
+      attempt.setOrder(order);
+      attempt.setStatus(PaymentAttemptStatus.CREATED);
+      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-LATE"))
+          .thenReturn(Optional.empty());
+      when(orderRepository.findByOrderNumber("ORD-ABC")).thenReturn(Optional.of(order));
+      when(paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(1L))
+          .thenReturn(Optional.of(attempt));
+
+      service.applyWebhookResult(
+          new GatewayOrderResult("MP-ORDER-LATE", "processed", null, "visa", "ORD-ABC"));
+
+      assertThat(attempt.getProviderOrderId()).isEqualTo("MP-ORDER-LATE");
+      assertThat(attempt.getStatus()).isEqualTo(PaymentAttemptStatus.APPROVED);
+      assertThat(order.getPaymentId()).isEqualTo("MP-ORDER-LATE");
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
     }
   }
 
@@ -733,7 +863,7 @@ class PaymentApplicationServiceTest {
 
       ArgumentCaptor<PaymentApprovedEvent> captor =
           ArgumentCaptor.forClass(PaymentApprovedEvent.class);
-      verify(eventPublisher).publishEvent(captor.capture());
+      verify(paymentEventOutbox).append(captor.capture());
       PaymentApprovedEvent event = captor.getValue();
       assertThat(event.orderId()).isEqualTo(10L);
       assertThat(event.previousStatus()).isEqualTo(PaymentAttemptStatus.CREATED);
@@ -758,7 +888,7 @@ class PaymentApplicationServiceTest {
 
       service.initiatePayment(10L, 50L, pixRequest());
 
-      verifyNoInteractions(eventPublisher);
+      verifyNoInteractions(paymentEventOutbox);
     }
 
     @Test
@@ -776,13 +906,13 @@ class PaymentApplicationServiceTest {
       when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
       when(paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(10L))
           .thenReturn(Optional.empty());
-      fakeGateway.setNextCreateException(new TransientPaymentGatewayException("timeout"));
+      fakeGateway.setNextCreateException(new PermanentPaymentGatewayException("Dados invalidos"));
 
       assertThatThrownBy(() -> service.initiatePayment(10L, 50L, pixRequest()))
-          .isInstanceOf(TransientPaymentGatewayException.class);
+          .isInstanceOf(PermanentPaymentGatewayException.class);
 
       ArgumentCaptor<PaymentFailedEvent> captor = ArgumentCaptor.forClass(PaymentFailedEvent.class);
-      verify(eventPublisher).publishEvent(captor.capture());
+      verify(paymentEventOutbox).append(captor.capture());
       PaymentFailedEvent event = captor.getValue();
       assertThat(event.previousStatus()).isEqualTo(PaymentAttemptStatus.CREATED);
       assertThat(event.newStatus()).isEqualTo(PaymentAttemptStatus.FAILED);
@@ -791,7 +921,7 @@ class PaymentApplicationServiceTest {
     @Test
     @DisplayName(
         "Webhook aprova attempt PENDING: publica PaymentApprovedEvent com previousStatus=PENDING")
-    void handleWebhook_approvesAttempt_publishesPaymentApprovedEventWithPreviousStatusPending() {
+    void applyWebhookResult_approvesAttempt_publishesApprovedEventWithPreviousStatusPending() {
       Order order =
           OrderTestBuilder.anOrder().withId(5L).withStatus(OrderStatus.PAYMENT_PENDING).build();
       PaymentAttempt attempt = new PaymentAttempt();
@@ -799,26 +929,20 @@ class PaymentApplicationServiceTest {
       attempt.setStatus(PaymentAttemptStatus.PENDING);
       attempt.setProviderOrderId("MP-ORDER-APRV");
 
-      MercadoPagoWebhookDto dto =
-          new MercadoPagoWebhookDto(
-              "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-APRV"));
-
       when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-APRV"))
           .thenReturn(Optional.of(attempt));
-      fakeGateway.setNextOrderStatusResult(
-          new GatewayOrderResult("MP-ORDER-APRV", "processed", null, null));
 
-      service.handleWebhook("sig", "req-id", dto);
+      service.applyWebhookResult(new GatewayOrderResult("MP-ORDER-APRV", "processed", null, null));
 
       ArgumentCaptor<PaymentApprovedEvent> captor =
           ArgumentCaptor.forClass(PaymentApprovedEvent.class);
-      verify(eventPublisher).publishEvent(captor.capture());
+      verify(paymentEventOutbox).append(captor.capture());
       assertThat(captor.getValue().previousStatus()).isEqualTo(PaymentAttemptStatus.PENDING);
     }
 
     @Test
     @DisplayName("Webhook duplicado (status ja eh o mesmo): nenhum evento publicado")
-    void handleWebhook_sameStatus_doesNotPublishAnyEvent() {
+    void applyWebhookResult_sameStatus_doesNotPublishAnyEvent() {
       Order order =
           OrderTestBuilder.anOrder().withId(5L).withStatus(OrderStatus.PAYMENT_PENDING).build();
       PaymentAttempt attempt = new PaymentAttempt();
@@ -826,23 +950,17 @@ class PaymentApplicationServiceTest {
       attempt.setStatus(PaymentAttemptStatus.PENDING);
       attempt.setProviderOrderId("MP-ORDER-DUP");
 
-      MercadoPagoWebhookDto dto =
-          new MercadoPagoWebhookDto(
-              "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-DUP"));
-
       when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-DUP"))
           .thenReturn(Optional.of(attempt));
-      fakeGateway.setNextOrderStatusResult(
-          new GatewayOrderResult("MP-ORDER-DUP", "processing", null, null));
 
-      service.handleWebhook("sig", "req-id", dto);
+      service.applyWebhookResult(new GatewayOrderResult("MP-ORDER-DUP", "processing", null, null));
 
-      verify(eventPublisher, never()).publishEvent(any());
+      verify(paymentEventOutbox, never()).append(any());
     }
 
     @Test
     @DisplayName("Webhook com status FAILED: publica PaymentFailedEvent com newStatus=FAILED")
-    void handleWebhook_failedStatus_publishesPaymentFailedEvent() {
+    void applyWebhookResult_failedStatus_publishesPaymentFailedEvent() {
       Order order =
           OrderTestBuilder.anOrder().withId(5L).withStatus(OrderStatus.PAYMENT_PENDING).build();
       PaymentAttempt attempt = new PaymentAttempt();
@@ -850,37 +968,44 @@ class PaymentApplicationServiceTest {
       attempt.setStatus(PaymentAttemptStatus.PENDING);
       attempt.setProviderOrderId("MP-ORDER-FAIL");
 
-      MercadoPagoWebhookDto dto =
-          new MercadoPagoWebhookDto(
-              "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-FAIL"));
-
       when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-FAIL"))
           .thenReturn(Optional.of(attempt));
-      fakeGateway.setNextOrderStatusResult(
-          new GatewayOrderResult("MP-ORDER-FAIL", "failed", null, null));
 
-      service.handleWebhook("sig", "req-id", dto);
+      service.applyWebhookResult(new GatewayOrderResult("MP-ORDER-FAIL", "failed", null, null));
 
       ArgumentCaptor<PaymentFailedEvent> captor = ArgumentCaptor.forClass(PaymentFailedEvent.class);
-      verify(eventPublisher).publishEvent(captor.capture());
+      verify(paymentEventOutbox).append(captor.capture());
       PaymentFailedEvent event = captor.getValue();
       assertThat(event.previousStatus()).isEqualTo(PaymentAttemptStatus.PENDING);
       assertThat(event.newStatus()).isEqualTo(PaymentAttemptStatus.FAILED);
     }
 
     @Test
-    @DisplayName("Webhook com excecao no gateway: nenhum evento publicado")
-    void handleWebhook_gatewayException_doesNotPublishAnyEvent() {
-      MercadoPagoWebhookDto dto =
-          new MercadoPagoWebhookDto(
-              "order", "order.updated", new MercadoPagoWebhookDto.WebhookData("MP-ORDER-ERR"));
-
-      fakeGateway.setNextOrderStatusException(new TransientPaymentGatewayException("gateway down"));
-
-      assertThatThrownBy(() -> service.handleWebhook("sig", "req-id", dto))
-          .isInstanceOf(WebhookProcessingException.class);
-
-      verifyNoInteractions(eventPublisher);
+    @DisplayName("Conflito de versao: rele a tentativa e nao duplica o evento de quem venceu")
+    void applyWebhookResult_versionConflict_rereadsAndReappliesOnCurrentState() {
+      Order order =
+          OrderTestBuilder.anOrder().withId(5L).withStatus(OrderStatus.PAYMENT_PENDING).build();
+      PaymentAttempt stale = new PaymentAttempt();
+      stale.setOrder(order);
+      stale.setStatus(PaymentAttemptStatus.PENDING);
+      stale.setProviderOrderId("MP-ORDER-RACE");
+      // Outro fluxo (reconciliacao) ja aprovou e commitou enquanto o webhook processava.
+      PaymentAttempt current = new PaymentAttempt();
+      current.setOrder(order);
+      current.setStatus(PaymentAttemptStatus.APPROVED);
+      current.setProviderOrderId("MP-ORDER-RACE");
+
+      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-RACE"))
+          .thenReturn(Optional.of(stale), Optional.of(current));
+      when(orderRepository.save(order))
+          .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, 5L))
+          .thenReturn(order);
+
+      service.applyWebhookResult(new GatewayOrderResult("MP-ORDER-RACE", "processed", null, null));
+
+      verify(paymentAttemptRepository, times(2)).findByProviderOrderId("MP-ORDER-RACE");
+      assertThat(current.getStatus()).isEqualTo(PaymentAttemptStatus.APPROVED);
+      verify(paymentEventOutbox, never()).append(any());
     }
   }
 
@@ -888,19 +1013,6 @@ class PaymentApplicationServiceTest {
   @DisplayName("Cancelamento e reembolso")
   class CancellationAndRefund {
 
-    @Test
-    @DisplayName("Pedido sem paymentId remoto: retorna CANCELLED sem chamar gateway")
-    void cancelOrRefundRemotePayment_withoutPaymentId_returnsCancelled() {
-      Order order = OrderTestBuilder.anOrder().withId(10L).withStatus(OrderStatus.PENDING).build();
-
-      OrderStatus result = service.cancelOrRefundRemotePayment(order);
-
-      assertThat(result).isEqualTo(OrderStatus.CANCELLED);
-      assertThat(fakeGateway.getGetOrderStatusCallCount()).isZero();
-      assertThat(fakeGateway.getCancelOrderCallCount()).isZero();
-      assertThat(fakeGateway.getRefundOrderCallCount()).isZero();
-    }
-
     @Test
     @DisplayName(
         "Pagamento pendente remoto: consulta MP, cancela com chave idempotente e retorna CANCELLED")
@@ -920,7 +1032,8 @@ class PaymentApplicationServiceTest {
       fakeGateway.setNextCancelOrderResult(
           new GatewayOrderResult("MP-ORDER-PENDING", "canceled", "canceled", "pix"));
 
-      OrderStatus result = service.cancelOrRefundRemotePayment(order);
+      GatewayOrderResult remote = service.cancelOrRefundRemotePayment(10L, "MP-ORDER-PENDING");
+      OrderStatus result = service.applyCancellationResult(remote);
 
       assertThat(result).isEqualTo(OrderStatus.CANCELLED);
       assertThat(fakeGateway.getLastQueriedOrderId()).isEqualTo("MP-ORDER-PENDING");
@@ -950,7 +1063,8 @@ class PaymentApplicationServiceTest {
       fakeGateway.setNextRefundOrderResult(
           new GatewayOrderResult("MP-ORDER-APPROVED", "refunded", "refunded", "visa"));
 
-      OrderStatus result = service.cancelOrRefundRemotePayment(order);
+      GatewayOrderResult remote = service.cancelOrRefundRemotePayment(11L, "MP-ORDER-APPROVED");
+      OrderStatus result = service.applyCancellationResult(remote);
 
       assertThat(result).isEqualTo(OrderStatus.REFUNDED);
       assertThat(fakeGateway.getLastQueriedOrderId()).isEqualTo("MP-ORDER-APPROVED");
@@ -977,13 +1091,121 @@ class PaymentApplicationServiceTest {
       fakeGateway.setNextOrderStatusResult(
           new GatewayOrderResult("MP-ORDER-REFUNDED", "refunded", "refunded", "visa"));
 
-      OrderStatus result = service.cancelOrRefundRemotePayment(order);
+      GatewayOrderResult remote = service.cancelOrRefundRemotePayment(12L, "MP-ORDER-REFUNDED");
+      OrderStatus result = service.applyCancellationResult(remote);
 
       assertThat(result).isEqualTo(OrderStatus.REFUNDED);
       assertThat(fakeGateway.getRefundOrderCallCount()).isZero();
       assertThat(fakeGateway.getCancelOrderCallCount()).isZero();
       assertThat(attempt.getStatus()).isEqualTo(PaymentAttemptStatus.REFUNDED);
     }
+
+    @Test
+    @DisplayName("Timeout no reembolso: reconsulta e segue se a order ja consta estornada")
+    void cancelOrRefundRemotePayment_refundTimesOut_requeriesStatus() {
+      fakeGateway.setNextOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-APPROVED", "processed", "accredited", "visa"));
+      fakeGateway.setFollowingOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-APPROVED", "refunded", "refunded", "visa"));
+      fakeGateway.setNextRefundOrderException(new TransientPaymentGatewayException("timeout"));
+
+      GatewayOrderResult remote = service.cancelOrRefundRemotePayment(11L, "MP-ORDER-APPROVED");
+
+      assertThat(remote.status()).isEqualTo("refunded");
+      assertThat(fakeGateway.getGetOrderStatusCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Timeout no reembolso sem estorno visivel: erro transiente, nada aplicado")
+    void cancelOrRefundRemotePayment_refundOutcomeUnknown_throwsTransient() {
+      fakeGateway.setNextOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-APPROVED", "processed", "accredited", "visa"));
+      fakeGateway.setFollowingOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-APPROVED", "processed", "accredited", "visa"));
+      fakeGateway.setNextRefundOrderException(new TransientPaymentGatewayException("timeout"));
+
+      assertThatThrownBy(() -> service.cancelOrRefundRemotePayment(11L, "MP-ORDER-APPROVED"))
+          .isInstanceOf(TransientPaymentGatewayException.class)
+          .hasMessageContaining("desconhecido");
+      verifyNoInteractions(paymentAttemptRepository, orderRepository);
+    }
+
+    @Test
+    @DisplayName("Chamada remota nao grava: a tentativa so muda quando o resultado e aplicado")
+    void cancelOrRefundRemotePayment_doesNotTouchLocalState() {
+      fakeGateway.setNextOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-PENDING", "action_required", "waiting_payment", "pix"));
+      fakeGateway.setNextCancelOrderResult(
+          new GatewayOrderResult("MP-ORDER-PENDING", "canceled", "canceled", "pix"));
+
+      GatewayOrderResult remote = service.cancelOrRefundRemotePayment(10L, "MP-ORDER-PENDING");
+
+      assertThat(remote.status()).isEqualTo("canceled");
+      verifyNoInteractions(paymentAttemptRepository, orderRepository);
+    }
+
+    @Test
+    @DisplayName("Status intermediario apos cancelamento: falha em vez de cancelar localmente")
+    void applyCancellationResult_intermediateStatus_throws() {
+      GatewayOrderResult processing =
+          new GatewayOrderResult("MP-ORDER-X", "processing", "in_process", "pix");
+
+      assertThatThrownBy(() -> service.applyCancellationResult(processing))
+          .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Cancelado durante a criacao: order remota e cancelada e o pedido nao revive")
+    void initiatePayment_orderCancelledWhileCreating_voidsRemoteOrder() {
+      Order order = OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PENDING).build();
+      when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+      when(paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(1L))
+          .thenReturn(Optional.empty());
+      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-123"))
+          .thenAnswer(invocation -> Optional.ofNullable(savedAttempt));
+      fakeGateway.setNextCreateResult(pixPendingResult());
+      fakeGateway.setDuringCreate(() -> order.setStatus(OrderStatus.CANCELLED));
+      fakeGateway.setNextOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-123", "action_required", "waiting_payment", "pix"));
+      fakeGateway.setNextCancelOrderResult(
+          new GatewayOrderResult("MP-ORDER-123", "canceled", "canceled", "pix"));
+
+      assertThatThrownBy(() -> service.initiatePayment(1L, order.getClient().getId(), pixRequest()))
+          .isInstanceOf(IllegalArgumentException.class);
+
+      assertThat(fakeGateway.getLastCancelledOrderId()).isEqualTo("MP-ORDER-123");
+      assertThat(fakeGateway.getLastCancelIdempotencyKey()).isEqualTo("order-1-cancel-v1");
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+      assertThat(savedAttempt.getProviderOrderId()).isEqualTo("MP-ORDER-123");
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.CANCELLED);
+      verify(paymentEventOutbox, never()).append(any(PaymentApprovedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Cartao aprovado apos cancelamento local: order remota e estornada")
+    void initiatePayment_orderCancelledWhileCreating_refundsApprovedCard() {
+      Order order = OrderTestBuilder.anOrder().withId(2L).withStatus(OrderStatus.PENDING).build();
+      when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
+      when(paymentAttemptRepository.findTopByOrderIdOrderByAttemptNumberDesc(2L))
+          .thenReturn(Optional.empty());
+      when(paymentAttemptRepository.findByProviderOrderId("MP-ORDER-789"))
+          .thenAnswer(invocation -> Optional.ofNullable(savedAttempt));
+      fakeGateway.setNextCreateResult(creditCardApprovedResult());
+      fakeGateway.setDuringCreate(() -> order.setStatus(OrderStatus.CANCELLED));
+      fakeGateway.setNextOrderStatusResult(
+          new GatewayOrderResult("MP-ORDER-789", "processed", "accredited", "visa"));
+      fakeGateway.setNextRefundOrderResult(
+          new GatewayOrderResult("MP-ORDER-789", "refunded", "refunded", "visa"));
+
+      assertThatThrownBy(
+              () -> service.initiatePayment(2L, order.getClient().getId(), creditCardRequest()))
+          .isInstanceOf(IllegalArgumentException.class);
+
+      assertThat(fakeGateway.getLastRefundIdempotencyKey()).isEqualTo("order-2-refund-v1");
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.REFUNDED);
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.REFUNDED);
+      verify(paymentEventOutbox, never()).append(any(PaymentApprovedEvent.class));
+    }
   }
 
   @Nested
@@ -1007,7 +1229,7 @@ class PaymentApplicationServiceTest {
       assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
       ArgumentCaptor<PaymentApprovedEvent> captor =
           ArgumentCaptor.forClass(PaymentApprovedEvent.class);
-      verify(eventPublisher).publishEvent(captor.capture());
+      verify(paymentEventOutbox).append(captor.capture());
       assertThat(captor.getValue().previousStatus()).isEqualTo(PaymentAttemptStatus.PENDING);
     }
 
@@ -1024,7 +1246,7 @@ class PaymentApplicationServiceTest {
 
       service.applyReconciliation(99L, new GatewayOrderResult("MP-ORD", "processing", null, null));
 
-      verify(eventPublisher, never()).publishEvent(any());
+      verify(paymentEventOutbox, never()).append(any());
     }
 
     @Test
@@ -1040,7 +1262,7 @@ class PaymentApplicationServiceTest {
 
       verify(paymentAttemptRepository, never()).save(any());
       verify(orderRepository, never()).save(any());
-      verifyNoInteractions(eventPublisher);
+      verifyNoInteractions(paymentEventOutbox);
     }
 
     @Test
@@ -1060,7 +1282,7 @@ class PaymentApplicationServiceTest {
       assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_CONFIRMED);
       verify(paymentAttemptRepository, never()).save(any());
       verify(orderRepository, never()).save(any());
-      verify(eventPublisher, never()).publishEvent(any());
+      verify(paymentEventOutbox, never()).append(any());
     }
 
     @Test
@@ -1082,5 +1304,71 @@ class PaymentApplicationServiceTest {
       verify(paymentAttemptRepository).save(attempt);
       verify(orderRepository).save(order);
     }
+
+    @Test
+    @DisplayName("Tentativa orfa de PIX: reenvia com a mesma chave e aplica a order devolvida")
+    void recoverOrphanAttempt_pix_replaysWithSameIdempotencyKey() {
+      Client client = ClientTestBuilder.aClient().withId(50L).build();
+      Order order =
+          OrderTestBuilder.anOrder()
+              .withId(1L)
+              .withOrderNumber("ORD-ABC")
+              .withClient(client)
+              .withStatus(OrderStatus.PAYMENT_PENDING)
+              .build();
+      savedAttempt = new PaymentAttempt();
+      savedAttempt.setOrder(order);
+      savedAttempt.setMethod("PIX");
+      savedAttempt.setIdempotencyKey("order-1-attempt-1");
+      savedAttempt.setStatus(PaymentAttemptStatus.CREATED);
+      fakeGateway.setNextCreateResult(pixPendingResult());
+
+      boolean recovered = service.recoverOrphanAttempt(99L, Instant.now().minusSeconds(3600));
+
+      assertThat(recovered).isTrue();
+      assertThat(fakeGateway.getLastCommand().idempotencyKey()).isEqualTo("order-1-attempt-1");
+      assertThat(savedAttempt.getProviderOrderId()).isEqualTo("MP-ORDER-123");
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.PENDING);
+      assertThat(order.getPaymentId()).isEqualTo("MP-ORDER-123");
+    }
+
+    @Test
+    @DisplayName("Tentativa orfa de cartao: sem token para reenviar, espera o webhook")
+    void recoverOrphanAttempt_creditCard_isNotReplayed() {
+      Order order =
+          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
+      savedAttempt = new PaymentAttempt();
+      savedAttempt.setOrder(order);
+      savedAttempt.setMethod("CREDIT_CARD");
+      savedAttempt.setStatus(PaymentAttemptStatus.CREATED);
+
+      boolean recovered = service.recoverOrphanAttempt(99L, Instant.now().minusSeconds(3600));
+
+      assertThat(recovered).isFalse();
+      assertThat(fakeGateway.getCreatePaymentCallCount()).isZero();
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.CREATED);
+    }
+
+    @Test
+    @DisplayName("Tentativa orfa expirada: encerrada como FAILED e Order volta a PENDING")
+    void recoverOrphanAttempt_expired_marksFailed() {
+      Order order =
+          OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
+      savedAttempt = new PaymentAttempt();
+      savedAttempt.setOrder(order);
+      savedAttempt.setMethod("CREDIT_CARD");
+      savedAttempt.setStatus(PaymentAttemptStatus.CREATED);
+      ReflectionTestUtils.setField(
+          savedAttempt, "createdAt", Instant.now().minus(Duration.ofDays(2)));
+      when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+      boolean recovered =
+          service.recoverOrphanAttempt(99L, Instant.now().minus(Duration.ofDays(1)));
+
+      assertThat(recovered).isTrue();
+      assertThat(fakeGateway.getCreatePaymentCallCount()).isZero();
+      assertThat(savedAttempt.getStatus()).isEqualTo(PaymentAttemptStatus.FAILED);
+      assertThat(order.getStatus()).isEqualTo(OrderStatus.PENDING);
+    }
   }
 }
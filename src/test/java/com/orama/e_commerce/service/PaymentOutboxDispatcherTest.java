@@ -0,0 +1,164 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orama.e_commerce.enums.PaymentAttemptStatus;
+import com.orama.e_commerce.events.payment.PaymentApprovedEvent;
+import com.orama.e_commerce.events.payment.PaymentEvent;
+import com.orama.e_commerce.events.payment.PaymentFailedEvent;
+import com.orama.e_commerce.events.payment.PaymentOutboxAppendedEvent;
+import com.orama.e_commerce.models.PaymentOutboxEntry;
+import com.orama.e_commerce.repository.PaymentOutboxRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentOutboxDispatcherTest {
+
+  private static final Instant OCCURRED_AT = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+  @Mock PaymentOutboxRepository outboxRepository;
+  @Mock ApplicationEventPublisher eventPublisher;
+
+  PaymentEventOutbox outbox;
+  PaymentOutboxDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() {
+    outbox =
+        new PaymentEventOutbox(
+            outboxRepository, new ObjectMapper().findAndRegisterModules(), eventPublisher);
+    dispatcher =
+        new PaymentOutboxDispatcher(
+            outbox,
+            outboxRepository,
+            eventPublisher,
+            2,
+            10,
+            Duration.ofSeconds(5),
+            Duration.ofMinutes(2),
+            Duration.ofDays(7));
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  @DisplayName("append grava o evento serializado e sinaliza o dispatcher")
+  void append_savesSerializedEventAndSignals() {
+    PaymentFailedEvent event =
+        new PaymentFailedEvent(
+            7L, 70L, PaymentAttemptStatus.PENDING, PaymentAttemptStatus.FAILED, OCCURRED_AT);
+
+    outbox.append(event);
+
+    ArgumentCaptor<PaymentOutboxEntry> captor = ArgumentCaptor.forClass(PaymentOutboxEntry.class);
+    verify(outboxRepository).save(captor.capture());
+    assertThat(captor.getValue().getEventType()).isEqualTo("PaymentFailedEvent");
+    assertThat(captor.getValue().getOrderId()).isEqualTo(7L);
+    assertThat(outbox.read(captor.getValue())).isEqualTo(event);
+    verify(eventPublisher).publishEvent(new PaymentOutboxAppendedEvent(7L));
+  }
+
+  @Test
+  @DisplayName("Listeners retornaram: evento entregue e marcado DELIVERED")
+  void deliver_listenersSucceed_marksDelivered() {
+    PaymentApprovedEvent event =
+        new PaymentApprovedEvent(5L, 50L, PaymentAttemptStatus.PENDING, OCCURRED_AT);
+    PaymentOutboxEntry entry = entry(1L, event);
+
+    dispatcher.deliver(entry);
+
+    verify(eventPublisher).publishEvent((Object) event);
+    verify(outboxRepository).markDelivered(eq(1L), any(Instant.class));
+    assertThat(dispatcher.deliveredCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Listener falhou: evento volta para a fila com backoff")
+  void deliver_listenerThrows_reschedules() {
+    PaymentApprovedEvent event =
+        new PaymentApprovedEvent(5L, 50L, PaymentAttemptStatus.PENDING, OCCURRED_AT);
+    PaymentOutboxEntry entry = entry(1L, event);
+    doThrow(new IllegalStateException("db down")).when(eventPublisher).publishEvent((Object) event);
+
+    dispatcher.deliver(entry);
+
+    verify(outboxRepository, never()).markDelivered(anyLong(), any(Instant.class));
+    verify(outboxRepository).reschedule(eq(1L), any(Instant.class), eq(5L), eq(10), eq("db down"));
+    assertThat(dispatcher.failedCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Lote cheio: busca o proximo ate vir um lote menor")
+  void drain_fullBatch_claimsNextBatch() {
+    PaymentOutboxEntry first =
+        entry(1L, new PaymentApprovedEvent(1L, 10L, PaymentAttemptStatus.PENDING, OCCURRED_AT));
+    PaymentOutboxEntry second =
+        entry(2L, new PaymentApprovedEvent(2L, 20L, PaymentAttemptStatus.PENDING, OCCURRED_AT));
+    PaymentOutboxEntry third =
+        entry(3L, new PaymentApprovedEvent(3L, 30L, PaymentAttemptStatus.PENDING, OCCURRED_AT));
+    when(outboxRepository.lockDueIds(any(Instant.class), anyInt()))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(outboxRepository.findAllByIdInOrderByIdAsc(List.of(1L, 2L)))
+        .thenReturn(List.of(first, second));
+    when(outboxRepository.findAllByIdInOrderByIdAsc(List.of(3L))).thenReturn(List.of(third));
+
+    int processed = dispatcher.drain();
+
+    assertThat(processed).isEqualTo(3);
+    verify(outboxRepository).claim(eq(List.of(1L, 2L)), any(Instant.class));
+    verify(outboxRepository).claim(eq(List.of(3L)), any(Instant.class));
+    verify(outboxRepository).markDelivered(eq(3L), any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Tipo desconhecido no outbox: nao entrega e reagenda")
+  void deliver_unknownEventType_reschedules() {
+    PaymentOutboxEntry entry =
+        new PaymentOutboxEntry("PaymentRefundedEvent", 5L, "{}", OCCURRED_AT);
+    ReflectionTestUtils.setField(entry, "id", 9L);
+
+    dispatcher.deliver(entry);
+
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+    verify(outboxRepository)
+        .reschedule(eq(9L), any(Instant.class), eq(5L), eq(10), any(String.class));
+  }
+
+  private PaymentOutboxEntry entry(Long id, PaymentEvent event) {
+    try {
+      String payload = new ObjectMapper().findAndRegisterModules().writeValueAsString(event);
+      PaymentOutboxEntry entry =
+          new PaymentOutboxEntry(
+              event.getClass().getSimpleName(), event.orderId(), payload, OCCURRED_AT);
+      ReflectionTestUtils.setField(entry, "id", id);
+      return entry;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
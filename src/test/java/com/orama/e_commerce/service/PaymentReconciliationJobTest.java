@@ -1,29 +1,31 @@
 package com.orama.e_commerce.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.orama.e_commerce.enums.OrderStatus;
+import com.orama.e_commerce.dtos.payment.StaleAttemptRow;
 import com.orama.e_commerce.enums.PaymentAttemptStatus;
-import com.orama.e_commerce.models.Order;
-import com.orama.e_commerce.models.PaymentAttempt;
 import com.orama.e_commerce.repository.PaymentAttemptRepository;
 import com.orama.e_commerce.service.gateway.GatewayOrderResult;
 import com.orama.e_commerce.service.gateway.PaymentGateway;
-import com.orama.e_commerce.testdata.OrderTestBuilder;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentReconciliationJobTest {
@@ -36,88 +38,168 @@ class PaymentReconciliationJobTest {
 
   @BeforeEach
   void setUp() {
-    job =
-        new PaymentReconciliationJob(
-            paymentAttemptRepository, paymentGateway, paymentApplicationService, 10);
+    job = newJob(2, 100);
   }
 
-  private PaymentAttempt staleAttempt(String providerOrderId) {
-    Order order =
-        OrderTestBuilder.anOrder().withId(1L).withStatus(OrderStatus.PAYMENT_PENDING).build();
-    PaymentAttempt attempt = new PaymentAttempt();
-    attempt.setOrder(order);
-    attempt.setStatus(PaymentAttemptStatus.PENDING);
-    attempt.setProviderOrderId(providerOrderId);
-    return attempt;
+  private PaymentReconciliationJob newJob(int pageSize, int maxPerRun) {
+    return new PaymentReconciliationJob(
+        paymentAttemptRepository,
+        paymentGateway,
+        paymentApplicationService,
+        10,
+        pageSize,
+        4,
+        1000,
+        maxPerRun,
+        Duration.ofMinutes(5),
+        Duration.ofHours(6),
+        50,
+        Duration.ofHours(24));
+  }
+
+  private StaleAttemptRow staleAttempt(Long id, String providerOrderId) {
+    return new StaleAttemptRow(id, providerOrderId, Instant.now().minus(Duration.ofHours(1)));
   }
 
   @Test
-  @DisplayName("Dois attempts stale: gateway e applyReconciliation chamados para cada um")
-  void reconcile_twoStaleAttempts_callsGatewayAndApplyForEach() {
-    PaymentAttempt a1 = staleAttempt("MP-ORDER-A");
-    PaymentAttempt a2 = staleAttempt("MP-ORDER-B");
+  @DisplayName("Dois attempts stale: gateway consultado e resultados aplicados num lote")
+  void reconcile_twoStaleAttempts_appliesResultsInOneBatch() {
     GatewayOrderResult r1 = new GatewayOrderResult("MP-ORDER-A", "processing", null, null);
     GatewayOrderResult r2 = new GatewayOrderResult("MP-ORDER-B", "processed", null, null);
 
-    when(paymentAttemptRepository.findStaleAttempts(any(), any(Instant.class)))
-        .thenReturn(List.of(a1, a2));
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), anyLong(), any()))
+        .thenReturn(
+            List.of(staleAttempt(1L, "MP-ORDER-A"), staleAttempt(2L, "MP-ORDER-B")),
+            List.of());
     when(paymentGateway.getOrderStatus("MP-ORDER-A")).thenReturn(r1);
     when(paymentGateway.getOrderStatus("MP-ORDER-B")).thenReturn(r2);
 
     job.reconcileStaleAttempts();
 
-    verify(paymentApplicationService).applyReconciliation(any(), eq(r1));
-    verify(paymentApplicationService).applyReconciliation(any(), eq(r2));
+    verify(paymentApplicationService).applyReconciliationBatch(Map.of(1L, r1, 2L, r2));
+    verify(paymentAttemptRepository)
+        .scheduleNextReconcile(
+            eq(List.of(1L, 2L)), any(Instant.class), eq(300L), eq(Duration.ofHours(6).toSeconds()));
+    assertThat(job.lastRun().scanned()).isEqualTo(2);
+    assertThat(job.lastRun().applied()).isEqualTo(2);
+    assertThat(job.lastRun().maxLag()).isGreaterThanOrEqualTo(Duration.ofMinutes(59));
+  }
+
+  @Test
+  @DisplayName("Pagina cheia: segue pelo keyset a partir do ultimo id")
+  void reconcile_fullPage_continuesFromLastId() {
+    GatewayOrderResult result = new GatewayOrderResult("MP", "processing", null, null);
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), eq(0L), any()))
+        .thenReturn(List.of(staleAttempt(1L, "MP-1"), staleAttempt(5L, "MP-5")));
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), eq(5L), any()))
+        .thenReturn(List.of(staleAttempt(9L, "MP-9")));
+    when(paymentGateway.getOrderStatus(any())).thenReturn(result);
+
+    job.reconcileStaleAttempts();
+
+    verify(paymentGateway).getOrderStatus("MP-9");
+    assertThat(job.lastRun().scanned()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Limite por execucao: nao busca alem de max-per-run")
+  void reconcile_maxPerRunReached_stopsScanning() {
+    job = newJob(2, 2);
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), eq(0L), eq(PageRequest.of(0, 2))))
+        .thenReturn(List.of(staleAttempt(1L, "MP-1"), staleAttempt(2L, "MP-2")));
+    when(paymentGateway.getOrderStatus(any()))
+        .thenReturn(new GatewayOrderResult("MP", "processing", null, null));
+
+    job.reconcileStaleAttempts();
+
+    verify(paymentAttemptRepository, never())
+        .findStaleAttemptPage(any(), any(Instant.class), any(Instant.class), eq(2L), any());
   }
 
   @Test
   @DisplayName("Nenhum attempt stale: gateway nunca chamado")
   void reconcile_noStaleAttempts_neverCallsGateway() {
-    when(paymentAttemptRepository.findStaleAttempts(any(), any(Instant.class)))
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), anyLong(), any()))
         .thenReturn(List.of());
 
     job.reconcileStaleAttempts();
 
     verify(paymentGateway, never()).getOrderStatus(any());
-    verify(paymentApplicationService, never()).applyReconciliation(any(), any());
+    verify(paymentApplicationService, never()).applyReconciliationBatch(any());
+    assertThat(job.lastRun().scanned()).isZero();
   }
 
   @Test
-  @DisplayName("Gateway falha em um attempt: job continua e processa o proximo")
+  @DisplayName("Gateway falha em um attempt: job continua, aplica o outro e agenda backoff")
   void reconcile_gatewayFailsOnFirst_continuesWithSecond() {
-    PaymentAttempt a1 = staleAttempt("MP-ORDER-FAIL");
-    PaymentAttempt a2 = staleAttempt("MP-ORDER-OK");
     GatewayOrderResult r2 = new GatewayOrderResult("MP-ORDER-OK", "processed", null, null);
 
-    when(paymentAttemptRepository.findStaleAttempts(any(), any(Instant.class)))
-        .thenReturn(List.of(a1, a2));
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), anyLong(), any()))
+        .thenReturn(
+            List.of(staleAttempt(1L, "MP-ORDER-FAIL"), staleAttempt(2L, "MP-ORDER-OK")),
+            List.of());
     when(paymentGateway.getOrderStatus("MP-ORDER-FAIL"))
         .thenThrow(new RuntimeException("gateway timeout"));
     when(paymentGateway.getOrderStatus("MP-ORDER-OK")).thenReturn(r2);
 
     assertThatNoException().isThrownBy(() -> job.reconcileStaleAttempts());
 
-    verify(paymentApplicationService).applyReconciliation(any(), eq(r2));
+    verify(paymentApplicationService).applyReconciliationBatch(Map.of(2L, r2));
+    verify(paymentAttemptRepository)
+        .scheduleNextReconcile(eq(List.of(1L, 2L)), any(Instant.class), anyLong(), anyLong());
+    assertThat(job.lastRun().errors()).isEqualTo(1);
   }
 
   @Test
-  @DisplayName("applyReconciliation falha em um attempt: job continua e nao propaga excecao")
-  void reconcile_applyFailsOnFirst_continuesWithSecond() {
-    PaymentAttempt a1 = staleAttempt("MP-ORDER-A");
-    PaymentAttempt a2 = staleAttempt("MP-ORDER-B");
+  @DisplayName("Lote falha: reaplica um a um e nao propaga excecao")
+  void reconcile_batchFails_fallsBackToSingleApplies() {
     GatewayOrderResult r1 = new GatewayOrderResult("MP-ORDER-A", "processed", null, null);
     GatewayOrderResult r2 = new GatewayOrderResult("MP-ORDER-B", "processed", null, null);
 
-    when(paymentAttemptRepository.findStaleAttempts(any(), any(Instant.class)))
-        .thenReturn(List.of(a1, a2));
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), anyLong(), any()))
+        .thenReturn(
+            List.of(staleAttempt(1L, "MP-ORDER-A"), staleAttempt(2L, "MP-ORDER-B")),
+            List.of());
     when(paymentGateway.getOrderStatus("MP-ORDER-A")).thenReturn(r1);
     when(paymentGateway.getOrderStatus("MP-ORDER-B")).thenReturn(r2);
     doThrow(new RuntimeException("db error"))
         .when(paymentApplicationService)
-        .applyReconciliation(any(), eq(r1));
+        .applyReconciliationBatch(any());
+    doThrow(new RuntimeException("db error"))
+        .when(paymentApplicationService)
+        .applyReconciliation(1L, r1);
+
+    assertThatNoException().isThrownBy(() -> job.reconcileStaleAttempts());
+
+    verify(paymentApplicationService).applyReconciliation(2L, r2);
+    assertThat(job.lastRun().applied()).isEqualTo(1);
+    assertThat(job.lastRun().errors()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Tentativas orfas: reenvia uma a uma, isola falha e agenda backoff")
+  void reconcile_orphanAttempts_recoversEachAndSchedulesBackoff() {
+    when(paymentAttemptRepository.findStaleAttemptPage(
+            any(), any(Instant.class), any(Instant.class), anyLong(), any()))
+        .thenReturn(List.of());
+    when(paymentAttemptRepository.findOrphanAttemptIds(
+            eq(PaymentAttemptStatus.CREATED), any(Instant.class), any(Instant.class), any()))
+        .thenReturn(List.of(3L, 4L));
+    when(paymentApplicationService.recoverOrphanAttempt(eq(3L), any(Instant.class)))
+        .thenThrow(new RuntimeException("gateway timeout"));
 
     assertThatNoException().isThrownBy(() -> job.reconcileStaleAttempts());
 
-    verify(paymentApplicationService).applyReconciliation(any(), eq(r2));
+    verify(paymentApplicationService).recoverOrphanAttempt(eq(4L), any(Instant.class));
+    verify(paymentAttemptRepository)
+        .scheduleNextReconcile(eq(List.of(3L, 4L)), any(Instant.class), anyLong(), anyLong());
+    verify(paymentGateway, never()).getOrderStatus(any());
   }
 }
@@ -0,0 +1,55 @@
+package com.orama.e_commerce.service;
+
+import com.orama.e_commerce.enums.PaymentAttemptStatus;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Cada operacao mapeia todos os pares status/status_detail que o Mercado Pago devolve, para o
+// JIT nao especializar o switch num unico caso.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentStatusMapperBenchmark {
+
+  private static final String[][] PROVIDER_STATUSES = {
+    {"created", null},
+    {"processing", "in_process"},
+    {"action_required", "waiting_capture"},
+    {"action_required", "pending_challenge"},
+    {"action_required", "waiting_transfer"},
+    {"processed", "accredited"},
+    {"failed", "rejected_by_issuer"},
+    {"canceled", "by_collector"},
+    {"expired", null},
+    {"refunded", "refunded"},
+    {"charged_back", "settled"}
+  };
+
+  private PaymentStatusMapper mapper;
+
+  @Setup
+  public void setUp() {
+    mapper = new PaymentStatusMapper();
+  }
+
+  @Benchmark
+  public void mapProviderStatuses(Blackhole blackhole) {
+    for (String[] status : PROVIDER_STATUSES) {
+      PaymentAttemptStatus attemptStatus = mapper.toAttemptStatus(status[0], status[1]);
+      blackhole.consume(mapper.toOrderStatus(attemptStatus));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
+import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
+import com.orama.e_commerce.repository.PaymentWebhookInboxRepository;
+import com.orama.e_commerce.service.gateway.GatewayOrderResult;
+import com.orama.e_commerce.service.gateway.PaymentGateway;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentWebhookInboxWorkerTest {
+
+  @Mock PaymentWebhookInboxRepository inboxRepository;
+  @Mock PaymentGateway paymentGateway;
+  @Mock PaymentApplicationService paymentApplicationService;
+
+  PaymentWebhookInboxWorker worker;
+
+  @BeforeEach
+  void setUp() {
+    worker =
+        new PaymentWebhookInboxWorker(
+            inboxRepository,
+            paymentGateway,
+            paymentApplicationService,
+            2,
+            10,
+            8,
+            Duration.ofSeconds(5),
+            Duration.ofMinutes(2),
+            Duration.ofDays(7),
+            100);
+  }
+
+  @AfterEach
+  void tearDown() {
+    worker.shutdown();
+  }
+
+  @Test
+  @DisplayName("Varias notificacoes do mesmo data.id: uma consulta ao gateway, todas PROCESSED")
+  void process_claimedNotifications_appliesResultOnce() {
+    GatewayOrderResult result = new GatewayOrderResult("MP-1", "processed", null, "visa");
+    when(inboxRepository.claim(eq("MP-1"), any(Instant.class), any(Instant.class))).thenReturn(3);
+    when(paymentGateway.getOrderStatus("MP-1")).thenReturn(result);
+
+    worker.process("MP-1");
+
+    verify(paymentGateway).getOrderStatus("MP-1");
+    verify(paymentApplicationService).applyWebhookResult(result);
+    verify(inboxRepository).markProcessed(eq("MP-1"), any(Instant.class), isNull());
+  }
+
+  @Test
+  @DisplayName("Purga: apaga linhas resolvidas em lotes ate sobrar lote incompleto")
+  void purgeResolved_deletesInBatchesUntilShortBatch() {
+    when(inboxRepository.deleteResolvedBefore(any(Instant.class), eq(100)))
+        .thenReturn(100, 100, 37);
+
+    worker.purgeResolved();
+
+    verify(inboxRepository, times(3)).deleteResolvedBefore(any(Instant.class), eq(100));
+  }
+
+  @Test
+  @DisplayName("Outro worker reivindicou o data.id: nada a fazer")
+  void process_notClaimed_skipsGateway() {
+    when(inboxRepository.claim(eq("MP-1"), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+    worker.process("MP-1");
+
+    verifyNoInteractions(paymentGateway, paymentApplicationService);
+  }
+
+  @Test
+  @DisplayName("Gateway recusa o data.id: notificacao descartada sem retentativa")
+  void process_permanentGatewayException_marksProcessedWithNote() {
+    when(inboxRepository.claim(eq("MP-1"), any(Instant.class), any(Instant.class))).thenReturn(1);
+    when(paymentGateway.getOrderStatus("MP-1"))
+        .thenThrow(new PermanentPaymentGatewayException("Order invalida no Mercado Pago"));
+
+    worker.process("MP-1");
+
+    verifyNoInteractions(paymentApplicationService);
+    verify(inboxRepository)
+        .markProcessed(eq("MP-1"), any(Instant.class), eq("Order invalida no Mercado Pago"));
+    verify(inboxRepository, never())
+        .reschedule(any(), any(Instant.class), anyLong(), anyInt(), any());
+  }
+
+  @Test
+  @DisplayName("Erro transiente: volta para a fila com backoff")
+  void process_transientGatewayException_reschedules() {
+    when(inboxRepository.claim(eq("MP-1"), any(Instant.class), any(Instant.class))).thenReturn(1);
+    when(paymentGateway.getOrderStatus("MP-1"))
+        .thenThrow(new TransientPaymentGatewayException("MP fora do ar"));
+
+    worker.process("MP-1");
+
+    verifyNoInteractions(paymentApplicationService);
+    verify(inboxRepository)
+        .reschedule(eq("MP-1"), any(Instant.class), eq(5L), eq(8), eq("MP fora do ar"));
+    verify(inboxRepository, never()).markProcessed(any(), any(Instant.class), any());
+  }
+
+  @Test
+  @DisplayName("Drain processa cada data.id pendente no pool de workers")
+  void drain_dueDataIds_processesEach() {
+    when(inboxRepository.findDueDataIds(any(Instant.class), eq(10)))
+        .thenReturn(List.of("MP-1", "MP-2"));
+    when(inboxRepository.claim(any(), any(Instant.class), any(Instant.class))).thenReturn(1);
+    when(paymentGateway.getOrderStatus(any()))
+        .thenReturn(new GatewayOrderResult("MP-1", "processing", null, null));
+
+    int processed = worker.drain();
+
+    assertThat(processed).isEqualTo(2);
+    verify(paymentGateway).getOrderStatus("MP-1");
+    verify(paymentGateway).getOrderStatus("MP-2");
+    verify(inboxRepository).releaseExpiredLocks(any(Instant.class));
+  }
+}
@@ -6,11 +6,14 @@ import static org.mockito.Mockito.*;
 
 import com.orama.e_commerce.dtos.product_image.ProductImageRequestDto;
 import com.orama.e_commerce.dtos.product_image.ProductImageResponseDto;
+import com.orama.e_commerce.enums.ImageVariantStatus;
 import com.orama.e_commerce.exceptions.BadRequestException;
 import com.orama.e_commerce.exceptions.product_image.ProductImageNotFoundException;
 import com.orama.e_commerce.mapper.ProductImageMapper;
+import com.orama.e_commerce.models.MediaLibrary;
 import com.orama.e_commerce.models.Product;
 import com.orama.e_commerce.models.ProductImage;
+import com.orama.e_commerce.repository.MediaLibraryRepository;
 import com.orama.e_commerce.repository.ProductImageRepository;
 import java.math.BigDecimal;
 import java.util.List;
@@ -32,6 +35,8 @@ class ProductImageServiceTest {
   @Mock private ProductImageRepository productImageRepository;
   @Mock private ProductService productService;
   @Mock private ProductImageMapper productImageMapper;
+  @Mock private ProductCatalogCache productCatalogCache;
+  @Mock private MediaLibraryRepository mediaLibraryRepository;
 
   @InjectMocks private ProductImageService productImageService;
 
@@ -53,7 +58,8 @@ class ProductImageServiceTest {
     productImage.setUrl("https://example.com/image1.jpg");
     productImage.setProduct(product);
 
-    productImageResponseDto = new ProductImageResponseDto(1L, "https://example.com/image1.jpg");
+    productImageResponseDto =
+        new ProductImageResponseDto(1L, "https://example.com/image1.jpg", null, null);
 
     pageable = PageRequest.of(0, 10);
   }
@@ -89,6 +95,7 @@ class ProductImageServiceTest {
     assertEquals(1L, result.id());
     verify(productService).findById(1L);
     verify(productImageRepository).save(any(ProductImage.class));
+    verify(productCatalogCache).evictProduct(1L);
   }
 
   @Test
@@ -104,13 +111,13 @@ class ProductImageServiceTest {
     image2.setProduct(product);
 
     ProductImageResponseDto responseDto2 =
-        new ProductImageResponseDto(2L, "https://example.com/image2.jpg");
+        new ProductImageResponseDto(2L, "https://example.com/image2.jpg", null, null);
 
     when(productService.findById(1L)).thenReturn(product);
     when(productImageMapper.toEntity(requestDto1)).thenReturn(productImage);
     when(productImageMapper.toEntity(requestDto2)).thenReturn(image2);
-    when(productImageRepository.save(productImage)).thenReturn(productImage);
-    when(productImageRepository.save(image2)).thenReturn(image2);
+    when(productImageRepository.saveAll(List.of(productImage, image2)))
+        .thenReturn(List.of(productImage, image2));
     when(productImageMapper.toResponseDto(productImage)).thenReturn(productImageResponseDto);
     when(productImageMapper.toResponseDto(image2)).thenReturn(responseDto2);
 
@@ -120,7 +127,38 @@ class ProductImageServiceTest {
     assertNotNull(result);
     assertEquals(2, result.size());
     verify(productService).findById(1L);
-    verify(productImageRepository, times(2)).save(any(ProductImage.class));
+    verify(productImageRepository).saveAll(List.of(productImage, image2));
+    verify(productImageRepository, never()).save(any(ProductImage.class));
+    verify(productCatalogCache).evictProduct(1L);
+  }
+
+  @Test
+  void shouldCopyReadyVariantsFromMediaLibrary() {
+    ProductImageRequestDto requestDto =
+        new ProductImageRequestDto("https://example.com/image1.jpg");
+    MediaLibrary media = new MediaLibrary();
+    media.setUrl("https://example.com/image1.jpg");
+    media.setVariantStatus(ImageVariantStatus.READY);
+    media.setVariantFormat("jpg");
+    media.setVariantWidths("320,640");
+    media.setVariantWebp(true);
+
+    when(productService.findById(1L)).thenReturn(product);
+    when(productImageMapper.toEntity(requestDto)).thenReturn(productImage);
+    when(mediaLibraryRepository.findAllByUrlIn(List.of("https://example.com/image1.jpg")))
+        .thenReturn(List.of(media));
+
+    productImageService.addImageToProduct(1L, requestDto);
+
+    assertEquals("jpg", productImage.getVariantFormat());
+    assertEquals("320,640", productImage.getVariantWidths());
+    assertTrue(productImage.isVariantWebp());
+    assertEquals(
+        "https://example.com/image1-w320.jpg 320w, https://example.com/image1-w640.jpg 640w",
+        ImageVariants.srcset(
+            productImage.getUrl(),
+            productImage.getVariantFormat(),
+            productImage.getVariantWidths()));
   }
 
   @Test
@@ -130,6 +168,7 @@ class ProductImageServiceTest {
     productImageService.deleteProductImage(1L, 1L);
 
     verify(productImageRepository).delete(productImage);
+    verify(productCatalogCache).evictProduct(1L);
   }
 
   @Test
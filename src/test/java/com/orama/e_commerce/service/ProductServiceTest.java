@@ -2,8 +2,10 @@ package com.orama.e_commerce.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import com.orama.e_commerce.config.CatalogCacheProperties;
 import com.orama.e_commerce.dtos.product.*;
 import com.orama.e_commerce.exceptions.product.ProductAlreadyActiveException;
 import com.orama.e_commerce.exceptions.product.ProductAlreadyInactiveException;
@@ -13,6 +15,7 @@ import com.orama.e_commerce.mapper.ProductMapper;
 import com.orama.e_commerce.models.Product;
 import com.orama.e_commerce.repository.ProductRepository;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -20,13 +23,13 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceTest {
@@ -34,7 +37,7 @@ class ProductServiceTest {
   @Mock private ProductRepository productRepository;
   @Mock private ProductMapper productMapper;
 
-  @InjectMocks private ProductService productService;
+  private ProductService productService;
 
   private Product product;
   private ProductResponseDto productResponseDto;
@@ -42,6 +45,12 @@ class ProductServiceTest {
 
   @BeforeEach
   void setUp() {
+    productService =
+        new ProductService(
+            productRepository,
+            productMapper,
+            new ProductCatalogCache(new CatalogCacheProperties()));
+
     product = new Product();
     product.setId(1L);
     product.setName("Produto Teste");
@@ -76,6 +85,52 @@ class ProductServiceTest {
     verify(productRepository).findById(1L);
   }
 
+  @Test
+  void shouldServeRepeatedGetByIdFromCache() {
+    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
+
+    productService.getById(1L);
+    ProductResponseDto result = productService.getById(1L);
+
+    assertEquals(1L, result.id());
+    verify(productRepository, times(1)).findById(1L);
+    assertEquals(1, productService.getCacheStats().get(0).hitCount());
+  }
+
+  @Test
+  void shouldEvictCachedProductOnUpdate() {
+    ProductUpdateRequestDto updateRequestDto =
+        new ProductUpdateRequestDto(
+            "Produto Atualizado", "Nova descrição", new BigDecimal("149.90"));
+
+    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    when(productRepository.save(any(Product.class))).thenReturn(product);
+    when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
+
+    productService.getById(1L);
+    productService.updateProduct(1L, updateRequestDto);
+    productService.getById(1L);
+
+    verify(productRepository, times(3)).findById(1L);
+  }
+
+  @Test
+  void shouldServeRepeatedActivePageFromCacheUntilStockChanges() {
+    Page<Product> productPage = new PageImpl<>(List.of(product));
+    when(productRepository.findByActiveTrue(pageable)).thenReturn(productPage);
+    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    when(productRepository.save(any(Product.class))).thenReturn(product);
+    when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
+
+    productService.getAllActiveProducts(pageable);
+    productService.getAllActiveProducts(pageable);
+    productService.stockSet(1L, new ProductStockSetDto(5));
+    productService.getAllActiveProducts(pageable);
+
+    verify(productRepository, times(2)).findByActiveTrue(pageable);
+  }
+
   @Test
   void shouldThrowProductNotFoundExceptionWhenProductInactive() {
     product.setActive(false);
@@ -120,15 +175,38 @@ class ProductServiceTest {
   @Test
   void shouldReturnProductsByName() {
     Page<Product> productPage = new PageImpl<>(List.of(product));
-    when(productRepository.findByNameContainingIgnoreCaseAndActiveTrue("Produto", pageable))
-        .thenReturn(productPage);
+    when(productRepository.searchActive("Produto", pageable)).thenReturn(productPage);
     when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
 
-    Page<ProductResponseDto> result = productService.getAllByName("Produto", pageable);
+    Page<ProductResponseDto> result = productService.getAllByName("  Produto ", pageable);
 
     assertNotNull(result);
     assertEquals(1, result.getTotalElements());
-    verify(productRepository).findByNameContainingIgnoreCaseAndActiveTrue("Produto", pageable);
+    verify(productRepository).searchActive("Produto", pageable);
+  }
+
+  @Test
+  void shouldDropRequestSortWhenSearchingByName() {
+    Pageable sorted = PageRequest.of(0, 10, Sort.by("price"));
+    when(productRepository.searchActive("Produto", PageRequest.of(0, 10)))
+        .thenReturn(new PageImpl<>(List.of(product)));
+    when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
+
+    productService.getAllByName("Produto", sorted);
+
+    verify(productRepository).searchActive("Produto", PageRequest.of(0, 10));
+  }
+
+  @Test
+  void shouldFallBackToActiveListingWhenSearchTermIsBlank() {
+    when(productRepository.findByActiveTrue(pageable))
+        .thenReturn(new PageImpl<>(List.of(product)));
+    when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
+
+    Page<ProductResponseDto> result = productService.getAllByName("   ", pageable);
+
+    assertEquals(1, result.getTotalElements());
+    verify(productRepository, never()).searchActive(anyString(), any(Pageable.class));
   }
 
   @Test
@@ -186,42 +264,53 @@ class ProductServiceTest {
   void shouldAdjustStockPositive() {
     ProductStockAdjustmentDto adjustmentDto = new ProductStockAdjustmentDto(10);
 
+    when(productRepository.adjustStock(eq(1L), eq(10), any(Instant.class))).thenReturn(1);
     when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-    when(productRepository.save(any(Product.class))).thenReturn(product);
     when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
 
     ProductResponseDto result = productService.stockAdjustment(1L, adjustmentDto);
 
     assertNotNull(result);
-    assertEquals(110, product.getStock());
-    verify(productRepository).save(product);
+    verify(productRepository).adjustStock(eq(1L), eq(10), any(Instant.class));
+    verify(productRepository, never()).save(any(Product.class));
   }
 
   @Test
   void shouldAdjustStockNegative() {
     ProductStockAdjustmentDto adjustmentDto = new ProductStockAdjustmentDto(-50);
 
+    when(productRepository.adjustStock(eq(1L), eq(-50), any(Instant.class))).thenReturn(1);
     when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-    when(productRepository.save(any(Product.class))).thenReturn(product);
     when(productMapper.toResponseDto(product)).thenReturn(productResponseDto);
 
     ProductResponseDto result = productService.stockAdjustment(1L, adjustmentDto);
 
     assertNotNull(result);
-    assertEquals(50, product.getStock());
-    verify(productRepository).save(product);
+    verify(productRepository).adjustStock(eq(1L), eq(-50), any(Instant.class));
   }
 
   @Test
   void shouldThrowStockNegativeExceptionWhenAdjustmentResultsInNegativeStock() {
     ProductStockAdjustmentDto adjustmentDto = new ProductStockAdjustmentDto(-150);
 
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    when(productRepository.adjustStock(eq(1L), eq(-150), any(Instant.class))).thenReturn(0);
+    when(productRepository.existsById(1L)).thenReturn(true);
 
     assertThrows(
         StockNegativeException.class, () -> productService.stockAdjustment(1L, adjustmentDto));
   }
 
+  @Test
+  void shouldThrowProductNotFoundWhenAdjustingStockOfMissingProduct() {
+    ProductStockAdjustmentDto adjustmentDto = new ProductStockAdjustmentDto(10);
+
+    when(productRepository.adjustStock(eq(99L), eq(10), any(Instant.class))).thenReturn(0);
+    when(productRepository.existsById(99L)).thenReturn(false);
+
+    assertThrows(
+        ProductNotFoundException.class, () -> productService.stockAdjustment(99L, adjustmentDto));
+  }
+
   @Test
   void shouldSetStock() {
     ProductStockSetDto stockSetDto = new ProductStockSetDto(200);
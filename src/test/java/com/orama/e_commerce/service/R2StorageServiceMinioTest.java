@@ -0,0 +1,89 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+// Mesmo fluxo de upload contra um MinIO local (API S3), com PUT simples e multipart de verdade.
+@Testcontainers(disabledWithoutDocker = true)
+class R2StorageServiceMinioTest {
+
+  private static final String BUCKET = "uploads";
+  private static final String ACCESS_KEY = "minio-test";
+  private static final String SECRET_KEY = "minio-test-secret";
+  private static final int MIB = 1024 * 1024;
+  private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+
+  @Container
+  static final GenericContainer<?> MINIO =
+      new GenericContainer<>(DockerImageName.parse("minio/minio:RELEASE.2023-09-04T19-57-37Z"))
+          .withEnv("MINIO_ROOT_USER", ACCESS_KEY)
+          .withEnv("MINIO_ROOT_PASSWORD", SECRET_KEY)
+          .withCommand("server", "/data")
+          .withExposedPorts(9000)
+          .waitingFor(Wait.forHttp("/minio/health/live").forPort(9000));
+
+  static S3Client s3Client;
+  static R2StorageService storageService;
+
+  @BeforeAll
+  static void setUp() {
+    s3Client =
+        S3Client.builder()
+            .endpointOverride(
+                URI.create("http://" + MINIO.getHost() + ":" + MINIO.getMappedPort(9000)))
+            .credentialsProvider(
+                StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(ACCESS_KEY, SECRET_KEY)))
+            .region(Region.US_EAST_1)
+            .forcePathStyle(true)
+            .build();
+    s3Client.createBucket(request -> request.bucket(BUCKET));
+    storageService = new R2StorageService(s3Client, BUCKET, "https://cdn", 5 * MIB, 5 * MIB, 2);
+  }
+
+  @Test
+  @DisplayName("PUT simples: objeto gravado com o conteudo e o tipo detectado")
+  void upload_smallFile_storesObject() {
+    byte[] content = R2StorageServiceTest.withHeader(JPEG_HEADER, 256 * 1024);
+
+    String key =
+        storageService.upload(
+            new MockMultipartFile("file", "foto.jpg", "application/octet-stream", content));
+
+    ResponseBytes<GetObjectResponse> stored =
+        s3Client.getObjectAsBytes(request -> request.bucket(BUCKET).key(key));
+    assertThat(stored.response().contentType()).isEqualTo("image/jpeg");
+    assertThat(stored.asByteArray()).isEqualTo(content);
+  }
+
+  @Test
+  @DisplayName("Multipart: partes em paralelo remontadas no objeto final, sem upload pendente")
+  void upload_largeFile_storesMultipartObject() {
+    byte[] content = R2StorageServiceTest.withHeader(JPEG_HEADER, 12 * MIB);
+
+    String key =
+        storageService.upload(new MockMultipartFile("file", "foto.jpg", "image/jpeg", content));
+
+    ResponseBytes<GetObjectResponse> stored =
+        s3Client.getObjectAsBytes(request -> request.bucket(BUCKET).key(key));
+    assertThat(stored.asByteArray()).isEqualTo(content);
+    assertThat(s3Client.listMultipartUploads(request -> request.bucket(BUCKET)).uploads())
+        .isEmpty();
+  }
+}
@@ -0,0 +1,150 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.orama.e_commerce.exceptions.StorageException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+@ExtendWith(MockitoExtension.class)
+class R2StorageServiceTest {
+
+  private static final int MIB = 1024 * 1024;
+  private static final byte[] PNG_HEADER = {
+    (byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D
+  };
+
+  @Mock S3Client s3Client;
+
+  R2StorageService storageService;
+
+  @BeforeEach
+  void setUp() {
+    storageService = new R2StorageService(s3Client, "bucket", "https://cdn", 5 * MIB, 5 * MIB, 2);
+  }
+
+  @Test
+  @DisplayName("Arquivo pequeno: um PUT com o tipo detectado pelos bytes, nao pelo declarado")
+  void upload_smallFile_singlePutWithSniffedContentType() {
+    byte[] content = withHeader(PNG_HEADER, 64 * 1024);
+    MockMultipartFile file =
+        new MockMultipartFile("file", "logo.png", "application/octet-stream", content);
+    ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+    ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+
+    String filename = storageService.upload(file);
+
+    verify(s3Client).putObject(request.capture(), body.capture());
+    assertThat(filename).endsWith(".png");
+    assertThat(request.getValue().contentType()).isEqualTo("image/png");
+    assertThat(request.getValue().contentLength()).isEqualTo((long) content.length);
+    assertThat(read(body.getValue())).isEqualTo(content);
+    verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+  }
+
+  @Test
+  @DisplayName("Assinatura desconhecida: mantem o Content-Type declarado")
+  void upload_unknownSignature_keepsDeclaredContentType() {
+    MockMultipartFile file =
+        new MockMultipartFile("file", "logo.svg", "image/svg+xml", "<svg/>".getBytes());
+    ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+
+    storageService.upload(file);
+
+    verify(s3Client).putObject(request.capture(), any(RequestBody.class));
+    assertThat(request.getValue().contentType()).isEqualTo("image/svg+xml");
+  }
+
+  @Test
+  @DisplayName("Arquivo grande: partes de 5 MiB, cada uma com a sua faixa, concluidas em ordem")
+  void upload_largeFile_uploadsRangesAsParts() {
+    byte[] content = withHeader(PNG_HEADER, 11 * MIB);
+    Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("up-1").build());
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenAnswer(
+            invocation -> {
+              UploadPartRequest request = invocation.getArgument(0);
+              parts.put(request.partNumber(), read(invocation.getArgument(1)));
+              return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+            });
+    ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+        ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+
+    storageService.upload(new MockMultipartFile("file", "big.png", "image/png", content));
+
+    verify(s3Client).completeMultipartUpload(complete.capture());
+    assertThat(complete.getValue().multipartUpload().parts())
+        .extracting(part -> part.partNumber() + ":" + part.eTag())
+        .containsExactly("1:etag-1", "2:etag-2", "3:etag-3");
+    assertThat(parts.get(1)).hasSize(5 * MIB);
+    assertThat(parts.get(3)).hasSize(MIB);
+    ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+    for (int i = 1; i <= 3; i++) {
+      reassembled.writeBytes(parts.get(i));
+    }
+    assertThat(reassembled.toByteArray()).isEqualTo(content);
+    verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+  }
+
+  @Test
+  @DisplayName("Parte falhou: aborta o multipart e nao conclui")
+  void upload_partFails_abortsMultipartUpload() {
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("up-1").build());
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenThrow(S3Exception.builder().message("503 Slow Down").build());
+    MockMultipartFile file =
+        new MockMultipartFile("file", "big.png", "image/png", withHeader(PNG_HEADER, 6 * MIB));
+
+    assertThatThrownBy(() -> storageService.upload(file))
+        .isInstanceOf(StorageException.class)
+        .hasMessageContaining("Slow Down");
+
+    verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+  }
+
+  static byte[] withHeader(byte[] header, int size) {
+    byte[] content = new byte[size];
+    new Random(42).nextBytes(content);
+    System.arraycopy(header, 0, content, 0, header.length);
+    return content;
+  }
+
+  private static byte[] read(RequestBody body) {
+    try {
+      return body.contentStreamProvider().newStream().readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
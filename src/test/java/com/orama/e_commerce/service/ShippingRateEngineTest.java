@@ -0,0 +1,159 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.models.ShippingRateRule;
+import com.orama.e_commerce.repository.ShippingRateRuleRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShippingRateEngineTest {
+
+  private static BrazilianLocationIndex locationIndex;
+
+  private ShippingRateRuleRepository shippingRateRuleRepository;
+  private ShippingRateEngine shippingRateEngine;
+  private long nextId;
+
+  @BeforeAll
+  static void loadIndex() {
+    locationIndex = new BrazilianLocationIndex();
+  }
+
+  @BeforeEach
+  void setUp() {
+    shippingRateRuleRepository = mock(ShippingRateRuleRepository.class);
+    shippingRateEngine = new ShippingRateEngine(shippingRateRuleRepository, locationIndex);
+    nextId = 1;
+  }
+
+  @Test
+  void shouldReproduceSeededNordesteAndDefaultRules() {
+    givenRules(
+        rule("Nordeste", "40000000", "65999999", null, null, "0.00", 100),
+        rule("Demais regiões", null, null, null, null, "60.00", 1000));
+
+    ShippingQuote salvador = shippingRateEngine.quote("40010000", BigDecimal.TEN);
+    ShippingQuote saoPaulo = shippingRateEngine.quote("01310100", BigDecimal.TEN);
+
+    assertEquals("Nordeste", salvador.region());
+    assertTrue(salvador.freeShipping());
+    assertEquals("Demais regiões", saoPaulo.region());
+    assertEquals(new BigDecimal("60.00"), saoPaulo.cost());
+  }
+
+  @Test
+  void shouldPickLowestPriorityAcrossRangeStateAndGlobalRules() {
+    givenRules(
+        rule("Capital SP", "01000000", "05999999", null, null, "15.00", 50),
+        rule("SP", null, null, "SP", null, "25.00", 10),
+        rule("Padrao", null, null, null, null, "60.00", 1000));
+
+    assertEquals("SP", shippingRateEngine.quote("01310100", null).region());
+    assertEquals("SP", shippingRateEngine.quote("13010000", null).region());
+    assertEquals("Padrao", shippingRateEngine.quote("20040002", null).region());
+  }
+
+  @Test
+  void shouldApplyFreeShippingOnlyAboveMinimumOrderValue() {
+    givenRules(
+        rule("Promo", null, null, null, "300.00", "0.00", 1),
+        rule("Padrao", null, null, null, null, "60.00", 1000));
+
+    assertEquals("Padrao", shippingRateEngine.quote("01310100", new BigDecimal("299.99")).region());
+    assertEquals("Promo", shippingRateEngine.quote("01310100", new BigDecimal("300.00")).region());
+    assertEquals("Padrao", shippingRateEngine.quote("01310100", null).region());
+  }
+
+  @Test
+  void shouldIgnoreRulesOutsideTheirValidityWindow() {
+    ShippingRateRule expired = rule("Black Friday", null, null, null, null, "0.00", 1);
+    expired.setStartsAt(Instant.now().minus(Duration.ofDays(10)));
+    expired.setEndsAt(Instant.now().minus(Duration.ofDays(1)));
+    givenRules(expired, rule("Padrao", null, null, null, null, "60.00", 1000));
+
+    assertEquals("Padrao", shippingRateEngine.quote("01310100", BigDecimal.TEN).region());
+  }
+
+  @Test
+  void shouldResolveOverlappingRangesByPriority() {
+    givenRules(
+        rule("Faixa larga", "20000000", "28999999", null, null, "30.00", 20),
+        rule("Centro Rio", "20000000", "20099999", null, null, "10.00", 10),
+        rule("Padrao", null, null, null, null, "60.00", 1000));
+
+    assertEquals("Centro Rio", shippingRateEngine.quote("20040002", null).region());
+    assertEquals("Faixa larga", shippingRateEngine.quote("20100000", null).region());
+    assertEquals("Faixa larga", shippingRateEngine.quote("28999999", null).region());
+    assertEquals("Padrao", shippingRateEngine.quote("29000000", null).region());
+  }
+
+  @Test
+  void shouldThrowWhenNoRuleMatches() {
+    givenRules(rule("Nordeste", "40000000", "65999999", null, null, "0.00", 100));
+
+    assertThrows(
+        BadRequestException.class, () -> shippingRateEngine.quote("01310100", BigDecimal.TEN));
+  }
+
+  @Test
+  void shouldCompileOnFirstQuoteAndSwapOnReload() {
+    givenRules(rule("Padrao", null, null, null, null, "60.00", 1000));
+    assertEquals(new BigDecimal("60.00"), shippingRateEngine.quote("01310100", null).cost());
+
+    givenRules(rule("Padrao", null, null, null, null, "45.00", 1000));
+    shippingRateEngine.reload();
+
+    assertEquals(new BigDecimal("45.00"), shippingRateEngine.quote("01310100", null).cost());
+    verify(shippingRateRuleRepository, times(2)).findAllByActiveTrue();
+  }
+
+  @Test
+  void shouldQuoteFromThousandsOfRulesWithoutRepositoryAccess() {
+    List<ShippingRateRule> rules = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      String start = String.format("%08d", i * 10000);
+      String end = String.format("%08d", i * 10000 + 9999);
+      rules.add(rule("Faixa " + i, start, end, null, null, "20.00", i));
+    }
+    givenRules(rules.toArray(ShippingRateRule[]::new));
+    shippingRateEngine.reload();
+    clearInvocations(shippingRateRuleRepository);
+
+    assertEquals("Faixa 131", shippingRateEngine.quote("01310100", null).region());
+    verifyNoInteractions(shippingRateRuleRepository);
+  }
+
+  private void givenRules(ShippingRateRule... rules) {
+    when(shippingRateRuleRepository.findAllByActiveTrue()).thenReturn(List.of(rules));
+  }
+
+  private ShippingRateRule rule(
+      String region,
+      String cepStart,
+      String cepEnd,
+      String stateUf,
+      String minOrderValue,
+      String cost,
+      int priority) {
+    ShippingRateRule rule = new ShippingRateRule();
+    rule.setId(nextId++);
+    rule.setName(region);
+    rule.setRegion(region);
+    rule.setCepStart(cepStart);
+    rule.setCepEnd(cepEnd);
+    rule.setStateUf(stateUf);
+    rule.setMinOrderValue(minOrderValue == null ? null : new BigDecimal(minOrderValue));
+    rule.setCost(new BigDecimal(cost));
+    rule.setPriority(priority);
+    return rule;
+  }
+}
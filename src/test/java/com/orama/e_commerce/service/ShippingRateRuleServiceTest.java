@@ -0,0 +1,111 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.orama.e_commerce.dtos.shipping.ShippingRateRuleRequestDto;
+import com.orama.e_commerce.exceptions.BadRequestException;
+import com.orama.e_commerce.exceptions.shipping.ShippingRateRuleNotFoundException;
+import com.orama.e_commerce.mapper.ShippingRateRuleMapper;
+import com.orama.e_commerce.models.ShippingRateRule;
+import com.orama.e_commerce.repository.ShippingRateRuleRepository;
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ShippingRateRuleServiceTest {
+
+  @Mock private ShippingRateRuleRepository shippingRateRuleRepository;
+  @Mock private ShippingRateRuleMapper shippingRateRuleMapper;
+  @Mock private ShippingRateEngine shippingRateEngine;
+
+  @InjectMocks private ShippingRateRuleService shippingRateRuleService;
+
+  @Test
+  void shouldCreateRuleWithNormalizedCepsAndReloadEngine() {
+    ShippingRateRuleRequestDto dto = request("40000-000", "65999-999", "ba");
+    doAnswer(
+            invocation -> {
+              ShippingRateRule target = invocation.getArgument(1);
+              target.setCepStart(dto.cepStart());
+              target.setCepEnd(dto.cepEnd());
+              target.setStateUf(dto.stateUf());
+              return null;
+            })
+        .when(shippingRateRuleMapper)
+        .updateEntity(eq(dto), any(ShippingRateRule.class));
+    when(shippingRateRuleRepository.save(any(ShippingRateRule.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    shippingRateRuleService.create(dto);
+
+    ArgumentCaptor<ShippingRateRule> captor = ArgumentCaptor.forClass(ShippingRateRule.class);
+    verify(shippingRateRuleRepository).save(captor.capture());
+    assertEquals("40000000", captor.getValue().getCepStart());
+    assertEquals("65999999", captor.getValue().getCepEnd());
+    assertEquals("BA", captor.getValue().getStateUf());
+    assertTrue(captor.getValue().getActive());
+    verify(shippingRateEngine).reloadAfterCommit();
+  }
+
+  @Test
+  void shouldRejectHalfOpenCepRange() {
+    ShippingRateRuleRequestDto dto = request("40000-000", null, null);
+
+    assertThrows(BadRequestException.class, () -> shippingRateRuleService.create(dto));
+    verify(shippingRateRuleRepository, never()).save(any(ShippingRateRule.class));
+    verifyNoInteractions(shippingRateEngine);
+  }
+
+  @Test
+  void shouldRejectInvertedCepRange() {
+    ShippingRateRuleRequestDto dto = request("65999-999", "40000-000", null);
+
+    assertThrows(BadRequestException.class, () -> shippingRateRuleService.create(dto));
+    verify(shippingRateRuleRepository, never()).save(any(ShippingRateRule.class));
+  }
+
+  @Test
+  void shouldThrowWhenUpdatingNonExistentRule() {
+    when(shippingRateRuleRepository.findById(99L)).thenReturn(Optional.empty());
+
+    assertThrows(
+        ShippingRateRuleNotFoundException.class,
+        () -> shippingRateRuleService.update(99L, request(null, null, null)));
+    verifyNoInteractions(shippingRateEngine);
+  }
+
+  @Test
+  void shouldDeleteRuleAndReloadEngine() {
+    ShippingRateRule rule = new ShippingRateRule();
+    rule.setId(1L);
+    when(shippingRateRuleRepository.findById(1L)).thenReturn(Optional.of(rule));
+
+    shippingRateRuleService.delete(1L);
+
+    verify(shippingRateRuleRepository).delete(rule);
+    verify(shippingRateEngine).reloadAfterCommit();
+  }
+
+  private ShippingRateRuleRequestDto request(String cepStart, String cepEnd, String stateUf) {
+    return new ShippingRateRuleRequestDto(
+        "Nordeste - frete gratis",
+        "Nordeste",
+        cepStart,
+        cepEnd,
+        stateUf,
+        null,
+        BigDecimal.ZERO,
+        100,
+        null,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,96 @@
+package com.orama.e_commerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SnowflakeIdGeneratorTest {
+
+  private final AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1_000);
+
+  @Test
+  @DisplayName("Mesmo ms: sequencia cresce; ms seguinte: id maior")
+  void nextId_sameAndNextMillis_isStrictlyIncreasing() {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, clock::get);
+
+    long first = generator.nextId();
+    long second = generator.nextId();
+    clock.incrementAndGet();
+    long third = generator.nextId();
+
+    assertThat(second).isGreaterThan(first);
+    assertThat(third).isGreaterThan(second);
+  }
+
+  @Test
+  @DisplayName("Relogio voltando: continua crescente e sem repetir")
+  void nextId_clockMovesBackwards_staysMonotonic() {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, clock::get);
+
+    long beforeRollback = generator.nextId();
+    clock.addAndGet(-500);
+    long afterRollback = generator.nextId();
+
+    assertThat(afterRollback).isGreaterThan(beforeRollback);
+  }
+
+  @Test
+  @DisplayName("Sequencia estourada no mesmo ms: avanca o ms logico sem repetir")
+  void nextId_sequenceOverflow_noDuplicates() {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, clock::get);
+
+    Set<Long> ids = new HashSet<>();
+    long previous = -1;
+    for (int i = 0; i < 10_000; i++) {
+      long id = generator.nextId();
+      assertThat(id).isGreaterThan(previous);
+      previous = id;
+      ids.add(id);
+    }
+
+    assertThat(ids).hasSize(10_000);
+  }
+
+  @Test
+  @DisplayName("Nodes diferentes no mesmo ms nao colidem")
+  void nextId_differentNodes_neverCollide() {
+    SnowflakeIdGenerator nodeA = new SnowflakeIdGenerator(1, clock::get);
+    SnowflakeIdGenerator nodeB = new SnowflakeIdGenerator(2, clock::get);
+
+    Set<Long> ids = new HashSet<>();
+    for (int i = 0; i < 1_000; i++) {
+      ids.add(nodeA.nextId());
+      ids.add(nodeB.nextId());
+    }
+
+    assertThat(ids).hasSize(2_000);
+  }
+
+  @Test
+  @DisplayName("Texto de largura fixa ordena igual ao id")
+  void encode_fixedWidth_preservesOrder() {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1023, clock::get);
+
+    List<String> encoded = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      encoded.add(SnowflakeIdGenerator.encode(generator.nextId()));
+      clock.addAndGet(7_919);
+    }
+
+    assertThat(encoded).allMatch(value -> value.length() == 13).isSorted();
+    assertThat(encoded.get(0)).doesNotContain("I", "L", "O", "U");
+  }
+
+  @Test
+  void setNodeId_outOfRange_throws() {
+    assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,252 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.orama.e_commerce.enums.StockReservationStatus;
+import com.orama.e_commerce.exceptions.product.InsufficientStockException;
+import com.orama.e_commerce.models.Order;
+import com.orama.e_commerce.models.OrderItem;
+import com.orama.e_commerce.models.Product;
+import com.orama.e_commerce.models.StockReservation;
+import com.orama.e_commerce.repository.ProductRepository;
+import com.orama.e_commerce.repository.StockReservationRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+  @Mock private StockReservationRepository stockReservationRepository;
+  @Mock private ProductRepository productRepository;
+  @Mock private ProductCatalogCache productCatalogCache;
+
+  private StockReservationService stockReservationService;
+
+  private Order order;
+  private Product productA;
+  private Product productB;
+
+  @BeforeEach
+  void setUp() {
+    stockReservationService =
+        new StockReservationService(
+            stockReservationRepository,
+            productRepository,
+            productCatalogCache,
+            Duration.ofMinutes(30));
+
+    productA = new Product(1L);
+    productB = new Product(2L);
+
+    order = new Order();
+    order.setId(10L);
+    order.setItems(List.of(item(productB, 1), item(productA, 2), item(productA, 3)));
+  }
+
+  @Test
+  void shouldHoldAggregatedQuantitiesInProductIdOrder() {
+    when(productRepository.decrementStockIfAvailable(anyLong(), anyInt(), any(Instant.class)))
+        .thenReturn(1);
+
+    stockReservationService.hold(order);
+
+    InOrder inOrder = inOrder(productRepository);
+    inOrder.verify(productRepository).decrementStockIfAvailable(eq(1L), eq(5), any(Instant.class));
+    inOrder.verify(productRepository).decrementStockIfAvailable(eq(2L), eq(1), any(Instant.class));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<StockReservation>> captor = ArgumentCaptor.forClass(List.class);
+    verify(stockReservationRepository).saveAll(captor.capture());
+    assertEquals(2, captor.getValue().size());
+    assertTrue(
+        captor.getValue().stream().allMatch(r -> r.getStatus() == StockReservationStatus.HELD));
+    verify(productCatalogCache).evictProduct(1L);
+    verify(productCatalogCache).evictProduct(2L);
+  }
+
+  @Test
+  void shouldThrowInsufficientStockWhenConditionalUpdateMatchesNoRow() {
+    when(productRepository.decrementStockIfAvailable(eq(1L), eq(5), any(Instant.class)))
+        .thenReturn(0);
+
+    assertThrows(InsufficientStockException.class, () -> stockReservationService.hold(order));
+    verify(stockReservationRepository, never()).saveAll(anyList());
+    verify(productRepository, never())
+        .decrementStockIfAvailable(eq(2L), anyInt(), any(Instant.class));
+  }
+
+  @Test
+  void shouldCommitHeldReservationsWithoutTouchingStock() {
+    StockReservation held = reservation(100L, productA, 2, StockReservationStatus.HELD);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(held));
+
+    stockReservationService.commit(10L);
+
+    verify(stockReservationRepository)
+        .transition(
+            eq(100L),
+            eq(StockReservationStatus.HELD),
+            eq(StockReservationStatus.COMMITTED),
+            any(Instant.class));
+    verifyNoInteractions(productRepository);
+  }
+
+  @Test
+  void shouldRetakeStockWhenPaymentApprovedAfterReservationReleased() {
+    StockReservation released = reservation(100L, productA, 2, StockReservationStatus.RELEASED);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(released));
+    when(stockReservationRepository.transition(
+            eq(100L),
+            eq(StockReservationStatus.RELEASED),
+            eq(StockReservationStatus.COMMITTED),
+            any(Instant.class)))
+        .thenReturn(1);
+    when(productRepository.adjustStock(eq(1L), eq(-2), any(Instant.class))).thenReturn(1);
+
+    stockReservationService.commit(10L);
+
+    InOrder inOrder = inOrder(productRepository, stockReservationRepository);
+    inOrder.verify(productRepository).adjustStock(eq(1L), eq(-2), any(Instant.class));
+    inOrder
+        .verify(stockReservationRepository)
+        .transition(
+            eq(100L),
+            eq(StockReservationStatus.RELEASED),
+            eq(StockReservationStatus.COMMITTED),
+            any(Instant.class));
+    verify(productCatalogCache).evictProduct(1L);
+  }
+
+  @Test
+  void shouldMarkShortfallInsteadOfCommittedWhenStockIsGone() {
+    StockReservation released = reservation(100L, productA, 2, StockReservationStatus.RELEASED);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(released));
+    when(productRepository.adjustStock(eq(1L), eq(-2), any(Instant.class))).thenReturn(0);
+
+    stockReservationService.commit(10L);
+
+    verify(stockReservationRepository)
+        .transition(
+            eq(100L),
+            eq(StockReservationStatus.RELEASED),
+            eq(StockReservationStatus.SHORTFALL),
+            any(Instant.class));
+    verify(stockReservationRepository, never())
+        .transition(any(), any(), eq(StockReservationStatus.COMMITTED), any());
+  }
+
+  @Test
+  void shouldCommitShortfallOnceStockIsBack() {
+    StockReservation shortfall = reservation(100L, productA, 2, StockReservationStatus.SHORTFALL);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(shortfall));
+    when(productRepository.adjustStock(eq(1L), eq(-2), any(Instant.class))).thenReturn(1);
+    when(stockReservationRepository.transition(
+            eq(100L),
+            eq(StockReservationStatus.SHORTFALL),
+            eq(StockReservationStatus.COMMITTED),
+            any(Instant.class)))
+        .thenReturn(1);
+
+    stockReservationService.commit(10L);
+
+    verify(productCatalogCache).evictProduct(1L);
+  }
+
+  @Test
+  void shouldGiveStockBackWhenAnotherCommitWonTheTransition() {
+    StockReservation released = reservation(100L, productA, 2, StockReservationStatus.RELEASED);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(released));
+    when(productRepository.adjustStock(eq(1L), eq(-2), any(Instant.class))).thenReturn(1);
+
+    stockReservationService.commit(10L);
+
+    verify(productRepository).adjustStock(eq(1L), eq(2), any(Instant.class));
+    verifyNoInteractions(productCatalogCache);
+  }
+
+  @Test
+  void shouldReturnStockOnlyWhenReleaseTransitionWins() {
+    StockReservation won = reservation(100L, productA, 2, StockReservationStatus.HELD);
+    StockReservation lost = reservation(101L, productB, 1, StockReservationStatus.HELD);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(won, lost));
+    when(stockReservationRepository.transition(
+            eq(100L),
+            eq(StockReservationStatus.HELD),
+            eq(StockReservationStatus.RELEASED),
+            any(Instant.class)))
+        .thenReturn(1);
+    when(stockReservationRepository.transition(
+            eq(101L),
+            eq(StockReservationStatus.HELD),
+            eq(StockReservationStatus.RELEASED),
+            any(Instant.class)))
+        .thenReturn(0);
+
+    stockReservationService.release(10L);
+
+    verify(productRepository).adjustStock(eq(1L), eq(2), any(Instant.class));
+    verify(productRepository, never()).adjustStock(eq(2L), anyInt(), any(Instant.class));
+  }
+
+  @Test
+  void shouldIgnoreAlreadyCommittedReservationsOnRelease() {
+    StockReservation committed = reservation(100L, productA, 2, StockReservationStatus.COMMITTED);
+    when(stockReservationRepository.findByOrderIdWithProduct(10L)).thenReturn(List.of(committed));
+
+    stockReservationService.release(10L);
+
+    verify(stockReservationRepository, never())
+        .transition(anyLong(), any(), any(), any(Instant.class));
+    verifyNoInteractions(productRepository);
+  }
+
+  @Test
+  void shouldReleaseExpiredHolds() {
+    StockReservation expired = reservation(100L, productA, 2, StockReservationStatus.HELD);
+    when(stockReservationRepository.findExpiredHolds(
+            any(Instant.class), anyList(), any(Pageable.class)))
+        .thenReturn(List.of(expired));
+    when(stockReservationRepository.transition(
+            eq(100L),
+            eq(StockReservationStatus.HELD),
+            eq(StockReservationStatus.RELEASED),
+            any(Instant.class)))
+        .thenReturn(1);
+
+    int released = stockReservationService.releaseExpired(50);
+
+    assertEquals(1, released);
+    verify(productRepository).adjustStock(eq(1L), eq(2), any(Instant.class));
+  }
+
+  private OrderItem item(Product product, int quantity) {
+    OrderItem item = new OrderItem();
+    item.setOrder(order);
+    item.setProduct(product);
+    item.setQuantity(quantity);
+    return item;
+  }
+
+  private StockReservation reservation(
+      Long id, Product product, int quantity, StockReservationStatus status) {
+    StockReservation reservation = new StockReservation(order, product, quantity, Instant.now());
+    ReflectionTestUtils.setField(reservation, "id", id);
+    reservation.setStatus(status);
+    return reservation;
+  }
+}
@@ -0,0 +1,174 @@
+package com.orama.e_commerce.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.orama.e_commerce.models.RevokedToken;
+import com.orama.e_commerce.repository.RevokedTokenRepository;
+import com.orama.e_commerce.security.AuthenticatedPrincipalCache;
+import com.orama.e_commerce.security.JwtService;
+import com.orama.e_commerce.security.TokenHashes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+  @Mock private RevokedTokenRepository revokedTokenRepository;
+  @Mock private JwtService jwtService;
+  @Mock private AuthenticatedPrincipalCache authenticatedPrincipalCache;
+
+  private RevokedTokenRegistry revokedTokenRegistry;
+  private TokenRevocationService tokenRevocationService;
+
+  @BeforeEach
+  void setUp() {
+    revokedTokenRegistry = new RevokedTokenRegistry(1_000, 0.01);
+    tokenRevocationService =
+        new TokenRevocationService(
+            revokedTokenRepository,
+            jwtService,
+            authenticatedPrincipalCache,
+            revokedTokenRegistry,
+            Duration.ofMinutes(1));
+  }
+
+  @Test
+  void shouldFallBackToDatabaseBeforeInitialLoad() {
+    when(revokedTokenRepository.existsByTokenHash(anyString())).thenReturn(true);
+
+    assertTrue(tokenRevocationService.isTokenRevoked("token"));
+    verify(revokedTokenRepository).existsByTokenHash(TokenHashes.sha256Hex("token"));
+  }
+
+  @Test
+  void shouldAnswerLoadedRevocationsWithoutDatabase() {
+    String revokedHash = TokenHashes.sha256Hex("revoked");
+    when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class)))
+        .thenReturn(List.of(revokedToken(revokedHash, Instant.now().plus(1, ChronoUnit.HOURS))));
+
+    tokenRevocationService.loadRevokedTokens();
+
+    assertTrue(tokenRevocationService.isTokenHashRevoked(revokedHash));
+    verify(revokedTokenRepository, never()).existsByTokenHash(anyString());
+  }
+
+  @Test
+  void shouldSkipDatabaseForTokensNeverRevoked() {
+    when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class)))
+        .thenReturn(List.of());
+    tokenRevocationService.loadRevokedTokens();
+
+    for (int i = 0; i < 100; i++) {
+      assertFalse(tokenRevocationService.isTokenRevoked("token-" + i));
+    }
+
+    verify(revokedTokenRepository, never()).existsByTokenHash(anyString());
+  }
+
+  @Test
+  void shouldRegisterRevocationInMemoryAndInvalidatePrincipal() {
+    when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class)))
+        .thenReturn(List.of());
+    tokenRevocationService.loadRevokedTokens();
+    Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+    when(jwtService.extractExpiration("token")).thenReturn(Date.from(expiresAt));
+
+    tokenRevocationService.revokeToken("token");
+
+    String hash = TokenHashes.sha256Hex("token");
+    verify(revokedTokenRepository).save(any(RevokedToken.class));
+    verify(authenticatedPrincipalCache).invalidate(hash);
+    assertTrue(tokenRevocationService.isTokenHashRevoked(hash));
+  }
+
+  @Test
+  void shouldRegisterRevocationBeforeInvalidatingPrincipal() {
+    when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class)))
+        .thenReturn(List.of());
+    tokenRevocationService.loadRevokedTokens();
+    when(jwtService.extractExpiration("token"))
+        .thenReturn(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)));
+    String hash = TokenHashes.sha256Hex("token");
+    doAnswer(
+            invocation -> {
+              assertTrue(revokedTokenRegistry.contains(hash, Instant.now()));
+              return null;
+            })
+        .when(authenticatedPrincipalCache)
+        .invalidate(hash);
+
+    tokenRevocationService.revokeToken("token");
+
+    verify(authenticatedPrincipalCache).invalidate(hash);
+  }
+
+  @Test
+  void shouldInvalidatePrincipalAgainAfterCommit() {
+    when(jwtService.extractExpiration("token"))
+        .thenReturn(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)));
+    String hash = TokenHashes.sha256Hex("token");
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      tokenRevocationService.revokeToken("token");
+      verify(authenticatedPrincipalCache, times(1)).invalidate(hash);
+
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    verify(authenticatedPrincipalCache, times(2)).invalidate(hash);
+  }
+
+  @Test
+  void shouldPickUpRevocationsFromOtherNodesOnSync() {
+    when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class)))
+        .thenReturn(List.of());
+    tokenRevocationService.loadRevokedTokens();
+    String remoteHash = TokenHashes.sha256Hex("remote");
+    when(revokedTokenRepository.findAllByRevokedAtAfterAndExpiresAtAfter(
+            any(Instant.class), any(Instant.class)))
+        .thenReturn(List.of(revokedToken(remoteHash, Instant.now().plus(1, ChronoUnit.HOURS))));
+
+    tokenRevocationService.syncRevokedTokens();
+
+    assertTrue(tokenRevocationService.isTokenHashRevoked(remoteHash));
+    verify(authenticatedPrincipalCache).invalidate(remoteHash);
+    verify(revokedTokenRepository, never()).existsByTokenHash(anyString());
+  }
+
+  @Test
+  void shouldPurgeExpiredEntriesFromDatabaseAndMemory() {
+    String hash = TokenHashes.sha256Hex("expiring");
+    revokedTokenRegistry.replaceAll(Map.of(hash, Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+    tokenRevocationService.purgeExpiredTokens();
+
+    verify(revokedTokenRepository).deleteAllByExpiresAtBefore(any(Instant.class));
+    assertEquals(0, revokedTokenRegistry.size());
+    assertFalse(revokedTokenRegistry.mightContain(hash));
+  }
+
+  private RevokedToken revokedToken(String hash, Instant expiresAt) {
+    RevokedToken revokedToken = new RevokedToken();
+    revokedToken.setTokenHash(hash);
+    revokedToken.setRevokedAt(Instant.now());
+    revokedToken.setExpiresAt(expiresAt);
+    return revokedToken;
+  }
+}
@@ -0,0 +1,52 @@
+package com.orama.e_commerce.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Caminho feliz do webhook: assinatura valida, data.id alfanumerico (um unico HMAC).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookVerifierBenchmark {
+
+  private static final String SECRET = "benchmark-webhook-secret";
+  private static final String REQUEST_ID = "bb56a2f1-6aae-46ac-982e-9dcd3581d08e";
+  private static final String DATA_ID = "ord01jq4s4ky8hwq6na5pxb65b3d3";
+
+  private WebhookVerifier verifier;
+  private String signature;
+
+  @Setup
+  public void setUp() throws Exception {
+    // Tolerancia larga: o ts fica fixo durante todas as iteracoes.
+    verifier = new WebhookVerifier(SECRET, 86_400, true);
+    String ts = Long.toString(Instant.now().getEpochSecond());
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+    String template = "id:" + DATA_ID + ";request-id:" + REQUEST_ID + ";ts:" + ts + ";";
+    String v1 = HexFormat.of().formatHex(mac.doFinal(template.getBytes(StandardCharsets.UTF_8)));
+    signature = "ts=" + ts + ",v1=" + v1;
+  }
+
+  @Benchmark
+  public void verifyValidSignature() {
+    verifier.verify(signature, REQUEST_ID, DATA_ID);
+  }
+}
@@ -0,0 +1,125 @@
+package com.orama.e_commerce.service.fake;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+// Servidor SMTP em memoria com o mesmo contrato de falha do JavaMailSenderImpl: cada chamada a
+// send(MimeMessage...) e uma conexao, e as mensagens recusadas voltam no mapa da
+// MailSendException enquanto as demais seguem entregues.
+public class FakeMailSender implements JavaMailSender {
+
+  private final Session session = Session.getInstance(new Properties());
+  private final List<MimeMessage> delivered = new ArrayList<>();
+  private final Set<String> rejectedRecipients = new HashSet<>();
+  private final Set<String> unavailableRecipients = new HashSet<>();
+  private boolean connectionDown;
+  private int connectionCount;
+
+  public void rejectRecipient(String address) {
+    rejectedRecipients.add(address);
+  }
+
+  public void failTemporarily(String address) {
+    unavailableRecipients.add(address);
+  }
+
+  public void setConnectionDown(boolean connectionDown) {
+    this.connectionDown = connectionDown;
+  }
+
+  public List<MimeMessage> getDelivered() {
+    return delivered;
+  }
+
+  public int getConnectionCount() {
+    return connectionCount;
+  }
+
+  @Override
+  public MimeMessage createMimeMessage() {
+    return new MimeMessage(session);
+  }
+
+  @Override
+  public MimeMessage createMimeMessage(InputStream contentStream) {
+    try {
+      return new MimeMessage(session, contentStream);
+    } catch (MessagingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void send(MimeMessage mimeMessage) {
+    send(new MimeMessage[] {mimeMessage});
+  }
+
+  @Override
+  public void send(MimeMessage... mimeMessages) {
+    connectionCount++;
+    Map<Object, Exception> failures = new LinkedHashMap<>();
+    if (connectionDown) {
+      MessagingException refused = new MessagingException("Connection refused");
+      for (MimeMessage message : mimeMessages) {
+        failures.put(message, refused);
+      }
+      throw new MailSendException("Mail server connection failed", refused, failures);
+    }
+    for (MimeMessage message : mimeMessages) {
+      String recipient = recipient(message);
+      if (rejectedRecipients.contains(recipient)) {
+        failures.put(message, rejected(recipient));
+      } else if (unavailableRecipients.contains(recipient)) {
+        failures.put(message, new MessagingException("451 Mailbox temporarily unavailable"));
+      } else {
+        delivered.add(message);
+      }
+    }
+    if (!failures.isEmpty()) {
+      throw new MailSendException(failures);
+    }
+  }
+
+  @Override
+  public void send(SimpleMailMessage simpleMessage) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void send(SimpleMailMessage... simpleMessages) {
+    throw new UnsupportedOperationException();
+  }
+
+  private static String recipient(MimeMessage message) {
+    try {
+      return ((InternetAddress) message.getAllRecipients()[0]).getAddress();
+    } catch (MessagingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static SendFailedException rejected(String recipient) {
+    try {
+      Address[] invalid = {new InternetAddress(recipient)};
+      return new SendFailedException(
+          "550 No such user", null, new Address[0], new Address[0], invalid);
+    } catch (MessagingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
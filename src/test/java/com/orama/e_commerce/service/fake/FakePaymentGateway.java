@@ -11,6 +11,7 @@ public class FakePaymentGateway implements PaymentGateway {
   private GatewayPaymentResult nextCreateResult;
   private PaymentGatewayException nextCreateException;
   private GatewayOrderResult nextOrderStatusResult;
+  private GatewayOrderResult followingOrderStatusResult;
   private PaymentGatewayException nextOrderStatusException;
   private GatewayOrderResult nextCancelOrderResult;
   private PaymentGatewayException nextCancelOrderException;
@@ -27,12 +28,18 @@ public class FakePaymentGateway implements PaymentGateway {
   private int getOrderStatusCallCount;
   private int cancelOrderCallCount;
   private int refundOrderCallCount;
+  private Runnable duringCreate;
 
   public void setNextCreateResult(GatewayPaymentResult result) {
     this.nextCreateResult = result;
     this.nextCreateException = null;
   }
 
+  // Simula outro fluxo (cancelamento, webhook) rodando enquanto a criacao esta em voo.
+  public void setDuringCreate(Runnable duringCreate) {
+    this.duringCreate = duringCreate;
+  }
+
   public void setNextCreateException(PaymentGatewayException exception) {
     this.nextCreateException = exception;
     this.nextCreateResult = null;
@@ -43,6 +50,11 @@ public class FakePaymentGateway implements PaymentGateway {
     this.nextOrderStatusException = null;
   }
 
+  // Resposta da segunda consulta, para fluxos que reconsultam a order depois de um erro.
+  public void setFollowingOrderStatusResult(GatewayOrderResult result) {
+    this.followingOrderStatusResult = result;
+  }
+
   public void setNextOrderStatusException(PaymentGatewayException exception) {
     this.nextOrderStatusException = exception;
     this.nextOrderStatusResult = null;
@@ -112,6 +124,11 @@ public class FakePaymentGateway implements PaymentGateway {
   public GatewayPaymentResult createPayment(CreatePaymentCommand command) {
     this.lastCommand = command;
     this.createPaymentCallCount++;
+    if (duringCreate != null) {
+      Runnable action = duringCreate;
+      duringCreate = null;
+      action.run();
+    }
     if (nextCreateException != null) {
       PaymentGatewayException toThrow = nextCreateException;
       nextCreateException = null;
@@ -140,7 +157,8 @@ public class FakePaymentGateway implements PaymentGateway {
           "FakePaymentGateway: getOrderStatus chamado sem programacao previa");
     }
     GatewayOrderResult result = nextOrderStatusResult;
-    nextOrderStatusResult = null;
+    nextOrderStatusResult = followingOrderStatusResult;
+    followingOrderStatusResult = null;
     return result;
   }
 
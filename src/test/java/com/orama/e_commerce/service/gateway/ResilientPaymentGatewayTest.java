@@ -0,0 +1,239 @@
+package com.orama.e_commerce.service.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.orama.e_commerce.config.PaymentGatewayResilienceProperties;
+import com.orama.e_commerce.exceptions.payment.PaymentGatewayUnavailableException;
+import com.orama.e_commerce.exceptions.payment.PermanentPaymentGatewayException;
+import com.orama.e_commerce.exceptions.payment.TransientPaymentGatewayException;
+import com.orama.e_commerce.service.fake.FakePaymentGateway;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ResilientPaymentGatewayTest {
+
+  private static final GatewayOrderResult PROCESSED =
+      new GatewayOrderResult("MP-1", "processed", "accredited", "visa");
+
+  private final AtomicLong nanos = new AtomicLong();
+  private PaymentGatewayResilienceProperties properties;
+  private FakePaymentGateway fakeGateway;
+  private ResilientPaymentGateway gateway;
+
+  @BeforeEach
+  void setUp() {
+    properties = new PaymentGatewayResilienceProperties();
+    properties.setQueryTimeout(Duration.ofMillis(200));
+    properties.setSlidingWindowSize(4);
+    properties.setMinimumCalls(4);
+    properties.setFailureRateThreshold(50);
+    properties.setSlowCallThreshold(Duration.ofSeconds(1));
+    properties.setOpenDuration(Duration.ofSeconds(30));
+    properties.setHalfOpenProbes(2);
+    properties.setMaxConcurrentCalls(2);
+    properties.setMaxWaitForPermit(Duration.ofMillis(10));
+    fakeGateway = new FakePaymentGateway();
+    gateway = new ResilientPaymentGateway(fakeGateway, properties, nanos::get);
+  }
+
+  @AfterEach
+  void tearDown() {
+    gateway.shutdown();
+  }
+
+  @Test
+  @DisplayName("Circuito fechado: repassa o resultado do gateway")
+  void getOrderStatus_closedCircuit_delegates() {
+    fakeGateway.setNextOrderStatusResult(PROCESSED);
+
+    assertThat(gateway.getOrderStatus("MP-1")).isEqualTo(PROCESSED);
+    assertThat(fakeGateway.getLastQueriedOrderId()).isEqualTo("MP-1");
+    assertThat(gateway.metrics().successful()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Taxa de falhas no limite: abre e falha rapido sem chamar o gateway")
+  void getOrderStatus_failureRateReached_opensCircuit() {
+    succeed();
+    succeed();
+    fail();
+    fail();
+
+    assertThatThrownBy(() -> gateway.getOrderStatus("MP-1"))
+        .isInstanceOf(PaymentGatewayUnavailableException.class);
+    assertThat(fakeGateway.getGetOrderStatusCallCount()).isEqualTo(4);
+    assertThat(gateway.metrics().circuitState()).isEqualTo("OPEN");
+    assertThat(gateway.metrics().shortCircuited()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Erro permanente (4xx) nao abre o circuito")
+  void getOrderStatus_permanentErrors_keepCircuitClosed() {
+    for (int i = 0; i < 4; i++) {
+      fakeGateway.setNextOrderStatusException(new PermanentPaymentGatewayException("404"));
+      assertThatThrownBy(() -> gateway.getOrderStatus("MP-1"))
+          .isInstanceOf(PermanentPaymentGatewayException.class);
+    }
+
+    assertThat(gateway.metrics().circuitState()).isEqualTo("CLOSED");
+  }
+
+  @Test
+  @DisplayName("Chamadas lentas contam como falha")
+  void getOrderStatus_slowCalls_opensCircuit() {
+    PaymentGateway slow =
+        new FakePaymentGateway() {
+          @Override
+          public GatewayOrderResult getOrderStatus(String providerOrderId) {
+            nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+            return PROCESSED;
+          }
+        };
+    gateway.shutdown();
+    gateway = new ResilientPaymentGateway(slow, properties, nanos::get);
+
+    for (int i = 0; i < 4; i++) {
+      gateway.getOrderStatus("MP-1");
+    }
+
+    assertThat(gateway.metrics().circuitState()).isEqualTo("OPEN");
+  }
+
+  @Test
+  @DisplayName("Criacao mais lenta que o limite das consultas nao abre o circuito")
+  void createPayment_slowerThanQueryThreshold_keepsCircuitClosed() {
+    properties.setCreateSlowCallThreshold(Duration.ofSeconds(10));
+    PaymentGateway slowCreate =
+        new FakePaymentGateway() {
+          @Override
+          public GatewayPaymentResult createPayment(CreatePaymentCommand command) {
+            nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+            return new GatewayPaymentResult(
+                "MP-1", "PAY-1", "processed", null, "visa", null, null, null, null);
+          }
+        };
+    gateway.shutdown();
+    gateway = new ResilientPaymentGateway(slowCreate, properties, nanos::get);
+
+    for (int i = 0; i < 4; i++) {
+      gateway.createPayment(null);
+    }
+
+    assertThat(gateway.metrics().circuitState()).isEqualTo("CLOSED");
+  }
+
+  @Test
+  @DisplayName("Meio-aberto: sondas com sucesso fecham o circuito")
+  void getOrderStatus_halfOpenProbesSucceed_closesCircuit() {
+    openCircuit();
+    nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+
+    succeed();
+    assertThat(gateway.metrics().circuitState()).isEqualTo("HALF_OPEN");
+    succeed();
+
+    assertThat(gateway.metrics().circuitState()).isEqualTo("CLOSED");
+  }
+
+  @Test
+  @DisplayName("Meio-aberto: sonda com falha reabre o circuito")
+  void getOrderStatus_halfOpenProbeFails_reopensCircuit() {
+    openCircuit();
+    nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+
+    fail();
+
+    assertThat(gateway.metrics().circuitState()).isEqualTo("OPEN");
+    assertThatThrownBy(() -> gateway.getOrderStatus("MP-1"))
+        .isInstanceOf(PaymentGatewayUnavailableException.class);
+  }
+
+  @Test
+  @DisplayName("Gateway travado: timeout vira erro transiente")
+  void getOrderStatus_hangingGateway_timesOut() {
+    CountDownLatch release = new CountDownLatch(1);
+    gateway.shutdown();
+    gateway = new ResilientPaymentGateway(hanging(release), properties, nanos::get);
+
+    try {
+      assertThatThrownBy(() -> gateway.getOrderStatus("MP-1"))
+          .isInstanceOf(TransientPaymentGatewayException.class)
+          .isNotInstanceOf(PaymentGatewayUnavailableException.class)
+          .hasMessageContaining("Tempo esgotado");
+      assertThat(gateway.metrics().timedOut()).isEqualTo(1);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  @DisplayName("Bulkhead cheio: recusa na hora sem chamar o gateway")
+  void getOrderStatus_bulkheadFull_rejects() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch entered = new CountDownLatch(2);
+    properties.setQueryTimeout(Duration.ofSeconds(5));
+    gateway.shutdown();
+    gateway = new ResilientPaymentGateway(hanging(release, entered), properties, nanos::get);
+
+    CompletableFuture<?> first = CompletableFuture.runAsync(() -> gateway.getOrderStatus("A"));
+    CompletableFuture<?> second = CompletableFuture.runAsync(() -> gateway.getOrderStatus("B"));
+    assertThat(entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+    try {
+      assertThatThrownBy(() -> gateway.getOrderStatus("C"))
+          .isInstanceOf(PaymentGatewayUnavailableException.class)
+          .hasMessageContaining("simultaneas");
+      assertThat(gateway.metrics().rejected()).isEqualTo(1);
+      assertThat(gateway.metrics().inFlight()).isEqualTo(2);
+    } finally {
+      release.countDown();
+    }
+    CompletableFuture.allOf(first, second).get(2, TimeUnit.SECONDS);
+    assertThat(gateway.metrics().inFlight()).isZero();
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < 4; i++) {
+      fail();
+    }
+    assertThat(gateway.metrics().circuitState()).isEqualTo("OPEN");
+  }
+
+  private void succeed() {
+    fakeGateway.setNextOrderStatusResult(PROCESSED);
+    gateway.getOrderStatus("MP-1");
+  }
+
+  private void fail() {
+    fakeGateway.setNextOrderStatusException(new TransientPaymentGatewayException("503"));
+    assertThatThrownBy(() -> gateway.getOrderStatus("MP-1"))
+        .isInstanceOf(TransientPaymentGatewayException.class);
+  }
+
+  private static PaymentGateway hanging(CountDownLatch release) {
+    return hanging(release, new CountDownLatch(0));
+  }
+
+  private static PaymentGateway hanging(CountDownLatch release, CountDownLatch entered) {
+    return new FakePaymentGateway() {
+      @Override
+      public GatewayOrderResult getOrderStatus(String providerOrderId) {
+        entered.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return PROCESSED;
+      }
+    };
+  }
+}